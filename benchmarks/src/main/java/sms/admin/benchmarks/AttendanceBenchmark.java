@@ -0,0 +1,103 @@
+package sms.admin.benchmarks;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dev.finalproject.models.AttendanceLog;
+import dev.finalproject.models.Student;
+import sms.admin.util.attendance.AttendanceLogFilter;
+import sms.admin.util.attendance.CommonAttendanceUtil;
+
+/**
+ * Measures the attendance view's per-log work over a synthetic school year:
+ * computing the status of every log, and selecting the logs of the year's
+ * students with {@link AttendanceLogFilter} against the stream filter the
+ * attendance view used before, which searched the student ID list for every
+ * log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AttendanceBenchmark {
+
+    @Param({ "500", "2000" })
+    public int students;
+
+    private final LocalDate startDate = LocalDate.of(2024, 9, 1);
+    private final LocalDate endDate = LocalDate.of(2025, 8, 31);
+    private final LocalDate today = LocalDate.of(2025, 3, 15);
+    private List<AttendanceLog> logs;
+    private List<Integer> studentIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticData data = SyntheticData.forSchoolYear(students);
+        logs = data.getLogs();
+        // Half the students, as when another school year's logs are also loaded
+        studentIds = data.getStudents().stream()
+                .map(Student::getStudentID)
+                .filter(id -> id % 2 == 0)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void computeAttendanceStatus(Blackhole blackhole) {
+        for (AttendanceLog log : logs) {
+            blackhole.consume(CommonAttendanceUtil.computeAttendanceStatus(log));
+        }
+    }
+
+    @Benchmark
+    public List<AttendanceLog> filterLogs() {
+        return AttendanceLogFilter.filter(logs, studentIds, startDate, endDate, today);
+    }
+
+    /**
+     * The attendance view's filter before {@link AttendanceLogFilter}.
+     */
+    @Benchmark
+    @Measurement(iterations = 1)
+    @Warmup(iterations = 0)
+    public List<AttendanceLog> filterLogsStream() {
+        return logs.stream()
+                .filter(log -> log != null && log.getStudentID() != null
+                        && studentIds.contains(log.getStudentID().getStudentID()))
+                .filter(log -> {
+                    try {
+                        LocalDate logDate = LocalDate.of(log.getRecordID().getYear(),
+                                log.getRecordID().getMonth(), log.getRecordID().getDay());
+                        return !logDate.isBefore(startDate) && !logDate.isAfter(endDate);
+                    } catch (DateTimeException e) {
+                        return false;
+                    }
+                })
+                .filter(log -> {
+                    LocalDate logDate = LocalDate.of(log.getRecordID().getYear(),
+                            log.getRecordID().getMonth(), log.getRecordID().getDay());
+                    return !logDate.isAfter(today);
+                })
+                .filter(AttendanceLogFilter::isValid)
+                .sorted((a, b) -> a.getLogID() - b.getLogID())
+                .collect(Collectors.toList());
+    }
+}
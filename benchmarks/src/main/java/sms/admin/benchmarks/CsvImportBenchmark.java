@@ -0,0 +1,65 @@
+package sms.admin.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import sms.admin.util.enrollment.CsvImporter;
+import sms.admin.util.enrollment.CsvStudent;
+
+/**
+ * Measures parsing an enrollment CSV with {@link CsvImporter}, both collecting
+ * the students into a list and streaming them to a handler. The file includes
+ * multi-line quoted addresses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvImportBenchmark {
+
+    @Param({ "5000", "50000" })
+    public int rows;
+
+    private File csv;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        csv = Files.createTempFile("enrollment-benchmark", ".csv").toFile();
+        SyntheticData.writeEnrollmentCsv(csv.toPath(), rows, 42L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        csv.delete();
+    }
+
+    @Benchmark
+    public List<CsvStudent> importToList() throws IOException {
+        return CsvImporter.importCsv(csv);
+    }
+
+    @Benchmark
+    public CsvImporter.ImportReport importStreaming(Blackhole blackhole) throws IOException {
+        return CsvImporter.importCsv(csv, (student, line) -> blackhole.consume(student));
+    }
+}
@@ -0,0 +1,107 @@
+package sms.admin.benchmarks;
+
+import java.time.YearMonth;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.finalproject.models.Student;
+import sms.admin.util.qr.StudentKeyCipher;
+import sms.admin.util.qr.StudentKeyVerifier;
+
+/**
+ * Measures QR key scans per second: the original per-scan cipher setup and
+ * linear student search against {@link StudentKeyVerifier}, cold (every key
+ * decrypted) and warm (keys already verified), on one and on four scanner
+ * threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KeyVerificationBenchmark {
+
+    private static final String SCHOOL_YEAR = "2024-2025";
+
+    @Param({ "2000" })
+    public int students;
+
+    private List<Student> studentList;
+    private String[] keys;
+    private StudentKeyVerifier warmVerifier;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        studentList = SyntheticData.forMonth(students, YearMonth.of(2024, 10)).getStudents();
+        keys = new String[studentList.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = StudentKeyCipher.encrypt(studentList.get(i).getStudentID(), SCHOOL_YEAR);
+        }
+        warmVerifier = new StudentKeyVerifier(studentList);
+        for (String key : keys) {
+            warmVerifier.verify(key);
+        }
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+
+    @Benchmark
+    public Student legacyScan() throws Exception {
+        SecretKey secretKey = new SecretKeySpec("MySuperSecretKey".getBytes(), "AES");
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.DECRYPT_MODE, secretKey);
+        String[] parts = new String(cipher.doFinal(Base64.getDecoder().decode(randomKey()))).split("\\|");
+        int studentId = Integer.parseInt(parts[0]);
+        return studentList.stream()
+                .filter(student -> student.getStudentID() == studentId)
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Benchmark
+    public Student coldScan() throws Exception {
+        // Decrypts every time: the cache is bypassed by decrypting directly
+        String plain = StudentKeyCipher.decrypt(randomKey());
+        return warmVerifier.findStudent(Integer.parseInt(plain.substring(0, plain.indexOf('|'))));
+    }
+
+    @Benchmark
+    public StudentKeyVerifier.Result warmScan() {
+        return warmVerifier.verify(randomKey());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Student legacyScanFourScanners() throws Exception {
+        return legacyScan();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public StudentKeyVerifier.Result warmScanFourScanners() {
+        return warmVerifier.verify(randomKey());
+    }
+}
@@ -0,0 +1,149 @@
+package sms.admin.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dev.finalproject.models.AttendanceLog;
+import dev.finalproject.models.Student;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import sms.admin.util.attendance.AttendanceIndex;
+import sms.admin.util.attendance.AttendanceMatrix;
+import sms.admin.util.attendance.CommonAttendanceUtil;
+import sms.admin.util.exporter.exporterv2.DetailedPayrollExporter;
+
+/**
+ * Compares the in-memory (XSSF) and streaming (SXSSF) payroll export paths on
+ * a synthetic month, measures the per-student day count, and compares the
+ * per-cell linear status scan the exporter used to do against the indexed and
+ * packed-matrix lookups that replaced it.
+ *
+ * <p>
+ * Run with a bounded heap (for example {@code -jvmArgs -Xmx256m}) to see the
+ * memory difference between the two export modes.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PayrollExportBenchmark {
+
+    @Param({ "2000" })
+    public int students;
+
+    private final YearMonth month = YearMonth.of(2024, 10);
+    private List<Student> studentList;
+    private ObservableList<AttendanceLog> logs;
+    private List<LocalDate> workingDays;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SyntheticData data = SyntheticData.forMonth(students, month);
+        studentList = data.getStudents();
+        logs = FXCollections.observableArrayList(data.getLogs());
+        workingDays = month.atDay(1).datesUntil(month.atEndOfMonth().plusDays(1))
+                .filter(date -> !CommonAttendanceUtil.isWeekend(date))
+                .toList();
+        output = Files.createTempFile("payroll-benchmark", ".xlsx").toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        output.delete();
+    }
+
+    @Benchmark
+    public long exportInMemory() throws Exception {
+        DetailedPayrollExporter exporter = new DetailedPayrollExporter(month, month, logs);
+        exporter.setStreaming(false);
+        exporter.exportToExcel(studentList, "Payroll", output.getAbsolutePath());
+        return output.length();
+    }
+
+    @Benchmark
+    public long exportStreaming() throws Exception {
+        DetailedPayrollExporter exporter = new DetailedPayrollExporter(month, month, logs);
+        exporter.setStreaming(true);
+        exporter.exportToExcel(studentList, "Payroll", output.getAbsolutePath());
+        return output.length();
+    }
+
+    @Benchmark
+    public double calculateStudentDays() {
+        DetailedPayrollExporter exporter = new DetailedPayrollExporter(month, month, logs);
+        double total = 0;
+        for (Student student : studentList) {
+            total += exporter.calculateStudentDays(student, month);
+        }
+        return total;
+    }
+
+    /**
+     * The lookup the exporter performed for every student-day cell before the
+     * attendance index: a stream over every log.
+     */
+    @Benchmark
+    @Measurement(iterations = 1)
+    @Warmup(iterations = 0)
+    public void statusLinearScan(Blackhole blackhole) {
+        for (Student student : studentList) {
+            for (LocalDate date : workingDays) {
+                blackhole.consume(logs.stream()
+                        .filter(log -> log.getStudentID().getStudentID() == student.getStudentID()
+                                && log.getRecordID().getYear() == date.getYear()
+                                && log.getRecordID().getMonth() == date.getMonthValue()
+                                && log.getRecordID().getDay() == date.getDayOfMonth())
+                        .map(CommonAttendanceUtil::computeAttendanceStatus)
+                        .findFirst()
+                        .orElse(CommonAttendanceUtil.ABSENT_MARK));
+            }
+        }
+    }
+
+    @Benchmark
+    public void statusIndexed(Blackhole blackhole) {
+        AttendanceIndex index = new AttendanceIndex(logs);
+        for (Student student : studentList) {
+            index.findMonth(student.getStudentID(), month)
+                    .forEach((date, log) -> blackhole.consume(CommonAttendanceUtil.computeAttendanceStatus(log)));
+        }
+    }
+
+    /**
+     * Builds the packed status matrix the exporter and attendance view read
+     * from, then reads every cell.
+     */
+    @Benchmark
+    public void statusMatrix(Blackhole blackhole) {
+        AttendanceMatrix matrix = AttendanceMatrix.build(studentList, workingDays, logs);
+        for (Student student : studentList) {
+            for (LocalDate date : workingDays) {
+                blackhole.consume(matrix.get(student.getStudentID(), date));
+            }
+        }
+    }
+}
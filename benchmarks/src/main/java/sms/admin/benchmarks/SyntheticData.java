@@ -0,0 +1,157 @@
+package sms.admin.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import dev.finalproject.models.AttendanceLog;
+import dev.finalproject.models.AttendanceRecord;
+import dev.finalproject.models.Cluster;
+import dev.finalproject.models.SchoolYear;
+import dev.finalproject.models.Student;
+import sms.admin.util.attendance.CommonAttendanceUtil;
+
+/**
+ * Deterministic generator for synthetic students and attendance logs.
+ *
+ * <p>
+ * Every weekday gets a log per student with a realistic mix of statuses:
+ * roughly 80% present, 8% half day, 7% absent (no log) and 5% excused.
+ * </p>
+ */
+public final class SyntheticData {
+
+    private final List<Student> students;
+    private final List<AttendanceRecord> records = new ArrayList<>();
+    private final List<AttendanceLog> logs = new ArrayList<>();
+
+    /**
+     * Generates students and one school year of data from {@code firstMonth}
+     * through {@code lastMonth}.
+     *
+     * @param studentCount the number of students
+     * @param firstMonth   the first month with attendance
+     * @param lastMonth    the last month with attendance
+     * @param seed         the random seed
+     */
+    public SyntheticData(int studentCount, YearMonth firstMonth, YearMonth lastMonth, long seed) {
+        Random random = new Random(seed);
+        SchoolYear schoolYear = new SchoolYear(1, firstMonth.getYear(), lastMonth.getYear(),
+                firstMonth.getMonth().name(), lastMonth.getMonth().name(), 1, lastMonth.lengthOfMonth());
+
+        students = new ArrayList<>(studentCount);
+        for (int i = 1; i <= studentCount; i++) {
+            Cluster cluster = new Cluster(i, "Cluster " + (i % 20));
+            students.add(new Student(i, "First" + i, "Middle" + i, "Last" + i, null,
+                    "student" + i + "@example.com", "Active", "09" + (100000000 + i),
+                    java.sql.Date.valueOf(LocalDate.of(2008, 1, 1).plusDays(i % 365)),
+                    10 + random.nextInt(40), cluster, schoolYear, 0, null));
+        }
+
+        int recordId = 1;
+        int logId = 1;
+        for (YearMonth month = firstMonth; !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            for (int day = 1; day <= month.lengthOfMonth(); day++) {
+                LocalDate date = month.atDay(day);
+                if (CommonAttendanceUtil.isWeekend(date)) {
+                    continue;
+                }
+                AttendanceRecord record = new AttendanceRecord(recordId++, date.getMonthValue(),
+                        date.getDayOfMonth(), date.getYear());
+                records.add(record);
+                for (Student student : students) {
+                    int roll = random.nextInt(100);
+                    if (roll < 80) {
+                        logs.add(new AttendanceLog(logId++, record, student,
+                                CommonAttendanceUtil.TIME_IN_AM, CommonAttendanceUtil.TIME_OUT_AM,
+                                CommonAttendanceUtil.TIME_IN_PM, CommonAttendanceUtil.TIME_OUT_PM));
+                    } else if (roll < 88) {
+                        logs.add(new AttendanceLog(logId++, record, student,
+                                CommonAttendanceUtil.TIME_IN_AM, CommonAttendanceUtil.TIME_OUT_AM, 0, 0));
+                    } else if (roll < 95) {
+                        // Absent: no log at all
+                    } else {
+                        int excused = CommonAttendanceUtil.TIME_EXCUSED;
+                        logs.add(new AttendanceLog(logId++, record, student, excused, excused, excused, excused));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Convenience factory for a single month of data.
+     *
+     * @param studentCount the number of students
+     * @param month        the month
+     * @return the generated data
+     */
+    public static SyntheticData forMonth(int studentCount, YearMonth month) {
+        return new SyntheticData(studentCount, month, month, 42L);
+    }
+
+    /**
+     * Convenience factory for a ten-month school year, September 2024
+     * through June 2025.
+     *
+     * @param studentCount the number of students
+     * @return the generated data
+     */
+    public static SyntheticData forSchoolYear(int studentCount) {
+        return new SyntheticData(studentCount, YearMonth.of(2024, 9), YearMonth.of(2025, 6), 42L);
+    }
+
+    /**
+     * Writes an enrollment CSV in the layout of the enrollment form export:
+     * timestamp, email, first, middle and last name, address, cluster and
+     * contact. Every row is valid; about one in twenty has a two-line quoted
+     * address.
+     *
+     * @param file the file to write
+     * @param rows the number of student rows after the header
+     * @param seed the random seed
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeEnrollmentCsv(Path file, int rows, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("Timestamp,Email Address,First Name,Middle Name,Last Name,Address,Cluster,Contact Number");
+            writer.newLine();
+            for (int i = 1; i <= rows; i++) {
+                int roll = random.nextInt(100);
+                String address = roll < 5
+                        ? "\"Purok " + (i % 7) + ",\nBarangay " + (i % 40) + ", Cebu City, Cebu\""
+                        : "\"Purok " + (i % 7) + ", Barangay " + (i % 40) + ", Cebu City, Cebu\"";
+                writer.write(String.join(",",
+                        "2024/08/" + (10 + i % 20) + " 9:" + (10 + i % 50) + ":00 AM GMT+8",
+                        "student" + i + "@example.com",
+                        "First" + i,
+                        "Middle" + i,
+                        i % 25 == 0 ? "Last" + i + " Jr" : "Last" + i,
+                        address,
+                        "Cluster " + (i % 20),
+                        "09" + (100000000 + i)));
+                writer.newLine();
+            }
+        }
+    }
+
+    public List<Student> getStudents() {
+        return students;
+    }
+
+    public List<AttendanceRecord> getRecords() {
+        return records;
+    }
+
+    public List<AttendanceLog> getLogs() {
+        return logs;
+    }
+}
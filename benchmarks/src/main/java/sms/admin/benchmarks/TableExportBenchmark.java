@@ -0,0 +1,93 @@
+package sms.admin.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.finalproject.models.Student;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import sms.admin.util.exporter.UnifiedTableExporter;
+
+/**
+ * Measures {@link UnifiedTableExporter#exportToCsv} on a student table with
+ * the columns of the student list view.
+ *
+ * <p>
+ * Table controls need the JavaFX toolkit, which is started in the setup. On a
+ * machine without a display, run with the Monocle headless platform
+ * ({@code -jvmArgs "-Dglass.platform=Monocle -Dmonocle.platform=Headless"}).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TableExportBenchmark {
+
+    @Param({ "2000" })
+    public int students;
+
+    private TableView<Student> table;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try {
+            Platform.startup(() -> {
+            });
+        } catch (IllegalStateException alreadyStarted) {
+            // Started by an earlier trial in this JVM
+        }
+        table = new TableView<>(FXCollections.observableArrayList(
+                SyntheticData.forMonth(students, YearMonth.of(2024, 10)).getStudents()));
+        table.getColumns().add(column("ID", student -> String.valueOf(student.getStudentID())));
+        table.getColumns().add(column("First Name", Student::getFirstName));
+        table.getColumns().add(column("Middle Name", Student::getMiddleName));
+        table.getColumns().add(column("Last Name", Student::getLastName));
+        table.getColumns().add(column("Email", Student::getEmail));
+        table.getColumns().add(column("Contact", Student::getContact));
+        table.getColumns().add(column("Cluster",
+                student -> student.getClusterID() != null ? student.getClusterID().getClusterName() : ""));
+        output = Files.createTempFile("table-benchmark", ".csv").toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        output.delete();
+    }
+
+    @Benchmark
+    public long exportToCsv() throws IOException {
+        new UnifiedTableExporter<Student>().exportToCsv(table, "Students", output.getAbsolutePath());
+        return output.length();
+    }
+
+    private static TableColumn<Student, String> column(String title, Function<Student, String> value) {
+        TableColumn<Student, String> column = new TableColumn<>(title);
+        column.setCellValueFactory(features -> new SimpleStringProperty(value.apply(features.getValue())));
+        return column;
+    }
+}
@@ -16,6 +16,9 @@ module sms.admin {
     requires javafx.base;
     requires java.sql.rowset;
     requires java.desktop; // Add this line for AWT/Swing classes
+    requires java.management;
+    requires jdk.jfr;
+    requires org.apache.logging.log4j;
 
     // Add iText 7 module dependencies
     requires kernel;
@@ -51,4 +54,5 @@ module sms.admin {
     exports sms.admin.app.attendance.dialog;
     exports sms.admin.app.payroll.dialog;
     exports sms.admin.app.attendance_tool;
+    exports sms.admin.util.metrics;
 }
@@ -8,10 +8,14 @@ import dev.sol.core.application.FXApplication;
 import dev.sol.core.application.loader.FXLoaderFactory;
 import dev.sol.core.registry.FXCollectionsRegister;
 import dev.sol.core.scene.FXSkin;
+import javafx.concurrent.Task;
 import javafx.scene.image.Image;
 import javafx.stage.WindowEvent;
 import sms.admin.app.RootLoader;
+import sms.admin.util.db.DataRefresher;
 import sms.admin.util.db.DatabaseConnection;
+import sms.admin.util.db.StartupLoader;
+import sms.admin.util.metrics.PerfMetrics;
 
 /**
  * Main application class for the Student Management System Admin interface.
@@ -31,6 +35,7 @@ public class App extends FXApplication {
     @Override
     public void initialize() throws Exception {
         try {
+            PerfMetrics.start();
             configureApplication();
             initializeDataset();
             initializeApplication();
@@ -56,12 +61,14 @@ public class App extends FXApplication {
     }
 
     /**
-     * Initializes the dataset for the application using the DataManager.
+     * Loads the school years and students needed by the first screen. The
+     * remaining collections are loaded in the background once the UI is up.
      */
     public void initializeDataset() {
-        try {
-            DataManager.getInstance().initializeData();
-            LOGGER.info("Dataset initialized via DataManager");
+        try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.REFRESH, "StartupLoader.loadForeground")) {
+            StartupLoader.loadForeground();
+            DataRefresher.start();
+            LOGGER.info("School years and students loaded");
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Failed to initialize dataset", e);
             throw new RuntimeException("Dataset initialization failed", e);
@@ -73,11 +80,13 @@ public class App extends FXApplication {
      */
     private void initializeApplication() {
         try {
+            Task<Void> startupTask = StartupLoader.startBackground();
             RootLoader rootLoader = (RootLoader) FXLoaderFactory
                     .createInstance(RootLoader.class,
                             App.class.getResource("/sms/admin/app/ROOT.fxml"))
                     .addParameter("scene", applicationScene)
                     .addParameter("OWNER", applicationStage)
+                    .addParameter("startupTask", startupTask)
                     .initialize();
 
             applicationStage.requestFocus();
@@ -97,8 +106,10 @@ public class App extends FXApplication {
      */
     private void handleApplicationClose(WindowEvent event) {
         try {
-            // Close database connection and clear collections before exiting
+            // Stop the change feed, close database connection and clear collections before exiting
+            DataRefresher.stop();
             DatabaseConnection.closeConnection();
+            PerfMetrics.stop();
             clearCollections();
             applicationStage.hide();
         } catch (Exception e) {
@@ -3,29 +3,10 @@ package sms.admin.app;
 import java.io.File;
 import java.time.YearMonth;
 import java.util.Arrays;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.crypto.Cipher;
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
-import javax.imageio.ImageIO;
-
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.EncodeHintType;
-import com.google.zxing.WriterException;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
-
-import java.io.IOException;
-import java.awt.image.BufferedImage;
-import java.awt.Graphics2D;
-import java.awt.Color;
-import java.awt.Font;
-import java.awt.FontMetrics;
-
 import dev.finalproject.database.DataManager;
 import dev.finalproject.models.SchoolYear;
 import dev.finalproject.models.Student;
@@ -33,13 +14,18 @@ import dev.sol.core.application.FXController;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ChoiceDialog;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 import javafx.stage.DirectoryChooser;
 import sms.admin.app.attendance.AttendanceController;
@@ -54,6 +40,11 @@ import sms.admin.app.student.StudentLoader;
 import sms.admin.app.student.enrollment.EnrollmentController;
 import sms.admin.util.datetime.DateTimeUtils;
 import sms.admin.util.datetime.SchoolYearUtil;
+import sms.admin.util.db.DataRefresher;
+import sms.admin.util.db.StartupLoader;
+import sms.admin.util.dialog.TaskProgressDialog;
+import sms.admin.util.qr.QrBatchGenerator;
+import sms.admin.util.qr.StudentKeyVerifier;
 import sms.admin.util.scene.SceneLoaderUtil;
 
 /**
@@ -64,6 +55,10 @@ import sms.admin.util.scene.SceneLoaderUtil;
  */
 public class RootController extends FXController {
 
+    // QR code output choices, in the order of QrBatchGenerator.Output
+    private static final String[] QR_FORMATS = {
+            "Separate PNG files", "ZIP archive", "Printable PDF sheet" };
+
     @FXML
     private Button attendanceButton; // Button to navigate to attendance view
     @FXML
@@ -86,6 +81,12 @@ public class RootController extends FXController {
     private MenuItem deletedStudentMenuItem; // Menu item to view deleted students
     @FXML
     private MenuItem attendanceToolMenuItem; // Menu item to access attendance tools
+    @FXML
+    private HBox loadingBar; // Shown while the rest of the data loads after startup
+    @FXML
+    private ProgressBar loadingProgress; // Progress of the startup background load
+    @FXML
+    private Label loadingLabel; // What the startup background load is doing
 
     private ObservableList<SchoolYear> schoolYearList; // List of school years
     private String selectedMonth; // Selected month for filtering data
@@ -134,6 +135,56 @@ public class RootController extends FXController {
             yearComboBox.setValue(SchoolYearUtil.formatSchoolYear(currentSchoolYear));
         }
         handleStudentButton(); // Load student view by default
+        showStartupProgress();
+        StartupLoader.whenComplete(this::preloadViews);
+    }
+
+    /**
+     * Shows the progress of the startup background load and keeps the views
+     * that need attendance data disabled until it finishes.
+     */
+    @SuppressWarnings("unchecked")
+    private void showStartupProgress() {
+        Task<Void> startupTask = (Task<Void>) getParameter("startupTask");
+        if (startupTask == null || StartupLoader.isComplete()) {
+            loadingBar.setVisible(false);
+            loadingBar.setManaged(false);
+            return;
+        }
+        loadingProgress.progressProperty().bind(startupTask.progressProperty());
+        loadingLabel.textProperty().bind(startupTask.messageProperty());
+        attendanceButton.setDisable(true);
+        payrollButton.setDisable(true);
+        attendanceToolMenuItem.setDisable(true);
+        StartupLoader.whenComplete(() -> {
+            loadingProgress.progressProperty().unbind();
+            loadingLabel.textProperty().unbind();
+            loadingBar.setVisible(false);
+            loadingBar.setManaged(false);
+            attendanceButton.setDisable(false);
+            payrollButton.setDisable(false);
+            attendanceToolMenuItem.setDisable(false);
+        });
+    }
+
+    /**
+     * Preloads the attendance and payroll views for the selected year in the
+     * background so the first switch to them does not have to build them.
+     */
+    private void preloadViews() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("selectedYear", yearComboBox.getValue());
+        params.put("selectedMonth", selectedMonth);
+        SceneLoaderUtil.preload(
+                "/sms/admin/app/attendance/ATTENDANCE.fxml",
+                getClass(),
+                AttendanceLoader.class,
+                params);
+        SceneLoaderUtil.preload(
+                "/sms/admin/app/payroll/PAYROLL.fxml",
+                getClass(),
+                PayrollLoader.class,
+                params);
     }
 
     /**
@@ -153,7 +204,16 @@ public class RootController extends FXController {
         yearComboBox.valueProperty().addListener((obs, oldYear, newYear) -> {
             if (newYear != null && !newYear.equals(oldYear)) {
                 System.out.println("RootController: Year changed to " + newYear);
-                updateCurrentController(newYear);
+                SchoolYear selected = schoolYearList.stream()
+                        .filter(sy -> SchoolYearUtil.formatSchoolYear(sy).equals(newYear))
+                        .findFirst()
+                        .orElse(null);
+                if (selected == null) {
+                    updateCurrentController(newYear);
+                    return;
+                }
+                // Older school years' attendance is only loaded once selected
+                DataRefresher.includeAttendanceFrom(selected).thenRun(() -> updateCurrentController(newYear));
             }
         });
 
@@ -176,7 +236,7 @@ public class RootController extends FXController {
         Map<String, Object> params = new HashMap<>();
         params.put("selectedYear", yearComboBox.getValue());
         params.put("selectedMonth", selectedMonth);
-        DataManager.getInstance().refreshData();
+        DataRefresher.refresh();
         currentController = SceneLoaderUtil.loadScene(
                 "/sms/admin/app/student/STUDENT.fxml",
                 getClass(),
@@ -198,7 +258,7 @@ public class RootController extends FXController {
         String currentMonth = getCurrentControllerMonth();
         params.put("selectedYear", yearComboBox.getValue());
         params.put("selectedMonth", currentMonth);
-        DataManager.getInstance().refreshData();
+        DataRefresher.refresh();
 
         // Pass attendance logs if coming from attendance view
         if (currentController instanceof AttendanceController attendanceController) {
@@ -229,7 +289,7 @@ public class RootController extends FXController {
         String currentMonth = getCurrentControllerMonth();
         params.put("selectedYear", yearComboBox.getValue());
         params.put("selectedMonth", currentMonth);
-        DataManager.getInstance().refreshData();
+        DataRefresher.refresh();
 
         try {
             currentController = SceneLoaderUtil.loadScene(
@@ -313,61 +373,6 @@ public class RootController extends FXController {
                 .toList();
     }
 
-    /**
-     * Generates a QR code with the specified data and student name, saving it
-     * to the given file path.
-     *
-     * @param data        The data to encode in the QR code.
-     * @param filePath    The file path to save the QR code image.
-     * @param width       The width of the QR code image.
-     * @param height      The height of the QR code image.
-     * @param studentName The student's name to include below the QR code.
-     * @throws WriterException If QR code generation fails.
-     * @throws IOException     If image writing fails.
-     */
-    private void generateQRCode(String data, String filePath, int width, int height, String studentName)
-            throws WriterException, IOException {
-        try {
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            Map<EncodeHintType, Object> hints = new HashMap<>();
-            hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
-            BitMatrix bitMatrix = qrCodeWriter.encode(data, BarcodeFormat.QR_CODE, width, height, hints);
-
-            // Create image with space for text
-            int textHeight = 40;
-            BufferedImage qrImage = new BufferedImage(width, height + textHeight, BufferedImage.TYPE_INT_RGB);
-            Graphics2D graphics = qrImage.createGraphics();
-
-            // Draw white background
-            graphics.setColor(Color.WHITE);
-            graphics.fillRect(0, 0, width, height + textHeight);
-
-            // Draw QR code
-            graphics.setColor(Color.BLACK);
-            for (int x = 0; x < width; x++) {
-                for (int y = 0; y < height; y++) {
-                    if (bitMatrix.get(x, y)) {
-                        graphics.fillRect(x, y, 1, 1);
-                    }
-                }
-            }
-
-            // Draw student name
-            graphics.setColor(Color.BLACK);
-            graphics.setFont(new Font("Arial", Font.BOLD, 14));
-            FontMetrics metrics = graphics.getFontMetrics();
-            int x = (width - metrics.stringWidth(studentName)) / 2;
-            int y = height + (textHeight - metrics.getHeight()) / 2 + metrics.getAscent();
-            graphics.drawString(studentName, x, y);
-
-            // Save image
-            ImageIO.write(qrImage, "PNG", new File(filePath));
-            graphics.dispose();
-        } catch (IOException e) {
-            throw new IOException("Failed to write QR code to file: " + e.getMessage(), e);
-        }
-    }
-
     /**
      * Resets highlights and restores the current view's button highlight
      */
@@ -396,39 +401,45 @@ public class RootController extends FXController {
                 return; // User cancelled
             }
 
+            ChoiceDialog<String> formatDialog = new ChoiceDialog<>(QR_FORMATS[0], QR_FORMATS);
+            formatDialog.setTitle("Generate QR Codes");
+            formatDialog.setHeaderText("Choose how to save the QR codes");
+            formatDialog.initOwner(contentPane.getScene().getWindow());
+            String format = formatDialog.showAndWait().orElse(null);
+            if (format == null) {
+                return;
+            }
+            QrBatchGenerator.Output output = QrBatchGenerator.Output.values()[Arrays.asList(QR_FORMATS)
+                    .indexOf(format)];
+
             String currentYear = yearComboBox.getValue();
             List<Student> students = getStudentsForYear(currentYear);
-            byte[] fixedKey = "MySuperSecretKey".getBytes();
-            SecretKey secretKey = new SecretKeySpec(fixedKey, "AES");
-            Cipher cipher = Cipher.getInstance("AES");
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-
-            // Create QR codes directory
-            File qrDir = new File(selectedDirectory, "qr_codes");
-            qrDir.mkdirs();
-
-            for (Student student : students) {
-                String dataToEncrypt = student.getStudentID() + "|" + currentYear;
-                byte[] encryptedBytes = cipher.doFinal(dataToEncrypt.getBytes());
-                String encryptedKey = Base64.getEncoder().encodeToString(encryptedBytes);
 
-                String cleanName = student.getFullName()
-                        .replaceAll("[^a-zA-Z0-9]", "_")
-                        .replaceAll("\\s+", "_");
-
-                File qrFile = new File(qrDir, cleanName + ".png");
-                generateQRCode(encryptedKey, qrFile.getAbsolutePath(), 300, 300, student.getFullName());
-
-                System.out.println("Generated for: " + student.getFullName()
-                        + " (" + qrFile.getAbsolutePath() + ")");
-            }
-
-            // Show success alert after generating all QR codes
-            showSuccessAlert("Export Complete",
-                    "Successfully generated QR codes",
-                    "QR codes saved to:\n" + qrDir.getAbsolutePath());
-            handleMenuItemCompletion();
+            // Encrypt, render and write the codes in the background
+            QrBatchGenerator generator = new QrBatchGenerator(students, currentYear, selectedDirectory, output);
+            generator.setOnSucceeded(e -> {
+                showSuccessAlert("Export Complete",
+                        "Successfully generated " + students.size() + " QR codes",
+                        "QR codes saved to:\n" + generator.getValue().getAbsolutePath());
+                handleMenuItemCompletion();
+            });
+            generator.setOnFailed(e -> {
+                Throwable error = generator.getException();
+                System.err.println("QR code generation failed: " + error.getMessage());
+                error.printStackTrace();
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Export Error");
+                alert.setHeaderText("Failed to generate QR codes");
+                alert.setContentText("Error: " + error.getMessage());
+                alert.showAndWait();
+                handleMenuItemCompletion();
+            });
+            generator.setOnCancelled(e -> handleMenuItemCompletion());
 
+            TaskProgressDialog.show(contentPane.getScene().getWindow(), "Generating QR Codes", generator, null);
+            Thread generatorThread = new Thread(generator, "qr-generator");
+            generatorThread.setDaemon(true);
+            generatorThread.start();
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -449,47 +460,7 @@ public class RootController extends FXController {
      * @return A string containing the student information or an error message.
      */
     public static String decryptStudentKey(String encryptedKey) {
-        try {
-            byte[] fixedKey = "MySuperSecretKey".getBytes();
-            SecretKey secretKey = new SecretKeySpec(fixedKey, "AES");
-
-            Cipher cipher = Cipher.getInstance("AES");
-            cipher.init(Cipher.DECRYPT_MODE, secretKey);
-
-            byte[] decryptedBytes = cipher.doFinal(Base64.getDecoder().decode(encryptedKey));
-            String decryptedString = new String(decryptedBytes);
-
-            String[] parts = decryptedString.split("\\|");
-            int studentId = Integer.parseInt(parts[0]);
-            Student student = findStudentByStudentId(studentId);
-
-            String studentInfo = student != null
-                    ? String.format("Student: %s (Student ID: %d)", student.getFullName(), studentId)
-                    : "Unknown Student (Student ID: " + studentId + ")";
-
-            return studentInfo + ", School Year: " + parts[1];
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "Invalid key";
-        }
-    }
-
-    /**
-     * Finds a student by their student ID.
-     *
-     * @param studentId The student ID to search for.
-     * @return The Student object, or null if not found.
-     */
-    private static Student findStudentByStudentId(int studentId) {
-        return DataManager.getInstance()
-                .getCollectionsRegistry()
-                .getList("STUDENT")
-                .stream()
-                .filter(obj -> obj instanceof Student)
-                .map(obj -> (Student) obj)
-                .filter(student -> student.getStudentID() == studentId)
-                .findFirst()
-                .orElse(null);
+        return StudentKeyVerifier.shared().describe(encryptedKey);
     }
 
     /**
@@ -520,8 +491,7 @@ public class RootController extends FXController {
             SchoolYearDialog dialog = new SchoolYearDialog(null);
             dialog.showAndWait().ifPresent(newSchoolYear -> {
                 if (newSchoolYear != null) {
-                    Platform.runLater(() -> {
-                        DataManager.getInstance().refreshData();
+                    DataRefresher.refresh("SCHOOL_YEAR").thenRun(() -> {
                         List<SchoolYear> updatedList = DataManager.getInstance().getCollectionsRegistry()
                                 .getList("SCHOOL_YEAR");
 
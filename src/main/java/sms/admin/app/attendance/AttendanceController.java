@@ -1,17 +1,14 @@
 package sms.admin.app.attendance;
 
-import java.time.DateTimeException;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.NavigableMap;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
-import dev.finalproject.data.StudentDAO;
 import dev.finalproject.database.DataManager;
 import dev.finalproject.models.AttendanceLog;
 import dev.finalproject.models.Student;
@@ -35,10 +32,14 @@ import javafx.scene.layout.BorderPane;
 import javafx.scene.control.Button;
 import sms.admin.app.attendance.dialog.AttendanceLogDialogLoader;
 import sms.admin.util.attendance.AttendanceEditUtil;
+import sms.admin.util.attendance.AttendanceLogFilter;
+import sms.admin.util.attendance.AttendanceMatrix;
 import sms.admin.util.attendance.CommonAttendanceUtil;
 import sms.admin.util.attendance.TableColumnUtil;
 import sms.admin.util.attendance.WeeklyAttendanceUtil;
 import sms.admin.util.datetime.DateTimeUtils;
+import sms.admin.util.db.DataRefresher;
+import sms.admin.util.scene.RestorableView;
 import sms.admin.app.attendance.dialog.AttendanceSettingsDialogLoader;
 import sms.admin.app.attendance.model.AttendanceSettings;
 
@@ -49,7 +50,9 @@ import sms.admin.app.attendance.model.AttendanceSettings;
  * attendance in a table,
  * allowing for editing, marking holidays, and exporting data.
  */
-public class AttendanceController extends FXController {
+public class AttendanceController extends FXController implements RestorableView {
+
+    private static final int COLUMN_TREE_CACHE_SIZE = 6; // Months of column trees kept for reuse
 
     @FXML
     private ComboBox<String> monthYearComboBox;
@@ -77,8 +80,16 @@ public class AttendanceController extends FXController {
 
     private ObservableList<Student> studentList = FXCollections.observableArrayList();
     private final ObservableList<AttendanceLog> masterAttendanceLogs = FXCollections.observableArrayList();
-    private final NavigableMap<LocalDate, Map<Integer, AttendanceLog>> dateToStudentLogs = new TreeMap<>();
+    private AttendanceMatrix attendanceMatrix = AttendanceMatrix.empty();
     private boolean isMonthChanging = false;
+    private final ContextMenu cellMenu = new ContextMenu();
+    private final Map<String, List<TableColumn<Student, String>>> columnTreeCache = new LinkedHashMap<>(16, 0.75f,
+            true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<TableColumn<Student, String>>> eldest) {
+            return size() > COLUMN_TREE_CACHE_SIZE;
+        }
+    };
     private String currentYear;
 
     /**
@@ -100,19 +111,6 @@ public class AttendanceController extends FXController {
             setupMonthColumns();
             updateStudentCountLabels();
         }
-
-        // Add listener to TableView's widthProperty for better resize handling
-        attendanceTable.widthProperty().addListener((obs, oldWidth, newWidth) -> {
-            if (newWidth.doubleValue() > 0) {
-                double width = newWidth.doubleValue();
-                System.out.println("TableView width changed to: " + width);
-                TableColumnUtil.configureBasicColumns(colNo, colFullName, width);
-                Platform.runLater(() -> {
-                    setupMonthColumns();
-                    attendanceTable.refresh();
-                });
-            }
-        });
     }
 
     /**
@@ -123,7 +121,8 @@ public class AttendanceController extends FXController {
     private void initializeStudentList(String year) {
         try {
             int startYear = Integer.parseInt(year.split("-")[0]);
-            List<Student> students = StudentDAO.getStudentList().stream()
+            List<Student> registryStudents = DataManager.getInstance().getCollectionsRegistry().getList("STUDENT");
+            List<Student> students = registryStudents.stream()
                     .filter(s -> s != null && s.getYearID() != null
                             && s.getYearID().getYearStart() == startYear
                             && s.isDeleted() == 0)
@@ -143,7 +142,6 @@ public class AttendanceController extends FXController {
     private void loadAttendanceLogs() {
         try {
             masterAttendanceLogs.clear();
-            dateToStudentLogs.clear();
 
             List<AttendanceLog> allLogs = DataManager.getInstance()
                     .getCollectionsRegistry()
@@ -158,13 +156,13 @@ public class AttendanceController extends FXController {
             LocalDate startDate = getAcademicYearStartDate(currentYear);
             LocalDate endDate = getAcademicYearEndDate(currentYear);
 
-            // Filter logs using a separate method
-            List<AttendanceLog> filteredLogs = filterLogs(allLogs, studentIds, startDate, endDate);
+            List<AttendanceLog> filteredLogs = AttendanceLogFilter.filter(allLogs, studentIds, startDate, endDate);
 
             // Update UI on the JavaFX thread
             Platform.runLater(() -> {
                 masterAttendanceLogs.setAll(filteredLogs);
-                updateDateToStudentLogs();
+                attendanceMatrix = AttendanceMatrix.build(studentList,
+                        AttendanceMatrix.schoolDays(startDate, endDate), filteredLogs);
                 attendanceTable.refresh();
             });
         } catch (NullPointerException e) {
@@ -178,37 +176,6 @@ public class AttendanceController extends FXController {
         }
     }
 
-    /**
-     * Filters attendance logs based on student IDs, date range, and validity.
-     *
-     * @param allLogs    List of all attendance logs to filter
-     * @param studentIds List of student IDs to include
-     * @param startDate  Start of the academic year
-     * @param endDate    End of the academic year
-     * @return Filtered list of attendance logs
-     */
-    private List<AttendanceLog> filterLogs(List<AttendanceLog> allLogs, List<Integer> studentIds,
-            LocalDate startDate, LocalDate endDate) {
-        return allLogs.stream()
-                .filter(log -> log != null && log.getStudentID() != null
-                        && studentIds.contains(log.getStudentID().getStudentID()))
-                .filter(log -> {
-                    try {
-                        LocalDate logDate = LocalDate.of(
-                                log.getRecordID().getYear(),
-                                log.getRecordID().getMonth(),
-                                log.getRecordID().getDay());
-                        return !logDate.isBefore(startDate) && !logDate.isAfter(endDate);
-                    } catch (DateTimeException e) {
-                        return false; // Exclude logs with invalid dates
-                    }
-                })
-                .filter(log -> !isFutureDate(log)) // Exclude future dates
-                .filter(this::isValidLog) // Exclude invalid logs
-                .sorted((a, b) -> a.getLogID() - b.getLogID()) // Sort by log ID
-                .collect(Collectors.toList());
-    }
-
     /**
      * Gets the start date of the academic year.
      *
@@ -239,70 +206,11 @@ public class AttendanceController extends FXController {
     private void handleEmptyLogs(String message) {
         Platform.runLater(() -> {
             masterAttendanceLogs.clear();
-            dateToStudentLogs.clear();
+            attendanceMatrix = AttendanceMatrix.empty();
             attendanceTable.refresh();
         });
     }
 
-    /**
-     * Checks if an attendance log is valid.
-     *
-     * @param log The attendance log to check.
-     * @return true if the log is valid, false otherwise.
-     */
-    private boolean isValidLog(AttendanceLog log) {
-        return log != null
-                && log.getRecordID() != null
-                && log.getStudentID() != null
-                && log.getTimeInAM() >= -2
-                && log.getTimeOutAM() >= -2
-                && log.getTimeInPM() >= -2
-                && log.getTimeOutPM() >= -2;
-    }
-
-    /**
-     * Checks if the date of the attendance log is in the future.
-     *
-     * @param log The attendance log to check.
-     * @return true if the date is in the future, false otherwise.
-     */
-    private boolean isFutureDate(AttendanceLog log) {
-        if (log == null || log.getRecordID() == null) {
-            return true;
-        }
-        try {
-            LocalDate logDate = LocalDate.of(
-                    log.getRecordID().getYear(),
-                    log.getRecordID().getMonth(),
-                    log.getRecordID().getDay());
-            return logDate.isAfter(LocalDate.now());
-        } catch (DateTimeException e) {
-            return true;
-        }
-    }
-
-    /**
-     * Updates the date-to-student logs mapping for quick access.
-     */
-    private void updateDateToStudentLogs() {
-        try {
-            dateToStudentLogs.clear();
-            for (AttendanceLog log : masterAttendanceLogs) {
-                if (log == null || log.getRecordID() == null || log.getStudentID() == null) {
-                    continue;
-                }
-                LocalDate date = LocalDate.of(
-                        log.getRecordID().getYear(),
-                        log.getRecordID().getMonth(),
-                        log.getRecordID().getDay());
-                dateToStudentLogs.computeIfAbsent(date, k -> new HashMap<>())
-                        .put(log.getStudentID().getStudentID(), log);
-            }
-        } catch (Exception e) {
-            System.err.println("Error mapping logs: " + e.getMessage());
-        }
-    }
-
     /**
      * Loads bindings for UI components, such as resizing with the window.
      */
@@ -319,12 +227,7 @@ public class AttendanceController extends FXController {
         double nameWidth = colFullName.getWidth();
         double padding = 20;
 
-        double available = Math.max(tableWidth - noWidth - nameWidth - padding, 400);
-        System.out.println("Available width: " + available +
-                " (Table: " + tableWidth +
-                ", No: " + noWidth +
-                ", Name: " + nameWidth + ")");
-        return available;
+        return Math.max(tableWidth - noWidth - nameWidth - padding, 400);
     }
 
     /**
@@ -376,15 +279,17 @@ public class AttendanceController extends FXController {
 
     /**
      * Sets up the month columns in the table based on the selected month.
+     * Column trees are cached per month and attendance window, so switching
+     * back to a month reuses its columns instead of rebuilding them.
      */
     private void setupMonthColumns() {
         if (isMonthChanging)
             return;
         isMonthChanging = true;
 
-        monthAttendanceColumn.getColumns().clear();
         String monthYear = monthYearComboBox.getValue();
         if (monthYear == null) {
+            monthAttendanceColumn.getColumns().clear();
             isMonthChanging = false;
             return;
         }
@@ -396,21 +301,24 @@ public class AttendanceController extends FXController {
         LocalDate startDate = firstDayOfMonth.withDayOfMonth(settings.getStartDay());
         LocalDate endDate = firstDayOfMonth.withDayOfMonth(settings.getEndDay());
 
-        List<WeeklyAttendanceUtil.WeekDates> allWeeks = WeeklyAttendanceUtil.splitIntoWeeks(startDate, endDate);
-
-        // Use the new width calculation method
+        // Cells for future dates are built differently, so today is part of the key
+        String cacheKey = startDate + "|" + endDate + "|" + LocalDate.now();
+        List<TableColumn<Student, String>> weekColumns = columnTreeCache.get(cacheKey);
         double availableWidth = calculateAvailableWidth();
-        int totalDays = allWeeks.stream().mapToInt(WeeklyAttendanceUtil::calculateWorkingDays).sum();
-        double dayWidth = Math.max(30, availableWidth / Math.max(totalDays, 1));
-
-        // Create columns
-        AtomicInteger weekNum = new AtomicInteger(1);
-        List<TableColumn<Student, String>> weekColumns = allWeeks.stream()
-                .filter(WeeklyAttendanceUtil.WeekDates::hasWorkingDays)
-                .map(week -> createWeekColumn(week, weekNum.getAndIncrement(), dayWidth))
-                .collect(Collectors.toList());
+        if (weekColumns == null) {
+            List<WeeklyAttendanceUtil.WeekDates> allWeeks = WeeklyAttendanceUtil.splitIntoWeeks(startDate, endDate);
+            int totalDays = allWeeks.stream().mapToInt(WeeklyAttendanceUtil::calculateWorkingDays).sum();
+            double dayWidth = Math.max(30, availableWidth / Math.max(totalDays, 1));
+
+            AtomicInteger weekNum = new AtomicInteger(1);
+            weekColumns = allWeeks.stream()
+                    .filter(WeeklyAttendanceUtil.WeekDates::hasWorkingDays)
+                    .map(week -> createWeekColumn(week, weekNum.getAndIncrement(), dayWidth))
+                    .collect(Collectors.toList());
+            columnTreeCache.put(cacheKey, weekColumns);
+        }
 
-        monthAttendanceColumn.getColumns().addAll(weekColumns);
+        monthAttendanceColumn.getColumns().setAll(weekColumns);
 
         if (monthAttendanceColumn.getPrefWidth() == 0 || availableWidth > monthAttendanceColumn.getPrefWidth()) {
             monthAttendanceColumn.setPrefWidth(availableWidth);
@@ -466,15 +374,7 @@ public class AttendanceController extends FXController {
             if (student == null || date.isAfter(LocalDate.now())) {
                 return new SimpleStringProperty("-");
             }
-            Map<Integer, AttendanceLog> logsForDate = dateToStudentLogs.get(date);
-            if (logsForDate != null) {
-                AttendanceLog log = logsForDate.get(student.getStudentID());
-                if (log != null) {
-                    String status = CommonAttendanceUtil.computeAttendanceStatus(log);
-                    return new SimpleStringProperty(status);
-                }
-            }
-            return new SimpleStringProperty(CommonAttendanceUtil.ABSENT_MARK);
+            return new SimpleStringProperty(attendanceMatrix.getMark(student.getStudentID(), date));
         });
         col.setMinWidth(width);
         col.setPrefWidth(width);
@@ -488,7 +388,8 @@ public class AttendanceController extends FXController {
     }
 
     /**
-     * Creates a custom table cell for attendance data.
+     * Creates a custom table cell for attendance data. The context menu is
+     * built only when it is requested, from the cell's current item.
      *
      * @param date The date for the cell.
      * @return The custom table cell.
@@ -499,43 +400,35 @@ public class AttendanceController extends FXController {
             protected void updateItem(String item, boolean empty) {
                 super.updateItem(item, empty);
                 setGraphic(null);
-                getStyleClass().removeAll("holiday");
                 setStyle(null); // Clear any inline styles
+                boolean holiday = false;
 
                 if (empty || getTableRow() == null || getTableRow().getItem() == null) {
                     setText(null);
-                    setContextMenu(null);
                 } else if (date.isAfter(LocalDate.now())) {
                     setText("-");
                     setStyle("-fx-text-fill: #999999;");
                 } else {
                     setText(item);
-                    if (CommonAttendanceUtil.HOLIDAY_MARK.equals(item)) {
-                        getStyleClass().addAll("holiday", "table-cell");
-                    }
-
-                    // Create context menu
-                    ContextMenu menu = new ContextMenu();
-                    MenuItem viewItem = new MenuItem("View Attendance Log");
-                    viewItem.setOnAction(e -> showAttendanceLogDialog(getTableRow().getItem(), date));
-                    menu.getItems().add(viewItem);
-
-                    if (!CommonAttendanceUtil.HOLIDAY_MARK.equals(item)) {
-                        MenuItem editItem = new MenuItem("Edit Attendance");
-                        editItem.setOnAction(e -> editCell(this, date));
-                        menu.getItems().add(editItem);
-                        MenuItem holidayItem = new MenuItem("Mark as Holiday");
-                        holidayItem.setOnAction(e -> markDayAsHoliday(date));
-                        menu.getItems().add(holidayItem);
-                    } else {
-                        MenuItem unmarkItem = new MenuItem("Unmark as Holiday");
-                        unmarkItem.setOnAction(e -> unmarkDayAsHoliday(date));
-                        menu.getItems().add(unmarkItem);
+                    holiday = CommonAttendanceUtil.HOLIDAY_MARK.equals(item);
+                }
+                if (holiday) {
+                    if (!getStyleClass().contains("holiday")) {
+                        getStyleClass().add("holiday");
                     }
-                    setContextMenu(menu);
+                } else {
+                    getStyleClass().remove("holiday");
                 }
             }
         };
+        cell.setOnContextMenuRequested(event -> {
+            if (!cell.isEmpty() && cell.getTableRow() != null && cell.getTableRow().getItem() != null
+                    && !date.isAfter(LocalDate.now())) {
+                populateCellMenu(cell, date);
+                cellMenu.show(cell, event.getScreenX(), event.getScreenY());
+            }
+            event.consume();
+        });
         if (!date.isAfter(LocalDate.now())) {
             cell.setOnMouseClicked(event -> {
                 if (event.getClickCount() == 2) {
@@ -546,6 +439,33 @@ public class AttendanceController extends FXController {
         return cell;
     }
 
+    /**
+     * Fills the shared cell context menu with the actions for one cell.
+     *
+     * @param cell The cell the menu is shown for.
+     * @param date The date of the cell.
+     */
+    private void populateCellMenu(TableCell<Student, String> cell, LocalDate date) {
+        Student student = cell.getTableRow().getItem();
+        MenuItem viewItem = new MenuItem("View Attendance Log");
+        viewItem.setOnAction(e -> showAttendanceLogDialog(student, date));
+        cellMenu.getItems().setAll(viewItem);
+
+        if (!CommonAttendanceUtil.HOLIDAY_MARK.equals(cell.getItem())) {
+            MenuItem editItem = new MenuItem("Edit Attendance");
+            editItem.setOnAction(e -> editCell(cell, date));
+            MenuItem holidayItem = new MenuItem("Mark as Holiday");
+            holidayItem.setOnAction(e -> markDayAsHoliday(date));
+            MenuItem weekHolidayItem = new MenuItem("Mark Week as Holiday");
+            weekHolidayItem.setOnAction(e -> markWeekAsHoliday(date));
+            cellMenu.getItems().addAll(editItem, holidayItem, weekHolidayItem);
+        } else {
+            MenuItem unmarkItem = new MenuItem("Unmark as Holiday");
+            unmarkItem.setOnAction(e -> unmarkDayAsHoliday(date));
+            cellMenu.getItems().add(unmarkItem);
+        }
+    }
+
     /**
      * Edits the attendance for a specific cell.
      *
@@ -563,11 +483,9 @@ public class AttendanceController extends FXController {
         }
         AttendanceEditUtil.handleAttendanceEdit(cell, student, date, masterAttendanceLogs, updatedLog -> {
             if (updatedLog != null) {
-                Platform.runLater(() -> {
-                    DataManager.getInstance().refreshData();
-                    loadAttendanceLogs();
-                    setupMonthColumns(); // Refresh all columns
-                });
+                // The writer already updated the log lists; patch the cell and repaint
+                attendanceMatrix.update(updatedLog);
+                attendanceTable.refresh();
             }
             cell.setGraphic(null);
         });
@@ -582,7 +500,6 @@ public class AttendanceController extends FXController {
         AttendanceEditUtil.markDayAsHoliday(date, studentList, masterAttendanceLogs, success -> {
             if (success) {
                 Platform.runLater(() -> {
-                    DataManager.getInstance().refreshData();
                     loadAttendanceLogs();
                     setupMonthColumns(); // Refresh all columns
                 });
@@ -590,6 +507,28 @@ public class AttendanceController extends FXController {
         });
     }
 
+    /**
+     * Marks the school days of the week containing a date as holidays, up to
+     * today.
+     *
+     * @param date A date in the week to mark.
+     */
+    private void markWeekAsHoliday(LocalDate date) {
+        LocalDate monday = date.with(DayOfWeek.MONDAY);
+        LocalDate friday = date.with(DayOfWeek.FRIDAY);
+        LocalDate end = friday.isAfter(LocalDate.now()) ? LocalDate.now() : friday;
+        // The week may leave the loaded range, so write against every log; the view reloads afterwards
+        ObservableList<AttendanceLog> allLogs = DataManager.getInstance()
+                .getCollectionsRegistry()
+                .getList("ATTENDANCE_LOG");
+        AttendanceEditUtil.markHolidays(monday, end, studentList, allLogs, success -> {
+            if (success) {
+                loadAttendanceLogs();
+                setupMonthColumns();
+            }
+        });
+    }
+
     /**
      * Unmarks a day as a holiday.
      *
@@ -599,7 +538,6 @@ public class AttendanceController extends FXController {
         AttendanceEditUtil.unmarkDayAsHoliday(date, masterAttendanceLogs, success -> {
             if (success) {
                 Platform.runLater(() -> {
-                    DataManager.getInstance().refreshData();
                     loadAttendanceLogs();
                     setupMonthColumns();
                 });
@@ -727,13 +665,24 @@ public class AttendanceController extends FXController {
         }
     }
 
+    /**
+     * Reloads the students and attendance logs of the current year from the
+     * shared collections when the cached view is shown again.
+     *
+     * @param parameters the navigation parameters (unused)
+     */
+    @Override
+    public void onViewRestored(Map<String, Object> parameters) {
+        initializeStudentList(currentYear);
+        loadAttendanceLogs();
+        updateStudentCountLabels();
+        attendanceTable.refresh();
+    }
+
     /**
      * Refreshes the attendance view by reloading the data
      */
     public void refreshView() {
-        Platform.runLater(() -> {
-            DataManager.getInstance().refreshData();
-            attendanceTable.refresh();
-        });
+        DataRefresher.refresh().thenRun(this::loadAttendanceLogs);
     }
 }
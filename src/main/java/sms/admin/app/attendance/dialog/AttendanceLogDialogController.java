@@ -1,6 +1,7 @@
 package sms.admin.app.attendance.dialog;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +25,7 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.Tooltip;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import sms.admin.util.attendance.AttendanceIndex;
 import sms.admin.util.attendance.CommonAttendanceUtil;
 import sms.admin.util.dialog.DialogManager;
 
@@ -140,18 +142,14 @@ public class AttendanceLogDialogController extends FXController {
 
         // Fill in actual logs, excluding weekends
         if (allLogs != null) {
-            allLogs.stream()
-                    .filter(l -> l != null &&
-                            l.getStudentID() != null &&
-                            l.getStudentID().getStudentID() == currentStudent.getStudentID() &&
-                            l.getRecordID() != null &&
-                            l.getRecordID().getYear() == currentDate.getYear() &&
-                            l.getRecordID().getMonth() == currentDate.getMonthValue() &&
-                            !CommonAttendanceUtil.isWeekend(LocalDate.of(
-                                    l.getRecordID().getYear(),
-                                    l.getRecordID().getMonth(),
-                                    l.getRecordID().getDay())))
-                    .forEach(log -> monthLogs.put(log.getRecordID().getDay(), log));
+            YearMonth month = YearMonth.from(currentDate);
+            AttendanceIndex.forLogs(allLogs)
+                    .findMonth(currentStudent.getStudentID(), month)
+                    .forEach((logDate, log) -> {
+                        if (!CommonAttendanceUtil.isWeekend(logDate)) {
+                            monthLogs.put(logDate.getDayOfMonth(), log);
+                        }
+                    });
         }
 
         // Create observable list with all weekdays
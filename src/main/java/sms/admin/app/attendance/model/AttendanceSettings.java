@@ -2,23 +2,29 @@ package sms.admin.app.attendance.model;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import dev.finalproject.data.SettingsDAO;
-import dev.finalproject.database.DataManager;
 import dev.finalproject.models.Settings;
 import sms.admin.util.attendance.WeeklyAttendanceUtil;
+import sms.admin.util.db.DataRefresher;
+import sms.admin.util.db.DatabaseRetryHelper;
+import sms.admin.util.db.DatabaseRetryHelper.RetryPolicy;
+import sms.admin.util.metrics.PerfMetrics;
 
 /**
  * Represents the attendance settings for a specific month, including the start
  * and end days.
  * This class manages loading, updating, and persisting attendance settings to
- * the database.
+ * the database. Writes run one after another on a database worker thread with
+ * retries, so changing the range never blocks the JavaFX thread.
  */
 public class AttendanceSettings {
     private int startDay;
     private int endDay;
     private Settings dbSettings;
     private String monthYear;
+    private CompletableFuture<Void> pendingWrite = CompletableFuture.completedFuture(null);
 
     /**
      * Default constructor that initializes the settings with the first and last day
@@ -53,7 +59,8 @@ public class AttendanceSettings {
             LocalDate firstDay = WeeklyAttendanceUtil.getFirstDayOfMonth(monthYear);
             int lastDayOfMonth = firstDay.lengthOfMonth();
 
-            List<Settings> settingsList = SettingsDAO.getSettingsList();
+            List<Settings> settingsList = PerfMetrics.get(PerfMetrics.DAO, "SettingsDAO.getSettingsList",
+                    SettingsDAO::getSettingsList);
             dbSettings = settingsList.stream()
                     .filter(s -> monthYear.equals(s.getSettingsID()))
                     .findFirst()
@@ -65,7 +72,7 @@ public class AttendanceSettings {
             } else {
                 // Create new settings using the actual last day of the month
                 dbSettings = new Settings(monthYear, 1, lastDayOfMonth);
-                SettingsDAO.insert(dbSettings);
+                write("SettingsDAO.insert", dbSettings);
                 this.startDay = 1;
                 this.endDay = lastDayOfMonth;
             }
@@ -121,22 +128,49 @@ public class AttendanceSettings {
      * If settings do not exist, they are inserted; otherwise, they are updated.
      */
     private void updateDatabase() {
-        try {
-            if (dbSettings == null) {
-                dbSettings = new Settings(monthYear, startDay, endDay);
-                SettingsDAO.insert(dbSettings);
-            } else {
-                dbSettings.setStart(startDay);
-                dbSettings.setEnd(endDay);
-                SettingsDAO.update(dbSettings);
-            }
-            DataManager.getInstance().refreshData();
-        } catch (Exception e) {
-            System.err.println("Error updating settings: " + e.getMessage());
-            e.printStackTrace();
+        if (dbSettings == null) {
+            dbSettings = new Settings(monthYear, startDay, endDay);
+            write("SettingsDAO.insert", dbSettings);
+        } else {
+            dbSettings.setStart(startDay);
+            dbSettings.setEnd(endDay);
+            write("SettingsDAO.update", dbSettings);
         }
     }
 
+    /**
+     * Queues a settings write after any earlier one, so an update never runs
+     * before the insert it depends on or overtakes a later change. The shared
+     * settings are reloaded on the JavaFX thread once the write succeeds.
+     *
+     * @param operation the DAO call, {@code SettingsDAO.insert} or
+     *                  {@code SettingsDAO.update}
+     * @param settings  the settings row to write
+     */
+    private void write(String operation, Settings settings) {
+        boolean insert = operation.equals("SettingsDAO.insert");
+        pendingWrite = pendingWrite
+                .thenCompose(ignored -> DatabaseRetryHelper.withRetryAsync(() -> {
+                    try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, operation)) {
+                        if (insert) {
+                            SettingsDAO.insert(settings);
+                        } else {
+                            SettingsDAO.update(settings);
+                        }
+                    }
+                    return null;
+                }, insert ? RetryPolicy.ONCE : RetryPolicy.DEFAULT))
+                .handle((ignored, error) -> {
+                    if (error != null) {
+                        System.err.println("Error updating settings: " + error.getMessage());
+                        error.printStackTrace();
+                    } else {
+                        DataRefresher.refresh("SETTINGS");
+                    }
+                    return null;
+                });
+    }
+
     /**
      * Creates a copy of the current settings.
      *
@@ -146,6 +180,7 @@ public class AttendanceSettings {
         AttendanceSettings copy = new AttendanceSettings(this.startDay, this.endDay);
         copy.monthYear = this.monthYear;
         copy.dbSettings = this.dbSettings;
+        copy.pendingWrite = this.pendingWrite;
         return copy;
     }
 
@@ -3,9 +3,8 @@ package sms.admin.app.attendance_tool;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
-import dev.finalproject.data.AttendanceLogDAO;
-import dev.finalproject.data.AttendanceRecordDAO;
 import dev.finalproject.database.DataManager;
 import dev.finalproject.models.AttendanceLog;
 import dev.finalproject.models.AttendanceRecord;
@@ -29,7 +28,10 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.util.Duration;
+import sms.admin.util.attendance.AttendanceIndex;
+import sms.admin.util.attendance.AttendanceIngestQueue;
 import sms.admin.util.datetime.SchoolYearUtil;
+import sms.admin.util.qr.StudentKeyVerifier;
 
 public class AttendanceToolController extends FXController {
 
@@ -68,6 +70,8 @@ public class AttendanceToolController extends FXController {
     private FilteredList<StudentAttendance> filteredList;
     private ObservableList<AttendanceRecord> attendanceRecords;
     private ObservableList<AttendanceLog> attendanceLogs;
+    private AttendanceIngestQueue ingestQueue;
+    private boolean offline;
 
     @Override
     protected void load_fields() {
@@ -79,6 +83,10 @@ public class AttendanceToolController extends FXController {
                     if (timeline != null) {
                         timeline.stop();
                     }
+                    if (ingestQueue != null && !ingestQueue.close(java.time.Duration.ofSeconds(5))) {
+                        System.err.println("Attendance tool closed before all attendance events were saved; "
+                                + "journaled events are written on the next start");
+                    }
                 });
             }
 
@@ -93,6 +101,30 @@ public class AttendanceToolController extends FXController {
             attendanceLogs = DataManager.getInstance().getCollectionsRegistry().getList("ATTENDANCE_LOG");
             System.out.println("Attendance logs loaded: " + (attendanceLogs != null ? attendanceLogs.size() : "null"));
 
+            // Taps are journaled locally and keep being accepted while the database is unreachable
+            ingestQueue = new AttendanceIngestQueue(attendanceLogs,
+                    studentId -> StudentKeyVerifier.shared().findStudent(studentId));
+            ingestQueue.setListener(new AttendanceIngestQueue.Listener() {
+                @Override
+                public void failed(Exception error, int pending) {
+                    Platform.runLater(() -> {
+                        offline = true;
+                        statusLabel.setText(String.format("Offline: %d attendance changes %s, will sync when the "
+                                + "database is back", pending, ingestQueue.isJournaled() ? "saved locally" : "pending"));
+                    });
+                }
+
+                @Override
+                public void flushed(List<AttendanceLog> logs) {
+                    Platform.runLater(() -> {
+                        if (offline) {
+                            offline = false;
+                            statusLabel.setText("Back online: attendance synced");
+                        }
+                    });
+                }
+            });
+
             // Initialize lists
             studentList = FXCollections.observableArrayList();
             filteredList = new FilteredList<>(studentList);
@@ -157,6 +189,37 @@ public class AttendanceToolController extends FXController {
                         || student.getStudentName().toLowerCase().contains(lowerCaseFilter);
             });
         });
+
+        // A scanner types the key and presses Enter
+        searchField.setOnAction(e -> handleScannedKey(searchField.getText()));
+    }
+
+    /**
+     * Records a time-in or time-out for the student whose QR key was scanned
+     * into the search field.
+     *
+     * @param key the scanned key
+     */
+    private void handleScannedKey(String key) {
+        StudentKeyVerifier.Result result = StudentKeyVerifier.shared().verify(key);
+        if (result.status() == StudentKeyVerifier.Status.INVALID) {
+            return; // Ordinary search text
+        }
+        searchField.clear();
+        if (!result.isValid()) {
+            statusLabel.setText("Error: Unknown student (ID " + result.studentId() + ")");
+            return;
+        }
+        if (!result.schoolYear().equals(yearComboBox.getValue())) {
+            statusLabel.setText("Error: Key is for school year " + result.schoolYear());
+            return;
+        }
+        String studentId = String.valueOf(result.studentId());
+        studentList.stream()
+                .filter(sa -> sa.getStudentId().equals(studentId))
+                .findFirst()
+                .ifPresentOrElse(this::handleAttendanceAction,
+                        () -> statusLabel.setText("Error: Student not enrolled in " + yearComboBox.getValue()));
     }
 
     private void initializeColumns() {
@@ -221,13 +284,8 @@ public class AttendanceToolController extends FXController {
                                     student.getFirstName() + " " + student.getLastName());
 
                             // Check for existing log today
-                            AttendanceLog todayLog = attendanceLogs.stream()
-                                    .filter(log -> log.getStudentID().getStudentID() == student.getStudentID()
-                                            && log.getRecordID().getYear() == today.getYear()
-                                            && log.getRecordID().getMonth() == today.getMonthValue()
-                                            && log.getRecordID().getDay() == today.getDayOfMonth())
-                                    .findFirst()
-                                    .orElse(null);
+                            AttendanceLog todayLog = AttendanceIndex.forLogs(attendanceLogs)
+                                    .find(student.getStudentID(), today);
 
                             // Update logged in status based on existing log
                             if (todayLog != null) {
@@ -302,53 +360,29 @@ public class AttendanceToolController extends FXController {
                 return;
             }
 
-            AttendanceRecord todayRecord = getOrCreateDayRecord();
-
-            if (!studentAttendance.isLoggedIn()) { // Time In
-                AttendanceLog log = findTodayAttendanceLog(student, todayRecord);
-                if (log == null) {
-                    // Create new log only if one doesn't exist
-                    int nextLogId = attendanceLogs.isEmpty() ? 1
-                            : attendanceLogs.stream()
-                                    .mapToInt(AttendanceLog::getLogID)
-                                    .max()
-                                    .getAsInt() + 1;
-                    log = new AttendanceLog(nextLogId, todayRecord, student,
-                            isPM ? 0 : currentTime, // timeInAM
-                            0, // timeOutAM
-                            isPM ? currentTime : 0, // timeInPM
-                            0 // timeOutPM
-                    );
-                    AttendanceLogDAO.insert(log);
-                    attendanceLogs.add(log);
-                } else {
-                    // Update existing log with time in only
-                    if (isPM) {
-                        log.setTimeInPM(currentTime);
-                        log.setTimeOutAM(0); // Clear any incorrect AM timeout
-                    } else {
-                        log.setTimeInAM(currentTime);
-                    }
-                    AttendanceLogDAO.update(log);
-                }
-                studentAttendance.setLoggedIn(true);
-                studentAttendance.setLastActionTime(now.format(DateTimeFormatter.ofPattern("hh:mm:ss a")));
-                statusLabel.setText("Time In recorded for " + student.getFirstName());
-            } else { // Time Out
-                AttendanceLog log = findTodayAttendanceLog(student, todayRecord);
-                if (log != null) {
-                    if (isPM) {
-                        log.setTimeOutPM(currentTime);
-                    } else {
-                        log.setTimeOutAM(currentTime);
-                    }
-                    AttendanceLogDAO.update(log);
-                    studentAttendance.setLoggedIn(false);
-                    studentAttendance.setLastActionTime(now.format(DateTimeFormatter.ofPattern("hh:mm:ss a")));
-                    statusLabel.setText("Time Out recorded for " + student.getFirstName());
-                }
+            // Acknowledge right away; the ingest queue writes the change in the background
+            boolean timeIn = !studentAttendance.isLoggedIn();
+            boolean queued;
+            if (timeIn) {
+                queued = isPM
+                        ? ingestQueue.offer(
+                                event(student, now, AttendanceIngestQueue.Slot.TIME_IN_PM, currentTime),
+                                // Clear any incorrect AM timeout
+                                event(student, now, AttendanceIngestQueue.Slot.TIME_OUT_AM, 0))
+                        : ingestQueue.offer(event(student, now, AttendanceIngestQueue.Slot.TIME_IN_AM, currentTime));
+            } else {
+                queued = ingestQueue.offer(event(student, now,
+                        isPM ? AttendanceIngestQueue.Slot.TIME_OUT_PM : AttendanceIngestQueue.Slot.TIME_OUT_AM,
+                        currentTime));
+            }
+            if (!queued) {
+                statusLabel.setText("Busy saving attendance, please scan again");
+                return;
             }
 
+            studentAttendance.setLoggedIn(timeIn);
+            studentAttendance.setLastActionTime(now.format(DateTimeFormatter.ofPattern("hh:mm:ss a")));
+            statusLabel.setText((timeIn ? "Time In" : "Time Out") + " recorded for " + student.getFirstName());
             tableView.refresh();
         } catch (Exception e) {
             statusLabel.setText("Error: " + e.getMessage());
@@ -361,105 +395,44 @@ public class AttendanceToolController extends FXController {
             LocalDateTime now = LocalDateTime.now();
             boolean isPM = now.getHour() >= 12;
             int currentTime = now.getHour() * 100 + now.getMinute();
-            AttendanceRecord todayRecord = getOrCreateDayRecord();
+            AttendanceIngestQueue.Slot slot = isPM
+                    ? AttendanceIngestQueue.Slot.TIME_OUT_PM
+                    : AttendanceIngestQueue.Slot.TIME_OUT_AM;
             int timeOutCount = 0;
+            boolean queueFull = false;
 
             for (StudentAttendance studentAttendance : studentList) {
                 if (studentAttendance.isLoggedIn()) {
                     Student student = findStudentById(studentAttendance.getStudentId());
                     if (student != null) {
-                        AttendanceLog log = findTodayAttendanceLog(student, todayRecord);
-                        if (log != null) {
-                            if (isPM) {
-                                log.setTimeOutPM(currentTime);
-                            } else {
-                                log.setTimeOutAM(currentTime);
-                            }
-                            AttendanceLogDAO.update(log);
-                            studentAttendance.setLoggedIn(false);
-                            studentAttendance.setLastActionTime(now.format(DateTimeFormatter.ofPattern("hh:mm:ss a")));
-                            timeOutCount++;
+                        if (!ingestQueue.offer(event(student, now, slot, currentTime))) {
+                            queueFull = true;
+                            break;
                         }
+                        studentAttendance.setLoggedIn(false);
+                        studentAttendance.setLastActionTime(now.format(DateTimeFormatter.ofPattern("hh:mm:ss a")));
+                        timeOutCount++;
                     }
                 }
             }
 
             tableView.refresh();
-            statusLabel.setText(String.format("Timed out %d students", timeOutCount));
+            statusLabel.setText(queueFull
+                    ? String.format("Timed out %d students; busy saving, press again for the rest", timeOutCount)
+                    : String.format("Timed out %d students", timeOutCount));
         } catch (Exception e) {
             statusLabel.setText("Error: " + e.getMessage());
         }
     }
 
-    private AttendanceRecord getOrCreateDayRecord() {
-        LocalDate today = LocalDate.now();
-        return attendanceRecords.stream()
-                .filter(record -> record.getMonth() == today.getMonthValue()
-                        && record.getDay() == today.getDayOfMonth()
-                        && record.getYear() == today.getYear())
-                .findFirst()
-                .orElseGet(() -> {
-                    int maxId = attendanceRecords.stream()
-                            .mapToInt(AttendanceRecord::getRecordID)
-                            .max()
-                            .orElse(0);
-                    AttendanceRecord newRecord = new AttendanceRecord(
-                            maxId + 1, today.getMonthValue(),
-                            today.getDayOfMonth(), today.getYear());
-                    AttendanceRecordDAO.insert(newRecord);
-                    attendanceRecords.add(newRecord);
-                    return newRecord;
-                });
-    }
-
-    private AttendanceLog findOrCreateAttendanceLog(Student student, AttendanceRecord record,
-            boolean isPM, int currentTime) {
-        AttendanceLog log = findTodayAttendanceLog(student, record);
-        if (log == null) {
-            int nextLogId = attendanceLogs.isEmpty() ? 1
-                    : attendanceLogs.stream()
-                            .mapToInt(AttendanceLog::getLogID)
-                            .max()
-                            .getAsInt() + 1;
-            log = new AttendanceLog(nextLogId, record, student,
-                    isPM ? 0 : currentTime, // timeInAM
-                    0, // timeOutAM
-                    isPM ? currentTime : 0, // timeInPM
-                    0 // timeOutPM
-            );
-            AttendanceLogDAO.insert(log);
-            attendanceLogs.add(log);
-        } else {
-            if (isPM && log.getTimeInPM() == 0) {
-                log.setTimeInPM(currentTime);
-                AttendanceLogDAO.update(log);
-            } else if (!isPM && log.getTimeInAM() == 0) {
-                log.setTimeInAM(currentTime);
-                AttendanceLogDAO.update(log);
-            }
-        }
-        return log;
-    }
-
-    private AttendanceLog findTodayAttendanceLog(Student student, AttendanceRecord record) {
-        return attendanceLogs.stream()
-                .filter(log -> log.getStudentID().getStudentID() == student.getStudentID()
-                        && log.getRecordID().getRecordID() == record.getRecordID())
-                .findFirst()
-                .orElse(null);
+    private static AttendanceIngestQueue.Event event(Student student, LocalDateTime now,
+            AttendanceIngestQueue.Slot slot, int time) {
+        return new AttendanceIngestQueue.Event(student, now.toLocalDate(), slot, time);
     }
 
     private Student findStudentById(String studentId) {
         try {
-            int id = Integer.parseInt(studentId);
-            ObservableList<Student> students = DataManager.getInstance()
-                    .getCollectionsRegistry()
-                    .getList("STUDENT");
-
-            return students.stream()
-                    .filter(student -> student.getStudentID() == id)
-                    .findFirst()
-                    .orElse(null);
+            return StudentKeyVerifier.shared().findStudent(Integer.parseInt(studentId));
         } catch (NumberFormatException e) {
             return null;
         }
@@ -7,6 +7,7 @@ import dev.finalproject.database.DataManager;
 import dev.finalproject.models.SchoolYear;
 import dev.finalproject.models.Student;
 import dev.sol.core.application.FXController;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -19,6 +20,9 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 import sms.admin.util.datetime.SchoolYearUtil;
+import sms.admin.util.db.DataRefresher;
+import sms.admin.util.db.DatabaseRetryHelper;
+import sms.admin.util.metrics.PerfMetrics;
 
 public class DeletedStudentController extends FXController {
 
@@ -139,13 +143,27 @@ public class DeletedStudentController extends FXController {
     public void handleRestoreMenuItem() {
         Student selectedStudent = studentTableView.getSelectionModel().getSelectedItem();
         if (selectedStudent != null) {
+            String deletedAt = selectedStudent.deletedAtProperty().get();
             selectedStudent.setDeleted(0);
             selectedStudent.setDeletedAt(null);
-            StudentDAO.update(selectedStudent);
-            masterStudentList.remove(selectedStudent);
-            studentTableView.refresh();
-            showInfoAlert("Restore Successful",
-                    "Student " + selectedStudent.getFullName() + " has been restored.");
+            DatabaseRetryHelper.withRetryAsync(() -> {
+                try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "StudentDAO.update")) {
+                    StudentDAO.update(selectedStudent);
+                }
+                return null;
+            }).whenComplete((ignored, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    selectedStudent.setDeleted(1);
+                    selectedStudent.setDeletedAt(deletedAt);
+                    error.printStackTrace();
+                    showErrorAlert("Restore Error", "Failed to restore student", error.getMessage());
+                    return;
+                }
+                masterStudentList.remove(selectedStudent);
+                studentTableView.refresh();
+                showInfoAlert("Restore Successful",
+                        "Student " + selectedStudent.getFullName() + " has been restored.");
+            }));
         } else {
             showWarningAlert("No Selection", "Please select a student to restore.");
         }
@@ -168,15 +186,23 @@ public class DeletedStudentController extends FXController {
                     selectedStudent.getMiddleName()));
 
             if (confirmAlert.showAndWait().get().getButtonData().isDefaultButton()) {
-                try {
-                    // Delete from database
-                    StudentDAO.delete(selectedStudent);
-
-                    // Refresh all data through DataManager
-                    DataManager.getInstance().refreshData();
-
-                    // Update the local list based on current year selection
-                    updateStudentList(yearComboBox.getValue());
+                // Delete from database on a worker thread, retrying transient failures
+                DatabaseRetryHelper.withRetryAsync(() -> {
+                    try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "StudentDAO.delete")) {
+                        StudentDAO.delete(selectedStudent);
+                    }
+                    return null;
+                }).whenComplete((ignored, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        error.printStackTrace();
+                        showErrorAlert("Delete Error", "Failed to delete student",
+                                "An error occurred while deleting the student.");
+                        return;
+                    }
+                    // Reload the tables a student delete can touch, then update the
+                    // local list based on current year selection
+                    DataRefresher.refresh("STUDENT", "ADDRESS", "STUDENT_GUARDIAN", "ATTENDANCE_LOG")
+                            .thenRun(() -> updateStudentList(yearComboBox.getValue()));
 
                     Alert successAlert = new Alert(Alert.AlertType.INFORMATION);
                     successAlert.setTitle("Delete Successful");
@@ -185,11 +211,7 @@ public class DeletedStudentController extends FXController {
                             "Student " + selectedStudent.getFirstName() + " " + selectedStudent.getLastName()
                                     + " has been deleted permanently.");
                     successAlert.showAndWait();
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    showErrorAlert("Delete Error", "Failed to delete student",
-                            "An error occurred while deleting the student.");
-                }
+                }));
             }
         } else {
             showWarningAlert("No Selection", "Please select a student to delete.");
@@ -2,11 +2,11 @@ package sms.admin.app.payroll;
 
 import java.io.File;
 import java.text.DecimalFormat;
-import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import dev.finalproject.database.DataManager;
 import dev.finalproject.models.AttendanceLog;
@@ -39,16 +39,18 @@ import sms.admin.app.RootController;
 import sms.admin.app.attendance.model.AttendanceSettings;
 import sms.admin.app.payroll.dialog.PayrollExportDialogController;
 import sms.admin.app.payroll.dialog.PayrollExportDialogLoader;
-import sms.admin.util.attendance.CommonAttendanceUtil;
 import sms.admin.util.datetime.DateTimeUtils;
-import sms.admin.util.exporter.exporterv2.DetailedPayrollExporter;
+import sms.admin.util.dialog.TaskProgressDialog;
+import sms.admin.util.exporter.exporterv2.PayrollExportTask;
+import sms.admin.util.payroll.PayrollAggregator;
+import sms.admin.util.scene.RestorableView;
 
 /**
  * Controller class for managing payroll operations and UI interactions.
  * Handles student attendance tracking, fare calculations, and report
  * generation.
  */
-public class PayrollController extends FXController {
+public class PayrollController extends FXController implements RestorableView {
 
     @FXML
     private ComboBox<String> yearMonthComboBox;
@@ -93,6 +95,9 @@ public class PayrollController extends FXController {
     /** Collection of attendance logs for calculations */
     private ObservableList<AttendanceLog> attendanceLog;
 
+    /** Cached per-month day totals over {@link #attendanceLog} */
+    private PayrollAggregator payrollAggregator;
+
     /** Current academic year in format "YYYY-YYYY" */
     private String currentYear;
 
@@ -130,6 +135,17 @@ public class PayrollController extends FXController {
      */
     @SuppressWarnings("unchecked")
     private void initializeData(String year) {
+        initializeData(year, (ObservableList<AttendanceLog>) getParameter("attendanceLogs"));
+    }
+
+    /**
+     * Initializes data for the specified academic year from the given
+     * attendance logs.
+     * 
+     * @param year Academic year in format "YYYY-YYYY"
+     * @param logs Attendance logs to total, or null for the shared logs
+     */
+    private void initializeData(String year, ObservableList<AttendanceLog> logs) {
         int startYear = Integer.parseInt(year.split("-")[0]);
         // Retrieve the student list from DataManager instead of direct DAO call
         List<Student> students = DataManager.getInstance().getCollectionsRegistry().getList("STUDENT");
@@ -141,10 +157,11 @@ public class PayrollController extends FXController {
 
         // Initialize attendance logs from shared DataManager if not provided as a
         // parameter.
-        attendanceLog = (ObservableList<AttendanceLog>) getParameter("attendanceLogs");
+        attendanceLog = logs;
         if (attendanceLog == null) {
             attendanceLog = DataManager.getInstance().getCollectionsRegistry().getList("ATTENDANCE_LOG");
         }
+        payrollAggregator = new PayrollAggregator(attendanceLog);
         payrollTable.setItems(filteredStudentList);
     }
 
@@ -216,10 +233,9 @@ public class PayrollController extends FXController {
         });
 
         colTotalAmount.setCellValueFactory(cellData -> {
-            Student student = cellData.getValue();
-            double totalDays = calculateTotalDays(student);
-            double multipliedFare = student.getFare() * getFareMultiplier();
-            return new SimpleDoubleProperty(totalDays * multipliedFare).asObject();
+            PayrollAggregator.MonthTotals totals = getSelectedMonthTotals();
+            double amount = totals != null ? totals.getAmount(cellData.getValue(), getFareMultiplier()) : 0;
+            return new SimpleDoubleProperty(amount).asObject();
         });
         colTotalAmount.setCellFactory(column -> new TableCell<Student, Double>() {
             @Override
@@ -253,38 +269,43 @@ public class PayrollController extends FXController {
      * Calculates based on attendance days and fare rates.
      */
     private void updateTotalAmount() {
-        double totalAmount = filteredStudentList.stream()
-                .mapToDouble(student -> {
-                    double totalDays = calculateTotalDays(student);
-                    double fare = student.getFare() * getFareMultiplier();
-                    return totalDays * fare;
-                })
-                .sum();
+        PayrollAggregator.MonthTotals totals = getSelectedMonthTotals();
+        double totalAmount = totals != null ? totals.getTotalAmount(filteredStudentList, getFareMultiplier()) : 0;
         totalAmountLabel.setText(currencyFormat.format(totalAmount));
     }
 
     /**
      * Calculates total attendance days for a student in the selected month.
-     * Uses DetailedPayrollExporter for consistent calculations.
-     * Treats holidays as absent days.
+     * Uses the same rules as DetailedPayrollExporter: half days and holidays
+     * count as absent.
      * 
      * @param student Student to calculate days for
-     * @return Total number of days present (including half days)
+     * @return Total number of days present
      */
     private double calculateTotalDays(Student student) {
+        PayrollAggregator.MonthTotals totals = getSelectedMonthTotals();
+        return totals != null ? totals.getDays(student.getStudentID()) : 0;
+    }
+
+    /**
+     * Returns the cached day totals for the month selected in the combo box.
+     * The totals are computed once per month and reused until the attendance
+     * logs change.
+     * 
+     * @return Totals for the selected month, or null if no month is selected
+     */
+    private PayrollAggregator.MonthTotals getSelectedMonthTotals() {
         try {
             String monthYearValue = yearMonthComboBox.getValue();
             if (monthYearValue == null || monthYearValue.trim().isEmpty()) {
-                return 0;
+                return null;
             }
-
             YearMonth selectedMonth = DateTimeUtils.parseMonthYear(monthYearValue);
-            return new DetailedPayrollExporter(selectedMonth, selectedMonth, attendanceLog)
-                    .calculateStudentDays(student, selectedMonth);
+            return payrollAggregator.getMonthTotals(selectedMonth);
         } catch (Exception e) {
-            System.err.println("Error calculating days for student " + student.getStudentID());
+            System.err.println("Error calculating payroll totals: " + e.getMessage());
             e.printStackTrace();
-            return 0;
+            return null;
         }
     }
 
@@ -364,29 +385,29 @@ public class PayrollController extends FXController {
             if (outputDir == null)
                 return;
 
-            // Export for each month in the range
-            YearMonth currentMonth = startMonth;
-            while (!currentMonth.isAfter(endMonth)) {
-                String fileName = String.format("payroll_%s.%s",
-                        currentMonth.format(DateTimeFormatter.ofPattern("MMM_yyyy")).toLowerCase(),
-                        type);
-                File file = new File(outputDir, fileName);
-
-                String title = String.format("Payroll Report - %s",
-                        currentMonth.format(DateTimeFormatter.ofPattern("MMMM yyyy")));
-
-                DetailedPayrollExporter detailedExporter = new DetailedPayrollExporter(currentMonth, currentMonth,
-                        attendanceLog);
-                detailedExporter.setFareMultiplier(getFareMultiplier());
-                detailedExporter.exportToExcel(payrollTable, title, file.getAbsolutePath());
-
-                currentMonth = currentMonth.plusMonths(1);
-            }
-
-            showSuccessAlert("Export Complete", "Successfully exported payroll reports",
-                    outputDir.getAbsolutePath());
-
-            System.out.println("Export completed to directory: " + outputDir.getAbsolutePath());
+            // Export the months in the background; the task snapshots the data up front
+            PayrollExportTask exportTask = new PayrollExportTask(filteredStudentList, attendanceLog,
+                    startMonth, endMonth, getFareMultiplier(), outputDir, type);
+            exportTask.setOnSucceeded(e -> {
+                showSuccessAlert("Export Complete", "Successfully exported payroll reports",
+                        outputDir.getAbsolutePath());
+                System.out.println("Export completed to directory: " + outputDir.getAbsolutePath());
+            });
+            exportTask.setOnFailed(e -> {
+                Throwable error = exportTask.getException();
+                System.err.println("Export failed: " + error.getMessage());
+                error.printStackTrace();
+                showErrorAlert("Export Error",
+                        "Failed to export payroll to " + type.toUpperCase(),
+                        "Error: " + error.getMessage());
+            });
+            exportTask.setOnCancelled(e -> System.out.println("Payroll export cancelled by user"));
+
+            TaskProgressDialog.show(rootPane.getScene().getWindow(), "Exporting Payroll", exportTask,
+                    exportTask.getMonthStatus());
+            Thread exportThread = new Thread(exportTask, "payroll-export");
+            exportThread.setDaemon(true);
+            exportThread.start();
         } catch (Exception e) {
             System.err.println("Export failed: " + e.getMessage());
             e.printStackTrace();
@@ -475,41 +496,9 @@ public class PayrollController extends FXController {
      * @return Total days present
      */
     private double calculateTotalDaysInRange(Student student, YearMonth month, AttendanceSettings settings) {
-        try {
-            double totalDays = 0;
-            int startDay = settings.getStartDay();
-            int endDay = settings.getEndDay();
-
-            List<AttendanceLog> studentLogs = attendanceLog.stream()
-                    .filter(log -> log != null
-                            && log.getStudentID() != null
-                            && log.getStudentID().getStudentID() == student.getStudentID()
-                            && log.getRecordID() != null
-                            && log.getRecordID().getYear() == month.getYear()
-                            && log.getRecordID().getMonth() == month.getMonthValue()
-                            && log.getRecordID().getDay() >= startDay
-                            && log.getRecordID().getDay() <= endDay
-                            && !CommonAttendanceUtil.isWeekend(LocalDate.of(
-                                    log.getRecordID().getYear(),
-                                    log.getRecordID().getMonth(),
-                                    log.getRecordID().getDay())))
-                    .collect(Collectors.toList());
-
-            for (AttendanceLog log : studentLogs) {
-                String status = CommonAttendanceUtil.computeAttendanceStatus(log);
-                switch (status) {
-                    case CommonAttendanceUtil.PRESENT_MARK,
-                            CommonAttendanceUtil.EXCUSED_MARK ->
-                        totalDays += 1.0;
-                    case CommonAttendanceUtil.HALF_DAY_MARK -> totalDays += 0.5;
-                }
-            }
-            return totalDays;
-        } catch (Exception e) {
-            System.err.println("Error calculating days for student " + student.getStudentID());
-            e.printStackTrace();
-            return 0;
-        }
+        return payrollAggregator
+                .getMonthTotals(month, settings.getStartDay(), settings.getEndDay(), 0.5)
+                .getDays(student.getStudentID());
     }
 
     /**
@@ -571,6 +560,20 @@ public class PayrollController extends FXController {
         updateTotalAmount();
     }
 
+    /**
+     * Reloads the students of the current year when the cached view is shown
+     * again, using the attendance logs passed by the attendance view if any.
+     *
+     * @param parameters the navigation parameters
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onViewRestored(Map<String, Object> parameters) {
+        initializeData(currentYear, (ObservableList<AttendanceLog>) parameters.get("attendanceLogs"));
+        payrollTable.refresh();
+        updateTotalAmount();
+    }
+
     /**
      * Sets the selected month in the combo box.
      * 
@@ -8,6 +8,7 @@ import java.util.List;
 
 import dev.finalproject.data.SchoolYearDAO;
 import dev.finalproject.models.SchoolYear;
+import javafx.application.Platform;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
@@ -17,7 +18,10 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.stage.Stage;
+import sms.admin.util.db.DatabaseRetryHelper;
+import sms.admin.util.db.DatabaseRetryHelper.RetryPolicy;
 import sms.admin.util.dialog.DialogManager;
+import sms.admin.util.metrics.PerfMetrics;
 
 /**
  * Controller for the school year dialog, handling both creation and editing of
@@ -214,16 +218,37 @@ public class SchoolYearDialogController {
         if (isInputValid()) {
             SchoolYear schoolYear = createSchoolYear();
             if (schoolYear != null) {
-                try {
-                    System.out.println("Created school year: " + schoolYear);
-
-                    if (existingSchoolYear == null) {
-                        SchoolYearDAO.insert(schoolYear);
+                System.out.println("Created school year: " + schoolYear);
+                boolean insert = existingSchoolYear == null;
+                // Save on a database worker; updates are retried, an insert is not, since a
+                // retry after a dropped connection could add the school year twice. The
+                // dialog stays open until it finishes
+                saveButton.setDisable(true);
+                RetryPolicy policy = insert ? RetryPolicy.ONCE : RetryPolicy.DEFAULT;
+                DatabaseRetryHelper.withRetryAsync(() -> {
+                    if (insert) {
+                        try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "SchoolYearDAO.insert")) {
+                            SchoolYearDAO.insert(schoolYear);
+                        }
                         System.out.println("Inserted new school year");
                     } else {
-                        SchoolYearDAO.update(schoolYear);
+                        try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "SchoolYearDAO.update")) {
+                            SchoolYearDAO.update(schoolYear);
+                        }
                         System.out.println("Updated existing school year");
                     }
+                    return null;
+                }, policy).whenComplete((ignored, error) -> Platform.runLater(() -> {
+                    saveButton.setDisable(false);
+                    if (error != null) {
+                        schoolYearProperty.set(null); // Reset on error
+                        Alert alert = new Alert(Alert.AlertType.ERROR);
+                        alert.setTitle("Error");
+                        alert.setHeaderText("Database Error");
+                        alert.setContentText("Could not save school year: " + error.getMessage());
+                        alert.showAndWait();
+                        return;
+                    }
 
                     // Set property and prepare to close dialog
                     schoolYearProperty.set(schoolYear);
@@ -238,14 +263,7 @@ public class SchoolYearDialogController {
                     if (dialog != null) {
                         dialog.resultProperty().set(schoolYear);
                     }
-                } catch (Exception e) {
-                    schoolYearProperty.set(null); // Reset on error
-                    Alert alert = new Alert(Alert.AlertType.ERROR);
-                    alert.setTitle("Error");
-                    alert.setHeaderText("Database Error");
-                    alert.setContentText("Could not save school year: " + e.getMessage());
-                    alert.showAndWait();
-                }
+                }));
             }
         }
     }
@@ -289,7 +307,8 @@ public class SchoolYearDialogController {
      * @return The next year ID.
      */
     private int getNextYearId() {
-        List<SchoolYear> allYears = SchoolYearDAO.getSchoolYearList();
+        List<SchoolYear> allYears = PerfMetrics.get(PerfMetrics.DAO, "SchoolYearDAO.getSchoolYearList",
+                SchoolYearDAO::getSchoolYearList);
         return allYears.stream()
                 .mapToInt(SchoolYear::getYearID)
                 .max()
@@ -5,7 +5,8 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
-import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import atlantafx.base.controls.ModalPane;
@@ -14,9 +15,14 @@ import dev.finalproject.database.DataManager;
 import dev.finalproject.models.SchoolYear;
 import dev.finalproject.models.Student;
 import dev.sol.core.application.FXController;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
 import javafx.collections.transformation.FilteredList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.geometry.Side;
@@ -29,16 +35,22 @@ import javafx.scene.control.MenuButton;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.StackPane;
 import javafx.stage.FileChooser;
+import javafx.util.Duration;
 import sms.admin.app.student.enrollment.EnrollmentLoader;
 import sms.admin.app.student.viewstudent.StudentProfileLoader;
+import sms.admin.util.db.DatabaseRetryHelper;
+import sms.admin.util.db.StartupLoader;
+import sms.admin.util.enrollment.BulkEnrollmentEngine;
 import sms.admin.util.enrollment.CsvImporter;
-import sms.admin.util.enrollment.CsvStudent;
-import sms.admin.util.enrollment.EnrollmentUtils;
 import sms.admin.util.exporter.StudentTableExporter;
+import sms.admin.util.metrics.PerfMetrics;
+import sms.admin.util.scene.RestorableView;
+import sms.admin.util.search.StudentSearchIndex;
 
 /**
  * Controller for the student management view, handling the display, filtering,
@@ -46,10 +58,11 @@ import sms.admin.util.exporter.StudentTableExporter;
  * logic for viewing, adding, editing, deleting, importing, and exporting
  * student data.
  */
-public class StudentController extends FXController {
+public class StudentController extends FXController implements RestorableView {
 
     private static final DateTimeFormatter DELETE_TIMESTAMP_FORMAT = DateTimeFormatter
             .ofPattern("yyyy-MM-dd hh:mm:ss a");
+    private static final Duration SEARCH_DELAY = Duration.millis(150);
 
     @FXML
     private TableView<Student> studentTableView; // Table displaying student records
@@ -98,8 +111,15 @@ public class StudentController extends FXController {
     private ObservableList<Student> masterStudentList = FXCollections.observableArrayList(); // Master list of students
     private FilteredList<Student> filteredList; // Filtered list for year and search criteria
     private ContextMenu studentMenu; // Context menu for student table
+    private MenuItem editStudentMenuItem; // Context menu item that opens the profile dialog
     private String selectedYear; // Selected academic year (e.g., "2024-2025")
     private String searchText = ""; // Current search text
+    private final StudentSearchIndex searchIndex = new StudentSearchIndex(); // Index of the master list
+    private Set<Integer> matchingIds; // IDs matching the search text, or null for all
+    private long searchSequence; // Identifies the latest search so stale results are dropped
+    private final PauseTransition searchDebounce = new PauseTransition(SEARCH_DELAY);
+    // Re-indexes students edited elsewhere (the profile dialog replaces them in the registry)
+    private final ListChangeListener<Student> editedStudentListener = this::onRegistryStudentsChanged;
 
     /**
      * Loads the initial fields and configurations for the student management
@@ -114,6 +134,10 @@ public class StudentController extends FXController {
                 selectedYear = getDefaultYear();
             }
             // Load the master list for the selected year
+            searchIndex.bind(masterStudentList);
+            ObservableList<Student> registryStudents = DataManager.getInstance()
+                    .getCollectionsRegistry().getList("STUDENT");
+            registryStudents.addListener(new WeakListChangeListener<>(editedStudentListener));
             initializeStudentList(selectedYear);
             // Create a filtered list using the master list
             filteredList = new FilteredList<>(masterStudentList);
@@ -151,9 +175,9 @@ public class StudentController extends FXController {
 
         // Configure context menu for the table
         studentMenu = new ContextMenu();
-        MenuItem viewMenu = new MenuItem("Edit Student");
-        viewMenu.setOnAction(e -> openStudentProfileInEditMode());
-        studentMenu.getItems().add(viewMenu);
+        editStudentMenuItem = new MenuItem("Edit Student");
+        editStudentMenuItem.setOnAction(e -> openStudentProfileInEditMode());
+        studentMenu.getItems().add(editStudentMenuItem);
         MenuItem deleteMenu = new MenuItem("Delete Student");
         deleteMenu.setOnAction(e -> deleteStudent(studentTableView.getSelectionModel().getSelectedItem()));
         studentMenu.getItems().add(deleteMenu);
@@ -168,12 +192,29 @@ public class StudentController extends FXController {
         exportCsv.setOnAction(event -> handleExport("csv"));
         exportPdf.setOnAction(event -> handleExport("pdf"));
         importCsv.setOnAction(event -> handleImport());
+        disableUntilStartupLoaded();
 
-        // Update search filter as the user types
+        // Search once the user pauses typing
+        searchDebounce.setOnFinished(event -> runSearch());
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            searchText = newValue.toLowerCase();
-            updateFilter();
-            updateStatusLabel();
+            searchText = newValue == null ? "" : newValue;
+            searchDebounce.playFromStart();
+        });
+    }
+
+    /**
+     * Keeps enrollment, CSV import and the profile dialog disabled until the
+     * startup background load has filled the cluster, address and guardian
+     * collections; new IDs are generated from them.
+     */
+    private void disableUntilStartupLoaded() {
+        addStudentButton.setDisable(true);
+        importCsv.setDisable(true);
+        editStudentMenuItem.setDisable(true);
+        StartupLoader.whenComplete(() -> {
+            addStudentButton.setDisable(false);
+            importCsv.setDisable(false);
+            editStudentMenuItem.setDisable(false);
         });
     }
 
@@ -204,6 +245,19 @@ public class StudentController extends FXController {
         updateYear(year); // Delegate to updateYear for consistency
     }
 
+    /**
+     * Reloads the students of the selected year from the shared collection when
+     * the cached view is shown again, keeping the search text.
+     *
+     * @param parameters the navigation parameters (unused)
+     */
+    @Override
+    public void onViewRestored(Map<String, Object> parameters) {
+        initializeStudentList(selectedYear);
+        updateFilter();
+        updateStatusLabel();
+    }
+
     /**
      * Populates the master student list with students matching the selected
      * year and not marked as deleted.
@@ -221,22 +275,57 @@ public class StudentController extends FXController {
                                 && s.getYearID().getYearStart() == startYear
                                 && s.isDeleted() == 0)
                         .collect(Collectors.toList()));
+        // The index follows the list; refresh the matches for the new students
+        ++searchSequence;
+        matchingIds = searchIndex.query(searchText);
+    }
+
+    /**
+     * Queries the search index on a background thread and applies the result
+     * unless a newer search has started in the meantime.
+     */
+    private void runSearch() {
+        long sequence = ++searchSequence;
+        searchIndex.queryAsync(searchText).thenAccept(ids -> Platform.runLater(() -> {
+            if (sequence == searchSequence) {
+                matchingIds = ids;
+                updateFilter();
+                updateStatusLabel();
+            }
+        }));
+    }
+
+    /**
+     * Re-indexes students of the current list that were replaced in the shared
+     * collection after an edit.
+     */
+    private void onRegistryStudentsChanged(ListChangeListener.Change<? extends Student> change) {
+        boolean reindexed = false;
+        while (change.next()) {
+            if (change.wasReplaced()) {
+                for (Student student : change.getAddedSubList()) {
+                    if (student != null && searchIndex.contains(student.getStudentID())) {
+                        searchIndex.update(student);
+                        reindexed = true;
+                    }
+                }
+            }
+        }
+        if (reindexed && !searchText.isEmpty()) {
+            runSearch();
+        }
     }
 
     /**
      * Updates the filter predicate to apply both year and search criteria.
      */
     private void updateFilter() {
+        int startYear = Integer.parseInt(selectedYear.split("-")[0]);
+        Set<Integer> matches = matchingIds;
         filteredList.setPredicate(student -> {
             boolean matchesYear = student.getYearID() != null
-                    && student.getYearID().getYearStart() == Integer.parseInt(selectedYear.split("-")[0]);
-            boolean matchesSearch = searchText == null || searchText.isEmpty()
-                    || student.getFirstName().toLowerCase().contains(searchText)
-                    || student.getLastName().toLowerCase().contains(searchText)
-                    || student.getMiddleName().toLowerCase().contains(searchText)
-                    || student.getEmail().toLowerCase().contains(searchText)
-                    || student.getContact().toLowerCase().contains(searchText)
-                    || String.valueOf(student.getStudentID()).contains(searchText);
+                    && student.getYearID().getYearStart() == startYear;
+            boolean matchesSearch = matches == null || matches.contains(student.getStudentID());
             return matchesYear && matchesSearch;
         });
     }
@@ -285,11 +374,23 @@ public class StudentController extends FXController {
 
         confirmDialog.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                try {
-                    student.setDeleted(1);
-                    String timestamp = LocalDateTime.now().format(DELETE_TIMESTAMP_FORMAT);
-                    student.setDeletedAt(timestamp);
-                    StudentDAO.update(student);
+                student.setDeleted(1);
+                String timestamp = LocalDateTime.now().format(DELETE_TIMESTAMP_FORMAT);
+                student.setDeletedAt(timestamp);
+                // Write on a database worker with retries; the table updates once it succeeds
+                DatabaseRetryHelper.withRetryAsync(() -> {
+                    try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "StudentDAO.update")) {
+                        StudentDAO.update(student);
+                    }
+                    return null;
+                }).whenComplete((ignored, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        student.setDeleted(0);
+                        student.setDeletedAt(null);
+                        error.printStackTrace();
+                        showErrorAlert("Error", "Failed to delete student", error.getMessage());
+                        return;
+                    }
                     masterStudentList.remove(student);
                     studentTableView.refresh();
                     updateStatusLabel();
@@ -300,11 +401,7 @@ public class StudentController extends FXController {
                     successAlert.setHeaderText(null);
                     successAlert.setContentText("Student has been successfully deleted.");
                     successAlert.show();
-
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    showErrorAlert("Error", "Failed to delete student", e.getMessage());
-                }
+                }));
             }
         });
     }
@@ -315,6 +412,9 @@ public class StudentController extends FXController {
      * @param student The student whose profile to open.
      */
     private void openStudentProfile(Student student) {
+        if (!StartupLoader.isComplete()) {
+            return;
+        }
         try {
             StudentProfileLoader loader = new StudentProfileLoader();
             loader.addParameter("SELECTED_STUDENT", student);
@@ -332,7 +432,7 @@ public class StudentController extends FXController {
     private void openStudentProfileInEditMode() {
         try {
             Student selectedStudent = studentTableView.getSelectionModel().getSelectedItem();
-            if (selectedStudent == null) {
+            if (selectedStudent == null || !StartupLoader.isComplete()) {
                 return;
             }
 
@@ -413,8 +513,6 @@ public class StudentController extends FXController {
             File selectedFile = fileChooser.showOpenDialog(studentTableView.getScene().getWindow());
             if (selectedFile != null) {
                 statusLabel.setText("Processing: " + selectedFile.getName());
-                List<CsvStudent> students = CsvImporter.importCsv(selectedFile);
-                int successCount = 0;
 
                 SchoolYear currentSchoolYear = getCurrentSchoolYear();
                 if (currentSchoolYear == null) {
@@ -422,33 +520,30 @@ public class StudentController extends FXController {
                     return;
                 }
 
-                for (CsvStudent csvStudent : students) {
-                    try {
-                        EnrollmentUtils.enrollStudentFromCsv(csvStudent, currentSchoolYear);
-                        successCount++;
-                    } catch (Exception e) {
-                        e.printStackTrace();
+                // Parse in the background and enroll all valid rows in one transaction
+                Task<CsvImporter.ImportReport> importTask = new Task<>() {
+                    @Override
+                    protected CsvImporter.ImportReport call() throws Exception {
+                        BulkEnrollmentEngine engine = new BulkEnrollmentEngine(currentSchoolYear);
+                        CsvImporter.ImportReport report = CsvImporter.importCsv(selectedFile,
+                                (csvStudent, line) -> engine.add(csvStudent));
+                        updateMessage("Enrolling " + engine.size() + " students...");
+                        engine.commit();
+                        return report;
                     }
-                }
-
-                // Refresh the table after import
-                initializeStudentList(selectedYear);
-                updateFilter();
-                studentTableView.refresh();
-                statusLabel.setText("Successfully imported " + successCount + " students");
-
-                // Show success dialog
-                Alert successAlert = new Alert(Alert.AlertType.INFORMATION);
-                successAlert.setTitle("Import Complete");
-                successAlert.setHeaderText("CSV Import Successful");
-                successAlert.setContentText(
-                        "Successfully imported " + successCount + " students from " + selectedFile.getName());
-
-                // Style the OK button
-                Button okButton = (Button) successAlert.getDialogPane().lookupButton(ButtonType.OK);
-                okButton.setStyle("-fx-background-color: #003366; -fx-text-fill: white;");
-
-                successAlert.showAndWait();
+                };
+                importTask.messageProperty().addListener((obs, oldMsg, newMsg) -> statusLabel.setText(newMsg));
+                importTask.setOnSucceeded(event -> showImportResult(selectedFile, importTask.getValue()));
+                importTask.setOnFailed(event -> {
+                    Throwable error = importTask.getException();
+                    error.printStackTrace();
+                    statusLabel.setText("Import failed: no students were enrolled");
+                    showErrorAlert("Import Error", "Failed to import students", error.getMessage());
+                });
+
+                Thread importThread = new Thread(importTask, "csv-import");
+                importThread.setDaemon(true);
+                importThread.start();
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -456,6 +551,42 @@ public class StudentController extends FXController {
         }
     }
 
+    /**
+     * Refreshes the table and reports the outcome of a CSV import.
+     */
+    private void showImportResult(File selectedFile, CsvImporter.ImportReport report) {
+        int successCount = report.accepted();
+        report.rejects().forEach(reject -> System.err.println("CSV import rejected " + reject));
+
+        // Refresh the table after import
+        initializeStudentList(selectedYear);
+        updateFilter();
+        studentTableView.refresh();
+        statusLabel.setText("Successfully imported " + successCount + " students"
+                + (report.rejectCount() > 0 ? ", skipped " + report.rejectCount() : ""));
+
+        // Show success dialog
+        Alert successAlert = new Alert(Alert.AlertType.INFORMATION);
+        successAlert.setTitle("Import Complete");
+        successAlert.setHeaderText("CSV Import Successful");
+        successAlert.setContentText(
+                "Successfully imported " + successCount + " students from " + selectedFile.getName());
+        if (report.rejectCount() > 0) {
+            successAlert.setHeaderText("CSV Import Completed with " + report.rejectCount() + " skipped row(s)");
+            TextArea rejectArea = new TextArea(report.describeRejects(50));
+            rejectArea.setEditable(false);
+            rejectArea.setWrapText(true);
+            successAlert.getDialogPane().setExpandableContent(rejectArea);
+            successAlert.getDialogPane().setExpanded(true);
+        }
+
+        // Style the OK button
+        Button okButton = (Button) successAlert.getDialogPane().lookupButton(ButtonType.OK);
+        okButton.setStyle("-fx-background-color: #003366; -fx-text-fill: white;");
+
+        successAlert.showAndWait();
+    }
+
     /**
      * Opens the enrollment form to add a new student.
      */
@@ -28,6 +28,7 @@ import javafx.stage.Stage;
 import sms.admin.util.DialogUtils;
 import sms.admin.util.dialog.ValidationUtils;
 import sms.admin.util.enrollment.EnrollmentUtils;
+import sms.admin.util.metrics.PerfMetrics;
 import sms.admin.util.profile.ProfileDataManager;
 
 /**
@@ -481,7 +482,9 @@ public class EnrollmentController extends FXController {
                     .getCollectionsRegistry().getList("STUDENT_GUARDIAN");
 
             // Insert into database
-            StudentGuardianDAO.insert(studentGuardian);
+            try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "StudentGuardianDAO.insert")) {
+                StudentGuardianDAO.insert(studentGuardian);
+            }
 
             // Update registry if needed
             if (studentGuardians == null) {
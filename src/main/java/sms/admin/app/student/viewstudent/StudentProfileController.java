@@ -4,6 +4,7 @@ import java.io.File;
 import java.util.List;
 import java.util.Optional;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
 
 import dev.finalproject.data.AddressDAO;
 import dev.finalproject.data.StudentDAO;
@@ -15,6 +16,7 @@ import dev.finalproject.models.Guardian;
 import dev.finalproject.models.Student;
 import dev.finalproject.models.StudentGuardian;
 import dev.sol.core.application.FXController;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -26,8 +28,12 @@ import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.GridPane;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import sms.admin.util.db.DatabaseRetryHelper;
+import sms.admin.util.db.DatabaseRetryHelper.RetryPolicy;
+import sms.admin.util.db.DatabaseWork;
 import sms.admin.util.dialog.DialogManager;
 import sms.admin.util.dialog.DialogUtils;
+import sms.admin.util.metrics.PerfMetrics;
 import sms.admin.util.profile.ProfileDataManager;
 import sms.admin.util.profile.ProfilePhotoManager;
 
@@ -193,7 +199,8 @@ public class StudentProfileController extends FXController {
     private void initializeMasterLists() {
         try {
             // Initialize address list
-            addressMasterList = FXCollections.observableArrayList(AddressDAO.getAddressesList());
+            addressMasterList = FXCollections.observableArrayList(
+                    PerfMetrics.get(PerfMetrics.DAO, "AddressDAO.getAddressesList", AddressDAO::getAddressesList));
 
             // Get existing student-guardian list from registry
             studentGuardianMasterList = DataManager.getInstance()
@@ -203,7 +210,8 @@ public class StudentProfileController extends FXController {
             if (studentGuardianMasterList == null) {
                 studentGuardianMasterList = FXCollections.observableArrayList();
                 try {
-                    List<StudentGuardian> existingRelationships = StudentGuardianDAO.getStudentGuardianList();
+                    List<StudentGuardian> existingRelationships = PerfMetrics.get(PerfMetrics.DAO,
+                            "StudentGuardianDAO.getStudentGuardianList", StudentGuardianDAO::getStudentGuardianList);
                     if (existingRelationships != null) {
                         studentGuardianMasterList.addAll(existingRelationships);
                     }
@@ -264,10 +272,13 @@ public class StudentProfileController extends FXController {
                 new FileChooser.ExtensionFilter("Image Files", "*.png", "*.jpg", "*.jpeg"));
         File selectedFile = fileChooser.showOpenDialog(profileImageView.getScene().getWindow());
         if (selectedFile != null) {
-            String savedPath = ProfilePhotoManager.savePhoto(selectedFile, student.getStudentID());
-            if (savedPath != null) {
-                loadStudentPhoto();
-            }
+            Student photoStudent = student;
+            ProfilePhotoManager.savePhotoAsync(selectedFile, photoStudent.getStudentID())
+                    .thenAccept(savedPath -> Platform.runLater(() -> {
+                        if (savedPath != null && student == photoStudent) {
+                            loadStudentPhoto();
+                        }
+                    }));
         }
     }
 
@@ -329,7 +340,8 @@ public class StudentProfileController extends FXController {
     private void loadAddressInfo() {
         // Reload address list if needed
         if (addressMasterList == null || addressMasterList.isEmpty()) {
-            addressMasterList = FXCollections.observableArrayList(AddressDAO.getAddressesList());
+            addressMasterList = FXCollections.observableArrayList(
+                    PerfMetrics.get(PerfMetrics.DAO, "AddressDAO.getAddressesList", AddressDAO::getAddressesList));
         }
         Optional<Address> studentAddress = addressMasterList.stream()
                 .filter(addr -> addr.getStudentID() != null
@@ -420,7 +432,11 @@ public class StudentProfileController extends FXController {
 
     /**
      * Saves changes made to the student's profile, updating the database and
-     * collections.
+     * collections. The edits are applied to the models here; each row is then
+     * written in order on a database worker. Updates are retried; inserts are
+     * attempted once, since a retry after a dropped connection could insert a
+     * row that already committed a second time. The collections are updated
+     * and the dialog closed on the JavaFX thread once every write succeeds.
      */
     private void saveChanges() {
         try {
@@ -430,24 +446,78 @@ public class StudentProfileController extends FXController {
                     contactField, emailField, fareField);
 
             // Update address
-            handleAddressUpdate();
+            Address studentAddress = findOrCreateStudentAddress();
+            ProfileDataManager.updateAddressInfo(studentAddress, student,
+                    streetAddressField, barangayField, cityField, municipalityField, zipCodeField);
+            boolean newAddress = studentAddress.getAddressID() == 0;
 
             // Update guardian
-            Guardian updatedGuardian = handleGuardianUpdate();
+            Guardian currentGuardian = findCurrentGuardian();
+            Guardian updatedGuardian = ProfileDataManager.applyGuardianFields(
+                    guardianFirstNameField,
+                    guardianMiddleNameField,
+                    guardianLastNameField,
+                    guardianRelationshipField,
+                    guardianContactInfoField,
+                    currentGuardian,
+                    guardianMasterList);
+            StudentGuardian newRelation = createStudentGuardianRelationship(updatedGuardian);
 
             // Update cluster
             handleClusterUpdate();
 
-            // Update student in database
-            StudentDAO.update(student);
-
-            // Update the student in the registry list
-            int index = students.indexOf(student);
-            if (index >= 0) {
-                students.set(index, student);
-            }
-
-            closeDialog();
+            editSaveButton.setDisable(true);
+            write(newAddress, () -> {
+                if (newAddress) {
+                    try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "AddressDAO.insert")) {
+                        AddressDAO.insert(studentAddress);
+                    }
+                } else {
+                    try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "AddressDAO.update")) {
+                        AddressDAO.update(studentAddress);
+                    }
+                }
+            }).thenCompose(ignored -> write(currentGuardian == null,
+                    () -> ProfileDataManager.saveGuardian(updatedGuardian, currentGuardian == null)))
+                    .thenCompose(ignored -> write(newRelation != null, () -> {
+                        if (newRelation != null) {
+                            try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO,
+                                    "StudentGuardianDAO.insert")) {
+                                StudentGuardianDAO.insert(newRelation);
+                            }
+                        }
+                    }))
+                    .thenCompose(ignored -> write(false, () -> {
+                        // Update student in database
+                        try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "StudentDAO.update")) {
+                            StudentDAO.update(student);
+                        }
+                    }))
+                    .whenComplete((ignored, error) -> Platform.runLater(() -> {
+                        editSaveButton.setDisable(false);
+                        if (error != null) {
+                            error.printStackTrace();
+                            DialogUtils.showErrorDialog("Error", "Failed to save changes", error.getMessage());
+                            return;
+                        }
+                        if (newAddress) {
+                            addressMasterList.add(studentAddress);
+                        }
+                        if (currentGuardian == null) {
+                            guardianMasterList.add(updatedGuardian);
+                        }
+                        if (newRelation != null) {
+                            studentGuardianMasterList.add(newRelation);
+                        }
+
+                        // Update the student in the registry list
+                        int index = students.indexOf(student);
+                        if (index >= 0) {
+                            students.set(index, student);
+                        }
+
+                        closeDialog();
+                    }));
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -456,42 +526,15 @@ public class StudentProfileController extends FXController {
     }
 
     /**
-     * Handles the update of the student's address, creating a new address if
-     * none exists.
-     */
-    private void handleAddressUpdate() {
-        Address studentAddress = findOrCreateStudentAddress();
-        ProfileDataManager.updateAddressInfo(studentAddress, student,
-                streetAddressField, barangayField, cityField, municipalityField, zipCodeField);
-        if (studentAddress.getAddressID() == 0) {
-            AddressDAO.insert(studentAddress);
-            addressMasterList.add(studentAddress);
-        } else {
-            AddressDAO.update(studentAddress);
-        }
-    }
-
-    /**
-     * Handles the update of the student's guardian, creating or updating as
-     * needed.
+     * Runs one profile write on a database worker thread. Updates retry
+     * transient failures; inserts are attempted once.
      *
-     * @return The updated Guardian object.
+     * @param insert whether the work inserts a row
+     * @param work   the database work
+     * @return a future completed when the write succeeds or every attempt fails
      */
-    private Guardian handleGuardianUpdate() {
-        Guardian currentGuardian = findCurrentGuardian();
-        Guardian updatedGuardian = ProfileDataManager.createOrUpdateGuardian(
-                guardianFirstNameField.getText(),
-                guardianContactInfoField.getText(),
-                guardianFirstNameField,
-                guardianMiddleNameField,
-                guardianLastNameField,
-                guardianRelationshipField,
-                guardianContactInfoField,
-                currentGuardian,
-                guardianMasterList);
-
-        updateStudentGuardianRelationship(updatedGuardian);
-        return updatedGuardian;
+    private static CompletableFuture<Void> write(boolean insert, DatabaseWork work) {
+        return DatabaseRetryHelper.runAsync(work, insert ? RetryPolicy.ONCE : RetryPolicy.DEFAULT);
     }
 
     /**
@@ -538,18 +581,15 @@ public class StudentProfileController extends FXController {
     }
 
     /**
-     * Updates the student-guardian relationship in the database and master
-     * list.
+     * Creates the student-guardian relationship if the student has none yet.
+     * Does not persist it or add it to the master list.
      *
      * @param guardian The guardian to associate with the student.
+     * @return The new relationship, or null if one already exists.
      */
-    private void updateStudentGuardianRelationship(Guardian guardian) {
+    private StudentGuardian createStudentGuardianRelationship(Guardian guardian) {
         boolean relationshipExists = studentGuardianMasterList.stream()
                 .anyMatch(sg -> sg.getStudentId().getStudentID() == student.getStudentID());
-        if (!relationshipExists) {
-            StudentGuardian newRelation = new StudentGuardian(student, guardian);
-            StudentGuardianDAO.insert(newRelation);
-            studentGuardianMasterList.add(newRelation);
-        }
+        return relationshipExists ? null : new StudentGuardian(student, guardian);
     }
 }
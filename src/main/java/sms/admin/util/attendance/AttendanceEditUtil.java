@@ -1,22 +1,20 @@
 package sms.admin.util.attendance;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
-import java.util.OptionalInt;
 
-import dev.finalproject.data.AttendanceLogDAO;
-import dev.finalproject.data.AttendanceRecordDAO;
-import dev.finalproject.database.DataManager;
 import dev.finalproject.models.AttendanceLog;
-import dev.finalproject.models.AttendanceRecord;
 import dev.finalproject.models.Student;
 import javafx.application.Platform;
 import javafx.collections.ObservableList;
-import javafx.concurrent.Task;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.TableCell;
 import sms.admin.util.db.DatabaseRetryHelper;
+import sms.admin.util.db.DatabaseRetryHelper.RetryPolicy;
+import sms.admin.util.db.DatabaseWork;
 
 /**
  * Utility class for editing and managing attendance records in the Student
@@ -26,7 +24,11 @@ import sms.admin.util.db.DatabaseRetryHelper;
  */
 public class AttendanceEditUtil {
 
-    private static final Object ID_LOCK = new Object(); // Lock for synchronizing ID generation
+    /** A single cell edit should finish quickly or be reported as failed. */
+    private static final RetryPolicy EDIT_POLICY = RetryPolicy.DEFAULT.withTimeout(Duration.ofSeconds(10));
+
+    /** Holiday ranges write a log per student and day, so allow them longer. */
+    private static final RetryPolicy HOLIDAY_POLICY = RetryPolicy.DEFAULT.withTimeout(Duration.ofMinutes(2));
 
     /**
      * Creates a ComboBox for selecting attendance status with predefined values.
@@ -72,31 +74,21 @@ public class AttendanceEditUtil {
         comboBox.setOnAction(event -> {
             String newValue = comboBox.getValue();
             if (newValue != null) {
-                Task<AttendanceLog> task = new Task<>() {
-                    @Override
-                    protected AttendanceLog call() {
-                        return updateAttendanceRecord(student, date, newValue, attendanceLogs);
-                    }
-                };
-                task.setOnSucceeded(e -> {
-                    AttendanceLog log = task.getValue();
-                    if (log != null) {
-                        cell.setGraphic(null);
-                        cell.setText(newValue);
-                        if (onComplete != null) {
-                            onComplete.accept(log);
-                        }
-                    } else {
-                        cell.setGraphic(null);
-                        cell.setText(CommonAttendanceUtil.ABSENT_MARK);
-                    }
-                });
-                task.setOnFailed(e -> {
-                    System.err.println("Error updating attendance: " + task.getException().getMessage());
-                    cell.setGraphic(null);
-                    cell.setText(CommonAttendanceUtil.ABSENT_MARK);
-                });
-                new Thread(task).start();
+                updateAttendanceRecord(student, date, newValue, attendanceLogs)
+                        .whenComplete((log, error) -> Platform.runLater(() -> {
+                            cell.setGraphic(null);
+                            if (error == null && log != null) {
+                                cell.setText(newValue);
+                                if (onComplete != null) {
+                                    onComplete.accept(log);
+                                }
+                            } else {
+                                if (error != null) {
+                                    System.err.println("Error updating attendance: " + error.getMessage());
+                                }
+                                cell.setText(CommonAttendanceUtil.ABSENT_MARK);
+                            }
+                        }));
             }
         });
 
@@ -108,192 +100,23 @@ public class AttendanceEditUtil {
 
     /**
      * Updates an attendance record in the database for a specific student and date.
+     * Only the affected record and log are read or written, in one transaction,
+     * on a database worker thread.
      *
      * @param student         The student whose attendance is being updated.
      * @param date            The date of the attendance record.
      * @param attendanceValue The new attendance status.
      * @param attendanceLogs  The list of attendance logs to update.
-     * @return The updated or newly created AttendanceLog, or null if the operation
-     *         fails.
+     * @return A future completed with the updated or newly created AttendanceLog,
+     *         or with the failure if every attempt fails.
      */
-    private static AttendanceLog updateAttendanceRecord(
+    private static CompletableFuture<AttendanceLog> updateAttendanceRecord(
             Student student,
             LocalDate date,
             String attendanceValue,
             ObservableList<AttendanceLog> attendanceLogs) {
-        try {
-            return DatabaseRetryHelper.withRetry(() -> {
-                synchronized (ID_LOCK) {
-                    // Fetch fresh data from the database
-                    List<AttendanceRecord> recordList = AttendanceRecordDAO.getRecordList();
-                    List<AttendanceLog> dbLogs = AttendanceLogDAO.getAttendanceLogList();
-
-                    System.out.println("Current records in DB: " + recordList.size());
-                    System.out.println("Current logs in DB: " + (dbLogs != null ? dbLogs.size() : 0));
-
-                    // Ensure a record exists for the date
-                    AttendanceRecord record = recordList.stream()
-                            .filter(r -> r.getYear() == date.getYear()
-                                    && r.getMonth() == date.getMonthValue()
-                                    && r.getDay() == date.getDayOfMonth())
-                            .findFirst()
-                            .orElse(null);
-
-                    if (record == null) {
-                        int nextRecordId = recordList.stream()
-                                .mapToInt(AttendanceRecord::getRecordID)
-                                .max()
-                                .orElse(0) + 1;
-                        record = new AttendanceRecord(nextRecordId,
-                                date.getMonthValue(),
-                                date.getDayOfMonth(),
-                                date.getYear());
-
-                        System.out.printf("Creating new record for date: %s (ID: %d)%n",
-                                date, nextRecordId);
-                        AttendanceRecordDAO.insert(record);
-                    }
-
-                    final AttendanceRecord finalRecord = record;
-
-                    // Check for an existing log
-                    AttendanceLog existingLog = dbLogs.stream()
-                            .filter(l -> l.getStudentID().getStudentID() == student.getStudentID()
-                                    && l.getRecordID().getRecordID() == finalRecord.getRecordID())
-                            .findFirst()
-                            .orElse(null);
-
-                    final AttendanceLog resultLog;
-                    if (existingLog != null) {
-                        System.out.printf("Updating existing log %d for date %s%n",
-                                existingLog.getLogID(), date);
-                        updateAttendanceValues(existingLog, attendanceValue);
-                        AttendanceLogDAO.update(existingLog);
-                        resultLog = existingLog;
-                    } else {
-                        int nextLogId = dbLogs.stream()
-                                .mapToInt(AttendanceLog::getLogID)
-                                .max()
-                                .orElse(0) + 1;
-                        AttendanceLog newLog = new AttendanceLog(nextLogId, finalRecord, student, 0, 0, 0, 0);
-                        updateAttendanceValues(newLog, attendanceValue);
-
-                        System.out.printf("Inserting new log %d for date %s%n",
-                                nextLogId, date);
-                        AttendanceLogDAO.insert(newLog);
-                        resultLog = newLog;
-                    }
-
-                    // Update the local collection on the JavaFX thread
-                    if (resultLog != null) {
-                        System.out.println("Operation successful, refreshing log list");
-                        List<AttendanceLog> updatedLogs = AttendanceLogDAO.getAttendanceLogList();
-
-                        Platform.runLater(() -> {
-                            attendanceLogs.clear();
-                            if (updatedLogs != null) {
-                                attendanceLogs.addAll(updatedLogs);
-                            }
-                            System.out.println("Local collection updated with " + attendanceLogs.size() + " logs");
-                        });
-                    }
-
-                    return resultLog;
-                }
-            });
-        } catch (Exception e) {
-            System.err.println("Error in updateAttendanceRecord: " + e.getMessage());
-            e.printStackTrace();
-            return null;
-        }
-    }
-
-    /**
-     * Finds an existing attendance log for a student and record.
-     *
-     * @param student The student to search for.
-     * @param record  The attendance record to search for.
-     * @return The existing AttendanceLog, or null if not found or an error occurs.
-     */
-    private static AttendanceLog findExistingLog(Student student, AttendanceRecord record) {
-        try {
-            List<AttendanceLog> dbLogs = AttendanceLogDAO.getAttendanceLogList();
-            return dbLogs.stream()
-                    .filter(l -> l.getStudentID().getStudentID() == student.getStudentID()
-                            && l.getRecordID().getRecordID() == record.getRecordID())
-                    .findFirst()
-                    .orElse(null);
-        } catch (Exception e) {
-            System.err.println("Error finding existing log: " + e.getMessage());
-            return null;
-        }
-    }
-
-    /**
-     * Updates the time values of an attendance log based on the provided status.
-     *
-     * @param log             The AttendanceLog to update.
-     * @param attendanceValue The attendance status to apply.
-     */
-    private static void updateAttendanceValues(AttendanceLog log, String attendanceValue) {
-        switch (attendanceValue) {
-            case CommonAttendanceUtil.PRESENT_MARK -> {
-                log.setTimeInAM(CommonAttendanceUtil.TIME_IN_AM);
-                log.setTimeOutAM(CommonAttendanceUtil.TIME_OUT_AM);
-                log.setTimeInPM(CommonAttendanceUtil.TIME_IN_PM);
-                log.setTimeOutPM(CommonAttendanceUtil.TIME_OUT_PM);
-            }
-            case CommonAttendanceUtil.ABSENT_MARK -> {
-                log.setTimeInAM(CommonAttendanceUtil.TIME_ABSENT);
-                log.setTimeOutAM(CommonAttendanceUtil.TIME_ABSENT);
-                log.setTimeInPM(CommonAttendanceUtil.TIME_ABSENT);
-                log.setTimeOutPM(CommonAttendanceUtil.TIME_ABSENT);
-            }
-            case CommonAttendanceUtil.HALF_DAY_MARK -> {
-                log.setTimeInAM(CommonAttendanceUtil.TIME_IN_AM);
-                log.setTimeOutAM(CommonAttendanceUtil.TIME_OUT_AM);
-                log.setTimeInPM(CommonAttendanceUtil.TIME_ABSENT);
-                log.setTimeOutPM(CommonAttendanceUtil.TIME_ABSENT);
-            }
-            case CommonAttendanceUtil.EXCUSED_MARK -> {
-                log.setTimeInAM(CommonAttendanceUtil.TIME_EXCUSED);
-                log.setTimeOutAM(CommonAttendanceUtil.TIME_EXCUSED);
-                log.setTimeInPM(CommonAttendanceUtil.TIME_EXCUSED);
-                log.setTimeOutPM(CommonAttendanceUtil.TIME_EXCUSED);
-            }
-            case CommonAttendanceUtil.HOLIDAY_MARK -> {
-                log.setTimeInAM(CommonAttendanceUtil.TIME_HOLIDAY);
-                log.setTimeOutAM(CommonAttendanceUtil.TIME_HOLIDAY);
-                log.setTimeInPM(CommonAttendanceUtil.TIME_HOLIDAY);
-                log.setTimeOutPM(CommonAttendanceUtil.TIME_HOLIDAY);
-            }
-        }
-    }
-
-    /**
-     * Ensures an attendance record exists for the specified date, creating a new
-     * one if necessary.
-     *
-     * @param date The date to check or create a record for.
-     * @return The existing or newly created AttendanceRecord.
-     */
-    private static AttendanceRecord ensureAttendanceRecordExists(LocalDate date) {
-        List<AttendanceRecord> recordList = AttendanceRecordDAO.getRecordList();
-        AttendanceRecord record = recordList.stream()
-                .filter(r -> r.getYear() == date.getYear()
-                        && r.getMonth() == date.getMonthValue()
-                        && r.getDay() == date.getDayOfMonth())
-                .findFirst()
-                .orElse(null);
-        if (record == null) {
-            int nextId = recordList.stream()
-                    .mapToInt(AttendanceRecord::getRecordID)
-                    .max()
-                    .orElse(0) + 1;
-            record = new AttendanceRecord(nextId, date.getMonthValue(), date.getDayOfMonth(), date.getYear());
-            AttendanceRecordDAO.insert(record);
-        }
-        return record;
+        return DatabaseRetryHelper.withRetryAsync(
+                () -> AttendanceWriter.write(student, date, attendanceValue, attendanceLogs), EDIT_POLICY);
     }
 
     /**
@@ -308,45 +131,35 @@ public class AttendanceEditUtil {
      */
     public static void markDayAsHoliday(LocalDate date, List<Student> students,
             ObservableList<AttendanceLog> masterAttendanceLogs, Consumer<Boolean> onComplete) {
-        try {
-            AttendanceRecord record = ensureAttendanceRecordExists(date);
-
-            synchronized (ID_LOCK) {
-                int nextId = generateNextLogId();
-
-                for (Student student : students) {
-                    AttendanceLog existingLog = findExistingLog(student, record);
+        markHolidays(date, date, students, masterAttendanceLogs, onComplete);
+    }
 
-                    if (existingLog != null) {
-                        existingLog.setTimeInAM(CommonAttendanceUtil.TIME_HOLIDAY);
-                        existingLog.setTimeOutAM(CommonAttendanceUtil.TIME_HOLIDAY);
-                        existingLog.setTimeInPM(CommonAttendanceUtil.TIME_HOLIDAY);
-                        existingLog.setTimeOutPM(CommonAttendanceUtil.TIME_HOLIDAY);
-                        AttendanceLogDAO.update(existingLog);
-                        if (masterAttendanceLogs.contains(existingLog)) {
-                            masterAttendanceLogs.set(masterAttendanceLogs.indexOf(existingLog), existingLog);
-                        } else {
-                            masterAttendanceLogs.add(existingLog);
-                        }
-                    } else {
-                        AttendanceLog newLog = new AttendanceLog(nextId++, record, student,
-                                CommonAttendanceUtil.TIME_HOLIDAY,
-                                CommonAttendanceUtil.TIME_HOLIDAY,
-                                CommonAttendanceUtil.TIME_HOLIDAY,
-                                CommonAttendanceUtil.TIME_HOLIDAY);
-                        AttendanceLogDAO.insert(newLog);
-                        masterAttendanceLogs.add(newLog);
-                    }
+    /**
+     * Marks every weekday in a date range as a holiday for all provided
+     * students. All logs are written in one transaction with batched
+     * statements, off the JavaFX thread; the callback runs on the JavaFX thread.
+     *
+     * @param startDate            The first day of the range.
+     * @param endDate              The last day of the range (inclusive).
+     * @param students             The students to apply the holiday status to,
+     *                             typically a whole school year.
+     * @param masterAttendanceLogs The list of attendance logs to update.
+     * @param onComplete           Callback to indicate operation success or
+     *                             failure.
+     */
+    public static void markHolidays(LocalDate startDate, LocalDate endDate, List<Student> students,
+            ObservableList<AttendanceLog> masterAttendanceLogs, Consumer<Boolean> onComplete) {
+        List<LocalDate> dates = holidayDates(startDate, endDate);
+        List<Student> targets = List.copyOf(students);
+        runHolidayTask("marking holiday", onComplete, () -> {
+            AttendanceWriter writer = new AttendanceWriter(masterAttendanceLogs);
+            for (LocalDate date : dates) {
+                for (Student student : targets) {
+                    writer.set(student, date, CommonAttendanceUtil.HOLIDAY_MARK);
                 }
             }
-
-            CommonAttendanceUtil.addHolidayDate(date);
-            onComplete.accept(true);
-        } catch (Exception e) {
-            System.err.println("Error marking holiday: " + e.getMessage());
-            e.printStackTrace();
-            onComplete.accept(false);
-        }
+            writer.commit();
+        }, () -> dates.forEach(CommonAttendanceUtil::addHolidayDate));
     }
 
     /**
@@ -359,47 +172,55 @@ public class AttendanceEditUtil {
      */
     public static void unmarkDayAsHoliday(LocalDate date,
             ObservableList<AttendanceLog> masterAttendanceLogs, Consumer<Boolean> onComplete) {
-        try {
-            List<AttendanceRecord> recordList = AttendanceRecordDAO.getRecordList();
-            AttendanceRecord record = recordList.stream()
-                    .filter(r -> r.getYear() == date.getYear()
-                            && r.getMonth() == date.getMonthValue()
-                            && r.getDay() == date.getDayOfMonth())
-                    .findFirst()
-                    .orElse(null);
+        unmarkHolidays(date, date, masterAttendanceLogs, onComplete);
+    }
 
-            if (record != null) {
-                AttendanceRecordDAO.delete(record);
-                masterAttendanceLogs.removeIf(log -> log.getRecordID().getRecordID() == record.getRecordID());
-            }
+    /**
+     * Unmarks every weekday in a date range as a holiday, deleting the
+     * attendance records of those days and their logs in one transaction.
+     *
+     * @param startDate            The first day of the range.
+     * @param endDate              The last day of the range (inclusive).
+     * @param masterAttendanceLogs The list of attendance logs to update.
+     * @param onComplete           Callback to indicate operation success or
+     *                             failure.
+     */
+    public static void unmarkHolidays(LocalDate startDate, LocalDate endDate,
+            ObservableList<AttendanceLog> masterAttendanceLogs, Consumer<Boolean> onComplete) {
+        List<LocalDate> dates = holidayDates(startDate, endDate);
+        runHolidayTask("unmarking holiday", onComplete,
+                () -> AttendanceWriter.deleteDays(dates, masterAttendanceLogs),
+                () -> dates.forEach(CommonAttendanceUtil::removeHolidayDate));
+    }
 
-            CommonAttendanceUtil.removeHolidayDate(date);
-            onComplete.accept(true);
-        } catch (Exception e) {
-            System.err.println("Error unmarking holiday: " + e.getMessage());
-            e.printStackTrace();
-            onComplete.accept(false);
+    /**
+     * Returns the days of a holiday range. A single day is used as given; a
+     * longer range skips weekends.
+     */
+    private static List<LocalDate> holidayDates(LocalDate startDate, LocalDate endDate) {
+        if (startDate.equals(endDate)) {
+            return List.of(startDate);
         }
+        return startDate.datesUntil(endDate.plusDays(1))
+                .filter(date -> !CommonAttendanceUtil.isWeekend(date))
+                .toList();
     }
 
     /**
-     * Generates the next available log ID for a new attendance log.
-     *
-     * @return The next log ID, or -1 if generation fails.
+     * Runs holiday database work on a database worker thread and reports the
+     * result on the JavaFX thread.
      */
-    private static synchronized int generateNextLogId() {
-        try {
-            return DatabaseRetryHelper.withRetry(() -> {
-                List<AttendanceLog> allLogs = AttendanceLogDAO.getAttendanceLogList();
-                int maxId = allLogs.stream()
-                        .mapToInt(AttendanceLog::getLogID)
-                        .max()
-                        .orElse(0);
-                return maxId + 1;
-            });
-        } catch (Exception e) {
-            System.err.println("Failed to generate next log ID: " + e.getMessage());
-            return -1;
-        }
+    private static void runHolidayTask(String action, Consumer<Boolean> onComplete,
+            DatabaseWork work, Runnable onSuccess) {
+        DatabaseRetryHelper.runAsync(work, HOLIDAY_POLICY).whenComplete((ignored, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                onSuccess.run();
+                onComplete.accept(true);
+            } else {
+                System.err.println("Error " + action + ": " + error.getMessage());
+                error.printStackTrace();
+                onComplete.accept(false);
+            }
+        }));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,287 @@
+package sms.admin.util.attendance;
+
+import java.lang.ref.WeakReference;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dev.finalproject.database.DataManager;
+import dev.finalproject.models.AttendanceLog;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
+
+/**
+ * In-memory index over attendance logs providing O(1) lookup by
+ * (student ID, date) and ordered range scans by (student ID, month).
+ *
+ * <p>
+ * The {@link #shared()} instance follows the {@code ATTENDANCE_LOG} list held
+ * by {@link DataManager}: it listens for list changes and rebinds itself if
+ * the registry list is replaced by a refresh. Indexes for other observable
+ * lists are obtained through {@link #forLogs(List)} and stay in sync
+ * with their list the same way. If two logs exist for the same student and
+ * day, the one that appears last in the list wins.
+ * </p>
+ *
+ * <p>
+ * Lookups are safe from any thread; updates are applied on whichever thread
+ * modifies the underlying list (normally the JavaFX thread).
+ * </p>
+ */
+public final class AttendanceIndex {
+
+    private static final String ATTENDANCE_LOG_KEY = "ATTENDANCE_LOG";
+
+    /** Bumped whenever logs are modified in place, so every index reports a new version. */
+    private static final AtomicLong IN_PLACE_UPDATES = new AtomicLong();
+
+    private static AttendanceIndex sharedIndex;
+    private static ObservableList<AttendanceLog> sharedSource;
+    /** Live indexes for lists other than the shared one, matched by identity. */
+    private static final List<AttendanceIndex> LIVE_INDEXES = new ArrayList<>();
+
+    private final Map<Long, AttendanceLog> byStudentAndDay = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableMap<LocalDate, AttendanceLog>> byStudent = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final ListChangeListener<AttendanceLog> listener = this::onChanged;
+    private final WeakListChangeListener<AttendanceLog> weakListener = new WeakListChangeListener<>(listener);
+    private WeakReference<ObservableList<AttendanceLog>> boundList;
+
+    /**
+     * Creates a static snapshot index of the given logs. The index does not
+     * follow later changes to the collection.
+     *
+     * @param logs the logs to index
+     */
+    public AttendanceIndex(Collection<? extends AttendanceLog> logs) {
+        if (logs != null) {
+            logs.forEach(this::add);
+        }
+    }
+
+    private AttendanceIndex(ObservableList<AttendanceLog> logs, boolean live) {
+        this(logs);
+        if (live) {
+            boundList = new WeakReference<>(logs);
+            logs.addListener(weakListener);
+        }
+    }
+
+    /**
+     * Returns the index over the shared {@code ATTENDANCE_LOG} collection,
+     * rebinding it if {@link DataManager} has replaced the list since the last
+     * call.
+     *
+     * @return the shared attendance index
+     */
+    public static synchronized AttendanceIndex shared() {
+        ObservableList<AttendanceLog> current = DataManager.getInstance()
+                .getCollectionsRegistry()
+                .getList(ATTENDANCE_LOG_KEY);
+        if (sharedIndex == null || current != sharedSource) {
+            if (sharedIndex != null) {
+                sharedIndex.dispose();
+            }
+            sharedSource = current;
+            sharedIndex = current != null
+                    ? new AttendanceIndex(current, true)
+                    : new AttendanceIndex(Collections.emptyList());
+        }
+        return sharedIndex;
+    }
+
+    /**
+     * Returns an index for the given logs. The shared registry list maps to
+     * {@link #shared()}; other observable lists get a live index that is cached
+     * for as long as the list is reachable and not empty; any other collection is
+     * indexed as a snapshot.
+     *
+     * @param logs the logs to index
+     * @return an index over {@code logs}
+     */
+    public static synchronized AttendanceIndex forLogs(List<AttendanceLog> logs) {
+        if (logs instanceof ObservableList<AttendanceLog> observable) {
+            if (observable == registryLogs()) {
+                return shared();
+            }
+            LIVE_INDEXES.removeIf(index -> index.boundList == null || index.boundList.get() == null);
+            for (AttendanceIndex index : LIVE_INDEXES) {
+                if (index.boundList.get() == observable) {
+                    return index;
+                }
+            }
+            AttendanceIndex index = new AttendanceIndex(observable, true);
+            LIVE_INDEXES.add(index);
+            return index;
+        }
+        return new AttendanceIndex(logs);
+    }
+
+    /**
+     * Returns the registry's attendance log list, or null when the data manager
+     * is unavailable (for example in stand-alone tools and benchmarks).
+     */
+    private static ObservableList<AttendanceLog> registryLogs() {
+        try {
+            return DataManager.getInstance().getCollectionsRegistry().getList(ATTENDANCE_LOG_KEY);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Records that one or more indexed logs were modified in place (their time
+     * values changed without a list change event), so that caches keyed on
+     * {@link #version()} are invalidated.
+     */
+    public static void notifyLogsUpdated() {
+        IN_PLACE_UPDATES.incrementAndGet();
+    }
+
+    /**
+     * Returns the log for a student on a given day.
+     *
+     * @param studentId the student ID
+     * @param date      the day
+     * @return the matching log, or {@code null} if none exists
+     */
+    public AttendanceLog find(int studentId, LocalDate date) {
+        return date == null ? null : byStudentAndDay.get(key(studentId, date));
+    }
+
+    /**
+     * Returns a student's logs between two days (inclusive), ordered by date.
+     *
+     * @param studentId the student ID
+     * @param from      the first day
+     * @param to        the last day
+     * @return an unmodifiable view of the matching logs keyed by date
+     */
+    public NavigableMap<LocalDate, AttendanceLog> findRange(int studentId, LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, AttendanceLog> logs = byStudent.get(studentId);
+        if (logs == null || from.isAfter(to)) {
+            return Collections.emptyNavigableMap();
+        }
+        return Collections.unmodifiableNavigableMap(logs.subMap(from, true, to, true));
+    }
+
+    /**
+     * Returns a student's logs for a month, ordered by date.
+     *
+     * @param studentId the student ID
+     * @param month     the month
+     * @return an unmodifiable view of the matching logs keyed by date
+     */
+    public NavigableMap<LocalDate, AttendanceLog> findMonth(int studentId, YearMonth month) {
+        return findRange(studentId, month.atDay(1), month.atEndOfMonth());
+    }
+
+    /**
+     * Returns a counter that changes whenever the indexed logs change.
+     *
+     * @return the current index version
+     */
+    public long version() {
+        return version.get() + IN_PLACE_UPDATES.get();
+    }
+
+    /**
+     * Returns the number of indexed (student, day) entries.
+     *
+     * @return the index size
+     */
+    public int size() {
+        return byStudentAndDay.size();
+    }
+
+    /**
+     * Stops following the bound list. Has no effect on snapshot indexes.
+     */
+    public void dispose() {
+        ObservableList<AttendanceLog> logs = boundList != null ? boundList.get() : null;
+        if (logs != null) {
+            logs.removeListener(weakListener);
+        }
+        boundList = null;
+    }
+
+    private void onChanged(ListChangeListener.Change<? extends AttendanceLog> change) {
+        if (change.getList().isEmpty()) {
+            // A cleared list no longer needs a cached index; holders keep theirs in sync
+            evict(this);
+        }
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                continue;
+            }
+            // Bulk replacements (setAll) are cheaper to rebuild than to diff
+            if (change.getRemovedSize() + change.getAddedSize() > change.getList().size() / 2) {
+                rebuild(change.getList());
+                return;
+            }
+            change.getRemoved().forEach(this::remove);
+            change.getAddedSubList().forEach(this::add);
+        }
+        version.incrementAndGet();
+    }
+
+    private static synchronized void evict(AttendanceIndex index) {
+        LIVE_INDEXES.remove(index);
+    }
+
+    private void rebuild(Collection<? extends AttendanceLog> logs) {
+        byStudentAndDay.clear();
+        byStudent.clear();
+        logs.forEach(this::add);
+        version.incrementAndGet();
+    }
+
+    private void add(AttendanceLog log) {
+        LocalDate date = dateOf(log);
+        if (date == null) {
+            return;
+        }
+        int studentId = log.getStudentID().getStudentID();
+        byStudentAndDay.put(key(studentId, date), log);
+        byStudent.computeIfAbsent(studentId, id -> new ConcurrentSkipListMap<>()).put(date, log);
+    }
+
+    private void remove(AttendanceLog log) {
+        LocalDate date = dateOf(log);
+        if (date == null) {
+            return;
+        }
+        int studentId = log.getStudentID().getStudentID();
+        byStudentAndDay.remove(key(studentId, date), log);
+        NavigableMap<LocalDate, AttendanceLog> logs = byStudent.get(studentId);
+        if (logs != null) {
+            logs.remove(date, log);
+        }
+    }
+
+    private static LocalDate dateOf(AttendanceLog log) {
+        if (log == null || log.getStudentID() == null || log.getRecordID() == null) {
+            return null;
+        }
+        try {
+            return LocalDate.of(log.getRecordID().getYear(), log.getRecordID().getMonth(),
+                    log.getRecordID().getDay());
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static long key(int studentId, LocalDate date) {
+        return ((long) studentId << 32) | (date.toEpochDay() & 0xFFFFFFFFL);
+    }
+}
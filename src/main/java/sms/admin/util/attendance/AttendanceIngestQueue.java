@@ -0,0 +1,451 @@
+package sms.admin.util.attendance;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import dev.finalproject.models.AttendanceLog;
+import dev.finalproject.models.Student;
+import javafx.collections.ObservableList;
+import sms.admin.util.db.DatabaseRetryHelper;
+import sms.admin.util.metrics.PerfMetrics;
+
+/**
+ * Accepts time-in and time-out events from the attendance tool and writes them
+ * to the database in the background, several at a time.
+ *
+ * <p>
+ * {@link #offer(Event...)} never blocks: it queues the events and returns, so
+ * the kiosk can acknowledge a tap immediately. A single flusher thread takes
+ * what has queued up, waiting up to {@value #LINGER_MILLIS} ms after the first
+ * event for more to arrive, applies the events of each student-day in arrival
+ * order and writes the result with one {@link AttendanceWriter} transaction.
+ * Since there is one flusher and the queue is FIFO, the events of a student
+ * are never reordered.
+ * </p>
+ *
+ * <p>
+ * The flusher never touches the in-memory logs, which belong to the JavaFX
+ * thread. {@code offer} records the times the student-day shows when the tap
+ * is accepted, and the flusher writes only the slots the events set: an
+ * existing log keeps whatever its other slots hold in the database, such as
+ * a correction made by an administrator, and a new log takes the recorded
+ * times for them. The {@link AttendanceWriter} mirrors the written rows in
+ * the in-memory logs on the JavaFX thread.
+ * </p>
+ *
+ * <p>
+ * The queue is bounded. When it is full, {@code offer} returns false and the
+ * caller should ask the student to scan again. If a batch cannot be written,
+ * its edits are kept and written together with the next events; until the
+ * retry, the flusher keeps taking events off the queue, so the kiosk keeps
+ * accepting taps while the database is unreachable.
+ * </p>
+ *
+ * <p>
+ * Accepted events are also appended to an {@link AttendanceJournal}, forced
+ * to disk once per batch. Events the journal still holds when the queue
+ * starts, because the application stopped before they reached the database,
+ * are written first. Without a usable journal the queue works from memory
+ * only.
+ * </p>
+ */
+public final class AttendanceIngestQueue {
+
+    /** The time value an event sets. */
+    public enum Slot {
+        TIME_IN_AM, TIME_OUT_AM, TIME_IN_PM, TIME_OUT_PM
+    }
+
+    /**
+     * A time-in or time-out of one student.
+     *
+     * @param student the student
+     * @param date    the day
+     * @param slot    the time value to set
+     * @param time    the time as {@code HHmm}, or 0 to clear the slot
+     */
+    public record Event(Student student, LocalDate date, Slot slot, int time) {
+    }
+
+    /**
+     * Receives the outcome of each flush, on the flusher thread.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called when a batch could not be written. Its edits are kept and
+         * written with the next batch.
+         *
+         * @param error   the last failure
+         * @param pending the number of student-days and events still waiting
+         */
+        void failed(Exception error, int pending);
+
+        /**
+         * Called after a batch is committed.
+         *
+         * @param logs the written logs
+         */
+        default void flushed(List<AttendanceLog> logs) {
+        }
+    }
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int MAX_BATCH = 64;
+    private static final long LINGER_MILLIS = 50;
+    private static final long IDLE_POLL_MILLIS = 250;
+    private static final long FAILURE_BACKOFF_MILLIS = 2000;
+
+    private final BlockingQueue<Queued> queue;
+    private final ObservableList<AttendanceLog> logs;
+    private final IntFunction<Student> students;
+    private final AttendanceJournal journal;
+    private final Thread flusher;
+
+    /** Edits not written yet, by student-day, in the order they were first touched. */
+    private final Map<Long, Edit> unwritten = new LinkedHashMap<>();
+    /** The journal sequence number of the last event applied to {@link #unwritten}. */
+    private long appliedSeq;
+
+    private volatile Listener listener;
+    private volatile boolean closed;
+
+    /**
+     * An accepted event, its journal sequence number (0 if it is not
+     * journaled) and the times its student-day showed when it was accepted.
+     */
+    private record Queued(Event event, long seq, int[] shown) {
+    }
+
+    private static final class Edit {
+        final Student student;
+        final LocalDate date;
+        /** The times for a new log: the shown times with the events applied. */
+        final int[] times;
+        /** The slots set by events, as an {@link AttendanceWriter} slot mask. */
+        int mask;
+
+        Edit(Student student, LocalDate date, int[] times) {
+            this.student = student;
+            this.date = date;
+            this.times = times;
+        }
+    }
+
+    /**
+     * Creates a queue with the default capacity and journal, and starts its
+     * flusher.
+     *
+     * @param logs     the attendance logs to keep up to date
+     * @param students looks up the students of journaled events by ID
+     */
+    public AttendanceIngestQueue(ObservableList<AttendanceLog> logs, IntFunction<Student> students) {
+        this(logs, students, DEFAULT_CAPACITY, AttendanceJournal.DEFAULT_FILE);
+    }
+
+    /**
+     * Creates a queue and starts its flusher.
+     *
+     * @param logs        the attendance logs to keep up to date
+     * @param students    looks up the students of journaled events by ID
+     * @param capacity    the number of events that may wait before offers are
+     *                    refused
+     * @param journalFile the journal file, or null to work from memory only
+     */
+    public AttendanceIngestQueue(ObservableList<AttendanceLog> logs, IntFunction<Student> students,
+            int capacity, Path journalFile) {
+        this.logs = logs;
+        this.students = students;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.journal = journalFile != null ? openJournal(journalFile) : null;
+        this.flusher = new Thread(this::run, "attendance-ingest");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Sets the listener told about flushes.
+     *
+     * @param listener the listener, or null for none
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Queues events without waiting. Either all of them are queued or, if
+     * there is not enough room or the queue is closed, none. Must be called on
+     * the JavaFX thread.
+     *
+     * @param events the events, in the order they happened
+     * @return false if the events were refused
+     */
+    public synchronized boolean offer(Event... events) {
+        if (closed || queue.remainingCapacity() < events.length) {
+            return false;
+        }
+        for (Event event : events) {
+            queue.add(new Queued(event, journal(event), shownTimes(event)));
+        }
+        return true;
+    }
+
+    /** Returns the times the in-memory log of an event's student-day holds. */
+    private int[] shownTimes(Event event) {
+        AttendanceLog log = logs == null ? null
+                : AttendanceIndex.forLogs(logs).find(event.student().getStudentID(), event.date());
+        return log == null ? new int[4]
+                : new int[] { log.getTimeInAM(), log.getTimeOutAM(), log.getTimeInPM(), log.getTimeOutPM() };
+    }
+
+    /**
+     * Returns whether accepted events are kept in a journal on disk.
+     *
+     * @return true if the journal is in use
+     */
+    public boolean isJournaled() {
+        return journal != null;
+    }
+
+    /**
+     * Returns the number of events waiting to be taken by the flusher.
+     *
+     * @return the queue length
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting events and waits for the queued ones to be written.
+     *
+     * @param timeout how long to wait
+     * @return true if everything was written
+     */
+    public boolean close(Duration timeout) {
+        synchronized (this) {
+            closed = true;
+        }
+        try {
+            flusher.join(timeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !flusher.isAlive();
+    }
+
+    private void run() {
+        List<Queued> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            replayJournal();
+            while (true) {
+                takeBatch(batch);
+                if (batch.isEmpty() && unwritten.isEmpty()) {
+                    if (closed && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                for (Queued queued : batch) {
+                    apply(queued);
+                }
+                batch.clear();
+                syncJournal();
+                if (!write()) {
+                    absorb(FAILURE_BACKOFF_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeJournal();
+        }
+    }
+
+    /**
+     * Waits for the first event, then gathers more until the batch is full or
+     * the linger time has passed.
+     */
+    private void takeBatch(List<Queued> batch) throws InterruptedException {
+        Queued first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        queue.drainTo(batch, MAX_BATCH - batch.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER_MILLIS);
+        while (batch.size() < MAX_BATCH) {
+            long remaining = deadline - System.nanoTime();
+            Queued next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+        }
+    }
+
+    /**
+     * Keeps taking events off the queue while waiting to retry a failed write,
+     * so that taps are still accepted.
+     */
+    private void absorb(long millis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            Queued queued = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (queued != null) {
+                apply(queued);
+            }
+        }
+        syncJournal();
+    }
+
+    private void apply(Queued queued) {
+        apply(queued.event(), queued.shown());
+        appliedSeq = Math.max(appliedSeq, queued.seq());
+    }
+
+    /**
+     * Adds an event to the edit of its student-day. The first event of an
+     * edit supplies the times of the slots no event sets.
+     */
+    private void apply(Event event, int[] shown) {
+        long key = key(event.student().getStudentID(), event.date());
+        Edit edit = unwritten.computeIfAbsent(key,
+                k -> new Edit(event.student(), event.date(), shown != null ? shown.clone() : new int[4]));
+        int slot = event.slot().ordinal();
+        edit.times[slot] = event.time();
+        edit.mask |= 1 << slot;
+    }
+
+    /**
+     * Writes every unwritten edit in one transaction.
+     *
+     * @return false if the write failed and should be retried later
+     */
+    private boolean write() throws InterruptedException {
+        List<Edit> edits = new ArrayList<>(unwritten.values());
+        List<AttendanceLog> changed;
+        try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "AttendanceIngestQueue.flush")) {
+            changed = DatabaseRetryHelper.withRetry(() -> {
+                AttendanceWriter writer = new AttendanceWriter(logs);
+                for (Edit edit : edits) {
+                    writer.setSlots(edit.student, edit.date, edit.times, edit.mask);
+                }
+                return writer.commit();
+            });
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("Failed to write " + edits.size() + " attendance edits: " + e.getMessage());
+            notifyFailed(e, unwritten.size() + queue.size());
+            return false;
+        }
+
+        unwritten.clear();
+        commitJournal();
+        Listener current = listener;
+        if (current != null) {
+            current.flushed(changed);
+        }
+        return true;
+    }
+
+    private static AttendanceJournal openJournal(Path file) {
+        try {
+            return AttendanceJournal.open(file);
+        } catch (IOException e) {
+            System.err.println("Attendance journal unavailable, events are kept in memory only: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Queues the edits of the events left in the journal by an earlier run.
+     */
+    private void replayJournal() {
+        if (journal == null || journal.pending().isEmpty()) {
+            return;
+        }
+        int skipped = 0;
+        for (AttendanceJournal.Entry entry : journal.pending()) {
+            Student student = students.apply(entry.studentId());
+            if (student == null) {
+                skipped++;
+            } else {
+                apply(new Event(student, entry.date(), entry.slot(), entry.time()), null);
+            }
+            appliedSeq = Math.max(appliedSeq, entry.seq());
+        }
+        System.out.println("Replaying " + (journal.pending().size() - skipped) + " journaled attendance events");
+        if (skipped > 0) {
+            System.err.println("Skipped " + skipped + " journaled attendance events of unknown students");
+        }
+    }
+
+    /** Appends an event to the journal, returning its sequence number or 0. */
+    private long journal(Event event) {
+        if (journal == null) {
+            return 0;
+        }
+        try {
+            return journal.append(event.student().getStudentID(), event.date(), event.slot(), event.time());
+        } catch (IOException e) {
+            System.err.println("Failed to journal attendance event: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private void syncJournal() {
+        if (journal != null) {
+            try {
+                journal.sync();
+            } catch (IOException e) {
+                System.err.println("Failed to sync attendance journal: " + e.getMessage());
+            }
+        }
+    }
+
+    private void commitJournal() {
+        if (journal != null) {
+            try {
+                journal.commit(appliedSeq);
+            } catch (IOException e) {
+                System.err.println("Failed to mark attendance journal committed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close attendance journal: " + e.getMessage());
+            }
+        }
+    }
+
+    private void notifyFailed(Exception error, int pending) {
+        Listener current = listener;
+        if (current != null) {
+            current.failed(error, pending);
+        }
+    }
+
+    private static long key(int studentId, LocalDate date) {
+        return ((long) studentId << 32) | (date.toEpochDay() & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,248 @@
+package sms.admin.util.attendance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of the attendance events accepted by
+ * {@link AttendanceIngestQueue}, kept under {@code ~/.sms-admin/journal} so
+ * taps survive a crash or a database outage.
+ *
+ * <p>
+ * Every event is written as a fixed-size record with a CRC-32 when it is
+ * accepted; {@link #sync()} forces the file to disk once per batch rather than
+ * once per event. When a batch is committed to the database a commit record
+ * with the highest event sequence number it covers is appended, and once
+ * nothing is outstanding the file is truncated. On {@link #open(Path)} a torn
+ * or corrupt tail is cut off and the events after the last commit record are
+ * returned by {@link #pending()}.
+ * </p>
+ *
+ * <p>
+ * Events only set time values, so replaying one that was already written
+ * changes nothing. Replay keeps the last event of each (student, day, slot).
+ * The file is locked while open; a second queue in the same installation runs
+ * without a journal.
+ * </p>
+ */
+final class AttendanceJournal implements AutoCloseable {
+
+    static final Path DEFAULT_FILE = Path.of(System.getProperty("user.home"), ".sms-admin", "journal",
+            "attendance.journal");
+
+    private static final byte EVENT = 'E';
+    private static final byte COMMIT = 'C';
+    /** Type, sequence number, student ID, epoch day, slot, time. */
+    private static final int BODY_BYTES = 1 + Long.BYTES + Integer.BYTES + Integer.BYTES + 1 + Integer.BYTES;
+    private static final int RECORD_BYTES = BODY_BYTES + Integer.BYTES;
+
+    /**
+     * An event read back from the journal.
+     *
+     * @param seq       the sequence number
+     * @param studentId the student ID
+     * @param date      the day
+     * @param slot      the time value set
+     * @param time      the time as {@code HHmm}
+     */
+    record Entry(long seq, int studentId, LocalDate date, AttendanceIngestQueue.Slot slot, int time) {
+    }
+
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final List<Entry> pending;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES);
+    private final CRC32 crc = new CRC32();
+    private long lastSeq;
+    private boolean dirty;
+
+    private AttendanceJournal(FileChannel channel, FileLock lock, List<Entry> pending, long lastSeq) {
+        this.channel = channel;
+        this.lock = lock;
+        this.pending = pending;
+        this.lastSeq = lastSeq;
+    }
+
+    /**
+     * Opens or creates a journal and reads the events not yet committed.
+     *
+     * @param file the journal file
+     * @return the journal, positioned at its end
+     * @throws IOException if the file cannot be read, written or locked
+     */
+    static AttendanceJournal open(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("Attendance journal is in use: " + file);
+            }
+
+            Map<Long, Entry> events = new LinkedHashMap<>();
+            long committed = 0;
+            long lastSeq = 0;
+            long validBytes = 0;
+            ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+            CRC32 check = new CRC32();
+            channel.position(0);
+            while (true) {
+                record.clear();
+                while (record.hasRemaining() && channel.read(record) > 0) {
+                    // Keep reading until the record is complete or the file ends
+                }
+                if (record.hasRemaining()) {
+                    break; // Torn tail
+                }
+                check.reset();
+                check.update(record.array(), 0, BODY_BYTES);
+                record.flip();
+                if ((int) check.getValue() != record.getInt(BODY_BYTES)) {
+                    break; // Corrupt record; nothing after it can be trusted
+                }
+                byte type = record.get();
+                long seq = record.getLong();
+                if (type == EVENT) {
+                    int studentId = record.getInt();
+                    LocalDate date = LocalDate.ofEpochDay(record.getInt());
+                    AttendanceIngestQueue.Slot slot = AttendanceIngestQueue.Slot.values()[record.get()];
+                    Entry entry = new Entry(seq, studentId, date, slot, record.getInt());
+                    // Last event per (student, day, slot) wins
+                    events.remove(key(entry));
+                    events.put(key(entry), entry);
+                } else if (type == COMMIT) {
+                    committed = Math.max(committed, seq);
+                } else {
+                    break;
+                }
+                lastSeq = Math.max(lastSeq, seq);
+                validBytes += RECORD_BYTES;
+            }
+            if (validBytes < channel.size()) {
+                System.err.println("Discarding " + (channel.size() - validBytes)
+                        + " unreadable bytes at the end of the attendance journal");
+                channel.truncate(validBytes);
+                channel.force(false);
+            }
+            channel.position(validBytes);
+
+            List<Entry> pending = new ArrayList<>();
+            for (Entry entry : events.values()) {
+                if (entry.seq() > committed) {
+                    pending.add(entry);
+                }
+            }
+            pending.sort(Comparator.comparingLong(Entry::seq));
+            return new AttendanceJournal(channel, lock, pending, lastSeq);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the events that were not committed when the journal was opened,
+     * one per (student, day, slot), in the order they were accepted.
+     *
+     * @return the events to replay
+     */
+    List<Entry> pending() {
+        return pending;
+    }
+
+    /**
+     * Appends an event without forcing it to disk.
+     *
+     * @param studentId the student ID
+     * @param date      the day
+     * @param slot      the time value set
+     * @param time      the time as {@code HHmm}
+     * @return the event's sequence number
+     * @throws IOException if the record cannot be written
+     */
+    synchronized long append(int studentId, LocalDate date, AttendanceIngestQueue.Slot slot, int time)
+            throws IOException {
+        long seq = lastSeq + 1;
+        write(EVENT, seq, studentId, (int) date.toEpochDay(), (byte) slot.ordinal(), time);
+        lastSeq = seq;
+        return seq;
+    }
+
+    /**
+     * Forces the events appended since the last call to disk.
+     *
+     * @throws IOException if the file cannot be forced
+     */
+    synchronized void sync() throws IOException {
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    /**
+     * Records that every event up to a sequence number is in the database. If
+     * no later event was appended, the journal is emptied instead.
+     *
+     * @param seq the highest committed sequence number
+     * @throws IOException if the journal cannot be written
+     */
+    synchronized void commit(long seq) throws IOException {
+        if (seq >= lastSeq) {
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(false);
+            dirty = false;
+        } else if (seq > 0) {
+            write(COMMIT, seq, 0, 0, (byte) 0, 0);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            sync();
+            lock.release();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void write(byte type, long seq, int studentId, int epochDay, byte slot, int time) throws IOException {
+        buffer.clear();
+        buffer.put(type).putLong(seq).putInt(studentId).putInt(epochDay).put(slot).putInt(time);
+        crc.reset();
+        crc.update(buffer.array(), 0, BODY_BYTES);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        dirty = true;
+    }
+
+    private static long key(Entry entry) {
+        return (((long) entry.studentId()) << 32)
+                | ((entry.date().toEpochDay() & 0xFFFFFFL) << 8)
+                | entry.slot().ordinal();
+    }
+}
@@ -0,0 +1,100 @@
+package sms.admin.util.attendance;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import dev.finalproject.models.AttendanceLog;
+
+/**
+ * Selects the attendance logs shown for a school year: the logs of the given
+ * students dated within a range, excluding logs with missing references,
+ * invalid dates, future dates or corrupt times, ordered by log ID.
+ *
+ * <p>
+ * The student IDs are hashed once and each log's date is built once, so a
+ * filter over the whole {@code ATTENDANCE_LOG} collection is linear in the
+ * number of logs rather than in logs times students.
+ * </p>
+ */
+public final class AttendanceLogFilter {
+
+    /** Times below the holiday marker are corrupt. */
+    private static final int MIN_VALID_TIME = CommonAttendanceUtil.TIME_HOLIDAY;
+
+    private AttendanceLogFilter() {
+    }
+
+    /**
+     * Filters logs to the given students and date range, up to today.
+     *
+     * @param logs       the logs to filter
+     * @param studentIds the IDs of the students to include
+     * @param startDate  the first day of the range
+     * @param endDate    the last day of the range (inclusive)
+     * @return the matching logs, sorted by log ID
+     */
+    public static List<AttendanceLog> filter(List<AttendanceLog> logs, Collection<Integer> studentIds,
+            LocalDate startDate, LocalDate endDate) {
+        return filter(logs, studentIds, startDate, endDate, LocalDate.now());
+    }
+
+    /**
+     * Filters logs to the given students and date range, excluding logs dated
+     * after {@code today}.
+     *
+     * @param logs       the logs to filter
+     * @param studentIds the IDs of the students to include
+     * @param startDate  the first day of the range
+     * @param endDate    the last day of the range (inclusive)
+     * @param today      the last day that is not in the future
+     * @return the matching logs, sorted by log ID
+     */
+    public static List<AttendanceLog> filter(List<AttendanceLog> logs, Collection<Integer> studentIds,
+            LocalDate startDate, LocalDate endDate, LocalDate today) {
+        Set<Integer> ids = studentIds instanceof Set<Integer> set ? set : new HashSet<>(studentIds);
+        LocalDate lastDay = endDate.isAfter(today) ? today : endDate;
+        List<AttendanceLog> result = new ArrayList<>();
+        for (AttendanceLog log : logs) {
+            if (!isValid(log) || !ids.contains(log.getStudentID().getStudentID())) {
+                continue;
+            }
+            LocalDate date = dateOf(log);
+            if (date != null && !date.isBefore(startDate) && !date.isAfter(lastDay)) {
+                result.add(log);
+            }
+        }
+        result.sort(Comparator.comparingInt(AttendanceLog::getLogID));
+        return result;
+    }
+
+    /**
+     * Returns whether a log has its references and no corrupt times.
+     *
+     * @param log the log
+     * @return true if the log can be shown
+     */
+    public static boolean isValid(AttendanceLog log) {
+        return log != null
+                && log.getRecordID() != null
+                && log.getStudentID() != null
+                && log.getTimeInAM() >= MIN_VALID_TIME
+                && log.getTimeOutAM() >= MIN_VALID_TIME
+                && log.getTimeInPM() >= MIN_VALID_TIME
+                && log.getTimeOutPM() >= MIN_VALID_TIME;
+    }
+
+    private static LocalDate dateOf(AttendanceLog log) {
+        try {
+            return LocalDate.of(log.getRecordID().getYear(), log.getRecordID().getMonth(),
+                    log.getRecordID().getDay());
+        } catch (DateTimeException e) {
+            return null; // Exclude logs with invalid dates
+        }
+    }
+}
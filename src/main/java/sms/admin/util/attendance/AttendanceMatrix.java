@@ -0,0 +1,313 @@
+package sms.admin.util.attendance;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import dev.finalproject.models.AttendanceLog;
+import dev.finalproject.models.Student;
+
+/**
+ * A compact, read-mostly attendance grid: one status byte per student and
+ * school day.
+ *
+ * <p>
+ * Rows are students, looked up by binary search over a sorted array of student
+ * IDs; columns are the school days of a period, looked up through an offset
+ * table indexed by epoch day. The status of every cell is derived from its log
+ * once, when the matrix is built or patched, so reading a cell is two array
+ * lookups and no allocation. A school year of 1,500 students takes under
+ * 400&nbsp;KB.
+ * </p>
+ *
+ * <p>
+ * The matrix is not thread-safe; build and patch it on the thread that reads
+ * it (normally the JavaFX thread), or build it once and only read it.
+ * </p>
+ */
+public final class AttendanceMatrix {
+
+    /** No log for the student-day; reported as absent. */
+    public static final byte NO_LOG = 0;
+    public static final byte PRESENT = 1;
+    public static final byte HALF_DAY = 2;
+    public static final byte ABSENT = 3;
+    public static final byte EXCUSED = 4;
+    public static final byte HOLIDAY = 5;
+
+    private static final String[] MARKS = {
+            CommonAttendanceUtil.ABSENT_MARK,
+            CommonAttendanceUtil.PRESENT_MARK,
+            CommonAttendanceUtil.HALF_DAY_MARK,
+            CommonAttendanceUtil.ABSENT_MARK,
+            CommonAttendanceUtil.EXCUSED_MARK,
+            CommonAttendanceUtil.HOLIDAY_MARK
+    };
+
+    private static final AttendanceMatrix EMPTY = new AttendanceMatrix(new int[0], List.of());
+
+    private final int[] studentIds;
+    private final LocalDate[] days;
+    private final long firstEpochDay;
+    private final int[] columnByDayOffset;
+    private final byte[] cells;
+
+    private AttendanceMatrix(int[] sortedStudentIds, List<LocalDate> schoolDays) {
+        this.studentIds = sortedStudentIds;
+        this.days = schoolDays.toArray(new LocalDate[0]);
+        if (days.length == 0) {
+            firstEpochDay = 0;
+            columnByDayOffset = new int[0];
+        } else {
+            firstEpochDay = days[0].toEpochDay();
+            columnByDayOffset = new int[(int) (days[days.length - 1].toEpochDay() - firstEpochDay + 1)];
+            Arrays.fill(columnByDayOffset, -1);
+            for (int column = 0; column < days.length; column++) {
+                columnByDayOffset[(int) (days[column].toEpochDay() - firstEpochDay)] = column;
+            }
+        }
+        this.cells = new byte[studentIds.length * days.length];
+    }
+
+    /**
+     * Returns an empty matrix.
+     *
+     * @return a matrix with no students and no days
+     */
+    public static AttendanceMatrix empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds a matrix with one pass over the logs. Logs of other students or
+     * days are ignored; for duplicate student-days the last log wins.
+     *
+     * @param students   the rows
+     * @param schoolDays the columns, in ascending order
+     * @param logs       the attendance logs
+     * @return the matrix
+     */
+    public static AttendanceMatrix build(Collection<Student> students, List<LocalDate> schoolDays,
+            Collection<? extends AttendanceLog> logs) {
+        AttendanceMatrix matrix = new AttendanceMatrix(sortedIds(students), schoolDays);
+        if (logs != null) {
+            for (AttendanceLog log : logs) {
+                matrix.update(log);
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Builds a matrix from an attendance index with one range lookup per
+     * student.
+     *
+     * @param students   the rows
+     * @param schoolDays the columns, in ascending order
+     * @param index      the attendance index
+     * @return the matrix
+     */
+    public static AttendanceMatrix build(Collection<Student> students, List<LocalDate> schoolDays,
+            AttendanceIndex index) {
+        AttendanceMatrix matrix = new AttendanceMatrix(sortedIds(students), schoolDays);
+        if (!schoolDays.isEmpty()) {
+            LocalDate first = schoolDays.get(0);
+            LocalDate last = schoolDays.get(schoolDays.size() - 1);
+            for (int row = 0; row < matrix.studentIds.length; row++) {
+                int rowOffset = row * matrix.days.length;
+                index.findRange(matrix.studentIds[row], first, last).forEach((date, log) -> {
+                    int column = matrix.columnOf(date);
+                    if (column >= 0) {
+                        matrix.cells[rowOffset + column] = codeOf(log);
+                    }
+                });
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns the weekdays from {@code start} through {@code end}.
+     *
+     * @param start the first day
+     * @param end   the last day (inclusive)
+     * @return the school days in ascending order
+     */
+    public static List<LocalDate> schoolDays(LocalDate start, LocalDate end) {
+        return start.datesUntil(end.plusDays(1))
+                .filter(date -> !CommonAttendanceUtil.isWeekend(date))
+                .toList();
+    }
+
+    /**
+     * Derives the status code of a log.
+     *
+     * @param log the attendance log, or null
+     * @return the status code
+     */
+    public static byte codeOf(AttendanceLog log) {
+        if (log == null) {
+            return NO_LOG;
+        }
+        return switch (CommonAttendanceUtil.computeAttendanceStatus(log)) {
+            case CommonAttendanceUtil.PRESENT_MARK -> PRESENT;
+            case CommonAttendanceUtil.HALF_DAY_MARK -> HALF_DAY;
+            case CommonAttendanceUtil.EXCUSED_MARK -> EXCUSED;
+            case CommonAttendanceUtil.HOLIDAY_MARK -> HOLIDAY;
+            default -> ABSENT;
+        };
+    }
+
+    /**
+     * Returns the display mark of a status code.
+     *
+     * @param code the status code
+     * @return the attendance mark
+     */
+    public static String markOf(byte code) {
+        return MARKS[code];
+    }
+
+    /**
+     * Patches the cell of a log's student-day. Logs outside the matrix are
+     * ignored.
+     *
+     * @param log the new or changed log
+     */
+    public void update(AttendanceLog log) {
+        if (log == null || log.getStudentID() == null || log.getRecordID() == null) {
+            return;
+        }
+        int cell = cellOf(log.getStudentID().getStudentID(), dateOf(log));
+        if (cell >= 0) {
+            cells[cell] = codeOf(log);
+        }
+    }
+
+    /**
+     * Returns the status code of a student-day, or {@link #NO_LOG} if it is
+     * outside the matrix.
+     *
+     * @param studentId the student ID
+     * @param date      the day
+     * @return the status code
+     */
+    public byte get(int studentId, LocalDate date) {
+        int cell = cellOf(studentId, date);
+        return cell >= 0 ? cells[cell] : NO_LOG;
+    }
+
+    /**
+     * Returns the display mark of a student-day.
+     *
+     * @param studentId the student ID
+     * @param date      the day
+     * @return the attendance mark
+     */
+    public String getMark(int studentId, LocalDate date) {
+        return MARKS[get(studentId, date)];
+    }
+
+    /**
+     * Counts the paid days of a student in a date range: present and excused
+     * days count as one, half days as {@code halfDayWeight}.
+     *
+     * @param studentId     the student ID
+     * @param from          the first day
+     * @param to            the last day (inclusive)
+     * @param halfDayWeight the weight of a half day
+     * @return the number of days
+     */
+    public double countDays(int studentId, LocalDate from, LocalDate to, double halfDayWeight) {
+        int row = rowOf(studentId);
+        if (row < 0 || days.length == 0) {
+            return 0;
+        }
+        int rowOffset = row * days.length;
+        double total = 0;
+        for (int column = firstColumnOnOrAfter(from); column < days.length && !days[column].isAfter(to); column++) {
+            switch (cells[rowOffset + column]) {
+                case PRESENT, EXCUSED -> total += 1;
+                case HALF_DAY -> total += halfDayWeight;
+                default -> {
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the row of a student, or -1 if the student is not in the matrix.
+     *
+     * @param studentId the student ID
+     * @return the row index
+     */
+    public int rowOf(int studentId) {
+        int row = Arrays.binarySearch(studentIds, studentId);
+        return row >= 0 ? row : -1;
+    }
+
+    /**
+     * Returns the column of a day, or -1 if it is not a school day of the
+     * matrix.
+     *
+     * @param date the day
+     * @return the column index
+     */
+    public int columnOf(LocalDate date) {
+        if (date == null || columnByDayOffset.length == 0) {
+            return -1;
+        }
+        long offset = date.toEpochDay() - firstEpochDay;
+        return offset >= 0 && offset < columnByDayOffset.length ? columnByDayOffset[(int) offset] : -1;
+    }
+
+    public int studentCount() {
+        return studentIds.length;
+    }
+
+    public int dayCount() {
+        return days.length;
+    }
+
+    private int cellOf(int studentId, LocalDate date) {
+        int column = columnOf(date);
+        if (column < 0) {
+            return -1;
+        }
+        int row = rowOf(studentId);
+        return row < 0 ? -1 : row * days.length + column;
+    }
+
+    private int firstColumnOnOrAfter(LocalDate date) {
+        long offset = date.toEpochDay() - firstEpochDay;
+        if (offset <= 0) {
+            return 0;
+        }
+        for (int i = (int) Math.min(offset, columnByDayOffset.length); i < columnByDayOffset.length; i++) {
+            if (columnByDayOffset[i] >= 0) {
+                return columnByDayOffset[i];
+            }
+        }
+        return days.length;
+    }
+
+    private static LocalDate dateOf(AttendanceLog log) {
+        try {
+            return LocalDate.of(log.getRecordID().getYear(), log.getRecordID().getMonth(),
+                    log.getRecordID().getDay());
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int[] sortedIds(Collection<Student> students) {
+        return students.stream()
+                .mapToInt(Student::getStudentID)
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+}
@@ -0,0 +1,584 @@
+package sms.admin.util.attendance;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import dev.finalproject.database.DataManager;
+import dev.finalproject.models.AttendanceLog;
+import dev.finalproject.models.AttendanceRecord;
+import dev.finalproject.models.Student;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import sms.admin.util.db.DatabaseConnection;
+import sms.admin.util.metrics.PerfMetrics;
+
+/**
+ * Writes attendance changes for one or more student-days in a single database
+ * transaction.
+ *
+ * <p>
+ * Edits are queued with {@link #set(Student, LocalDate, String)},
+ * {@link #setTimes(Student, LocalDate, int, int, int, int)} or
+ * {@link #setSlots(Student, LocalDate, int[], int)} and written by
+ * {@link #commit()}: missing attendance records are created, the logs of the
+ * edited student-days are locked and read, existing logs have only the edited
+ * time slots updated with batched {@code UPDATE}s, and logs that did not exist
+ * yet are inserted with one batched {@code INSERT} whose IDs the database
+ * generates. Only the rows that were touched are read or written, so the cost
+ * of a commit depends on the number of edits, not on the number of logs in the
+ * database.
+ * </p>
+ *
+ * <p>
+ * The transaction never reads the in-memory lists, so a commit may run on any
+ * thread. Once it has committed, the written rows are mirrored on the JavaFX
+ * thread: logs already in the list given to the constructor or in the shared
+ * {@code ATTENDANCE_LOG} collection are updated in place, and the others are
+ * appended. Existing logs are looked up in both, so passing a filtered copy of
+ * the shared collection never leaves two logs for one student-day in it.
+ * </p>
+ *
+ * <p>
+ * The SQL uses the table and column names of the attendance DAOs:
+ * {@code attendance_record(recordID, month, day, year)} and
+ * {@code attendance_log(logID, recordID, studentID, timeInAM, timeOutAM,
+ * timeInPM, timeOutPM)}, whose {@code recordID} and {@code logID} columns are
+ * {@code AUTO_INCREMENT}.
+ * </p>
+ */
+public class AttendanceWriter {
+
+    /** A slot mask covering all four time values. */
+    public static final int ALL_SLOTS = 0b1111;
+
+    private static final String[] SLOT_COLUMNS = { "timeInAM", "timeOutAM", "timeInPM", "timeOutPM" };
+
+    private static final String SELECT_RECORD_SQL = """
+                SELECT recordID FROM attendance_record WHERE year = ? AND month = ? AND day = ?
+            """;
+    private static final String LOCK_RECORD_SQL = SELECT_RECORD_SQL + " FOR UPDATE";
+    private static final String INSERT_RECORD_SQL = """
+                INSERT INTO attendance_record (month, day, year) VALUES (?, ?, ?)
+            """;
+    private static final String LOCK_LOGS_SQL = """
+                SELECT logID, studentID, timeInAM, timeOutAM, timeInPM, timeOutPM
+                FROM attendance_log WHERE recordID = ? AND studentID IN (%s)
+                ORDER BY logID FOR UPDATE
+            """;
+    private static final String DELETE_DAY_LOGS_SQL = "DELETE FROM attendance_log WHERE recordID = ?";
+    private static final String DELETE_RECORD_SQL = "DELETE FROM attendance_record WHERE recordID = ?";
+    private static final String INSERT_LOG_SQL = """
+                INSERT INTO attendance_log (recordID, studentID, timeInAM, timeOutAM, timeInPM, timeOutPM)
+                VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    /** The most students locked with one {@code IN} list. */
+    private static final int LOCK_CHUNK = 500;
+
+    /** Serializes writers in this process; the database locks serialize the rest. */
+    private static final Object WRITE_LOCK = new Object();
+
+    private final ObservableList<AttendanceLog> logs;
+    private final Map<Long, Edit> edits = new LinkedHashMap<>();
+
+    private static final class Edit {
+        final Student student;
+        final LocalDate date;
+        /** The times of a new log; of an existing log only the masked ones are written. */
+        final int[] times;
+        final int mask;
+        AttendanceRecord record;
+        /** The row as written: the database values with the masked slots replaced. */
+        AttendanceLog written;
+
+        Edit(Student student, LocalDate date, int[] times, int mask) {
+            this.student = student;
+            this.date = date;
+            this.times = times;
+            this.mask = mask;
+        }
+    }
+
+    /**
+     * Creates a writer that keeps the given list up to date.
+     *
+     * @param logs the attendance logs shown by the caller; may be the shared
+     *             collection or a filtered copy of it
+     */
+    public AttendanceWriter(ObservableList<AttendanceLog> logs) {
+        this.logs = logs;
+    }
+
+    /**
+     * Writes a single attendance status and returns the written log.
+     *
+     * @param student the student
+     * @param date    the day
+     * @param status  one of the {@link CommonAttendanceUtil} marks
+     * @param logs    the attendance logs to keep up to date
+     * @return the log as written
+     * @throws SQLException if the transaction fails
+     */
+    public static AttendanceLog write(Student student, LocalDate date, String status,
+            ObservableList<AttendanceLog> logs) throws SQLException {
+        List<AttendanceLog> changed = new AttendanceWriter(logs).set(student, date, status).commit();
+        return changed.isEmpty() ? null : changed.get(0);
+    }
+
+    /**
+     * Queues an attendance status for a student-day. A later edit of the same
+     * student-day replaces an earlier one.
+     *
+     * @param student the student
+     * @param date    the day
+     * @param status  one of the {@link CommonAttendanceUtil} marks
+     * @return this writer
+     */
+    public AttendanceWriter set(Student student, LocalDate date, String status) {
+        return setSlots(student, date, timesFor(status), ALL_SLOTS);
+    }
+
+    /**
+     * Queues raw time values for a student-day.
+     *
+     * @param student   the student
+     * @param date      the day
+     * @param timeInAM  the morning time in
+     * @param timeOutAM the morning time out
+     * @param timeInPM  the afternoon time in
+     * @param timeOutPM the afternoon time out
+     * @return this writer
+     */
+    public AttendanceWriter setTimes(Student student, LocalDate date,
+            int timeInAM, int timeOutAM, int timeInPM, int timeOutPM) {
+        return setSlots(student, date, new int[] { timeInAM, timeOutAM, timeInPM, timeOutPM }, ALL_SLOTS);
+    }
+
+    /**
+     * Queues some of the time values of a student-day. If the student-day
+     * already has a log, only the slots in {@code mask} are written, so
+     * changes made to the other slots since the caller read them are kept. A
+     * new log is inserted with all four values.
+     *
+     * @param student the student
+     * @param date    the day
+     * @param times   time in AM, time out AM, time in PM, time out PM
+     * @param mask    the slots to write, bit {@code i} standing for
+     *                {@code times[i]}
+     * @return this writer
+     */
+    public AttendanceWriter setSlots(Student student, LocalDate date, int[] times, int mask) {
+        edits.put(key(student.getStudentID(), date), new Edit(student, date, times.clone(), mask & ALL_SLOTS));
+        return this;
+    }
+
+    /**
+     * Returns the number of queued student-days.
+     *
+     * @return the number of pending edits
+     */
+    public int size() {
+        return edits.size();
+    }
+
+    /**
+     * Writes every queued edit in one transaction and updates the in-memory
+     * logs on the JavaFX thread. Should be called off the JavaFX thread.
+     *
+     * @return the logs as written, in the order the edits were queued
+     * @throws SQLException if the transaction fails; nothing is written then
+     */
+    public List<AttendanceLog> commit() throws SQLException {
+        if (edits.isEmpty()) {
+            return List.of();
+        }
+        List<Edit> pending = new ArrayList<>(edits.values());
+        List<AttendanceRecord> newRecords = new ArrayList<>();
+
+        synchronized (WRITE_LOCK) {
+            try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "AttendanceWriter.commit");
+                    Connection conn = DatabaseConnection.getConnection()) {
+                boolean autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit(false);
+                try {
+                    resolveRecords(conn, pending, newRecords);
+                    writeLogs(conn, pending);
+                    conn.commit();
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(autoCommit);
+                }
+            }
+        }
+        edits.clear();
+
+        List<AttendanceLog> written = new ArrayList<>(pending.size());
+        for (Edit edit : pending) {
+            written.add(edit.written);
+        }
+        runOnFxThread(() -> applyInMemory(pending, newRecords));
+        return written;
+    }
+
+    /**
+     * Finds or creates the attendance record of every edited day. The lookup
+     * locks the day (or the gap where it would go), so two clients cannot
+     * both create it.
+     */
+    private static void resolveRecords(Connection conn, List<Edit> pending, List<AttendanceRecord> created)
+            throws SQLException {
+        Map<LocalDate, AttendanceRecord> records = new HashMap<>();
+        List<LocalDate> missing = new ArrayList<>();
+        try (PreparedStatement select = conn.prepareStatement(LOCK_RECORD_SQL)) {
+            for (Edit edit : pending) {
+                if (records.containsKey(edit.date) || missing.contains(edit.date)) {
+                    continue;
+                }
+                select.setInt(1, edit.date.getYear());
+                select.setInt(2, edit.date.getMonthValue());
+                select.setInt(3, edit.date.getDayOfMonth());
+                try (ResultSet rs = select.executeQuery()) {
+                    if (rs.next()) {
+                        records.put(edit.date, toRecord(rs.getInt(1), edit.date));
+                    } else {
+                        missing.add(edit.date);
+                    }
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            try (PreparedStatement insert = conn.prepareStatement(INSERT_RECORD_SQL,
+                    Statement.RETURN_GENERATED_KEYS)) {
+                for (LocalDate date : missing) {
+                    insert.setInt(1, date.getMonthValue());
+                    insert.setInt(2, date.getDayOfMonth());
+                    insert.setInt(3, date.getYear());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                int[] ids = DatabaseConnection.generatedKeys(insert, missing.size());
+                for (int i = 0; i < ids.length; i++) {
+                    AttendanceRecord record = toRecord(ids[i], missing.get(i));
+                    records.put(missing.get(i), record);
+                    created.add(record);
+                }
+            }
+        }
+
+        for (Edit edit : pending) {
+            edit.record = records.get(edit.date);
+        }
+    }
+
+    /**
+     * Locks and reads the existing logs of the edited student-days, updates
+     * their edited slots and inserts the logs that do not exist yet. Sets
+     * {@link Edit#written} of every edit.
+     */
+    private static void writeLogs(Connection conn, List<Edit> pending) throws SQLException {
+        Map<Long, int[]> existing = lockLogs(conn, pending);
+
+        Map<Integer, List<Edit>> updatesByMask = new LinkedHashMap<>();
+        List<Edit> inserts = new ArrayList<>();
+        for (Edit edit : pending) {
+            int[] row = existing.get(key(edit.student.getStudentID(), edit.date));
+            if (row == null) {
+                inserts.add(edit);
+                continue;
+            }
+            int[] times = { row[1], row[2], row[3], row[4] };
+            for (int slot = 0; slot < times.length; slot++) {
+                if ((edit.mask & (1 << slot)) != 0) {
+                    times[slot] = edit.times[slot];
+                }
+            }
+            edit.written = toLog(row[0], edit, times);
+            if (edit.mask != 0) {
+                updatesByMask.computeIfAbsent(edit.mask, mask -> new ArrayList<>()).add(edit);
+            }
+        }
+
+        for (Map.Entry<Integer, List<Edit>> group : updatesByMask.entrySet()) {
+            int mask = group.getKey();
+            try (PreparedStatement update = conn.prepareStatement(updateSql(mask))) {
+                for (Edit edit : group.getValue()) {
+                    int index = 1;
+                    for (int slot = 0; slot < SLOT_COLUMNS.length; slot++) {
+                        if ((mask & (1 << slot)) != 0) {
+                            update.setInt(index++, edit.times[slot]);
+                        }
+                    }
+                    update.setInt(index, edit.written.getLogID());
+                    update.addBatch();
+                }
+                update.executeBatch();
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            try (PreparedStatement insert = conn.prepareStatement(INSERT_LOG_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Edit edit : inserts) {
+                    insert.setInt(1, edit.record.getRecordID());
+                    insert.setInt(2, edit.student.getStudentID());
+                    insert.setInt(3, edit.times[0]);
+                    insert.setInt(4, edit.times[1]);
+                    insert.setInt(5, edit.times[2]);
+                    insert.setInt(6, edit.times[3]);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                int[] ids = DatabaseConnection.generatedKeys(insert, inserts.size());
+                for (int i = 0; i < ids.length; i++) {
+                    Edit edit = inserts.get(i);
+                    edit.written = toLog(ids[i], edit, edit.times);
+                }
+            }
+        }
+    }
+
+    /**
+     * Locks the logs of the edited student-days, one query per day and chunk
+     * of students, and returns {@code {logID, timeInAM, timeOutAM, timeInPM,
+     * timeOutPM}} by student-day. Of duplicate logs the oldest is used.
+     */
+    private static Map<Long, int[]> lockLogs(Connection conn, List<Edit> pending) throws SQLException {
+        Map<AttendanceRecord, List<Edit>> byRecord = new LinkedHashMap<>();
+        for (Edit edit : pending) {
+            byRecord.computeIfAbsent(edit.record, record -> new ArrayList<>()).add(edit);
+        }
+
+        Map<Long, int[]> rows = new HashMap<>();
+        for (Map.Entry<AttendanceRecord, List<Edit>> day : byRecord.entrySet()) {
+            LocalDate date = day.getValue().get(0).date;
+            List<Edit> edits = day.getValue();
+            for (int from = 0; from < edits.size(); from += LOCK_CHUNK) {
+                List<Edit> chunk = edits.subList(from, Math.min(from + LOCK_CHUNK, edits.size()));
+                String sql = LOCK_LOGS_SQL.formatted(String.join(", ", Collections.nCopies(chunk.size(), "?")));
+                try (PreparedStatement select = conn.prepareStatement(sql)) {
+                    select.setInt(1, day.getKey().getRecordID());
+                    for (int i = 0; i < chunk.size(); i++) {
+                        select.setInt(i + 2, chunk.get(i).student.getStudentID());
+                    }
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            rows.putIfAbsent(key(rs.getInt(2), date), new int[] {
+                                    rs.getInt(1), rs.getInt(3), rs.getInt(4), rs.getInt(5), rs.getInt(6) });
+                        }
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /** Returns the {@code UPDATE} of the masked slots of one log. */
+    private static String updateSql(int mask) {
+        List<String> columns = new ArrayList<>();
+        for (int slot = 0; slot < SLOT_COLUMNS.length; slot++) {
+            if ((mask & (1 << slot)) != 0) {
+                columns.add(SLOT_COLUMNS[slot] + " = ?");
+            }
+        }
+        return "UPDATE attendance_log SET " + String.join(", ", columns) + " WHERE logID = ?";
+    }
+
+    /**
+     * Mirrors a committed transaction in the caller's list and the shared
+     * collections. Runs on the JavaFX thread, the only thread that reads or
+     * changes them.
+     */
+    private void applyInMemory(List<Edit> pending, List<AttendanceRecord> newRecords) {
+        ObservableList<AttendanceLog> shared = registryList("ATTENDANCE_LOG");
+        ObservableList<AttendanceRecord> records = registryList("ATTENDANCE_RECORD");
+        AttendanceIndex index = logs != null ? AttendanceIndex.forLogs(logs) : null;
+        AttendanceIndex sharedIndex = shared != null && shared != logs ? AttendanceIndex.forLogs(shared) : null;
+
+        Set<AttendanceLog> stale = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<AttendanceLog> newLogs = new ArrayList<>();
+        for (Edit edit : pending) {
+            AttendanceLog log = edit.written;
+            int studentId = edit.student.getStudentID();
+            AttendanceLog known = index != null ? index.find(studentId, edit.date) : null;
+            if (known == null && sharedIndex != null) {
+                known = sharedIndex.find(studentId, edit.date);
+            }
+            if (known != null && known.getLogID() == log.getLogID()) {
+                known.setTimeInAM(log.getTimeInAM());
+                known.setTimeOutAM(log.getTimeOutAM());
+                known.setTimeInPM(log.getTimeInPM());
+                known.setTimeOutPM(log.getTimeOutPM());
+            } else {
+                // Either not loaded yet, or an in-memory log whose database row
+                // is gone and was just inserted again
+                if (known != null) {
+                    stale.add(known);
+                }
+                newLogs.add(log);
+            }
+        }
+        AttendanceIndex.notifyLogsUpdated();
+
+        if (!stale.isEmpty()) {
+            if (logs != null) {
+                logs.removeIf(stale::contains);
+            }
+            if (shared != null && shared != logs) {
+                shared.removeIf(stale::contains);
+            }
+        }
+        if (records != null && !newRecords.isEmpty()) {
+            records.addAll(newRecords);
+        }
+        if (!newLogs.isEmpty()) {
+            if (logs != null) {
+                logs.addAll(newLogs);
+            }
+            if (shared != null && shared != logs) {
+                shared.addAll(newLogs);
+            }
+        }
+    }
+
+
+    /**
+     * Deletes the attendance records of the given days together with every log
+     * that belongs to them, in one transaction, and removes them from the
+     * in-memory lists in one step each.
+     *
+     * @param dates the days to delete
+     * @param logs  the attendance logs to keep up to date; may be null
+     * @return the number of attendance records deleted
+     * @throws SQLException if the transaction fails; nothing is deleted then
+     */
+    public static int deleteDays(Collection<LocalDate> dates, ObservableList<AttendanceLog> logs)
+            throws SQLException {
+        Set<Integer> recordIds = new HashSet<>();
+        synchronized (WRITE_LOCK) {
+            try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "AttendanceWriter.deleteDays");
+                    Connection conn = DatabaseConnection.getConnection()) {
+                boolean autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit(false);
+                try {
+                    try (PreparedStatement select = conn.prepareStatement(SELECT_RECORD_SQL)) {
+                        for (LocalDate date : dates) {
+                            select.setInt(1, date.getYear());
+                            select.setInt(2, date.getMonthValue());
+                            select.setInt(3, date.getDayOfMonth());
+                            try (ResultSet rs = select.executeQuery()) {
+                                while (rs.next()) {
+                                    recordIds.add(rs.getInt(1));
+                                }
+                            }
+                        }
+                    }
+                    if (!recordIds.isEmpty()) {
+                        try (PreparedStatement deleteLogs = conn.prepareStatement(DELETE_DAY_LOGS_SQL);
+                                PreparedStatement deleteRecords = conn.prepareStatement(DELETE_RECORD_SQL)) {
+                            for (int recordId : recordIds) {
+                                deleteLogs.setInt(1, recordId);
+                                deleteLogs.addBatch();
+                                deleteRecords.setInt(1, recordId);
+                                deleteRecords.addBatch();
+                            }
+                            deleteLogs.executeBatch();
+                            deleteRecords.executeBatch();
+                        }
+                    }
+                    conn.commit();
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(autoCommit);
+                }
+            }
+        }
+
+        if (!recordIds.isEmpty()) {
+            runOnFxThread(() -> {
+                ObservableList<AttendanceLog> shared = registryList("ATTENDANCE_LOG");
+                ObservableList<AttendanceRecord> records = registryList("ATTENDANCE_RECORD");
+                if (logs != null) {
+                    logs.removeIf(log -> recordIds.contains(log.getRecordID().getRecordID()));
+                }
+                if (shared != null && shared != logs) {
+                    shared.removeIf(log -> recordIds.contains(log.getRecordID().getRecordID()));
+                }
+                if (records != null) {
+                    records.removeIf(record -> recordIds.contains(record.getRecordID()));
+                }
+            });
+        }
+        return recordIds.size();
+    }
+
+    private static <T> ObservableList<T> registryList(String key) {
+        try {
+            return DataManager.getInstance().getCollectionsRegistry().getList(key);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void runOnFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    }
+
+    private static AttendanceRecord toRecord(int recordId, LocalDate date) {
+        return new AttendanceRecord(recordId, date.getMonthValue(), date.getDayOfMonth(), date.getYear());
+    }
+
+    private static AttendanceLog toLog(int logId, Edit edit, int[] times) {
+        return new AttendanceLog(logId, edit.record, edit.student, times[0], times[1], times[2], times[3]);
+    }
+
+    private static long key(int studentId, LocalDate date) {
+        return ((long) studentId << 32) | (date.toEpochDay() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the four time values that represent an attendance mark.
+     *
+     * @param status one of the {@link CommonAttendanceUtil} marks
+     * @return time in AM, time out AM, time in PM, time out PM
+     */
+    static int[] timesFor(String status) {
+        return switch (status) {
+            case CommonAttendanceUtil.PRESENT_MARK -> new int[] {
+                    CommonAttendanceUtil.TIME_IN_AM, CommonAttendanceUtil.TIME_OUT_AM,
+                    CommonAttendanceUtil.TIME_IN_PM, CommonAttendanceUtil.TIME_OUT_PM };
+            case CommonAttendanceUtil.HALF_DAY_MARK -> new int[] {
+                    CommonAttendanceUtil.TIME_IN_AM, CommonAttendanceUtil.TIME_OUT_AM,
+                    CommonAttendanceUtil.TIME_ABSENT, CommonAttendanceUtil.TIME_ABSENT };
+            case CommonAttendanceUtil.EXCUSED_MARK -> filled(CommonAttendanceUtil.TIME_EXCUSED);
+            case CommonAttendanceUtil.HOLIDAY_MARK -> filled(CommonAttendanceUtil.TIME_HOLIDAY);
+            case CommonAttendanceUtil.ABSENT_MARK -> filled(CommonAttendanceUtil.TIME_ABSENT);
+            default -> throw new IllegalArgumentException("Unknown attendance status: " + status);
+        };
+    }
+
+    private static int[] filled(int value) {
+        return new int[] { value, value, value, value };
+    }
+}
@@ -1,7 +1,9 @@
 package sms.admin.util.attendance;
 
+import javafx.animation.PauseTransition;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.util.Duration;
 import dev.finalproject.models.Student;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.ObservableList;
@@ -28,6 +30,7 @@ public class TableColumnUtil {
     private static final double MAX_FONT_SIZE = 14.0; // Maximum font size for column text
     private static final double MIN_CELL_HEIGHT = 24.0; // Minimum cell height
     private static final double MAX_CELL_HEIGHT = 40.0; // Maximum cell height
+    private static final Duration RELAYOUT_DELAY = Duration.millis(120); // Resize debounce delay
 
     private static TableColumn<Student, String> nameColumnReference; // Reference to the name column for alignment
 
@@ -100,14 +103,18 @@ public class TableColumnUtil {
         nameColumnReference = nameColumn;
         table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
 
-        // Adjust widths and styles when table width changes
-        table.widthProperty().addListener((obs, oldVal, newVal) -> {
-            adjustColumnWidths(table, idColumn, nameColumn, monthColumn);
+        // Relayout once the size settles instead of on every resize pixel;
+        // only widths and styles change, the column tree is left alone
+        PauseTransition relayout = new PauseTransition(RELAYOUT_DELAY);
+        relayout.setOnFinished(e -> {
+            if (table.getWidth() > 0) {
+                configureBasicColumns(idColumn, nameColumn, table.getWidth());
+                adjustColumnWidths(table, idColumn, nameColumn, monthColumn);
+            }
             updateColumnStyles(table, 12.0);
         });
-
-        // Update styles when table height changes
-        table.heightProperty().addListener((obs, oldVal, newVal) -> updateColumnStyles(table, 12.0));
+        table.widthProperty().addListener((obs, oldVal, newVal) -> relayout.playFromStart());
+        table.heightProperty().addListener((obs, oldVal, newVal) -> relayout.playFromStart());
 
         configureBasicColumns(idColumn, nameColumn, table.getWidth());
         adjustColumnWidths(table, idColumn, nameColumn, monthColumn);
@@ -0,0 +1,164 @@
+package sms.admin.util.db;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * A circuit breaker for calls to the database.
+ *
+ * <p>
+ * The breaker starts {@link State#CLOSED}. After a number of consecutive
+ * failures it opens, and for the open duration every call is refused at once
+ * instead of waiting on an unreachable server. After that one trial call is let
+ * through ({@link State#HALF_OPEN}): if it succeeds the breaker closes, if it
+ * fails the breaker opens again.
+ * </p>
+ *
+ * <p>
+ * All methods are thread-safe.
+ * </p>
+ */
+public class CircuitBreaker {
+
+    private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+
+    /**
+     * The state of a breaker.
+     */
+    public enum State {
+        /** Calls go through. */
+        CLOSED,
+        /** Calls are refused until the open duration has passed. */
+        OPEN,
+        /** One trial call is in progress; other calls are refused. */
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    private final AtomicLong rejectedCalls = new AtomicLong();
+    private final AtomicLong timesOpened = new AtomicLong();
+
+    /**
+     * Creates a closed breaker.
+     *
+     * @param name             a name for log messages
+     * @param failureThreshold consecutive failures that open the breaker
+     * @param openDuration     how long the breaker stays open before a trial
+     *                         call
+     */
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least 1");
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Asks permission for a call. Every permitted call must be followed by
+     * {@link #recordSuccess()} or {@link #recordFailure()}, unless it is
+     * abandoned with {@link #release()}.
+     *
+     * @return true if the call may proceed
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt >= openNanos) {
+                    state = State.HALF_OPEN;
+                    LOGGER.info("Circuit breaker " + name + " half-open, trying one call");
+                    return true;
+                }
+                break;
+            case HALF_OPEN:
+                break;
+        }
+        rejectedCalls.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Records a successful call, closing the breaker.
+     */
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            LOGGER.info("Circuit breaker " + name + " closed");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * Records a failed call, opening the breaker after the threshold is
+     * reached or when the trial call of a half-open breaker fails.
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            timesOpened.incrementAndGet();
+            LOGGER.warning("Circuit breaker " + name + " opened after " + consecutiveFailures
+                    + " consecutive failures");
+        }
+    }
+
+    /**
+     * Gives back a permission whose call ended without telling anything about
+     * the database, such as one that failed validation. A half-open breaker
+     * lets the next call try instead.
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+            openedAt = System.nanoTime() - openNanos;
+        }
+    }
+
+    /**
+     * Returns the current state.
+     *
+     * @return the state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Returns the number of failures since the last success.
+     *
+     * @return the consecutive failure count
+     */
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Returns the number of calls refused because the breaker was open.
+     *
+     * @return the rejected call count
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    /**
+     * Returns how many times the breaker has opened.
+     *
+     * @return the open count
+     */
+    public long getTimesOpened() {
+        return timesOpened.get();
+    }
+}
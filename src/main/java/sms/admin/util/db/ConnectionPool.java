@@ -0,0 +1,360 @@
+package sms.admin.util.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A small bounded JDBC connection pool.
+ *
+ * <p>
+ * The pool keeps between {@code minSize} and {@code maxSize} physical
+ * connections open. Callers borrow a connection with {@link #borrow()} and give
+ * it back by calling {@link Connection#close()} on the returned handle, which
+ * is a proxy that returns the physical connection to the pool instead of
+ * closing it. Idle connections are validated before being handed out and
+ * evicted by a background task once they have been idle longer than the
+ * configured timeout.
+ * </p>
+ *
+ * <p>
+ * Borrow-wait statistics are recorded for every call to {@link #borrow()} and
+ * can be read through {@link #getStats()}.
+ * </p>
+ */
+public class ConnectionPool {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    /** Connections returned within this window are handed out again without a validation round-trip. */
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final int validationTimeoutSeconds;
+
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final ScheduledExecutorService housekeeper;
+
+    // Borrow-wait metrics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a pool and opens the minimum number of connections in the
+     * background.
+     *
+     * @param url                      the JDBC URL
+     * @param user                     the database user
+     * @param password                 the database password
+     * @param minSize                  the number of connections kept open while idle
+     * @param maxSize                  the maximum number of open connections
+     * @param borrowTimeoutMs          how long {@link #borrow()} waits for a free connection
+     * @param idleTimeoutMs            how long a connection may stay idle before eviction
+     * @param validationTimeoutSeconds the timeout passed to {@link Connection#isValid(int)}
+     */
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+            long borrowTimeoutMs, long idleTimeoutMs, int validationTimeoutSeconds) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minSize = Math.max(0, Math.min(minSize, maxSize));
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMs / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, waiting up to the configured borrow
+     * timeout if all connections are in use.
+     *
+     * @return a pooled connection; closing it returns it to the pool
+     * @throws SQLException if the pool is closed, the wait times out, or a new
+     *                      connection cannot be opened
+     */
+    public Connection borrow() throws SQLException {
+        if (closed.get()) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                borrowTimeouts.incrementAndGet();
+                throw new SQLTransientConnectionException("Timed out after " + borrowTimeoutMs
+                        + " ms waiting for a database connection (" + getStats() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                pooled = open();
+            }
+            recordWait(System.nanoTime() - start);
+            return pooled.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops the housekeeping task. Connections
+     * that are currently borrowed are closed when they are returned.
+     */
+    public void shutdown() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+        LOGGER.info("Connection pool shut down (" + getStats() + ")");
+    }
+
+    /**
+     * Returns a one-line summary of the pool size and borrow-wait metrics.
+     *
+     * @return the pool statistics
+     */
+    public String getStats() {
+        long borrows = borrowCount.get();
+        long avgMicros = borrows == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get() / borrows);
+        return String.format(
+                "open=%d idle=%d max=%d borrows=%d avgWait=%dus maxWait=%dus timeouts=%d invalid=%d evicted=%d",
+                totalConnections.get(), idle.size(), maxSize, borrows, avgMicros,
+                TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()), borrowTimeouts.get(),
+                validationFailures.get(), evictions.get());
+    }
+
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    public long getBorrowTimeouts() {
+        return borrowTimeouts.get();
+    }
+
+    public long getAverageWaitNanos() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0 : totalWaitNanos.get() / borrows;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /**
+     * Takes the most recently used idle connection that is still valid.
+     */
+    private PooledConnection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            validationFailures.incrementAndGet();
+            discard(pooled);
+        }
+        return null;
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (System.nanoTime() - pooled.lastReturnedNanos < VALIDATION_BYPASS_NANOS) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        try {
+            Connection physical = DriverManager.getConnection(url, user, password);
+            totalConnections.incrementAndGet();
+            return new PooledConnection(physical);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Failed to establish database connection", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a connection to the idle queue, resetting any transaction state left
+     * behind by the borrower.
+     */
+    private void release(PooledConnection pooled) {
+        try {
+            if (closed.get() || pooled.physical.isClosed()) {
+                discard(pooled);
+                return;
+            }
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            pooled.lastReturnedNanos = System.nanoTime();
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Discarding connection that failed to reset", e);
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error closing database connection", e);
+        }
+    }
+
+    /**
+     * Evicts connections idle for longer than the idle timeout (oldest first,
+     * never below the minimum size) and tops the pool back up to the minimum.
+     */
+    private void housekeep() {
+        try {
+            long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+            Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+            while (oldestFirst.hasNext() && totalConnections.get() > minSize) {
+                PooledConnection pooled = oldestFirst.next();
+                if (pooled.lastReturnedNanos < cutoff && idle.remove(pooled)) {
+                    evictions.incrementAndGet();
+                    discard(pooled);
+                }
+            }
+
+            while (!closed.get() && totalConnections.get() < minSize && permits.tryAcquire()) {
+                try {
+                    PooledConnection pooled = open();
+                    pooled.lastReturnedNanos = System.nanoTime();
+                    idle.offerLast(pooled);
+                } finally {
+                    permits.release();
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not top up connection pool to minimum size", e);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Connection pool housekeeping failed", e);
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * A physical connection owned by the pool.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long lastReturnedNanos = System.nanoTime();
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * Wraps the physical connection in a single-use handle whose
+         * {@code close()} returns it to the pool.
+         */
+        private Connection lease() {
+            AtomicBoolean returned = new AtomicBoolean();
+            InvocationHandler handler = (proxy, method, args) -> invoke(returned, proxy, method, args);
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, handler);
+        }
+
+        private Object invoke(AtomicBoolean returned, Object proxy, Method method, Object[] args)
+                throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    break;
+            }
+            if (returned.get()) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
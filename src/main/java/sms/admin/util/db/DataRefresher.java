@@ -0,0 +1,603 @@
+package sms.admin.util.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import dev.finalproject.data.AddressDAO;
+import dev.finalproject.data.AttendanceRecordDAO;
+import dev.finalproject.data.SchoolYearDAO;
+import dev.finalproject.data.SettingsDAO;
+import dev.finalproject.data.StudentDAO;
+import dev.finalproject.data.StudentGuardianDAO;
+import dev.finalproject.database.DataManager;
+import dev.finalproject.models.Address;
+import dev.finalproject.models.AttendanceLog;
+import dev.finalproject.models.AttendanceRecord;
+import dev.finalproject.models.Cluster;
+import dev.finalproject.models.Guardian;
+import dev.finalproject.models.SchoolYear;
+import dev.finalproject.models.Settings;
+import dev.finalproject.models.Student;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import sms.admin.util.datetime.SchoolYearUtil;
+import sms.admin.util.metrics.PerfMetrics;
+
+/**
+ * Incremental, table-scoped replacement for
+ * {@link DataManager#refreshData()}.
+ *
+ * <p>
+ * Tables are marked dirty by the {@code db_changes_log} change log, which
+ * triggers fill for every writer (see {@link DatabaseChangeListener}), or
+ * explicitly by code that writes to the database
+ * ({@link #markDirty(String...)}). A refresh reloads only the dirty tables and
+ * applies the difference to the lists already registered in the collections
+ * registry: unchanged rows keep their instances, changed rows are replaced in
+ * place, and only added or removed rows change the list's size. Views bound to
+ * those lists therefore see a handful of change events instead of a full
+ * reload.
+ * </p>
+ *
+ * <p>
+ * Refreshes run one at a time on a background thread and apply their results
+ * on the JavaFX thread, so they can be requested from any thread and never
+ * block the UI. Each refresh first asks the change log which tables changed
+ * since the last position it has seen; while the {@link DatabaseChangeListener}
+ * feed runs, it also refreshes changed tables as soon as it sees them, so
+ * navigating between views normally finds nothing left to do.
+ * </p>
+ *
+ * <p>
+ * {@code ATTENDANCE_LOG} holds only the logs from the first month of the
+ * current school year onwards (or of the latest school year, if none is
+ * current), since every view works on one school year at a time and the full
+ * history grows without bound. Selecting an older school year widens the
+ * scope through {@link #includeAttendanceFrom(SchoolYear)}; it never narrows
+ * while the application runs.
+ * </p>
+ */
+public final class DataRefresher {
+
+    private static final Logger LOGGER = Logger.getLogger(DataRefresher.class.getName());
+
+    /** Above this many row changes the list is updated with one setAll. */
+    private static final int BULK_CHANGE_THRESHOLD = 64;
+
+    private static final String CLUSTER_SQL = "SELECT clusterID, clusterName FROM cluster";
+    private static final String GUARDIAN_SQL = """
+                SELECT guardianID, firstName, middleName, lastName, relationship, contact FROM guardian
+            """;
+
+    private static final String ATTENDANCE_LOG_SQL = """
+                SELECT l.logID, l.studentID, l.timeInAM, l.timeOutAM, l.timeInPM, l.timeOutPM,
+                       r.recordID, r.month, r.day, r.year
+                FROM attendance_log l
+                JOIN attendance_record r ON r.recordID = l.recordID
+                WHERE r.year > ? OR (r.year = ? AND r.month >= ?)
+            """;
+
+    /** Collections whose latest rows are kept to resolve the references of attendance logs. */
+    private static final Set<String> REFERENCED_KEYS = Set.of("SCHOOL_YEAR", "STUDENT");
+
+    private static final Map<String, TableSpec<?>> SPECS = new LinkedHashMap<>();
+    private static final Set<String> DIRTY = ConcurrentHashMap.newKeySet();
+    private static final Map<String, List<?>> LATEST_ROWS = new ConcurrentHashMap<>();
+
+    /** The first month of attendance logs loaded, or null until the first load. */
+    private static YearMonth attendanceFrom;
+
+    /** The change log position up to which changed tables have been marked dirty, or -1 if unknown. */
+    private static final AtomicLong CHANGE_CURSOR = new AtomicLong(-1);
+
+    private static final ExecutorService REFRESH_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "data-refresher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static DatabaseChangeListener changeFeed;
+
+    static {
+        register(new TableSpec<>("SCHOOL_YEAR", "SchoolYearDAO.getSchoolYearList", SchoolYearDAO::getSchoolYearList,
+                SchoolYear::getYearID,
+                y -> Arrays.asList(y.getYearStart(), y.getYearEnd(), y.getMonthStart(), y.getMonthEnd())));
+        register(new TableSpec<>("STUDENT", "StudentDAO.getStudentList", StudentDAO::getStudentList,
+                Student::getStudentID,
+                s -> Arrays.asList(s.getFirstName(), s.getMiddleName(), s.getLastName(), s.getNameExtension(),
+                        s.getEmail(), s.getContact(), s.getFare(), s.isDeleted(),
+                        s.getClusterID() != null ? s.getClusterID().getClusterID() : null,
+                        s.getYearID() != null ? s.getYearID().getYearID() : null)));
+        register(new TableSpec<>("STUDENT_GUARDIAN", "StudentGuardianDAO.getStudentGuardianList", StudentGuardianDAO::getStudentGuardianList,
+                sg -> Arrays.asList(sg.getStudentId(), sg.getGuardianId()),
+                sg -> List.of()));
+        register(new TableSpec<>("CLUSTER", "DataRefresher.loadClusters", DataRefresher::loadClusters,
+                Cluster::getClusterID,
+                c -> Arrays.asList(c.getClusterName())));
+        register(new TableSpec<>("GUARDIAN", "DataRefresher.loadGuardians", DataRefresher::loadGuardians,
+                Guardian::getGuardianID,
+                g -> Arrays.asList(g.getFirstName(), g.getMiddleName(), g.getLastName(), g.getRelationship(),
+                        g.getContact())));
+        register(new TableSpec<>("ADDRESS", "AddressDAO.getAddressesList", AddressDAO::getAddressesList,
+                Address::getAddressID,
+                a -> Arrays.asList(a.getCity(), a.getMunicipality(), a.getStreet(), a.getBarangay(),
+                        a.getZipCode(), a.getStudentID() != null ? a.getStudentID().getStudentID() : null)));
+        register(new TableSpec<>("ATTENDANCE_RECORD", "AttendanceRecordDAO.getRecordList", AttendanceRecordDAO::getRecordList,
+                AttendanceRecord::getRecordID,
+                r -> Arrays.asList(r.getYear(), r.getMonth(), r.getDay())));
+        register(new TableSpec<>("ATTENDANCE_LOG", "DataRefresher.loadAttendanceLogs", DataRefresher::loadAttendanceLogs,
+                AttendanceLog::getLogID,
+                l -> Arrays.asList(l.getTimeInAM(), l.getTimeOutAM(), l.getTimeInPM(), l.getTimeOutPM(),
+                        l.getStudentID() != null ? l.getStudentID().getStudentID() : null,
+                        l.getRecordID() != null ? l.getRecordID().getRecordID() : null)));
+        register(new TableSpec<>("SETTINGS", "SettingsDAO.getSettingsList", SettingsDAO::getSettingsList,
+                Settings::getSettingsID,
+                s -> Arrays.asList(s.getStart(), s.getEnd())));
+    }
+
+    private DataRefresher() {
+    }
+
+    /**
+     * Describes how to reload one registry collection and compare its rows.
+     *
+     * @param key       the collections registry key
+     * @param operation the DAO call, as reported by {@link PerfMetrics}
+     * @param loader    loads every row from the database
+     * @param identity  the row's primary key
+     * @param signature the values that, when different, mean the row changed
+     */
+    private record TableSpec<T>(String key, String operation, Callable<List<T>> loader,
+            Function<T, Object> identity, Function<T, List<?>> signature) {
+
+        List<T> loadRows() throws Exception {
+            List<T> rows;
+            try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, operation)) {
+                rows = loader.call();
+            }
+            if (REFERENCED_KEYS.contains(key) && rows != null) {
+                LATEST_ROWS.put(key, rows);
+            }
+            return rows;
+        }
+    }
+
+    private static void register(TableSpec<?> spec) {
+        SPECS.put(spec.key(), spec);
+    }
+
+    /**
+     * Records the change log position the loaded data is current with, so that
+     * the next refresh picks up every change logged after it. Call with a
+     * position read before the initial load; later calls are ignored.
+     *
+     * @param changeId a position returned by
+     *                 {@link DatabaseChangeListener#latestChangeId()}
+     */
+    static void trackChangesFrom(long changeId) {
+        CHANGE_CURSOR.compareAndSet(-1, changeId);
+    }
+
+    /**
+     * Starts the change feed that refreshes tables as soon as they change.
+     * Call once after the dataset has been initialized.
+     */
+    public static synchronized void start() {
+        if (changeFeed != null) {
+            return;
+        }
+        try {
+            changeFeed = new DatabaseChangeListener();
+            changeFeed.addChangeHandler(new DatabaseChangeListener.DatabaseChangeHandler() {
+                @Override
+                public void onDatabaseChange(String tableName, String changeType) {
+                    // Handled per poll in onTablesChanged
+                }
+
+                @Override
+                public void onTablesChanged(List<DatabaseChangeListener.TableChange> changes) {
+                    for (DatabaseChangeListener.TableChange change : changes) {
+                        if (DatabaseChangeListener.ALL_TABLES.equals(change.tableName())) {
+                            DIRTY.addAll(SPECS.keySet());
+                        } else {
+                            markDirty(toRegistryKey(change.tableName()));
+                        }
+                        CHANGE_CURSOR.accumulateAndGet(change.lastId(), Math::max);
+                    }
+                    refresh();
+                }
+            });
+            // Resume where the initial load left off, so nothing logged since is missed
+            if (CHANGE_CURSOR.get() >= 0) {
+                changeFeed.setCursor(CHANGE_CURSOR.get());
+            }
+            changeFeed.startListening(2);
+            LOGGER.info("Database change feed started");
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Change feed unavailable, changes are picked up on refresh", e);
+            changeFeed = null;
+        }
+    }
+
+    /**
+     * Stops the change feed.
+     */
+    public static synchronized void stop() {
+        if (changeFeed != null) {
+            changeFeed.stop();
+            changeFeed = null;
+        }
+    }
+
+    /**
+     * Returns the running change feed, or null if it is not running.
+     *
+     * @return the change feed
+     */
+    public static synchronized DatabaseChangeListener getChangeFeed() {
+        return changeFeed != null && changeFeed.isRunning() ? changeFeed : null;
+    }
+
+    /**
+     * Marks registry collections as needing a reload on the next
+     * {@link #refresh()}. Keys without a loader are ignored.
+     *
+     * @param keys registry keys such as {@code "STUDENT"}
+     */
+    public static void markDirty(String... keys) {
+        for (String key : keys) {
+            if (SPECS.containsKey(key)) {
+                DIRTY.add(key);
+            }
+        }
+    }
+
+    /**
+     * Marks collections dirty and refreshes them. May be called from any
+     * thread.
+     *
+     * @param keys registry keys such as {@code "STUDENT"}
+     * @return a future completed on the JavaFX thread once the reloaded rows
+     *         have been applied
+     */
+    public static CompletableFuture<Void> refresh(String... keys) {
+        markDirty(keys);
+        return refresh();
+    }
+
+    /**
+     * Marks the tables the change log reports as changed dirty, reloads every
+     * dirty collection on a background thread and applies the differences to
+     * the registered lists on the JavaFX thread. May be called from any thread.
+     *
+     * @return a future completed on the JavaFX thread once the reloaded rows
+     *         have been applied; a table that fails to load stays dirty and
+     *         does not fail the future
+     */
+    public static CompletableFuture<Void> refresh() {
+        CompletableFuture<Void> applied = new CompletableFuture<>();
+        REFRESH_EXECUTOR.execute(() -> {
+            Map<TableSpec<?>, List<?>> loaded = new LinkedHashMap<>();
+            try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.REFRESH, "DataRefresher.refresh")) {
+                markChangedTables();
+                for (String key : drainDirty()) {
+                    TableSpec<?> spec = SPECS.get(key);
+                    try {
+                        loaded.put(spec, spec.loadRows());
+                    } catch (Exception e) {
+                        DIRTY.add(key);
+                        LOGGER.log(Level.WARNING, "Failed to refresh " + key, e);
+                    }
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Refresh failed", e);
+            }
+            Platform.runLater(() -> {
+                try {
+                    loaded.forEach((spec, rows) -> applyLoaded(spec, rows));
+                } finally {
+                    applied.complete(null);
+                }
+            });
+        });
+        return applied;
+    }
+
+    /**
+     * Marks the tables changed since {@link #CHANGE_CURSOR} dirty and advances
+     * the cursor. Everything is marked dirty if the changes are no longer in
+     * the log; nothing is if the log cannot be read.
+     */
+    private static void markChangedTables() {
+        long cursor = CHANGE_CURSOR.get();
+        try {
+            if (cursor < 0) {
+                // Nothing to compare with yet; changes are tracked from here on
+                CHANGE_CURSOR.compareAndSet(cursor, DatabaseChangeListener.latestChangeId());
+                return;
+            }
+            DatabaseChangeListener.ChangeSet changes = DatabaseChangeListener.changesSince(cursor);
+            if (changes == null) {
+                DIRTY.addAll(SPECS.keySet());
+                CHANGE_CURSOR.accumulateAndGet(DatabaseChangeListener.latestChangeId(), Math::max);
+                return;
+            }
+            changes.tables().forEach(table -> markDirty(toRegistryKey(table)));
+            CHANGE_CURSOR.accumulateAndGet(changes.lastId(), Math::max);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not read the change log; refreshing only tables marked dirty", e);
+        }
+    }
+
+    /**
+     * Widens the scope of {@code ATTENDANCE_LOG} to include a school year and
+     * reloads it if the scope changed. May be called from any thread.
+     *
+     * @param schoolYear the school year whose logs are needed
+     * @return a future completed on the JavaFX thread once the logs are
+     *         available; already completed if they were loaded before or
+     *         will be by the first load
+     */
+    public static CompletableFuture<Void> includeAttendanceFrom(SchoolYear schoolYear) {
+        YearMonth from = YearMonth.of(schoolYear.getYearStart(), schoolYear.getMonthStart());
+        synchronized (DataRefresher.class) {
+            if (attendanceFrom == null) {
+                // Not loaded yet; the first load starts there
+                attendanceFrom = from;
+                return CompletableFuture.completedFuture(null);
+            }
+            if (!from.isBefore(attendanceFrom)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            attendanceFrom = from;
+        }
+        return refresh("ATTENDANCE_LOG");
+    }
+
+    /**
+     * Loads every row of a collection on the calling thread, without applying
+     * it.
+     *
+     * @param key the registry key
+     * @return the rows, or null if the key has no list loader
+     * @throws Exception if the load fails
+     */
+    static List<?> load(String key) throws Exception {
+        TableSpec<?> spec = SPECS.get(key);
+        return spec != null ? spec.loadRows() : null;
+    }
+
+    /**
+     * Applies rows returned by {@link #load(String)} to the registered list,
+     * registering it if necessary. Must be called on the JavaFX thread.
+     *
+     * @param key  the registry key
+     * @param rows the loaded rows
+     */
+    static void apply(String key, List<?> rows) {
+        TableSpec<?> spec = SPECS.get(key);
+        if (spec != null) {
+            applyLoaded(spec, rows);
+        }
+    }
+
+    /**
+     * Removes and returns the dirty keys, in registration order. Keys marked
+     * dirty meanwhile stay for the next refresh.
+     */
+    private static List<String> drainDirty() {
+        List<String> keys = new ArrayList<>();
+        for (String key : SPECS.keySet()) {
+            if (DIRTY.remove(key)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Loads the attendance logs in scope (see the class comment), resolving
+     * their students against the latest loaded students. Attendance days are
+     * shared between the logs of the same day.
+     */
+    private static List<AttendanceLog> loadAttendanceLogs() throws Exception {
+        YearMonth from = attendanceScope();
+        Map<Integer, Student> students = studentsById(false);
+        Map<Integer, AttendanceRecord> records = new HashMap<>();
+        List<AttendanceLog> logs = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(ATTENDANCE_LOG_SQL)) {
+            stmt.setFetchSize(1_000);
+            stmt.setInt(1, from.getYear());
+            stmt.setInt(2, from.getYear());
+            stmt.setInt(3, from.getMonthValue());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int studentId = rs.getInt("studentID");
+                    Student student = students.get(studentId);
+                    if (student == null) {
+                        // Enrolled after the students were loaded
+                        students = studentsById(true);
+                        student = students.get(studentId);
+                    }
+                    if (student == null) {
+                        LOGGER.fine("Skipping attendance log " + rs.getInt("logID") + " of unknown student " + studentId);
+                        continue;
+                    }
+                    int recordId = rs.getInt("recordID");
+                    AttendanceRecord record = records.get(recordId);
+                    if (record == null) {
+                        record = new AttendanceRecord(recordId, rs.getInt("month"), rs.getInt("day"), rs.getInt("year"));
+                        records.put(recordId, record);
+                    }
+                    logs.add(new AttendanceLog(rs.getInt("logID"), record, student, rs.getInt("timeInAM"),
+                            rs.getInt("timeOutAM"), rs.getInt("timeInPM"), rs.getInt("timeOutPM")));
+                }
+            }
+        }
+        return logs;
+    }
+
+    /**
+     * Returns the first month of attendance logs to load, determining it from
+     * the school years on first use.
+     */
+    private static synchronized YearMonth attendanceScope() throws Exception {
+        if (attendanceFrom == null) {
+            List<?> years = LATEST_ROWS.get("SCHOOL_YEAR");
+            if (years == null) {
+                years = SPECS.get("SCHOOL_YEAR").loadRows();
+            }
+            SchoolYear scope = null;
+            for (Object row : years) {
+                SchoolYear year = (SchoolYear) row;
+                if (SchoolYearUtil.isCurrentYear(year)) {
+                    scope = year;
+                    break;
+                }
+                if (scope == null || year.getYearStart() > scope.getYearStart()) {
+                    scope = year;
+                }
+            }
+            attendanceFrom = scope != null
+                    ? YearMonth.of(scope.getYearStart(), scope.getMonthStart())
+                    : YearMonth.of(1, 1);
+        }
+        return attendanceFrom;
+    }
+
+    private static Map<Integer, Student> studentsById(boolean reload) throws Exception {
+        List<?> rows = reload ? null : LATEST_ROWS.get("STUDENT");
+        if (rows == null) {
+            rows = SPECS.get("STUDENT").loadRows();
+        }
+        Map<Integer, Student> byId = new HashMap<>(rows.size() * 2);
+        for (Object row : rows) {
+            Student student = (Student) row;
+            byId.put(student.getStudentID(), student);
+        }
+        return byId;
+    }
+
+    private static List<Cluster> loadClusters() throws SQLException {
+        List<Cluster> clusters = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(CLUSTER_SQL)) {
+            while (rs.next()) {
+                clusters.add(new Cluster(rs.getInt(1), rs.getString(2)));
+            }
+        }
+        return clusters;
+    }
+
+    private static List<Guardian> loadGuardians() throws SQLException {
+        List<Guardian> guardians = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(GUARDIAN_SQL)) {
+            while (rs.next()) {
+                Guardian guardian = new Guardian(rs.getInt(1), "", "", "", "", "");
+                guardian.setFirstName(rs.getString(2));
+                guardian.setMiddleName(rs.getString(3));
+                guardian.setLastName(rs.getString(4));
+                guardian.setRelationship(rs.getString(5));
+                guardian.setContact(rs.getString(6));
+                guardians.add(guardian);
+            }
+        }
+        return guardians;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void applyLoaded(TableSpec<T> spec, List<?> rows) {
+        ObservableList<T> target = DataManager.getInstance().getCollectionsRegistry().getList(spec.key());
+        List<T> fresh = (List<T>) rows;
+        try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.REFRESH, "apply " + spec.key())) {
+            if (target == null) {
+                DataManager.getInstance().getCollectionsRegistry()
+                        .register(spec.key(), FXCollections.observableArrayList(fresh));
+            } else {
+                applyDelta(spec, target, fresh);
+            }
+        }
+    }
+
+    /**
+     * Applies the difference between {@code target} and {@code fresh} to
+     * {@code target}, keeping the instances of unchanged rows.
+     */
+    private static <T> void applyDelta(TableSpec<T> spec, ObservableList<T> target, List<T> fresh) {
+        Map<Object, T> freshById = new LinkedHashMap<>(fresh.size() * 2);
+        for (T row : fresh) {
+            freshById.put(spec.identity().apply(row), row);
+        }
+
+        List<T> merged = new ArrayList<>(fresh.size());
+        List<Integer> removed = new ArrayList<>();
+        Map<Integer, T> replaced = new LinkedHashMap<>();
+        for (int i = 0; i < target.size(); i++) {
+            T current = target.get(i);
+            Object id = spec.identity().apply(current);
+            T incoming = freshById.remove(id);
+            if (incoming == null) {
+                removed.add(i);
+                continue;
+            }
+            if (Objects.equals(spec.signature().apply(current), spec.signature().apply(incoming))) {
+                merged.add(current);
+            } else {
+                merged.add(incoming);
+                replaced.put(i, incoming);
+            }
+        }
+        Collection<T> added = freshById.values();
+        merged.addAll(added);
+
+        int changes = removed.size() + replaced.size() + added.size();
+        if (changes == 0) {
+            return;
+        }
+        if (changes > BULK_CHANGE_THRESHOLD) {
+            target.setAll(merged);
+            return;
+        }
+        replaced.forEach(target::set);
+        for (int i = removed.size() - 1; i >= 0; i--) {
+            target.remove((int) removed.get(i));
+        }
+        target.addAll(added);
+    }
+
+    /**
+     * Maps a database table name from the change log (for example
+     * {@code attendance_log}) to its registry key.
+     */
+    static String toRegistryKey(String tableName) {
+        return tableName.trim().toUpperCase(Locale.ROOT).replace(' ', '_');
+    }
+}
@@ -4,26 +4,140 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import sms.admin.util.metrics.PerfMetrics;
+
 /**
- * A utility class that listens for changes in the database by polling a
- * `db_changes_log` table.
- * The listener checks periodically for new entries and notifies registered
- * handlers.
+ * A change feed over the {@code db_changes_log} table.
+ *
+ * <p>
+ * The listener tracks the monotonic {@code id} of the last change it has seen
+ * and polls for newer rows in batches, so changes that share a timestamp are
+ * never missed or delivered twice. Every poll drains all pending rows,
+ * coalesces them per table and delivers one {@link TableChange} per table to
+ * the registered handlers on a dedicated dispatch thread (never the JavaFX
+ * thread). A housekeeping job prunes rows older than the retention period in
+ * small chunks.
+ * </p>
+ *
+ * <p>
+ * Rows are written by {@code AFTER INSERT/UPDATE/DELETE} triggers that the
+ * listener installs on the {@link #TRACKED_TABLES} when it is created, so the
+ * feed sees every writer (this application's DAOs, other clients and manual
+ * SQL) in the writer's own transaction. Installing triggers needs the
+ * {@code TRIGGER} privilege; without it the listener still starts and only
+ * sees changes recorded through {@link #logChange(String, String)}.
+ * </p>
+ *
+ * <p>
+ * By default each poll borrows a connection from the shared
+ * {@link DatabaseConnection} pool. The legacy constructor that takes a
+ * {@link Connection} is kept for callers that manage their own connection.
+ * </p>
  */
 public class DatabaseChangeListener {
     private static final Logger LOGGER = Logger.getLogger(DatabaseChangeListener.class.getName());
+
+    /** Pseudo table name delivered when changes may have been lost and everything should be reloaded. */
+    public static final String ALL_TABLES = "*";
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int DEFAULT_RETENTION_HOURS = 24 * 7;
+    private static final int PRUNE_CHUNK_SIZE = 5000;
+    private static final int MYSQL_DUPLICATE_KEY_NAME = 1061;
+    private static final int MYSQL_NO_SUCH_TABLE = 1146;
+    private static final int MYSQL_TRIGGER_ALREADY_EXISTS = 1359;
+
+    /** Tables whose changes are recorded in the change log by triggers. */
+    public static final List<String> TRACKED_TABLES = List.of("school_year", "student", "student_guardian",
+            "address", "cluster", "guardian", "attendance_record", "attendance_log", "settings");
+    private static final List<String> TRIGGER_EVENTS = List.of("INSERT", "UPDATE", "DELETE");
+
+    private static final String CREATE_TABLE_SQL = """
+                CREATE TABLE IF NOT EXISTS db_changes_log (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    table_name VARCHAR(100) NOT NULL,
+                    change_type VARCHAR(20) NOT NULL,
+                    change_timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    INDEX idx_db_changes_log_timestamp (change_timestamp)
+                )
+            """;
+    private static final String CREATE_INDEX_SQL = """
+                CREATE INDEX idx_db_changes_log_timestamp ON db_changes_log (change_timestamp)
+            """;
+    private static final String CREATE_TRIGGER_SQL = """
+                CREATE TRIGGER %1$s_%2$s_change_log AFTER %2$s ON %1$s
+                FOR EACH ROW INSERT INTO db_changes_log (table_name, change_type) VALUES ('%1$s', '%2$s')
+            """;
+    private static final String TRACKED_EVENTS_SQL = """
+                SELECT COUNT(DISTINCT EVENT_MANIPULATION)
+                FROM information_schema.TRIGGERS
+                WHERE TRIGGER_SCHEMA = DATABASE() AND EVENT_OBJECT_TABLE = ?
+                AND ACTION_STATEMENT LIKE '%db_changes_log%'
+            """;
+    private static final String FETCH_SQL = """
+                SELECT id, table_name, change_type
+                FROM db_changes_log
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+            """;
+    private static final String BOUNDS_SQL = "SELECT COALESCE(MIN(id), 0), COALESCE(MAX(id), 0) FROM db_changes_log";
+    private static final String CHANGED_TABLES_SQL = "SELECT DISTINCT table_name FROM db_changes_log WHERE id > ? AND id <= ?";
+    private static final String PRUNE_SQL = """
+                DELETE FROM db_changes_log
+                WHERE change_timestamp < (NOW() - INTERVAL ? HOUR)
+                LIMIT ?
+            """;
+    private static final String INSERT_SQL = """
+                INSERT INTO db_changes_log (table_name, change_type)
+                VALUES (?, ?)
+            """;
+
     private final Connection connection;
-    private final List<DatabaseChangeHandler> changeHandlers;
+    private final List<DatabaseChangeHandler> changeHandlers = new CopyOnWriteArrayList<>();
     private final ScheduledExecutorService scheduler;
-    private long lastCheckTimestamp;
+    private final ExecutorService dispatcher;
+    private final int batchSize;
+    private volatile long lastSeenId = -1;
+    private volatile boolean running;
+    private int retentionHours = DEFAULT_RETENTION_HOURS;
+
+    /**
+     * A coalesced summary of all changes to one table since the previous
+     * delivery.
+     *
+     * @param tableName   the table that changed, or {@link #ALL_TABLES}
+     * @param changeTypes the distinct change types seen (e.g. INSERT, UPDATE)
+     * @param count       the number of change rows coalesced
+     * @param lastId      the highest change id included
+     */
+    public record TableChange(String tableName, Set<String> changeTypes, int count, long lastId) {
+    }
+
+    /**
+     * The tables changed between two positions in the change log.
+     *
+     * @param tables the names of the changed tables as logged
+     * @param lastId the newest change id covered
+     */
+    public record ChangeSet(Set<String> tables, long lastId) {
+    }
 
     /**
      * Interface for handling database change notifications.
@@ -33,9 +147,31 @@ public class DatabaseChangeListener {
          * Called when a change in the database is detected.
          *
          * @param tableName  the name of the table that changed
-         * @param changeType the type of change (e.g., "INSERT", "UPDATE", "DELETE")
+         * @param changeType the type of change (e.g., "INSERT", "UPDATE", "DELETE");
+         *                   several types are comma-separated when changes were
+         *                   coalesced
          */
         void onDatabaseChange(String tableName, String changeType);
+
+        /**
+         * Called once per poll with one coalesced entry per changed table. The
+         * default implementation forwards each entry to
+         * {@link #onDatabaseChange(String, String)}.
+         *
+         * @param changes the changed tables, in order of their first change
+         */
+        default void onTablesChanged(List<TableChange> changes) {
+            for (TableChange change : changes) {
+                onDatabaseChange(change.tableName(), String.join(",", change.changeTypes()));
+            }
+        }
+    }
+
+    /**
+     * Constructs a DatabaseChangeListener that borrows pooled connections.
+     */
+    public DatabaseChangeListener() {
+        this(null, DEFAULT_BATCH_SIZE);
     }
 
     /**
@@ -44,31 +180,72 @@ public class DatabaseChangeListener {
      * @param connection the database connection to use
      */
     public DatabaseChangeListener(Connection connection) {
+        this(connection, DEFAULT_BATCH_SIZE);
+    }
+
+    private DatabaseChangeListener(Connection connection, int batchSize) {
         this.connection = connection;
-        this.changeHandlers = new ArrayList<>();
-        this.scheduler = Executors.newScheduledThreadPool(1);
-        this.lastCheckTimestamp = System.currentTimeMillis();
+        this.batchSize = batchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "db-change-poller"));
+        this.dispatcher = Executors.newSingleThreadExecutor(r -> daemon(r, "db-change-dispatch"));
         initializeChangeTracking();
     }
 
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
     /**
-     * Initializes the change tracking table if it does not exist.
+     * Initializes the change tracking table, its timestamp index and the
+     * triggers on the tracked tables if they do not exist.
      */
     private void initializeChangeTracking() {
+        Connection conn = null;
         try {
-            String createTableSQL = """
-                        CREATE TABLE IF NOT EXISTS db_changes_log (
-                            id BIGINT AUTO_INCREMENT PRIMARY KEY,
-                            table_name VARCHAR(100) NOT NULL,
-                            change_type VARCHAR(20) NOT NULL,
-                            change_timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                        )
-                    """;
-            try (PreparedStatement stmt = connection.prepareStatement(createTableSQL)) {
-                stmt.execute();
+            conn = borrow();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(CREATE_TABLE_SQL);
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(CREATE_INDEX_SQL);
+            } catch (SQLException e) {
+                if (e.getErrorCode() != MYSQL_DUPLICATE_KEY_NAME) {
+                    LOGGER.log(Level.WARNING, "Failed to create change log index", e);
+                }
             }
+            installTriggers(conn);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Failed to initialize change tracking", e);
+        } finally {
+            release(conn);
+        }
+    }
+
+    /**
+     * Creates the change log triggers that are missing. A table that does not
+     * exist is skipped; any other failure (usually a missing privilege) stops
+     * the installation, since the remaining triggers would fail the same way.
+     */
+    private static void installTriggers(Connection conn) {
+        for (String table : TRACKED_TABLES) {
+            for (String event : TRIGGER_EVENTS) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(CREATE_TRIGGER_SQL.formatted(table, event));
+                } catch (SQLException e) {
+                    if (e.getErrorCode() == MYSQL_TRIGGER_ALREADY_EXISTS) {
+                        continue;
+                    }
+                    if (e.getErrorCode() == MYSQL_NO_SUCH_TABLE) {
+                        LOGGER.fine("Not tracking changes to missing table " + table);
+                        break;
+                    }
+                    LOGGER.log(Level.WARNING, "Failed to install change log triggers; only changes logged "
+                            + "through logChange will be seen", e);
+                    return;
+                }
+            }
         }
     }
 
@@ -78,15 +255,47 @@ public class DatabaseChangeListener {
      * @param intervalSeconds the interval in seconds at which to poll the database
      */
     public void startListening(int intervalSeconds) {
-        scheduler.scheduleAtFixedRate(this::checkForChanges,
-                intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        startListening(intervalSeconds * 1000L, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts listening for database changes at the specified interval. Only
+     * changes logged after this call are delivered unless a cursor was set with
+     * {@link #setCursor(long)}.
+     *
+     * @param interval the polling interval
+     * @param unit     the unit of {@code interval}
+     */
+    public void startListening(long interval, TimeUnit unit) {
+        if (running) {
+            return;
+        }
+        running = true;
+        scheduler.execute(() -> {
+            if (lastSeenId < 0) {
+                lastSeenId = readBounds()[1];
+            }
+        });
+        scheduler.scheduleWithFixedDelay(this::checkForChanges, interval, interval, unit);
+        scheduler.scheduleWithFixedDelay(this::pruneOldChanges, 1, 60, TimeUnit.MINUTES);
     }
 
     /**
      * Stops the listener and shuts down the scheduler.
      */
     public void stop() {
+        running = false;
         scheduler.shutdown();
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Returns whether the listener has been started and not stopped.
+     *
+     * @return true while polling
+     */
+    public boolean isRunning() {
+        return running;
     }
 
     /**
@@ -99,56 +308,283 @@ public class DatabaseChangeListener {
     }
 
     /**
-     * Checks the `db_changes_log` table for new changes since the last check
-     * and notifies all registered handlers.
+     * Removes a previously added handler.
+     *
+     * @param handler the change handler to remove
+     */
+    public void removeChangeHandler(DatabaseChangeHandler handler) {
+        changeHandlers.remove(handler);
+    }
+
+    /**
+     * Returns the id of the last change delivered, or -1 before the first poll.
+     *
+     * @return the change cursor
+     */
+    public long getCursor() {
+        return lastSeenId;
+    }
+
+    /**
+     * Sets the change cursor so that the next poll delivers every change with a
+     * higher id. Must be called before {@link #startListening}.
+     *
+     * @param lastSeenId the id of the last change already applied
+     */
+    public void setCursor(long lastSeenId) {
+        this.lastSeenId = lastSeenId;
+    }
+
+    /**
+     * Sets how long change rows are kept before the housekeeping job deletes
+     * them.
+     *
+     * @param retentionHours the retention period in hours
+     */
+    public void setRetentionHours(int retentionHours) {
+        this.retentionHours = Math.max(1, retentionHours);
+    }
+
+    /**
+     * Runs one poll, timed as {@link PerfMetrics#CHANGE_POLL}.
      */
     private void checkForChanges() {
+        try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.CHANGE_POLL, "DatabaseChangeListener.poll")) {
+            drainChanges();
+        }
+    }
+
+    /**
+     * Drains all changes after the cursor in batches, coalesces them per table
+     * and hands them to the dispatcher.
+     */
+    private void drainChanges() {
+        if (lastSeenId < 0) {
+            return;
+        }
+        Map<String, TableChange> coalesced = new LinkedHashMap<>();
+        Connection conn = null;
         try {
-            String query = """
-                        SELECT table_name, change_type, change_timestamp
-                        FROM db_changes_log
-                        WHERE change_timestamp > ?
-                        ORDER BY change_timestamp
-                    """;
-
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
-                stmt.setTimestamp(1, new java.sql.Timestamp(lastCheckTimestamp));
-                ResultSet rs = stmt.executeQuery();
-
-                while (rs.next()) {
-                    String tableName = rs.getString("table_name");
-                    String changeType = rs.getString("change_type");
-                    lastCheckTimestamp = rs.getTimestamp("change_timestamp").getTime();
-
-                    for (DatabaseChangeHandler handler : changeHandlers) {
-                        handler.onDatabaseChange(tableName, changeType);
+            conn = borrow();
+            long cursor = lastSeenId;
+
+            // Rows we never saw were pruned: the caller has to reload everything
+            long[] bounds = readBounds(conn);
+            if (cursor > 0 && bounds[0] > cursor + 1) {
+                coalesced.put(ALL_TABLES, new TableChange(ALL_TABLES, Set.of("RESYNC"), 0, bounds[1]));
+            }
+
+            int fetched;
+            do {
+                fetched = 0;
+                try (PreparedStatement stmt = conn.prepareStatement(FETCH_SQL)) {
+                    stmt.setLong(1, cursor);
+                    stmt.setInt(2, batchSize);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            fetched++;
+                            cursor = rs.getLong("id");
+                            merge(coalesced, rs.getString("table_name"), rs.getString("change_type"), cursor);
+                        }
                     }
                 }
-            }
+            } while (fetched == batchSize);
+
+            lastSeenId = cursor;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error checking for database changes", e);
+            return;
+        } finally {
+            release(conn);
+        }
+
+        if (!coalesced.isEmpty()) {
+            List<TableChange> changes = Collections.unmodifiableList(new ArrayList<>(coalesced.values()));
+            dispatcher.execute(() -> deliver(changes));
+        }
+    }
+
+    private static void merge(Map<String, TableChange> coalesced, String table, String type, long id) {
+        TableChange previous = coalesced.get(table);
+        Set<String> types = new LinkedHashSet<>();
+        if (previous != null) {
+            types.addAll(previous.changeTypes());
+        }
+        types.add(type);
+        int count = previous != null ? previous.count() + 1 : 1;
+        coalesced.put(table, new TableChange(table, Collections.unmodifiableSet(types), count, id));
+    }
+
+    private void deliver(List<TableChange> changes) {
+        for (DatabaseChangeHandler handler : changeHandlers) {
+            try {
+                handler.onTablesChanged(changes);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Database change handler failed", e);
+            }
+        }
+    }
+
+    /**
+     * Deletes change rows older than the retention period, a chunk at a time so
+     * that the table is never locked for long.
+     */
+    private void pruneOldChanges() {
+        Connection conn = null;
+        try {
+            conn = borrow();
+            int deleted;
+            int total = 0;
+            do {
+                try (PreparedStatement stmt = conn.prepareStatement(PRUNE_SQL)) {
+                    stmt.setInt(1, retentionHours);
+                    stmt.setInt(2, PRUNE_CHUNK_SIZE);
+                    deleted = stmt.executeUpdate();
+                    total += deleted;
+                }
+            } while (deleted == PRUNE_CHUNK_SIZE && running);
+            if (total > 0) {
+                LOGGER.info("Pruned " + total + " rows from db_changes_log");
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to prune db_changes_log", e);
+        } finally {
+            release(conn);
+        }
+    }
+
+    private long[] readBounds() {
+        Connection conn = null;
+        try {
+            conn = borrow();
+            return readBounds(conn);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Failed to read change log position", e);
+            return new long[] { 0, 0 };
+        } finally {
+            release(conn);
+        }
+    }
+
+    private static long[] readBounds(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(BOUNDS_SQL)) {
+            return rs.next() ? new long[] { rs.getLong(1), rs.getLong(2) } : new long[] { 0, 0 };
+        }
+    }
+
+    /**
+     * Returns the id of the newest row in the change log: the position to
+     * record alongside a copy of the data taken now.
+     *
+     * @return the newest change id, or 0 if the log is empty
+     * @throws SQLException if the change log cannot be read
+     */
+    public static long latestChangeId() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return readBounds(conn)[1];
+        }
+    }
+
+    /**
+     * Returns whether every insert, update and delete on a table is recorded
+     * in the change log by a trigger, so that the log can be trusted to show
+     * whether the table changed.
+     *
+     * @param tableName the table name, for example {@code attendance_log}
+     * @return true if the table has change log triggers for all three events
+     * @throws SQLException if the trigger catalog cannot be read
+     */
+    public static boolean isTracked(String tableName) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(TRACKED_EVENTS_SQL)) {
+            stmt.setString(1, tableName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == TRIGGER_EVENTS.size();
+            }
+        }
+    }
+
+    /**
+     * Returns the tables changed after a position returned by
+     * {@link #latestChangeId()}.
+     *
+     * @param changeId the recorded position
+     * @return the names of the changed tables as logged, or null if the
+     *         changes since that position have been pruned (or the log was
+     *         reset) and everything must be assumed changed
+     * @throws SQLException if the change log cannot be read
+     */
+    public static Set<String> tablesChangedSince(long changeId) throws SQLException {
+        ChangeSet changes = changesSince(changeId);
+        return changes != null ? changes.tables() : null;
+    }
+
+    /**
+     * Returns the tables changed after a position returned by
+     * {@link #latestChangeId()}, together with the position to continue from.
+     *
+     * @param changeId the recorded position
+     * @return the changes, or null if the changes since that position have
+     *         been pruned (or the log was reset) and everything must be
+     *         assumed changed
+     * @throws SQLException if the change log cannot be read
+     */
+    public static ChangeSet changesSince(long changeId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            long[] bounds = readBounds(conn);
+            if (bounds[1] < changeId || (bounds[1] > changeId && bounds[0] > changeId + 1)) {
+                return null;
+            }
+            Set<String> tables = new LinkedHashSet<>();
+            if (bounds[1] > changeId) {
+                try (PreparedStatement stmt = conn.prepareStatement(CHANGED_TABLES_SQL)) {
+                    stmt.setLong(1, changeId);
+                    stmt.setLong(2, bounds[1]);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            tables.add(rs.getString(1));
+                        }
+                    }
+                }
+            }
+            return new ChangeSet(Collections.unmodifiableSet(tables), bounds[1]);
         }
     }
 
     /**
-     * Logs a change to the `db_changes_log` table.
+     * Logs a change to the `db_changes_log` table. Changes to the
+     * {@link #TRACKED_TABLES} are logged by triggers and need no call.
      *
      * @param tableName  the name of the table that was changed
      * @param changeType the type of change (e.g., "INSERT", "UPDATE", "DELETE")
      */
     public void logChange(String tableName, String changeType) {
+        Connection conn = null;
         try {
-            String insertSQL = """
-                        INSERT INTO db_changes_log (table_name, change_type)
-                        VALUES (?, ?)
-                    """;
-            try (PreparedStatement stmt = connection.prepareStatement(insertSQL)) {
+            conn = borrow();
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
                 stmt.setString(1, tableName);
                 stmt.setString(2, changeType);
                 stmt.executeUpdate();
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Failed to log database change", e);
+        } finally {
+            release(conn);
+        }
+    }
+
+    private Connection borrow() throws SQLException {
+        return connection != null ? connection : DatabaseConnection.getConnection();
+    }
+
+    private void release(Connection conn) {
+        if (conn != null && conn != connection) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error returning connection to the pool", e);
+            }
         }
     }
 }
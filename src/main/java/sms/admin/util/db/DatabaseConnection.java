@@ -1,65 +1,106 @@
 package sms.admin.util.db;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * A utility class for managing a single shared database connection.
- * 
+ * A utility class for obtaining database connections from a shared, bounded
+ * {@link ConnectionPool}.
+ *
  * <p>
- * This class provides a static method to get a reusable {@link Connection}
- * instance,
- * which connects to a MySQL database. It also provides a method to close the
- * connection
- * when it is no longer needed.
+ * Every call to {@link #getConnection()} borrows a connection for the caller's
+ * exclusive use. Callers must close the returned connection (preferably with
+ * try-with-resources) to hand it back to the pool. The pool is created lazily
+ * on first use and can be tuned with the following system properties:
  * </p>
+ * <ul>
+ * <li>{@code sms.db.pool.minSize} - connections kept open while idle (default
+ * 2)</li>
+ * <li>{@code sms.db.pool.maxSize} - maximum open connections (default 8)</li>
+ * <li>{@code sms.db.pool.borrowTimeoutMs} - how long to wait for a free
+ * connection (default 10000)</li>
+ * <li>{@code sms.db.pool.idleTimeoutMs} - idle time before a connection is
+ * evicted (default 300000)</li>
+ * </ul>
  */
 public class DatabaseConnection {
     private static final Logger LOGGER = Logger.getLogger(DatabaseConnection.class.getName());
-    private static Connection connection;
+
+    private static final String URL = "jdbc:mysql://192.168.254.108:3306/student_management_system_db";
+    private static final String USER = "remote_user";
+    private static final String PASSWORD = ""; // Add your password if needed
+
+    private static ConnectionPool pool;
 
     /**
-     * Returns a shared connection to the database. If the connection is not already
-     * open,
-     * it attempts to create one using the specified connection URL, user, and
-     * password.
+     * Borrows a connection from the shared pool, creating the pool on first use.
+     * Closing the returned connection returns it to the pool.
      *
      * @return an open {@link Connection} to the database
-     * @throws SQLException if a database access error occurs
+     * @throws SQLException if a database access error occurs or no connection
+     *                      becomes available in time
      */
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                String url = "jdbc:mysql://192.168.254.108:3306/student_management_system_db";
-                String user = "remote_user";
-                String password = ""; // Add your password if needed
+        return getPool().borrow();
+    }
 
-                connection = DriverManager.getConnection(
-                        url + "?allowPublicKeyRetrieval=true&useSSL=false",
-                        user,
-                        password);
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Failed to establish database connection", e);
-                throw e;
+    /**
+     * Returns the keys the database generated for the rows of the last
+     * {@code executeBatch()} (or {@code executeUpdate()}) of an insert prepared
+     * with {@link java.sql.Statement#RETURN_GENERATED_KEYS}, in the order the
+     * rows were added.
+     *
+     * @param insert the executed insert
+     * @param rows   the number of rows inserted
+     * @return the generated keys
+     * @throws SQLException if fewer keys than rows were returned
+     */
+    public static int[] generatedKeys(PreparedStatement insert, int rows) throws SQLException {
+        int[] ids = new int[rows];
+        int count = 0;
+        try (ResultSet keys = insert.getGeneratedKeys()) {
+            while (count < rows && keys.next()) {
+                ids[count++] = keys.getInt(1);
             }
         }
-        return connection;
+        if (count < rows) {
+            throw new SQLException("Expected " + rows + " generated keys, got " + count);
+        }
+        return ids;
     }
 
     /**
-     * Closes the shared database connection if it is open.
-     * Logs a warning if an error occurs during closure.
+     * Returns the shared connection pool, creating it if necessary.
+     *
+     * @return the shared {@link ConnectionPool}
      */
-    public static void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.WARNING, "Error closing database connection", e);
-            }
+    public static synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            pool = new ConnectionPool(
+                    URL + "?allowPublicKeyRetrieval=true&useSSL=false&rewriteBatchedStatements=true",
+                    USER,
+                    PASSWORD,
+                    Integer.getInteger("sms.db.pool.minSize", 2),
+                    Integer.getInteger("sms.db.pool.maxSize", 8),
+                    Long.getLong("sms.db.pool.borrowTimeoutMs", 10_000L),
+                    Long.getLong("sms.db.pool.idleTimeoutMs", 300_000L),
+                    5);
+            LOGGER.info("Database connection pool created");
+        }
+        return pool;
+    }
+
+    /**
+     * Shuts down the shared connection pool, closing all idle connections.
+     * A later call to {@link #getConnection()} creates a fresh pool.
+     */
+    public static synchronized void closeConnection() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
         }
     }
 }
@@ -1,52 +1,221 @@
 package sms.admin.util.db;
 
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
 
 /**
  * Utility class for retrying database operations with exponential backoff.
- * 
+ *
  * <p>
- * This helper can be used to wrap database calls that may fail intermittently,
- * retrying them a limited number of times before giving up.
+ * Operations run on a small pool of database worker threads and
+ * {@link #withRetryAsync(Callable)} returns a {@link CompletableFuture}, so no
+ * thread sleeps between attempts: a retry is scheduled after an exponentially
+ * growing delay with random jitter. Only failures that suggest the database is
+ * temporarily unavailable (connection errors, deadlocks, pool timeouts) are
+ * retried; other errors fail the call at once.
+ * </p>
+ *
+ * <p>
+ * Every attempt is bounded by the policy's timeout. A timed-out attempt fails
+ * the call without being retried, because the statement may still complete on
+ * the server and the operation is not necessarily safe to repeat.
+ * </p>
+ *
+ * <p>
+ * For the same reason, a retry after a dropped connection may repeat work that
+ * did commit. Reads and idempotent updates can use the default policy; inserts
+ * whose keys the database generates must use {@link RetryPolicy#ONCE}, since a
+ * repeated insert adds a second row.
+ * </p>
+ *
+ * <p>
+ * A shared {@link CircuitBreaker} opens after repeated unavailability failures.
+ * While it is open calls fail immediately with a
+ * {@link CircuitOpenException} instead of queuing behind an unreachable
+ * server. {@link #getMetrics()} reports attempt, failure and breaker counts.
  * </p>
  */
 public class DatabaseRetryHelper {
-    private static final int MAX_RETRIES = 3;
-    private static final int RETRY_DELAY_MS = 1000;
+    private static final Logger LOGGER = Logger.getLogger(DatabaseRetryHelper.class.getName());
+
+    private static final CircuitBreaker BREAKER = new CircuitBreaker("database", 5, Duration.ofSeconds(30));
+
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "db-worker");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "db-retry-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final LongAdder CALLS = new LongAdder();
+    private static final LongAdder ATTEMPTS = new LongAdder();
+    private static final LongAdder RETRIES = new LongAdder();
+    private static final LongAdder FAILED_ATTEMPTS = new LongAdder();
+    private static final LongAdder TIMEOUTS = new LongAdder();
 
     /**
-     * Executes a database operation with retry logic.
+     * How often and how patiently an operation is attempted.
      *
-     * <p>
-     * The operation will be attempted up to {@code MAX_RETRIES} times.
-     * After each failed attempt (except the last), the method waits for an
-     * increasing delay
-     * before retrying. The delay is calculated as
-     * {@code RETRY_DELAY_MS * attemptNumber}.
-     * </p>
+     * @param maxAttempts the maximum number of attempts, including the first
+     * @param baseDelay   the delay before the first retry; each further retry
+     *                    doubles it
+     * @param maxDelay    the longest delay between attempts
+     * @param timeout     the longest a single attempt may take
+     */
+    public record RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay, Duration timeout) {
+
+        /** Three attempts, 250 ms doubling to at most 4 s, 30 s per attempt. */
+        public static final RetryPolicy DEFAULT = new RetryPolicy(3, Duration.ofMillis(250), Duration.ofSeconds(4),
+                Duration.ofSeconds(30));
+
+        /** A single attempt of at most 30 s, for work that is not safe to repeat. */
+        public static final RetryPolicy ONCE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO,
+                Duration.ofSeconds(30));
+
+        public RetryPolicy {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be at least 1");
+            }
+        }
+
+        /**
+         * Returns this policy with a different per-attempt timeout.
+         *
+         * @param timeout the longest a single attempt may take
+         * @return the new policy
+         */
+        public RetryPolicy withTimeout(Duration timeout) {
+            return new RetryPolicy(maxAttempts, baseDelay, maxDelay, timeout);
+        }
+
+        /**
+         * Returns the delay after a failed attempt: the exponential delay, of
+         * which the upper half is randomized so that clients that failed
+         * together do not retry together.
+         */
+        long delayMillis(int attempt) {
+            long exponential = baseDelay.toMillis() << Math.min(attempt - 1, 20);
+            long capped = Math.max(1, Math.min(exponential, maxDelay.toMillis()));
+            return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+        }
+    }
+
+    /**
+     * Counters of the retry layer since startup.
+     *
+     * @param calls          operations submitted
+     * @param attempts       attempts started
+     * @param retries        attempts that were retries
+     * @param failedAttempts attempts that failed, including timeouts
+     * @param timeouts       attempts that timed out
+     * @param rejectedCalls  calls refused by the open circuit breaker
+     * @param breakerState   the current circuit breaker state
+     * @param breakerOpened  how often the circuit breaker has opened
+     */
+    public record Metrics(long calls, long attempts, long retries, long failedAttempts, long timeouts,
+            long rejectedCalls, CircuitBreaker.State breakerState, long breakerOpened) {
+    }
+
+    /**
+     * Thrown when a call is refused because the database circuit breaker is
+     * open.
+     */
+    public static class CircuitOpenException extends SQLTransientConnectionException {
+        private static final long serialVersionUID = 1L;
+
+        CircuitOpenException() {
+            super("Database unavailable: too many recent failures, not trying again yet");
+        }
+    }
+
+    /**
+     * Runs a database operation asynchronously with the default retry policy.
+     *
+     * @param <T>       the type of result returned by the operation
+     * @param operation the operation to perform
+     * @return a future completed with the result, or with the last failure
+     */
+    public static <T> CompletableFuture<T> withRetryAsync(Callable<T> operation) {
+        return withRetryAsync(operation, RetryPolicy.DEFAULT);
+    }
+
+    /**
+     * Runs a database operation asynchronously, retrying transient failures as
+     * the policy allows. Cancelling the returned future stops further retries.
+     *
+     * @param <T>       the type of result returned by the operation
+     * @param operation the operation to perform
+     * @param policy    the retry policy
+     * @return a future completed with the result, or with the last failure
+     */
+    public static <T> CompletableFuture<T> withRetryAsync(Callable<T> operation, RetryPolicy policy) {
+        CALLS.increment();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(operation, policy, 1, result);
+        return result;
+    }
+
+    /**
+     * Runs database work that returns nothing asynchronously, retrying
+     * transient failures as the policy allows.
+     *
+     * @param work   the work to perform
+     * @param policy the retry policy; {@link RetryPolicy#ONCE} for work that is
+     *               not safe to repeat
+     * @return a future completed when the work succeeds, or with the last
+     *         failure
+     */
+    public static CompletableFuture<Void> runAsync(DatabaseWork work, RetryPolicy policy) {
+        return withRetryAsync(() -> {
+            work.run();
+            return null;
+        }, policy);
+    }
+
+    /**
+     * Executes a database operation with retry logic, waiting for the result.
+     * The operation runs on a database worker thread; the calling thread only
+     * waits and never sleeps between attempts. Do not call this on the JavaFX
+     * thread; use {@link #withRetryAsync(Callable)} there.
      *
      * @param <T>       the type of result returned by the operation
      * @param operation the operation to perform, as a {@link Callable}
      * @return the result of the successful operation
-     * @throws Exception if all retry attempts fail
+     * @throws Exception the last failure if every attempt fails
      */
     public static <T> T withRetry(Callable<T> operation) throws Exception {
-        Exception lastException = null;
-
-        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-            try {
-                return operation.call();
-            } catch (Exception e) {
-                lastException = e;
-                System.err.println(
-                        "Database operation failed (attempt " + attempt + "/" + MAX_RETRIES + "): " + e.getMessage());
-                if (attempt < MAX_RETRIES) {
-                    Thread.sleep(RETRY_DELAY_MS * attempt);
-                }
-            }
+        CompletableFuture<T> future = withRetryAsync(operation);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw e;
         }
-        throw lastException;
     }
 
     /**
@@ -54,8 +223,7 @@ public class DatabaseRetryHelper {
      *
      * <p>
      * This method wraps {@link DatabaseConnection#getConnection()} with
-     * {@link #withRetry(Callable)},
-     * retrying the connection up to {@code MAX_RETRIES} times if it fails.
+     * {@link #withRetry(Callable)}.
      * </p>
      *
      * @return an established {@link Connection} to the database
@@ -65,4 +233,104 @@ public class DatabaseRetryHelper {
     public static Connection getConnectionWithRetry() throws Exception {
         return withRetry(() -> DatabaseConnection.getConnection());
     }
+
+    /**
+     * Returns the current counters.
+     *
+     * @return the metrics
+     */
+    public static Metrics getMetrics() {
+        return new Metrics(CALLS.sum(), ATTEMPTS.sum(), RETRIES.sum(), FAILED_ATTEMPTS.sum(), TIMEOUTS.sum(),
+                BREAKER.getRejectedCalls(), BREAKER.getState(), BREAKER.getTimesOpened());
+    }
+
+    /**
+     * Returns the shared database circuit breaker.
+     *
+     * @return the breaker
+     */
+    public static CircuitBreaker getCircuitBreaker() {
+        return BREAKER;
+    }
+
+    private static <T> void attempt(Callable<T> operation, RetryPolicy policy, int attempt,
+            CompletableFuture<T> result) {
+        if (result.isDone()) {
+            return; // Cancelled by the caller
+        }
+        if (!BREAKER.tryAcquire()) {
+            result.completeExceptionally(new CircuitOpenException());
+            return;
+        }
+        ATTEMPTS.increment();
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return operation.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, WORKERS)
+                .orTimeout(policy.timeout().toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((value, error) -> {
+                    if (error == null) {
+                        BREAKER.recordSuccess();
+                        result.complete(value);
+                        return;
+                    }
+                    Throwable cause = unwrap(error);
+                    FAILED_ATTEMPTS.increment();
+                    if (cause instanceof TimeoutException) {
+                        TIMEOUTS.increment();
+                        BREAKER.recordFailure();
+                        result.completeExceptionally(new SQLTimeoutException(
+                                "Database operation timed out after " + policy.timeout().toMillis() + " ms", cause));
+                        return;
+                    }
+                    if (!isTransient(cause)) {
+                        if (cause instanceof SQLException) {
+                            BREAKER.recordSuccess(); // The server answered
+                        } else {
+                            BREAKER.release();
+                        }
+                        result.completeExceptionally(cause);
+                        return;
+                    }
+
+                    BREAKER.recordFailure();
+                    LOGGER.warning("Database operation failed (attempt " + attempt + "/" + policy.maxAttempts()
+                            + "): " + cause.getMessage());
+                    if (attempt >= policy.maxAttempts()) {
+                        result.completeExceptionally(cause);
+                        return;
+                    }
+                    RETRIES.increment();
+                    SCHEDULER.schedule(() -> attempt(operation, policy, attempt + 1, result),
+                            policy.delayMillis(attempt), TimeUnit.MILLISECONDS);
+                });
+    }
+
+    /**
+     * Returns whether a failure suggests the database is temporarily
+     * unavailable, so that trying again later may succeed.
+     */
+    static boolean isTransient(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof SQLTransientException || e instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (e instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("08") || sql.getSQLState().startsWith("40"))) {
+                return true; // Connection exception, transaction rollback
+            }
+        }
+        return false;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
 }
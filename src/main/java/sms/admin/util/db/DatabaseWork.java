@@ -0,0 +1,16 @@
+package sms.admin.util.db;
+
+/**
+ * Database work that returns nothing, run by
+ * {@link DatabaseRetryHelper#runAsync(DatabaseWork, DatabaseRetryHelper.RetryPolicy)}.
+ */
+@FunctionalInterface
+public interface DatabaseWork {
+
+    /**
+     * Performs the work.
+     *
+     * @throws Exception if the work fails
+     */
+    void run() throws Exception;
+}
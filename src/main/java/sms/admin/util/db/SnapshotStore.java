@@ -0,0 +1,362 @@
+package sms.admin.util.db;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import dev.finalproject.models.Address;
+import dev.finalproject.models.AttendanceLog;
+import dev.finalproject.models.AttendanceRecord;
+import dev.finalproject.models.Cluster;
+import dev.finalproject.models.Student;
+
+/**
+ * A local copy of the larger shared collections, one file per table under
+ * {@code ~/.sms-admin/snapshots}, used to start without pulling them over the
+ * network.
+ *
+ * <p>
+ * Each file is a compact binary encoding of the rows, preceded by the change
+ * log position ({@link DatabaseChangeListener#latestChangeId()}) read just
+ * before the rows were loaded and followed by a CRC-32 of everything before
+ * it. Files are written to a temporary name and moved into place, and read
+ * through a memory mapping. A file that is missing, truncated, from another
+ * format version or fails its checksum is ignored.
+ * </p>
+ *
+ * <p>
+ * Rows that refer to students or attendance days are stored by ID and resolved
+ * against collections that are already loaded; a snapshot with a reference that
+ * cannot be resolved is ignored too. Snapshots are disabled with
+ * {@code -Dsms.snapshot.disabled=true}.
+ * </p>
+ */
+final class SnapshotStore {
+
+    private static final Logger LOGGER = Logger.getLogger(SnapshotStore.class.getName());
+
+    private static final Path DIRECTORY = Path.of(System.getProperty("user.home"), ".sms-admin", "snapshots");
+    private static final int MAGIC = 0x534D5353; // "SMSS"
+    private static final int VERSION = 1;
+    private static final int TRAILER_BYTES = Long.BYTES;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Map<String, RowCodec<?>> CODECS = new LinkedHashMap<>();
+
+    static {
+        register("CLUSTER", new RowCodec<Cluster>() {
+            @Override
+            public void write(DataOutputStream out, Cluster cluster) throws IOException {
+                out.writeInt(cluster.getClusterID());
+                writeString(out, cluster.getClusterName());
+            }
+
+            @Override
+            public Cluster read(ByteBuffer in, References refs) {
+                return new Cluster(in.getInt(), readString(in));
+            }
+        });
+        register("ADDRESS", new RowCodec<Address>() {
+            @Override
+            public void write(DataOutputStream out, Address address) throws IOException {
+                out.writeInt(address.getAddressID());
+                out.writeInt(address.getStudentID() != null ? address.getStudentID().getStudentID() : -1);
+                writeString(out, address.getCity());
+                writeString(out, address.getMunicipality());
+                writeString(out, address.getStreet());
+                writeString(out, address.getBarangay());
+                out.writeInt(address.getZipCode());
+            }
+
+            @Override
+            public Address read(ByteBuffer in, References refs) {
+                int addressId = in.getInt();
+                Student student = refs.student(in.getInt());
+                String city = readString(in);
+                String municipality = readString(in);
+                String street = readString(in);
+                String barangay = readString(in);
+                return new Address(student, addressId, city, municipality, street, barangay, in.getInt());
+            }
+        });
+        register("ATTENDANCE_RECORD", new RowCodec<AttendanceRecord>() {
+            @Override
+            public void write(DataOutputStream out, AttendanceRecord record) throws IOException {
+                out.writeInt(record.getRecordID());
+                out.writeInt(record.getMonth());
+                out.writeInt(record.getDay());
+                out.writeInt(record.getYear());
+            }
+
+            @Override
+            public AttendanceRecord read(ByteBuffer in, References refs) {
+                return new AttendanceRecord(in.getInt(), in.getInt(), in.getInt(), in.getInt());
+            }
+        });
+        register("ATTENDANCE_LOG", new RowCodec<AttendanceLog>() {
+            @Override
+            public void write(DataOutputStream out, AttendanceLog log) throws IOException {
+                out.writeInt(log.getLogID());
+                out.writeInt(log.getRecordID() != null ? log.getRecordID().getRecordID() : -1);
+                out.writeInt(log.getStudentID() != null ? log.getStudentID().getStudentID() : -1);
+                out.writeInt(log.getTimeInAM());
+                out.writeInt(log.getTimeOutAM());
+                out.writeInt(log.getTimeInPM());
+                out.writeInt(log.getTimeOutPM());
+            }
+
+            @Override
+            public AttendanceLog read(ByteBuffer in, References refs) {
+                int logId = in.getInt();
+                AttendanceRecord record = refs.record(in.getInt());
+                Student student = refs.student(in.getInt());
+                return new AttendanceLog(logId, record, student, in.getInt(), in.getInt(), in.getInt(), in.getInt());
+            }
+        });
+    }
+
+    private SnapshotStore() {
+    }
+
+    /**
+     * The rows of a snapshot and the change log position they correspond to.
+     *
+     * @param changeId the change log position
+     * @param rows     the rows
+     */
+    record Snapshot(long changeId, List<?> rows) {
+    }
+
+    /**
+     * Encodes and decodes the rows of one table.
+     */
+    private interface RowCodec<T> {
+        void write(DataOutputStream out, T row) throws IOException;
+
+        T read(ByteBuffer in, References refs);
+    }
+
+    /**
+     * Thrown while decoding when a row refers to a student or attendance day
+     * that is not loaded.
+     */
+    private static final class UnresolvedReferenceException extends RuntimeException {
+        UnresolvedReferenceException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * Resolves stored IDs against already loaded collections, indexing each
+     * collection on first use.
+     */
+    private static final class References {
+        private final Function<String, List<?>> loaded;
+        private Map<Integer, Student> students;
+        private Map<Integer, AttendanceRecord> records;
+
+        References(Function<String, List<?>> loaded) {
+            this.loaded = loaded;
+        }
+
+        Student student(int id) {
+            if (id < 0) {
+                return null;
+            }
+            if (students == null) {
+                students = index("STUDENT", row -> ((Student) row).getStudentID());
+            }
+            return require(students.get(id), "student " + id);
+        }
+
+        AttendanceRecord record(int id) {
+            if (id < 0) {
+                return null;
+            }
+            if (records == null) {
+                records = index("ATTENDANCE_RECORD", row -> ((AttendanceRecord) row).getRecordID());
+            }
+            return require(records.get(id), "attendance record " + id);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> Map<Integer, T> index(String key, Function<Object, Integer> id) {
+            List<?> rows = loaded.apply(key);
+            if (rows == null) {
+                throw new UnresolvedReferenceException(key + " is not loaded");
+            }
+            Map<Integer, T> byId = new HashMap<>(rows.size() * 2);
+            for (Object row : rows) {
+                if (row != null) {
+                    byId.put(id.apply(row), (T) row);
+                }
+            }
+            return byId;
+        }
+
+        private static <T> T require(T value, String what) {
+            if (value == null) {
+                throw new UnresolvedReferenceException("unknown " + what);
+            }
+            return value;
+        }
+    }
+
+    private static void register(String key, RowCodec<?> codec) {
+        CODECS.put(key, codec);
+    }
+
+    /**
+     * Returns whether snapshots are enabled and the collection can be stored.
+     *
+     * @param key the registry key
+     * @return true if {@link #read} and {@link #write} handle the key
+     */
+    static boolean supports(String key) {
+        return !Boolean.getBoolean("sms.snapshot.disabled") && CODECS.containsKey(key);
+    }
+
+    /**
+     * Reads the snapshot of a collection.
+     *
+     * @param key    the registry key
+     * @param loaded returns the rows of an already loaded collection, or null
+     * @return the snapshot, or null if there is no usable snapshot
+     */
+    static Snapshot read(String key, Function<String, List<?>> loaded) {
+        RowCodec<?> codec = CODECS.get(key);
+        Path file = file(key);
+        if (codec == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 3 * Integer.BYTES + Long.BYTES + TRAILER_BYTES || size > Integer.MAX_VALUE) {
+                return discard(key, "unexpected size " + size);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int payload = (int) size - TRAILER_BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(mapped.duplicate().limit(payload));
+            if (crc.getValue() != mapped.getLong(payload)) {
+                return discard(key, "checksum mismatch");
+            }
+
+            ByteBuffer in = mapped.duplicate().limit(payload);
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                return discard(key, "unknown format");
+            }
+            long changeId = in.getLong();
+            int count = in.getInt();
+            References refs = new References(loaded);
+            List<Object> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(codec.read(in, refs));
+            }
+            return new Snapshot(changeId, rows);
+        } catch (UnresolvedReferenceException e) {
+            return discard(key, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to read snapshot of " + key, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the snapshot of a collection, replacing any previous one. Failures
+     * are logged.
+     *
+     * @param key      the registry key
+     * @param changeId the change log position read before the rows were loaded
+     * @param rows     the rows
+     */
+    @SuppressWarnings("unchecked")
+    static <T> void write(String key, long changeId, List<?> rows) {
+        RowCodec<T> codec = (RowCodec<T>) CODECS.get(key);
+        if (codec == null) {
+            return;
+        }
+        Path file = file(key);
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        try {
+            Files.createDirectories(DIRECTORY);
+            CRC32 crc = new CRC32();
+            try (OutputStream raw = Files.newOutputStream(partial);
+                    DataOutputStream out = new DataOutputStream(
+                            new BufferedOutputStream(new CheckedOutputStream(raw, crc), BUFFER_SIZE))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(changeId);
+                out.writeInt(rows.size());
+                for (Object row : rows) {
+                    codec.write(out, (T) row);
+                }
+                out.flush();
+                // The checksum itself is written past the checked stream
+                new DataOutputStream(raw).writeLong(crc.getValue());
+            }
+            try {
+                Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to write snapshot of " + key, e);
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+                // Overwritten by the next snapshot
+            }
+        }
+    }
+
+    private static Snapshot discard(String key, String reason) {
+        LOGGER.info("Ignoring snapshot of " + key + ": " + reason);
+        return null;
+    }
+
+    private static Path file(String key) {
+        return DIRECTORY.resolve(key.toLowerCase(Locale.ROOT) + ".snap");
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
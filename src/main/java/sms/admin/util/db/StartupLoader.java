@@ -0,0 +1,308 @@
+package sms.admin.util.db;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import dev.finalproject.database.DataManager;
+import dev.sol.core.registry.FXCollectionsRegister;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+
+/**
+ * Loads the shared collections at startup in two phases, replacing a single
+ * sequential {@link DataManager#initializeData()}.
+ *
+ * <p>
+ * {@link #loadForeground()} loads only what the first screen needs,
+ * {@code SCHOOL_YEAR} and {@code STUDENT}, in parallel, and registers empty
+ * lists for everything else so views can bind to them immediately.
+ * {@link #startBackground()} then loads the remaining tables in parallel while
+ * the window is already usable, filling the registered lists in place on the
+ * JavaFX thread. {@code ATTENDANCE_LOG}, by far the largest table, is loaded
+ * last, once the smaller tables are in, and only from the current school year
+ * onwards; older years are loaded when they are selected (see
+ * {@link DataRefresher}).
+ * </p>
+ *
+ * <p>
+ * Every table is loaded through {@link DataRefresher}, so later refreshes
+ * keep working on the same instances, and the change log position read before
+ * the first load is handed to it so that no change made during startup is
+ * missed. A table that fails to load is marked dirty, so the next
+ * {@link DataRefresher#refresh()} loads it again.
+ * </p>
+ *
+ * <p>
+ * Clusters, addresses, attendance days and attendance logs are also kept in a
+ * local {@link SnapshotStore} together with the change log position they are
+ * current with. A snapshot is used instead of the database load when the
+ * table's change log triggers are installed and the log shows no change to
+ * the table since that position. Otherwise it is shown at once while the table
+ * is loaded from the database again, and the startup load only completes once
+ * that reload has been applied. Every database load of these tables refreshes
+ * the snapshot.
+ * </p>
+ */
+public final class StartupLoader {
+
+    private static final Logger LOGGER = Logger.getLogger(StartupLoader.class.getName());
+
+    /** Collections the first screen needs, loaded before the window is shown. */
+    private static final List<String> FOREGROUND_KEYS = List.of("SCHOOL_YEAR", "STUDENT");
+
+    /** Collections loaded in parallel once the window is shown. */
+    private static final List<String> BACKGROUND_KEYS = List.of(
+            "CLUSTER", "GUARDIAN", "ADDRESS", "STUDENT_GUARDIAN", "SETTINGS", "ATTENDANCE_RECORD");
+
+    /** The largest collection, scoped to the current school year and loaded after the others. */
+    private static final String DEFERRED_KEY = "ATTENDANCE_LOG";
+
+    private static final Map<String, String> DESCRIPTIONS = Map.of(
+            "CLUSTER", "clusters",
+            "GUARDIAN", "guardians",
+            "ADDRESS", "addresses",
+            "STUDENT_GUARDIAN", "guardian links",
+            "SETTINGS", "settings",
+            "ATTENDANCE_RECORD", "attendance days",
+            DEFERRED_KEY, "attendance logs");
+
+    private static final ExecutorService LOAD_EXECUTOR = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "startup-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Rows loaded so far, for resolving the references of snapshot rows
+    private static final Map<String, List<?>> LOADED = new ConcurrentHashMap<>();
+
+    // Accessed on the JavaFX thread only
+    private static boolean complete;
+    private static final List<Runnable> WHEN_COMPLETE = new ArrayList<>();
+
+    private StartupLoader() {
+    }
+
+    /**
+     * Loads {@code SCHOOL_YEAR} and {@code STUDENT} in parallel and registers
+     * them, then registers an empty list for every collection that is not
+     * loaded yet. Blocks until both are loaded. Must be called on the JavaFX
+     * thread.
+     *
+     * @throws Exception if either collection cannot be loaded
+     */
+    public static void loadForeground() throws Exception {
+        try {
+            DataRefresher.trackChangesFrom(DatabaseChangeListener.latestChangeId());
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not read the change log position", e);
+        }
+        Map<String, Future<List<?>>> loads = new LinkedHashMap<>();
+        for (String key : FOREGROUND_KEYS) {
+            loads.put(key, LOAD_EXECUTOR.submit(() -> DataRefresher.load(key)));
+        }
+        for (Map.Entry<String, Future<List<?>>> load : loads.entrySet()) {
+            try {
+                List<?> rows = load.getValue().get();
+                LOADED.put(load.getKey(), rows);
+                DataRefresher.apply(load.getKey(), rows);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+
+        FXCollectionsRegister registry = DataManager.getInstance().getCollectionsRegistry();
+        List<String> pending = new ArrayList<>(BACKGROUND_KEYS);
+        pending.add(DEFERRED_KEY);
+        for (String key : pending) {
+            if (registry.getList(key) == null) {
+                registry.register(key, FXCollections.observableArrayList());
+            }
+        }
+    }
+
+    /**
+     * Starts loading the remaining collections on background threads. The
+     * returned task reports progress and a message naming what is being
+     * loaded; it succeeds even if some tables fail (see the class comment).
+     *
+     * @return the running task
+     */
+    public static Task<Void> startBackground() {
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                int total = BACKGROUND_KEYS.size() + 1;
+                int done = 0;
+                List<String> stale = new ArrayList<>();
+                try {
+                    updateProgress(done, total);
+                    updateMessage("Loading addresses, guardians and settings...");
+
+                    CompletionService<String> loads = new ExecutorCompletionService<>(LOAD_EXECUTOR);
+                    for (String key : BACKGROUND_KEYS) {
+                        loads.submit(() -> loadAndApply(key) ? key : null);
+                    }
+                    for (int i = 0; i < BACKGROUND_KEYS.size(); i++) {
+                        String staleKey = loads.take().get();
+                        if (staleKey != null) {
+                            stale.add(staleKey);
+                        }
+                        updateProgress(++done, total);
+                    }
+
+                    updateMessage("Loading " + DESCRIPTIONS.get(DEFERRED_KEY) + "...");
+                    if (loadAndApply(DEFERRED_KEY)) {
+                        stale.add(DEFERRED_KEY);
+                    }
+                    updateProgress(++done, total);
+
+                    // Snapshots are shown while the database catches them up
+                    for (String key : stale) {
+                        updateMessage("Updating " + DESCRIPTIONS.get(key) + "...");
+                        loadFromDatabase(key);
+                    }
+                } finally {
+                    // Queued after the list updates, so completion actions (which
+                    // enable editing) never see snapshot rows that may be outdated
+                    LOADED.clear();
+                    Platform.runLater(StartupLoader::markComplete);
+                }
+                updateMessage("All data loaded");
+                return null;
+            }
+        };
+        Thread thread = new Thread(task, "startup-background");
+        thread.setDaemon(true);
+        thread.start();
+        return task;
+    }
+
+    /**
+     * Returns whether every collection has been loaded (or has failed and been
+     * marked dirty). Must be called on the JavaFX thread.
+     *
+     * @return true once the background load has finished
+     */
+    public static boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Runs an action on the JavaFX thread once the background load has
+     * finished; immediately if it already has. Must be called on the JavaFX
+     * thread.
+     *
+     * @param action the action to run
+     */
+    public static void whenComplete(Runnable action) {
+        if (complete) {
+            action.run();
+        } else {
+            WHEN_COMPLETE.add(action);
+        }
+    }
+
+    private static void markComplete() {
+        complete = true;
+        List<Runnable> actions = new ArrayList<>(WHEN_COMPLETE);
+        WHEN_COMPLETE.clear();
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Startup completion action failed", e);
+            }
+        }
+    }
+
+    /**
+     * Loads one collection on the calling thread, from its local snapshot if
+     * there is one and from the database otherwise, and applies it on the
+     * JavaFX thread.
+     *
+     * @return true if a snapshot was applied that is not known to be current,
+     *         so the collection still has to be loaded from the database
+     */
+    private static boolean loadAndApply(String key) {
+        if (SnapshotStore.supports(key)) {
+            SnapshotStore.Snapshot snapshot = SnapshotStore.read(key, LOADED::get);
+            if (snapshot != null) {
+                publish(key, snapshot.rows());
+                return !isUnchangedSince(key, snapshot.changeId());
+            }
+        }
+        loadFromDatabase(key);
+        return false;
+    }
+
+    /**
+     * Loads one collection from the database, applies it on the JavaFX thread
+     * and refreshes its snapshot. Failures are logged and the collection is
+     * marked dirty.
+     */
+    private static void loadFromDatabase(String key) {
+        long start = System.nanoTime();
+        try {
+            // Read before the rows, so changes made during the load are replayed next time
+            long changeId = SnapshotStore.supports(key) ? DatabaseChangeListener.latestChangeId() : -1;
+            List<?> rows = DataRefresher.load(key);
+            if (rows == null) {
+                return;
+            }
+            if (changeId >= 0) {
+                SnapshotStore.write(key, changeId, rows);
+            }
+            publish(key, rows);
+            LOGGER.fine(() -> String.format("Loaded %d %s in %d ms", rows.size(), DESCRIPTIONS.get(key),
+                    (System.nanoTime() - start) / 1_000_000));
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to load " + key + " at startup", e);
+            DataRefresher.markDirty(key);
+        }
+    }
+
+    /**
+     * Returns whether the change log shows no change to the collection's table
+     * after the given position. Any doubt, including an empty log or a table
+     * without change log triggers, counts as changed.
+     */
+    private static boolean isUnchangedSince(String key, long changeId) {
+        if (changeId <= 0) {
+            return false; // Nothing was logged when the snapshot was taken
+        }
+        try {
+            if (!DatabaseChangeListener.isTracked(key.toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+            Set<String> changed = DatabaseChangeListener.tablesChangedSince(changeId);
+            return changed != null && changed.stream().map(DataRefresher::toRegistryKey).noneMatch(key::equals);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not check " + key + " for changes", e);
+            return false;
+        }
+    }
+
+    /**
+     * Remembers the rows for resolving references and applies them to the
+     * registered list on the JavaFX thread.
+     */
+    private static void publish(String key, List<?> rows) {
+        LOADED.put(key, rows);
+        Platform.runLater(() -> DataRefresher.apply(key, rows));
+    }
+}
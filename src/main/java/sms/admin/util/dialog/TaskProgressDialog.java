@@ -0,0 +1,88 @@
+package sms.admin.util.dialog;
+
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+import javafx.stage.Window;
+
+/**
+ * A small modal window that shows the progress of a background {@link Task}.
+ *
+ * <p>
+ * The window binds to the task's message and progress, optionally lists
+ * per-item status lines, and offers a Cancel button. It closes itself once the
+ * task succeeds, fails or is cancelled.
+ * </p>
+ */
+public class TaskProgressDialog {
+
+    /**
+     * Shows a progress window for a task. Must be called on the JavaFX thread
+     * before the task is started.
+     *
+     * @param owner   the owner window, blurred while the task runs; may be null
+     * @param title   the window title
+     * @param task    the task to track
+     * @param details optional per-item status lines; may be null
+     * @return the progress stage
+     */
+    public static Stage show(Window owner, String title, Task<?> task, ObservableList<String> details) {
+        Label messageLabel = new Label();
+        messageLabel.textProperty().bind(task.messageProperty());
+
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setMaxWidth(Double.MAX_VALUE);
+        progressBar.progressProperty().bind(task.progressProperty());
+
+        Button cancelButton = new Button("Cancel");
+        cancelButton.setOnAction(e -> {
+            cancelButton.setDisable(true);
+            task.cancel();
+        });
+
+        VBox content = new VBox(10, messageLabel, progressBar);
+        if (details != null) {
+            ListView<String> detailList = new ListView<>(details);
+            detailList.setPrefHeight(200);
+            content.getChildren().add(detailList);
+        }
+        content.getChildren().add(cancelButton);
+        content.setPadding(new Insets(15));
+        content.setPrefWidth(380);
+
+        Stage stage = new Stage(StageStyle.UTILITY);
+        stage.setTitle(title);
+        stage.setScene(new Scene(content));
+        if (owner != null) {
+            stage.initOwner(owner);
+            stage.initModality(Modality.WINDOW_MODAL);
+            DialogManager.setOverlayEffect(owner, true);
+        }
+        // Closing the window is the same as pressing Cancel
+        stage.setOnCloseRequest(e -> task.cancel());
+
+        task.stateProperty().addListener((obs, oldState, newState) -> {
+            if (newState == Worker.State.SUCCEEDED
+                    || newState == Worker.State.FAILED
+                    || newState == Worker.State.CANCELLED) {
+                if (owner != null) {
+                    DialogManager.setOverlayEffect(owner, false);
+                }
+                stage.close();
+            }
+        });
+
+        stage.show();
+        return stage;
+    }
+}
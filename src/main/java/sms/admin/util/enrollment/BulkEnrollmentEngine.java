@@ -0,0 +1,240 @@
+package sms.admin.util.enrollment;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import dev.finalproject.database.DataManager;
+import dev.finalproject.models.Address;
+import dev.finalproject.models.Cluster;
+import dev.finalproject.models.SchoolYear;
+import dev.finalproject.models.Student;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import sms.admin.util.db.DatabaseConnection;
+import sms.admin.util.metrics.PerfMetrics;
+
+/**
+ * Enrolls many students from CSV rows in a single database transaction.
+ *
+ * <p>
+ * Rows are queued with {@link #add(CsvStudent)} and written by
+ * {@link #commit()}. The commit inserts the rows with one JDBC batch per table
+ * (per {@value #BATCH_SIZE} rows), so the number of round trips does not grow
+ * with the number of students, and reads the IDs the database generated back
+ * to link students to their clusters and addresses to their students. Either
+ * every row is enrolled or none is.
+ * </p>
+ *
+ * <p>
+ * After the transaction commits, the new rows are appended to the shared
+ * {@code CLUSTER}, {@code STUDENT} and {@code ADDRESS} collections with one
+ * change event each, on the JavaFX thread.
+ * </p>
+ *
+ * <p>
+ * The SQL uses the table and column names of the DAOs:
+ * {@code cluster(clusterID, clusterName)},
+ * {@code student(studentID, firstName, middleName, lastName, nameExtension,
+ * email, status, contact, dateOfBirth, fare, clusterID, yearID, isDeleted)} and
+ * {@code address(addressID, studentID, city, municipality, street, barangay,
+ * zipCode)}, whose ID columns are {@code AUTO_INCREMENT}.
+ * </p>
+ */
+public class BulkEnrollmentEngine {
+
+    private static final String INSERT_CLUSTER_SQL = "INSERT INTO cluster (clusterName) VALUES (?)";
+    private static final String INSERT_STUDENT_SQL = """
+                INSERT INTO student (firstName, middleName, lastName, nameExtension, email,
+                    status, contact, dateOfBirth, fare, clusterID, yearID, isDeleted)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final String INSERT_ADDRESS_SQL = """
+                INSERT INTO address (studentID, city, municipality, street, barangay, zipCode)
+                VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    /** Rows sent to the server per batch execution. */
+    private static final int BATCH_SIZE = 500;
+
+    /** Serializes bulk enrollments in this process; the database locks serialize the rest. */
+    private static final Object WRITE_LOCK = new Object();
+
+    /** Sets the parameters of the insert for the row at an index. */
+    @FunctionalInterface
+    private interface RowBinder {
+        void bind(PreparedStatement insert, int index) throws SQLException;
+    }
+
+    private final SchoolYear schoolYear;
+    private final List<CsvStudent> rows = new ArrayList<>();
+
+    /**
+     * Creates an engine that enrolls students into a school year.
+     *
+     * @param schoolYear the school year of the new students
+     */
+    public BulkEnrollmentEngine(SchoolYear schoolYear) {
+        this.schoolYear = schoolYear;
+    }
+
+    /**
+     * Queues a CSV row for enrollment.
+     *
+     * @param csvStudent the parsed row
+     * @return this engine
+     */
+    public BulkEnrollmentEngine add(CsvStudent csvStudent) {
+        rows.add(csvStudent);
+        return this;
+    }
+
+    /**
+     * Returns the number of queued rows.
+     */
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Enrolls every queued row in one transaction.
+     *
+     * @return the enrolled students, in the order they were added
+     * @throws SQLException if the transaction fails; nothing is enrolled then
+     */
+    public List<Student> commit() throws SQLException {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<EnrollmentUtils.Enrollment> enrollments = new ArrayList<>(rows.size());
+
+        synchronized (WRITE_LOCK) {
+            try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "BulkEnrollmentEngine.commit");
+                    Connection conn = DatabaseConnection.getConnection()) {
+                boolean autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit(false);
+                try {
+                    // Parse every row first; the IDs are known once each table is inserted
+                    List<EnrollmentUtils.Enrollment> drafts = new ArrayList<>(rows.size());
+                    for (CsvStudent row : rows) {
+                        drafts.add(EnrollmentUtils.buildCsvEnrollment(row, schoolYear, 0, 0, 0));
+                    }
+                    int[] clusterIds = insertClusters(conn, drafts);
+                    int[] studentIds = insertStudents(conn, drafts, clusterIds);
+                    int[] addressIds = insertAddresses(conn, drafts, studentIds);
+                    for (int i = 0; i < rows.size(); i++) {
+                        enrollments.add(EnrollmentUtils.buildCsvEnrollment(rows.get(i), schoolYear,
+                                studentIds[i], clusterIds[i], addressIds[i]));
+                    }
+                    conn.commit();
+                    EnrollmentUtils.reserveStudentIdsThrough(Arrays.stream(studentIds).max().orElse(0));
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(autoCommit);
+                }
+            }
+        }
+        rows.clear();
+
+        List<Cluster> clusters = new ArrayList<>(enrollments.size());
+        List<Student> students = new ArrayList<>(enrollments.size());
+        List<Address> addresses = new ArrayList<>(enrollments.size());
+        for (EnrollmentUtils.Enrollment enrollment : enrollments) {
+            clusters.add(enrollment.cluster());
+            students.add(enrollment.student());
+            addresses.add(enrollment.address());
+        }
+        runOnFxThread(() -> {
+            addAll("CLUSTER", clusters);
+            addAll("STUDENT", students);
+            addAll("ADDRESS", addresses);
+        });
+        return students;
+    }
+
+    private static int[] insertClusters(Connection conn, List<EnrollmentUtils.Enrollment> drafts)
+            throws SQLException {
+        return insertAll(conn, INSERT_CLUSTER_SQL, drafts.size(),
+                (insert, i) -> insert.setString(1, drafts.get(i).cluster().getClusterName()));
+    }
+
+    private int[] insertStudents(Connection conn, List<EnrollmentUtils.Enrollment> drafts, int[] clusterIds)
+            throws SQLException {
+        return insertAll(conn, INSERT_STUDENT_SQL, drafts.size(), (insert, i) -> {
+            EnrollmentUtils.Enrollment enrollment = drafts.get(i);
+            Student student = enrollment.student();
+            insert.setString(1, student.getFirstName());
+            insert.setString(2, student.getMiddleName());
+            insert.setString(3, student.getLastName());
+            insert.setString(4, student.getNameExtension());
+            insert.setString(5, student.getEmail());
+            insert.setString(6, enrollment.status());
+            insert.setString(7, student.getContact());
+            insert.setDate(8, enrollment.dateOfBirth());
+            insert.setDouble(9, student.getFare());
+            insert.setInt(10, clusterIds[i]);
+            insert.setInt(11, schoolYear.getYearID());
+            insert.setInt(12, student.isDeleted());
+        });
+    }
+
+    private static int[] insertAddresses(Connection conn, List<EnrollmentUtils.Enrollment> drafts,
+            int[] studentIds) throws SQLException {
+        return insertAll(conn, INSERT_ADDRESS_SQL, drafts.size(), (insert, i) -> {
+            Address address = drafts.get(i).address();
+            insert.setInt(1, studentIds[i]);
+            insert.setString(2, address.getCity());
+            insert.setString(3, address.getMunicipality());
+            insert.setString(4, address.getStreet());
+            insert.setString(5, address.getBarangay());
+            insert.setInt(6, address.getZipCode());
+        });
+    }
+
+    /**
+     * Inserts {@code count} rows in batches of {@link #BATCH_SIZE} and returns
+     * their generated IDs by row index.
+     */
+    private static int[] insertAll(Connection conn, String sql, int count, RowBinder binder)
+            throws SQLException {
+        int[] ids = new int[count];
+        try (PreparedStatement insert = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (int start = 0; start < count; start += BATCH_SIZE) {
+                int end = Math.min(start + BATCH_SIZE, count);
+                for (int i = start; i < end; i++) {
+                    binder.bind(insert, i);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                int[] batchIds = DatabaseConnection.generatedKeys(insert, end - start);
+                System.arraycopy(batchIds, 0, ids, start, batchIds.length);
+            }
+        }
+        return ids;
+    }
+
+    private static <T> void addAll(String key, List<T> items) {
+        try {
+            ObservableList<T> list = DataManager.getInstance().getCollectionsRegistry().getList(key);
+            if (list != null) {
+                list.addAll(items);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Could not update " + key + " after enrollment: " + e.getMessage());
+        }
+    }
+
+    private static void runOnFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    }
+}
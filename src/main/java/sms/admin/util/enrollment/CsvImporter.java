@@ -2,23 +2,97 @@ package sms.admin.util.enrollment;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Utility class for importing student data from a CSV file.
  *
  * <p>
- * This class reads a CSV file, parses its contents, and returns a list of
- * {@link CsvStudent} objects, one for each student row (excluding the header).
- * It handles quoted values properly using a regex-based split.
+ * The file is parsed with a streaming {@link CsvReader} on a background thread
+ * and handed to the caller row by row through a small bounded queue, so a
+ * slow consumer (such as enrollment) holds back the parser and memory stays
+ * flat regardless of the file size. Quoted fields may contain commas, quotes
+ * and line breaks. Rows that cannot be used are reported with their line
+ * number instead of being dropped silently.
  * </p>
  */
 public class CsvImporter {
 
+    /** The number of fields a student row must have. */
+    public static final int REQUIRED_FIELDS = 8;
+
+    private static final int QUEUE_CAPACITY = 256;
+    private static final int MAX_REPORTED_REJECTS = 1000;
+
+    /**
+     * Receives the accepted rows of an import.
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * Handles one student. An exception rejects the row and the import
+         * continues with the next one.
+         *
+         * @param student the parsed student
+         * @param line    the line the row starts on
+         * @throws Exception if the row cannot be processed
+         */
+        void accept(CsvStudent student, long line) throws Exception;
+    }
+
+    /**
+     * A row that was not imported.
+     *
+     * @param line   the line the row starts on
+     * @param reason why it was rejected
+     */
+    public record Reject(long line, String reason) {
+
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + reason;
+        }
+    }
+
+    /**
+     * The outcome of an import.
+     *
+     * @param accepted    the number of rows handled successfully
+     * @param rejectCount the number of rejected rows
+     * @param rejects     the first 1000 rejected rows
+     */
+    public record ImportReport(int accepted, int rejectCount, List<Reject> rejects) {
+
+        /**
+         * Summarizes the rejects for display.
+         *
+         * @param limit the maximum number of rejects to list
+         * @return one line per reject
+         */
+        public String describeRejects(int limit) {
+            StringBuilder text = new StringBuilder();
+            rejects.stream().limit(limit).forEach(reject -> text.append(reject).append('\n'));
+            if (rejectCount > limit) {
+                text.append("... and ").append(rejectCount - limit).append(" more");
+            }
+            return text.toString().trim();
+        }
+    }
+
+    // Marks the end of the parsed rows
+    private static final CsvReader.Row END = new CsvReader.Row(-1, new String[0], null);
+
     /**
-     * Imports student data from the specified CSV file.
+     * Imports student data from the specified CSV file. Rejected rows are
+     * logged to standard error.
      *
      * @param file the CSV file to read
      * @return a list of {@link CsvStudent} objects parsed from the file
@@ -26,21 +100,106 @@ public class CsvImporter {
      */
     public static List<CsvStudent> importCsv(File file) throws IOException {
         List<CsvStudent> students = new ArrayList<>();
-        List<String> lines = Files.readAllLines(file.toPath());
+        ImportReport report = importCsv(file, (student, line) -> students.add(student));
+        report.rejects().forEach(reject -> System.err.println(file.getName() + ": " + reject));
+        return students;
+    }
 
-        // Skip the header and parse each subsequent line
-        for (int i = 1; i < lines.size(); i++) {
-            String line = lines.get(i);
+    /**
+     * Streams the student rows of a CSV file to a handler. The header line is
+     * skipped, blank lines are ignored, and the handler runs on the calling
+     * thread.
+     *
+     * @param file    the CSV file to read
+     * @param handler receives each valid row
+     * @return the number of imported rows and the rejected rows
+     * @throws IOException if the file cannot be read
+     */
+    public static ImportReport importCsv(File file, RowHandler handler) throws IOException {
+        BlockingQueue<CsvReader.Row> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        Throwable[] readError = new Throwable[1];
 
-            // Use regex to split on commas not inside quotes
-            String[] data = line.split(",(?=([^\"]*\"[^\"]*\")*[^\"]*$)");
+        CsvReader reader = new CsvReader(new InputStreamReader(Files.newInputStream(file.toPath()),
+                StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE)));
+        Thread parser = new Thread(() -> {
+            try (reader) {
+                reader.readRow(); // Header
+                for (CsvReader.Row row = reader.readRow(); row != null; row = reader.readRow()) {
+                    if (!row.isBlank()) {
+                        queue.put(row);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException | Error e) {
+                readError[0] = e;
+            } finally {
+                // Always release the consumer, whatever stopped the parser
+                try {
+                    queue.put(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "csv-import-parser");
+        parser.setDaemon(true);
+        parser.start();
 
-            // Ensure the line contains at least 8 fields
-            if (data.length >= 8) {
-                students.add(new CsvStudent(data));
+        int accepted = 0;
+        int rejectCount = 0;
+        List<Reject> rejects = new ArrayList<>();
+        try {
+            for (CsvReader.Row row = queue.take(); row != END; row = queue.take()) {
+                String reason = validate(row);
+                if (reason == null) {
+                    try {
+                        handler.accept(new CsvStudent(row.fields()), row.line());
+                        accepted++;
+                        continue;
+                    } catch (Exception e) {
+                        reason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                    }
+                }
+                rejectCount++;
+                if (rejects.size() < MAX_REPORTED_REJECTS) {
+                    rejects.add(new Reject(row.line(), reason));
+                }
             }
+        } catch (InterruptedException e) {
+            parser.interrupt();
+            Thread.currentThread().interrupt();
+            throw new IOException("CSV import interrupted", e);
         }
 
-        return students;
+        Throwable error = readError[0];
+        if (error instanceof IOException e) {
+            throw e;
+        } else if (error instanceof RuntimeException e) {
+            throw e;
+        } else if (error instanceof Error e) {
+            throw e;
+        }
+        return new ImportReport(accepted, rejectCount, Collections.unmodifiableList(rejects));
+    }
+
+    /**
+     * Checks that a row can be turned into a {@link CsvStudent}.
+     *
+     * @return the reason the row is rejected, or null if it is valid
+     */
+    private static String validate(CsvReader.Row row) {
+        if (row.isMalformed()) {
+            return row.error();
+        }
+        String[] fields = row.fields();
+        if (fields.length < REQUIRED_FIELDS) {
+            return "expected " + REQUIRED_FIELDS + " fields but found " + fields.length;
+        }
+        if (fields[2].isBlank() || fields[4].isBlank()) {
+            return "missing first or last name";
+        }
+        return null;
     }
 }
@@ -0,0 +1,288 @@
+package sms.admin.util.enrollment;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A streaming RFC 4180 style CSV reader.
+ *
+ * <p>
+ * Records are read one at a time with a single-pass state machine, so memory
+ * use depends on the longest record rather than the size of the file. Fields
+ * may be quoted; quoted fields may contain commas, doubled quotes ({@code ""})
+ * and line breaks. LF, CRLF and CR line endings are accepted.
+ * </p>
+ *
+ * <p>
+ * A record that cannot be parsed (an unterminated quote, text after a closing
+ * quote, or a record longer than {@link #MAX_RECORD_LENGTH}) is still returned,
+ * with an error message, and reading continues with the next line. A quoted
+ * field still open at the end of the input or at the length limit costs only
+ * the line it starts on: reading resumes at the first line break after the
+ * start of the record.
+ * </p>
+ */
+public class CsvReader implements Closeable {
+
+    /** The longest record accepted, in characters. */
+    public static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private static final int EOF = -1;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * One record of the file.
+     *
+     * @param line   the line number the record starts on (1-based)
+     * @param fields the fields, unquoted
+     * @param error  why the record is malformed, or null
+     */
+    public record Row(long line, String[] fields, String error) {
+
+        public boolean isMalformed() {
+            return error != null;
+        }
+
+        /**
+         * Returns true for a line with nothing on it.
+         */
+        public boolean isBlank() {
+            return fields.length == 1 && fields[0].isEmpty() && error == null;
+        }
+    }
+
+    private enum State {
+        FIELD_START, UNQUOTED, QUOTED, QUOTE_IN_QUOTED
+    }
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long line = 1;
+    private boolean firstRead = true;
+
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> fields = new ArrayList<>();
+    /** The characters of the current record, kept to resume after a runaway quote. */
+    private final StringBuilder raw = new StringBuilder();
+    /** Characters to read again before the buffer, or null. */
+    private String pushback;
+    private int pushbackPosition;
+
+    /**
+     * Creates a reader. The reader is not buffered again; pass the raw reader.
+     *
+     * @param reader the source
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the record, or null at the end of the input
+     * @throws IOException if reading fails
+     */
+    public Row readRow() throws IOException {
+        int c = read();
+        if (c == EOF) {
+            return null;
+        }
+        long startLine = line;
+        fields.clear();
+        field.setLength(0);
+        raw.setLength(0);
+        State state = State.FIELD_START;
+        String error = null;
+        int length = 0;
+
+        while (true) {
+            if (++length > MAX_RECORD_LENGTH && error == null) {
+                error = "record is longer than " + MAX_RECORD_LENGTH + " characters";
+                if (state == State.QUOTED && resumeAfterFirstLineBreak(c, startLine)) {
+                    break;
+                }
+                state = State.UNQUOTED; // Drop the rest of the line
+            }
+            if (c == EOF) {
+                if (state == State.QUOTED && error == null) {
+                    error = "unterminated quoted field";
+                    resumeAfterFirstLineBreak(c, startLine);
+                }
+                break;
+            }
+            if (length <= MAX_RECORD_LENGTH) {
+                raw.append((char) c);
+            }
+            if (error != null && state != State.QUOTED) {
+                // Skip to the end of the malformed line
+                if (c == '\n' || c == '\r') {
+                    endLine(c);
+                    break;
+                }
+                c = read();
+                continue;
+            }
+
+            switch (state) {
+                case FIELD_START, UNQUOTED -> {
+                    if (c == '"' && state == State.FIELD_START) {
+                        state = State.QUOTED;
+                    } else if (c == ',') {
+                        endField();
+                        state = State.FIELD_START;
+                    } else if (c == '\n' || c == '\r') {
+                        endLine(c);
+                        endField();
+                        return new Row(startLine, fields.toArray(new String[0]), null);
+                    } else {
+                        field.append((char) c);
+                        state = State.UNQUOTED;
+                    }
+                }
+                case QUOTED -> {
+                    if (c == '"') {
+                        state = State.QUOTE_IN_QUOTED;
+                    } else {
+                        if (c == '\n' || (c == '\r' && peek() != '\n')) {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                }
+                case QUOTE_IN_QUOTED -> {
+                    if (c == '"') {
+                        field.append('"');
+                        state = State.QUOTED;
+                    } else if (c == ',') {
+                        endField();
+                        state = State.FIELD_START;
+                    } else if (c == '\n' || c == '\r') {
+                        endLine(c);
+                        endField();
+                        return new Row(startLine, fields.toArray(new String[0]), null);
+                    } else {
+                        error = "unexpected character after closing quote";
+                        state = State.UNQUOTED;
+                        continue; // Re-examine c in skip mode
+                    }
+                }
+            }
+            c = read();
+        }
+
+        endField();
+        return new Row(startLine, fields.toArray(new String[0]), error);
+    }
+
+    /**
+     * Returns the line the next record starts on.
+     */
+    public long getLineNumber() {
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void endField() {
+        fields.add(field.toString());
+        field.setLength(0);
+    }
+
+    private void endLine(int c) throws IOException {
+        if (c == '\r' && peek() == '\n') {
+            read();
+        }
+        line++;
+    }
+
+    /**
+     * Arranges for the characters after the first line break of the current
+     * record to be read again, so that the next record starts on the second
+     * line of this one.
+     *
+     * @param c         the character read but not yet used, or {@link #EOF}
+     * @param startLine the line the record starts on
+     * @return false if the record has no line break to resume after
+     */
+    private boolean resumeAfterFirstLineBreak(int c, long startLine) {
+        int end = raw.length();
+        int lineBreak = 0;
+        while (lineBreak < end && raw.charAt(lineBreak) != '\n' && raw.charAt(lineBreak) != '\r') {
+            lineBreak++;
+        }
+        if (lineBreak == end) {
+            return false;
+        }
+        int resume = lineBreak + 1;
+        boolean dropNext = false;
+        if (raw.charAt(lineBreak) == '\r') {
+            if (resume < end && raw.charAt(resume) == '\n') {
+                resume++;
+            } else if (resume == end && c == '\n') {
+                dropNext = true; // The LF of a CRLF split from its CR
+            }
+        }
+
+        StringBuilder rest = new StringBuilder(end - resume + 1);
+        rest.append(raw, resume, end);
+        if (c != EOF && !dropNext) {
+            rest.append((char) c);
+        }
+        if (pushback != null) {
+            rest.append(pushback, pushbackPosition, pushback.length());
+        }
+        pushback = rest.toString();
+        pushbackPosition = 0;
+        line = startLine + 1;
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (pushback != null) {
+            if (pushbackPosition < pushback.length()) {
+                return pushback.charAt(pushbackPosition++);
+            }
+            pushback = null;
+        }
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (pushback != null && pushbackPosition < pushback.length()) {
+            return pushback.charAt(pushbackPosition);
+        }
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        limit = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        if (firstRead) {
+            firstRead = false;
+            if (buffer[0] == '\uFEFF') {
+                position = 1; // Byte order mark written by spreadsheet exports
+                return limit > 1 || fill();
+            }
+        }
+        return true;
+    }
+}
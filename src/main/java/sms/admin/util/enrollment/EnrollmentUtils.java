@@ -1,5 +1,6 @@
 package sms.admin.util.enrollment;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -13,6 +14,7 @@ import dev.finalproject.models.Cluster;
 import dev.finalproject.models.Guardian;
 import dev.finalproject.models.SchoolYear;
 import dev.finalproject.models.Student;
+import sms.admin.util.metrics.PerfMetrics;
 
 public class EnrollmentUtils {
 
@@ -30,6 +32,14 @@ public class EnrollmentUtils {
     private static final Object STUDENT_ID_LOCK = new Object();
     private static int lastGeneratedStudentId = -1;
 
+    /**
+     * The rows written for one enrolled student, with the sanitized status and
+     * date of birth the student was built from.
+     */
+    record Enrollment(Cluster cluster, Student student, Address address, String status,
+            java.sql.Date dateOfBirth) {
+    }
+
     /**
      * Enrolls a student by creating a new cluster (using the provided
      * clusterName if available), inserting the student record, and then
@@ -44,6 +54,59 @@ public class EnrollmentUtils {
             double fare, String street, String barangay, String city, String municipality,
             String postalCode, Guardian guardian, String clusterName, SchoolYear schoolYear) throws Exception {
 
+        // Use provided studentId if valid; otherwise generate one.
+        int studentIdInt;
+        try {
+            studentIdInt = Integer.parseInt(studentId);
+            if (studentIdInt <= 0) { // treat 0 as invalid
+                throw new NumberFormatException();
+            }
+        } catch (Exception e) {
+            studentIdInt = generateNextStudentId();
+        }
+
+        Enrollment enrollment = buildEnrollment(studentIdInt, generateNextClusterId(), generateNextAddressId(),
+                firstName, middleName, lastName, nameExt, email, status, contact, dateOfBirth, fare,
+                street, barangay, city, municipality, postalCode, clusterName, schoolYear);
+        return insert(enrollment);
+    }
+
+    /**
+     * Inserts the rows of one enrollment and adds them to the shared
+     * collections.
+     */
+    private static Student insert(Enrollment enrollment) throws Exception {
+        // 1. Insert cluster.
+        try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "ClusterDAO.insert")) {
+            ClusterDAO.insert(enrollment.cluster());
+        }
+        DataManager.getInstance().getCollectionsRegistry().getList("CLUSTER").add(enrollment.cluster());
+
+        // 2. Insert student.
+        try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "StudentDAO.insert")) {
+            StudentDAO.insert(enrollment.student());
+        }
+        DataManager.getInstance().getCollectionsRegistry().getList("STUDENT").add(enrollment.student());
+
+        // 3. Insert address.
+        try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "AddressDAO.insert")) {
+            AddressDAO.insert(enrollment.address());
+        }
+        DataManager.getInstance().getCollectionsRegistry().getList("ADDRESS").add(enrollment.address());
+
+        return enrollment.student();
+    }
+
+    /**
+     * Builds the cluster, student and address of an enrollment with the given
+     * IDs, truncating and sanitizing the fields to the database column sizes.
+     */
+    static Enrollment buildEnrollment(int studentId, int clusterId, int addressId,
+            String firstName, String middleName, String lastName, String nameExt,
+            String email, String status, String contact, Date dateOfBirth,
+            double fare, String street, String barangay, String city, String municipality,
+            String postalCode, String clusterName, SchoolYear schoolYear) {
+
         // Use values as-is, handle null values
         firstName = firstName == null ? "" : firstName;
         middleName = middleName == null ? "" : middleName;
@@ -59,17 +122,6 @@ public class EnrollmentUtils {
         postalCode = postalCode == null ? "0" : postalCode;
         clusterName = clusterName == null ? "" : clusterName;
 
-        // Use provided studentId if valid; otherwise generate one.
-        int studentIdInt;
-        try {
-            studentIdInt = Integer.parseInt(studentId);
-            if (studentIdInt <= 0) { // treat 0 as invalid
-                throw new NumberFormatException();
-            }
-        } catch (Exception e) {
-            studentIdInt = generateNextStudentId();
-        }
-
         // Truncate and sanitize fields.
         firstName = truncateString(firstName, MAX_NAME_LENGTH);
         middleName = truncateString(middleName, MAX_NAME_LENGTH);
@@ -86,26 +138,16 @@ public class EnrollmentUtils {
 
         java.sql.Date sqlDate = new java.sql.Date(dateOfBirth.getTime());
 
-        // 1. Create and insert cluster.
-        int clusterId = generateNextClusterId();
-        String clusterLabel = (clusterName != null && !clusterName.isEmpty()) ? clusterName : "Default";
+        String clusterLabel = !clusterName.isEmpty() ? clusterName : "Default";
         Cluster cluster = new Cluster(clusterId, clusterLabel);
-        ClusterDAO.insert(cluster);
-        DataManager.getInstance().getCollectionsRegistry().getList("CLUSTER").add(cluster);
 
-        // 2. Create and insert student.
         Student student = new Student(
-                studentIdInt,
+                studentId,
                 firstName, middleName, lastName, nameExt,
                 email, status, contact, sqlDate, fare,
                 cluster,
                 schoolYear, 0, null);
 
-        StudentDAO.insert(student);
-        DataManager.getInstance().getCollectionsRegistry().getList("STUDENT").add(student);
-
-        // 3. Create and insert address.
-        int addressId = generateNextAddressId();
         Address address = new Address(
                 student,
                 addressId,
@@ -114,10 +156,8 @@ public class EnrollmentUtils {
                 street,
                 barangay,
                 Integer.parseInt(postalCode));
-        AddressDAO.insert(address);
-        DataManager.getInstance().getCollectionsRegistry().getList("ADDRESS").add(address);
 
-        return student;
+        return new Enrollment(cluster, student, address, status, sqlDate);
     }
 
     /**
@@ -141,11 +181,15 @@ public class EnrollmentUtils {
      * enrollment parameters.
      */
     public static Student enrollStudentFromCsv(CsvStudent csvStudent, SchoolYear schoolYear) throws Exception {
-        int studentId;
-        synchronized (STUDENT_ID_LOCK) {
-            studentId = generateNextStudentId();
-        }
+        return insert(buildCsvEnrollment(csvStudent, schoolYear,
+                generateNextStudentId(), generateNextClusterId(), generateNextAddressId()));
+    }
 
+    /**
+     * Maps a CSV row to the rows of an enrollment with the given IDs.
+     */
+    static Enrollment buildCsvEnrollment(CsvStudent csvStudent, SchoolYear schoolYear,
+            int studentId, int clusterId, int addressId) {
         // Clean CSV data - convert empty/whitespace strings to null
         String firstName = cleanCsvField(csvStudent.getFirstName());
         String middleName = cleanCsvField(csvStudent.getMiddleName());
@@ -158,13 +202,12 @@ public class EnrollmentUtils {
         // Parse address components from CSV with null handling
         String[] addressParts = parseAddress(cleanCsvField(csvStudent.getAddress()), csvStudent);
 
-        return enrollStudent(
-                String.valueOf(studentId),
+        return buildEnrollment(studentId, clusterId, addressId,
                 firstName, middleName, lastName, nameExt,
                 email, "Active", contact, new Date(),
                 0.0,
                 addressParts[0], addressParts[1], addressParts[2], addressParts[3],
-                "0", null, cluster, schoolYear);
+                "0", cluster, schoolYear);
     }
 
     private static String cleanCsvField(String field) {
@@ -175,20 +218,18 @@ public class EnrollmentUtils {
     }
 
     /**
-     * Helper method to enroll multiple students from CSV data.
+     * Helper method to enroll multiple students from CSV data. The students
+     * are written in one transaction; if it fails, none are enrolled.
      */
     public static List<Student> enrollStudentsFromCsv(List<CsvStudent> csvStudents, SchoolYear schoolYear) {
-        List<Student> enrolledStudents = new ArrayList<>();
-        for (CsvStudent csvStudent : csvStudents) {
-            try {
-                Student student = enrollStudentFromCsv(csvStudent, schoolYear);
-                enrolledStudents.add(student);
-            } catch (Exception e) {
-                System.err.println("Failed to enroll student with email " + csvStudent.getEmail()
-                        + ": " + e.getMessage());
-            }
+        BulkEnrollmentEngine engine = new BulkEnrollmentEngine(schoolYear);
+        csvStudents.forEach(engine::add);
+        try {
+            return engine.commit();
+        } catch (SQLException e) {
+            System.err.println("Failed to enroll " + csvStudents.size() + " students: " + e.getMessage());
+            return new ArrayList<>();
         }
-        return enrolledStudents;
     }
 
     /**
@@ -337,6 +378,18 @@ public class EnrollmentUtils {
         return truncateString(field, maxLength);
     }
 
+    /**
+     * Records that student IDs up to {@code lastUsedId} have been taken by a
+     * bulk enrollment, so the next generated ID does not collide with them.
+     */
+    static void reserveStudentIdsThrough(int lastUsedId) {
+        synchronized (STUDENT_ID_LOCK) {
+            if (lastGeneratedStudentId != -1) {
+                lastGeneratedStudentId = Math.max(lastGeneratedStudentId, lastUsedId);
+            }
+        }
+    }
+
     // Manual ID generation methods
     private static int generateNextStudentId() {
         synchronized (STUDENT_ID_LOCK) {
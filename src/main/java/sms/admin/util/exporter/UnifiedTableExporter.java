@@ -27,6 +27,7 @@ import javafx.scene.control.TableColumn;
 import javafx.beans.value.ObservableValue;
 import javafx.util.Callback;
 import javafx.scene.control.TableCell;
+import sms.admin.util.metrics.PerfMetrics;
 
 public class UnifiedTableExporter<T> {
 
@@ -74,7 +75,8 @@ public class UnifiedTableExporter<T> {
      * @throws IOException if an I/O error occurs during writing
      */
     public void exportToExcel(TableView<T> table, String title, String outputPath) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook()) {
+        try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.EXPORT, "UnifiedTableExporter.xlsx");
+                Workbook workbook = new XSSFWorkbook()) {
             Sheet sheet = workbook.createSheet(title);
             initializeStyles(workbook);
             writeExcelContent(sheet, table, title);
@@ -94,7 +96,8 @@ public class UnifiedTableExporter<T> {
      * @throws IOException if an I/O error occurs during writing
      */
     public void exportToPdf(TableView<T> table, String title, String outputPath) throws IOException {
-        try (PdfWriter writer = new PdfWriter(outputPath);
+        try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.EXPORT, "UnifiedTableExporter.pdf");
+                PdfWriter writer = new PdfWriter(outputPath);
                 PdfDocument pdf = new PdfDocument(writer);
                 Document document = new Document(pdf)) {
 
@@ -111,8 +114,9 @@ public class UnifiedTableExporter<T> {
      * @throws IOException if an I/O error occurs during writing
      */
     public void exportToCsv(TableView<T> table, String title, String outputPath) throws IOException {
-        try (OutputStreamWriter writer = new OutputStreamWriter(
-                new FileOutputStream(outputPath), StandardCharsets.UTF_8)) {
+        try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.EXPORT, "UnifiedTableExporter.csv");
+                OutputStreamWriter writer = new OutputStreamWriter(
+                        new FileOutputStream(outputPath), StandardCharsets.UTF_8)) {
             writeCsvContent(writer, table, title);
         }
     }
@@ -4,7 +4,9 @@ import java.io.FileOutputStream;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.apache.poi.ss.usermodel.BorderStyle;
@@ -19,6 +21,7 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.VerticalAlignment;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFRichTextString;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
@@ -26,7 +29,10 @@ import dev.finalproject.models.AttendanceLog;
 import dev.finalproject.models.Student;
 import javafx.collections.ObservableList;
 import javafx.scene.control.TableView;
+import sms.admin.util.attendance.AttendanceIndex;
+import sms.admin.util.attendance.AttendanceMatrix;
 import sms.admin.util.attendance.CommonAttendanceUtil;
+import sms.admin.util.metrics.PerfMetrics;
 
 /**
  * Exports detailed payroll data to an Excel file.
@@ -35,11 +41,14 @@ public class DetailedPayrollExporter {
 
     // Constants
     private static final double MAX_TOTAL_AMOUNT = 1300.00;
+    private static final int DEFAULT_ROW_WINDOW = 100;
 
     // Instance variables
     private final YearMonth month;
-    private final ObservableList<AttendanceLog> attendanceLogs;
+    private final AttendanceIndex attendanceIndex;
     private double fareMultiplier = 1.0;
+    private boolean streaming = true;
+    private int rowWindowSize = DEFAULT_ROW_WINDOW;
     private int totalDaysColumn;
     private int totalAmountColumn;
 
@@ -52,7 +61,7 @@ public class DetailedPayrollExporter {
      */
     public DetailedPayrollExporter(YearMonth month, YearMonth endMonth, ObservableList<AttendanceLog> logs) {
         this.month = month;
-        this.attendanceLogs = logs;
+        this.attendanceIndex = AttendanceIndex.forLogs(logs);
     }
 
     /**
@@ -64,6 +73,31 @@ public class DetailedPayrollExporter {
         this.fareMultiplier = multiplier;
     }
 
+    /**
+     * Enables or disables streaming export. When enabled (the default) the
+     * workbook is written through POI's SXSSF, which keeps only a bounded window
+     * of rows in memory and flushes the rest to a temporary file. The shared
+     * strings table still stays in memory, so heap use grows with the number of
+     * distinct cell texts (one name per student, a few status marks), not with
+     * the number of rows times days.
+     *
+     * @param streaming True to stream rows, false to build the whole workbook in
+     *                  memory.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Sets the number of rows kept in memory while streaming.
+     *
+     * @param rowWindowSize The row window size; must be large enough to cover
+     *                      the header rows (at least 10).
+     */
+    public void setRowWindowSize(int rowWindowSize) {
+        this.rowWindowSize = Math.max(10, rowWindowSize);
+    }
+
     private CellStyle createSubtotalLabelStyle(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         Font font = workbook.createFont();
@@ -76,8 +110,34 @@ public class DetailedPayrollExporter {
         return style;
     }
 
+    /**
+     * Exports the payroll for the students shown in a table.
+     *
+     * @param table      The table whose items are exported.
+     * @param title      The sheet title.
+     * @param outputPath The file to write.
+     * @throws Exception If the workbook cannot be written.
+     */
     public void exportToExcel(TableView<Student> table, String title, String outputPath) throws Exception {
-        try (Workbook workbook = new XSSFWorkbook()) {
+        exportToExcel(table.getItems(), title, outputPath);
+    }
+
+    /**
+     * Exports the payroll for a list of students.
+     *
+     * @param students   The students to export, in row order.
+     * @param title      The sheet title.
+     * @param outputPath The file to write.
+     * @throws Exception If the workbook cannot be written.
+     */
+    public void exportToExcel(List<Student> students, String title, String outputPath) throws Exception {
+        Workbook workbook = streaming
+                // Inline strings would drop the underlining of the rich-text period
+                // line, so keep the shared strings table; it holds each distinct text once
+                ? new SXSSFWorkbook(new XSSFWorkbook(), rowWindowSize, true, true)
+                : new XSSFWorkbook();
+        try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.EXPORT, "DetailedPayrollExporter.xlsx");
+                workbook) {
             Sheet sheet = workbook.createSheet(title);
 
             // Create cell styles
@@ -214,14 +274,19 @@ public class DetailedPayrollExporter {
             // Create table headers with new label column
             createTableHeaders(sheet, 3, headerStyle, centerStyle, weeks, labelCol, timeRollStartCol);
 
+            // Resolve every student's statuses for the month up front
+            List<LocalDate> workingDays = weeks.stream().flatMap(List::stream).collect(Collectors.toList());
+            AttendanceMatrix matrix = AttendanceMatrix.build(students, workingDays, attendanceIndex);
+
             // Write student data rows
             int rowNum = 7;
             double grandTotal = 0;
             int noCounter = 1;
-            for (Student student : table.getItems()) {
+            for (int i = 0; i < students.size(); i++) {
                 Row row = sheet.createRow(rowNum++);
                 row.setHeight((short) (25 * 20));
-                grandTotal += writeStudentRow(row, student, weeks, dataStyle, currencyStyle,
+                grandTotal += writeStudentRow(row, students.get(i), payrollStatuses(matrix, students.get(i), workingDays),
+                        dataStyle, currencyStyle,
                         centerStyle, noCounter++, timeRollStartCol,
                         totalDaysCol, totalAmountCol);
             }
@@ -246,9 +311,33 @@ public class DetailedPayrollExporter {
             try (FileOutputStream fileOut = new FileOutputStream(outputPath)) {
                 workbook.write(fileOut);
             }
+        } finally {
+            if (workbook instanceof SXSSFWorkbook streamingWorkbook) {
+                streamingWorkbook.dispose(); // Delete the temporary row files
+            }
         }
     }
 
+    /**
+     * Reads one student's payroll statuses for the working days from the
+     * attendance matrix. Half days are paid as absences.
+     *
+     * @param matrix      The month's attendance matrix.
+     * @param student     The student.
+     * @param workingDays The working days of the month, in column order.
+     * @return The status marks, one per working day.
+     */
+    private String[] payrollStatuses(AttendanceMatrix matrix, Student student, List<LocalDate> workingDays) {
+        String[] statuses = new String[workingDays.size()];
+        for (int d = 0; d < statuses.length; d++) {
+            byte code = matrix.get(student.getStudentID(), workingDays.get(d));
+            statuses[d] = code == AttendanceMatrix.HALF_DAY
+                    ? CommonAttendanceUtil.ABSENT_MARK
+                    : AttendanceMatrix.markOf(code);
+        }
+        return statuses;
+    }
+
     /**
      * Retrieves work weeks for the specified month, excluding weekends.
      *
@@ -273,31 +362,6 @@ public class DetailedPayrollExporter {
         return weeks;
     }
 
-    /**
-     * Determines the attendance status for a student on a specific date.
-     *
-     * @param student The student.
-     * @param date    The date to check.
-     * @return The attendance status (e.g., "P", "A").
-     */
-    private String getAttendanceStatus(Student student, LocalDate date) {
-        return attendanceLogs.stream()
-                .filter(log -> log != null
-                        && log.getStudentID() != null
-                        && log.getStudentID().getStudentID() == student.getStudentID()
-                        && log.getRecordID() != null
-                        && log.getRecordID().getYear() == date.getYear()
-                        && log.getRecordID().getMonth() == date.getMonthValue()
-                        && log.getRecordID().getDay() == date.getDayOfMonth())
-                .map(log -> {
-                    String status = CommonAttendanceUtil.computeAttendanceStatus(log);
-                    return status.equals(CommonAttendanceUtil.HALF_DAY_MARK) ? CommonAttendanceUtil.ABSENT_MARK
-                            : status;
-                })
-                .findFirst().orElse(CommonAttendanceUtil.ABSENT_MARK);
-
-    }
-
     /**
      * Calculates the total number of days a student was present or had excused
      * absences.
@@ -309,15 +373,11 @@ public class DetailedPayrollExporter {
     public double calculateStudentDays(Student student, YearMonth month) {
         try {
             double totalDays = 0;
-            List<AttendanceLog> studentLogs = attendanceLogs.stream()
-                    .filter(log -> log != null
-                            && log.getStudentID() != null
-                            && log.getStudentID().getStudentID() == student.getStudentID()
-                            && log.getRecordID() != null
-                            && YearMonth.of(log.getRecordID().getYear(), log.getRecordID().getMonth()).equals(month)
-                            && !CommonAttendanceUtil.isWeekend(LocalDate.of(
-                                    log.getRecordID().getYear(), log.getRecordID().getMonth(),
-                                    log.getRecordID().getDay())))
+            Collection<AttendanceLog> studentLogs = attendanceIndex
+                    .findMonth(student.getStudentID(), month)
+                    .entrySet().stream()
+                    .filter(entry -> !CommonAttendanceUtil.isWeekend(entry.getKey()))
+                    .map(Map.Entry::getValue)
                     .collect(Collectors.toList());
 
             for (AttendanceLog log : studentLogs) {
@@ -617,14 +677,14 @@ public class DetailedPayrollExporter {
      *
      * @param row           The row to write to.
      * @param student       The student data.
-     * @param weeks         List of work weeks.
+     * @param statuses      The student's status marks for each working day.
      * @param dataStyle     Style for data cells.
      * @param currencyStyle Style for currency cells.
      * @param centerStyle   Style for centered text.
      * @param no            Student number.
      * @return The total amount for the student.
      */
-    private double writeStudentRow(Row row, Student student, List<List<LocalDate>> weeks,
+    private double writeStudentRow(Row row, Student student, String[] statuses,
             CellStyle dataStyle, CellStyle currencyStyle, CellStyle centerStyle, int no,
             int timeRollStartCol, int totalDaysCol, int totalAmountCol) {
         int colNum = 0;
@@ -641,17 +701,14 @@ public class DetailedPayrollExporter {
         // Skip label column
         colNum = timeRollStartCol;
         double totalDays = 0;
-        for (List<LocalDate> week : weeks) {
-            for (LocalDate date : week) {
-                Cell attendanceCell = row.createCell(colNum++);
-                String status = getAttendanceStatus(student, date);
-                // Set cell value as blank if it's a holiday
-                attendanceCell.setCellValue(status.equals(CommonAttendanceUtil.HOLIDAY_MARK) ? "" : status);
-                attendanceCell.setCellStyle(centerStyle);
-                switch (status) {
-                    case CommonAttendanceUtil.PRESENT_MARK, CommonAttendanceUtil.EXCUSED_MARK ->
-                        totalDays++;
-                }
+        for (String status : statuses) {
+            Cell attendanceCell = row.createCell(colNum++);
+            // Set cell value as blank if it's a holiday
+            attendanceCell.setCellValue(status.equals(CommonAttendanceUtil.HOLIDAY_MARK) ? "" : status);
+            attendanceCell.setCellStyle(centerStyle);
+            switch (status) {
+                case CommonAttendanceUtil.PRESENT_MARK, CommonAttendanceUtil.EXCUSED_MARK ->
+                    totalDays++;
             }
         }
 
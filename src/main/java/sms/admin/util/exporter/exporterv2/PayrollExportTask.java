@@ -0,0 +1,196 @@
+package sms.admin.util.exporter.exporterv2;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dev.finalproject.models.AttendanceLog;
+import dev.finalproject.models.Student;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import sms.admin.util.attendance.AttendanceIndex;
+
+/**
+ * Background task that exports one detailed payroll workbook per month in a
+ * range, rendering the months in parallel on a bounded pool.
+ *
+ * <p>
+ * The students and attendance logs are copied once when the task is created
+ * (on the JavaFX thread), so every month works from the same consistent
+ * snapshot while the UI keeps running. Each workbook is written to a temporary
+ * file and moved into place only when complete; cancelling the task stops the
+ * remaining months and deletes any partial output.
+ * </p>
+ */
+public class PayrollExportTask extends Task<List<File>> {
+
+    private static final DateTimeFormatter FILE_MONTH_FORMAT = DateTimeFormatter.ofPattern("MMM_yyyy");
+    private static final DateTimeFormatter TITLE_MONTH_FORMAT = DateTimeFormatter.ofPattern("MMMM yyyy");
+
+    private final List<Student> students;
+    private final ObservableList<AttendanceLog> logs;
+    private final List<YearMonth> months = new ArrayList<>();
+    private final double fareMultiplier;
+    private final File outputDir;
+    private final String type;
+    private final ObservableList<String> monthStatus = FXCollections.observableArrayList();
+
+    /**
+     * Creates the export task and snapshots the data it needs.
+     *
+     * @param students       the students to export, in row order
+     * @param logs           the attendance logs
+     * @param startMonth     the first month to export
+     * @param endMonth       the last month to export
+     * @param fareMultiplier the fare multiplier (1, 2 or 4)
+     * @param outputDir      the directory to write the workbooks to
+     * @param type           the file extension (e.g. "xlsx")
+     */
+    public PayrollExportTask(List<Student> students, List<AttendanceLog> logs, YearMonth startMonth,
+            YearMonth endMonth, double fareMultiplier, File outputDir, String type) {
+        this.students = List.copyOf(students);
+        this.logs = FXCollections.observableArrayList(logs);
+        this.fareMultiplier = fareMultiplier;
+        this.outputDir = outputDir;
+        this.type = type;
+        for (YearMonth month = startMonth; !month.isAfter(endMonth); month = month.plusMonths(1)) {
+            months.add(month);
+            monthStatus.add(month.format(TITLE_MONTH_FORMAT) + " - waiting");
+        }
+        updateMessage("Preparing " + months.size() + " month(s)...");
+    }
+
+    /**
+     * Returns one status line per month, updated on the JavaFX thread as the
+     * export progresses.
+     *
+     * @return the per-month status lines
+     */
+    public ObservableList<String> getMonthStatus() {
+        return monthStatus;
+    }
+
+    @Override
+    protected List<File> call() throws Exception {
+        int total = months.size();
+        updateProgress(0, total);
+        if (total == 0) {
+            return List.of();
+        }
+
+        // Build the shared index over the snapshot once, before the workers start
+        AttendanceIndex.forLogs(logs);
+
+        int threads = Math.max(1, Math.min(total, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "payroll-export-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        AtomicInteger completed = new AtomicInteger();
+        List<Future<File>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < total; i++) {
+                int position = i;
+                futures.add(executor.submit(() -> {
+                    File file = exportMonth(position);
+                    int done = completed.incrementAndGet();
+                    updateProgress(done, total);
+                    updateMessage(String.format("Exported %d of %d month(s)", done, total));
+                    return file;
+                }));
+            }
+            executor.shutdown();
+
+            List<File> files = new ArrayList<>();
+            for (Future<File> future : futures) {
+                try {
+                    File file = future.get();
+                    if (file != null) {
+                        files.add(file);
+                    }
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+            }
+            return files;
+        } catch (InterruptedException | CancellationException e) {
+            if (isCancelled()) {
+                return List.of();
+            }
+            throw e;
+        } finally {
+            // Stop remaining months after a failure or cancellation
+            futures.forEach(future -> future.cancel(true));
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    protected void cancelled() {
+        updateMessage("Export cancelled");
+    }
+
+    /**
+     * Renders and writes a single month's workbook.
+     */
+    private File exportMonth(int position) throws Exception {
+        YearMonth month = months.get(position);
+        if (isCancelled()) {
+            setMonthStatus(position, "cancelled");
+            return null;
+        }
+        setMonthStatus(position, "exporting...");
+
+        String fileName = String.format("payroll_%s.%s", month.format(FILE_MONTH_FORMAT).toLowerCase(), type);
+        File file = new File(outputDir, fileName);
+        File partial = new File(outputDir, fileName + ".part");
+        String title = String.format("Payroll Report - %s", month.format(TITLE_MONTH_FORMAT));
+
+        try {
+            DetailedPayrollExporter exporter = new DetailedPayrollExporter(month, month, logs);
+            exporter.setFareMultiplier(fareMultiplier);
+            exporter.exportToExcel(students, title, partial.getAbsolutePath());
+            if (isCancelled()) {
+                setMonthStatus(position, "cancelled");
+                return null;
+            }
+            Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            setMonthStatus(position, "done");
+            return file;
+        } catch (Exception e) {
+            setMonthStatus(position, isCancelled() ? "cancelled" : "failed: " + e.getMessage());
+            throw e;
+        } finally {
+            deleteQuietly(partial);
+        }
+    }
+
+    private void setMonthStatus(int position, String status) {
+        String line = months.get(position).format(TITLE_MONTH_FORMAT) + " - " + status;
+        Platform.runLater(() -> monthStatus.set(position, line));
+    }
+
+    private static void deleteQuietly(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            System.err.println("Could not delete partial export " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package sms.admin.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of operation latencies.
+ *
+ * <p>
+ * Latencies are recorded in microseconds into log-linear buckets: every power
+ * of two is split into four buckets, so a percentile read from the histogram is
+ * within 25% of the true value while the whole range from 1 microsecond to
+ * days fits in a fixed array. Recording is a few atomic adds and may happen on
+ * any thread.
+ * </p>
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 62 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records one operation.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        counts.incrementAndGet(bucket(micros));
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * Returns a consistent-enough copy of the current counts.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, count.get(), totalMicros.get(), maxMicros.get());
+    }
+
+    /**
+     * Clears the histogram.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        totalMicros.set(0);
+        maxMicros.set(0);
+    }
+
+    /**
+     * The recorded latencies at one point in time.
+     *
+     * @param counts      the count of each bucket
+     * @param count       the number of operations
+     * @param totalMicros the sum of all latencies in microseconds
+     * @param maxMicros   the longest latency in microseconds
+     */
+    public record Snapshot(long[] counts, long count, long totalMicros, long maxMicros) {
+
+        /**
+         * Returns the operations recorded since an earlier snapshot of the same
+         * histogram. The maximum cannot be subtracted and is kept as is.
+         *
+         * @param earlier the earlier snapshot
+         * @return the difference
+         */
+        public Snapshot since(Snapshot earlier) {
+            long[] delta = new long[counts.length];
+            for (int i = 0; i < delta.length; i++) {
+                delta[i] = Math.max(0, counts[i] - earlier.counts[i]);
+            }
+            return new Snapshot(delta, Math.max(0, count - earlier.count),
+                    Math.max(0, totalMicros - earlier.totalMicros), maxMicros);
+        }
+
+        /**
+         * Returns the mean latency.
+         *
+         * @return the mean in milliseconds, or 0 if nothing was recorded
+         */
+        public double meanMillis() {
+            return count == 0 ? 0 : totalMicros / 1_000.0 / count;
+        }
+
+        /**
+         * Returns the longest latency.
+         *
+         * @return the maximum in milliseconds
+         */
+        public double maxMillis() {
+            return maxMicros / 1_000.0;
+        }
+
+        /**
+         * Returns an upper bound of the latency below which the given fraction
+         * of operations fall.
+         *
+         * @param quantile the fraction, between 0 and 1
+         * @return the percentile in milliseconds, or 0 if nothing was recorded
+         */
+        public double percentileMillis(double quantile) {
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), maxMicros) / 1_000.0;
+                }
+            }
+            return maxMillis();
+        }
+    }
+
+    /**
+     * Returns the bucket of a latency: values below four have their own
+     * bucket, larger ones are placed by their highest bit and the two bits
+     * after it.
+     */
+    static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+        return Math.min((exponent - 1) * SUB_BUCKETS + sub, BUCKETS - 1);
+    }
+
+    /**
+     * Returns the largest latency that falls in a bucket.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + 1;
+        int sub = bucket % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + sub) << (exponent - 2);
+        return lower + (1L << (exponent - 2)) - 1;
+    }
+}
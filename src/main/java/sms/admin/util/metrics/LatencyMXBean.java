@@ -0,0 +1,37 @@
+package sms.admin.util.metrics;
+
+/**
+ * The JMX view of one instrumented operation, registered by
+ * {@link PerfMetrics} as
+ * {@code sms.admin:type=Latency,category=<category>,name=<name>}.
+ * Latencies are lifetime values since startup or the last {@link #reset()}.
+ */
+public interface LatencyMXBean {
+
+    /** Returns the operation category, e.g. {@code dao} or {@code scene}. */
+    String getCategory();
+
+    /** Returns the operation name, e.g. {@code StudentDAO.update}. */
+    String getName();
+
+    /** Returns the number of completed operations. */
+    long getCount();
+
+    /** Returns the mean latency in milliseconds. */
+    double getMeanMillis();
+
+    /** Returns the median latency in milliseconds. */
+    double getP50Millis();
+
+    /** Returns the 95th percentile latency in milliseconds. */
+    double getP95Millis();
+
+    /** Returns the 99th percentile latency in milliseconds. */
+    double getP99Millis();
+
+    /** Returns the longest latency in milliseconds. */
+    double getMaxMillis();
+
+    /** Clears the recorded latencies. */
+    void reset();
+}
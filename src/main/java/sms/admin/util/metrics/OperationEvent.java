@@ -0,0 +1,28 @@
+package sms.admin.util.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JFR event spanning one instrumented operation. Recorded with
+ * {@code -XX:StartFlightRecording} or {@code jcmd <pid> JFR.start}; events
+ * shorter than the recording's threshold for {@code sms.admin.Operation} are
+ * dropped by JFR.
+ */
+@Name("sms.admin.Operation")
+@Label("SMS Admin Operation")
+@Category("SMS Admin")
+@Description("A database call, data refresh, scene load, export or change poll")
+@StackTrace(false)
+final class OperationEvent extends Event {
+
+    @Label("Category")
+    String category;
+
+    @Label("Name")
+    String name;
+}
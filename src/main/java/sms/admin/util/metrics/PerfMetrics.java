@@ -0,0 +1,291 @@
+package sms.admin.util.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Latency and call counts of the operations that make a screen feel slow:
+ * database calls, data refreshes, scene loads, exports and change-log polls.
+ *
+ * <p>
+ * Code under measurement wraps the operation in a {@link Timer}, or passes it
+ * to {@link #get}:
+ * </p>
+ *
+ * <pre>
+ * try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "StudentDAO.update")) {
+ *     StudentDAO.update(student);
+ * }
+ * List&lt;Student&gt; students = PerfMetrics.get(PerfMetrics.DAO, "StudentDAO.getStudentList",
+ *         StudentDAO::getStudentList);
+ * </pre>
+ *
+ * <p>
+ * Each category and name pair gets a {@link LatencyHistogram}, published as a
+ * {@link LatencyMXBean} on the platform MBean server when first used. Every
+ * operation is also a {@code sms.admin.Operation} JFR event, and while
+ * {@link #start()} is in effect a summary of the operations of the last
+ * interval is written to the application log ({@code logs/app.log}). The
+ * interval defaults to five minutes and is set with
+ * {@code -Dsms.perf.summaryMinutes}; {@code 0} disables the summary.
+ * </p>
+ */
+public final class PerfMetrics {
+
+    /** Database calls through a DAO or JDBC. */
+    public static final String DAO = "dao";
+    /** Reloads of the shared collections. */
+    public static final String REFRESH = "refresh";
+    /** FXML view loads. */
+    public static final String SCENE = "scene";
+    /** Table and payroll exports. */
+    public static final String EXPORT = "export";
+    /** Polls of the database change log. */
+    public static final String CHANGE_POLL = "change-poll";
+
+    private static final Logger LOGGER = LogManager.getLogger("sms.admin.perf");
+
+    private static final Map<String, Metric> METRICS = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram.Snapshot> LAST_SUMMARY = new HashMap<>();
+
+    private static ScheduledExecutorService summaryScheduler;
+
+    private PerfMetrics() {
+    }
+
+    /**
+     * Measures one operation until the timer is closed.
+     *
+     * @param category the category, one of the constants of this class
+     * @param name     the operation, e.g. {@code StudentDAO.update}
+     * @return the running timer
+     */
+    public static Timer time(String category, String name) {
+        return new Timer(metric(category, name));
+    }
+
+    /**
+     * Runs and measures an operation that returns a value.
+     *
+     * @param <T>       the result type
+     * @param category  the category, one of the constants of this class
+     * @param name      the operation, e.g. {@code StudentDAO.getStudentList}
+     * @param operation the operation
+     * @return the result of the operation
+     */
+    public static <T> T get(String category, String name, Supplier<T> operation) {
+        try (Timer timer = time(category, name)) {
+            return operation.get();
+        }
+    }
+
+    /**
+     * Records an operation that was timed elsewhere.
+     *
+     * @param category the category, one of the constants of this class
+     * @param name     the operation
+     * @param nanos    the duration in nanoseconds
+     */
+    public static void record(String category, String name, long nanos) {
+        metric(category, name).histogram.record(nanos);
+    }
+
+    /**
+     * Returns the histogram of an operation, or null if it never ran.
+     *
+     * @param category the category
+     * @param name     the operation
+     * @return the histogram
+     */
+    public static LatencyHistogram histogram(String category, String name) {
+        Metric metric = METRICS.get(category + '/' + name);
+        return metric == null ? null : metric.histogram;
+    }
+
+    /**
+     * Starts writing periodic summaries to the application log. Does nothing
+     * if already started or disabled.
+     */
+    public static synchronized void start() {
+        long minutes = Long.getLong("sms.perf.summaryMinutes", 5L);
+        if (summaryScheduler != null || minutes <= 0) {
+            return;
+        }
+        summaryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "perf-summary");
+            t.setDaemon(true);
+            return t;
+        });
+        summaryScheduler.scheduleWithFixedDelay(PerfMetrics::logSummary, minutes, minutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops the periodic summaries and writes a last one.
+     */
+    public static synchronized void stop() {
+        if (summaryScheduler != null) {
+            summaryScheduler.shutdownNow();
+            summaryScheduler = null;
+            logSummary();
+        }
+    }
+
+    /**
+     * Writes the operations since the previous summary to the application log,
+     * slowest total time first.
+     */
+    static synchronized void logSummary() {
+        List<SummaryLine> lines = new ArrayList<>();
+        for (Map.Entry<String, Metric> entry : METRICS.entrySet()) {
+            LatencyHistogram.Snapshot now = entry.getValue().histogram.snapshot();
+            LatencyHistogram.Snapshot previous = LAST_SUMMARY.put(entry.getKey(), now);
+            LatencyHistogram.Snapshot interval = previous == null || previous.count() > now.count()
+                    ? now
+                    : now.since(previous);
+            if (interval.count() > 0) {
+                lines.add(new SummaryLine(interval.totalMicros(), String.format(
+                        "%-40s n=%-6d mean=%8.1fms p50=%8.1fms p95=%8.1fms p99=%8.1fms max=%8.1fms",
+                        entry.getKey(), interval.count(), interval.meanMillis(),
+                        interval.percentileMillis(0.50), interval.percentileMillis(0.95),
+                        interval.percentileMillis(0.99), interval.maxMillis())));
+            }
+        }
+        if (lines.isEmpty()) {
+            return;
+        }
+        lines.sort(Comparator.comparingLong(SummaryLine::totalMicros).reversed());
+
+        StringBuilder summary = new StringBuilder("Performance summary (max is since startup)");
+        for (SummaryLine line : lines) {
+            summary.append(System.lineSeparator()).append("  ").append(line.text());
+        }
+        LOGGER.info(summary);
+    }
+
+    private record SummaryLine(long totalMicros, String text) {
+    }
+
+    private static Metric metric(String category, String name) {
+        return METRICS.computeIfAbsent(category + '/' + name, key -> {
+            Metric metric = new Metric(category, name);
+            register(metric);
+            return metric;
+        });
+    }
+
+    private static void register(Metric metric) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("sms.admin:type=Latency,category="
+                    + ObjectName.quote(metric.category) + ",name=" + ObjectName.quote(metric.name));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(metric, objectName);
+            }
+        } catch (JMException | RuntimeException e) {
+            LOGGER.warn("Could not register MBean for " + metric.category + '/' + metric.name, e);
+        }
+    }
+
+    /**
+     * A running measurement. Closing it records the elapsed time; closing it
+     * again does nothing.
+     */
+    public static final class Timer implements AutoCloseable {
+        private final Metric metric;
+        private final long start = System.nanoTime();
+        private final OperationEvent event = new OperationEvent();
+        private boolean closed;
+
+        private Timer(Metric metric) {
+            this.metric = metric;
+            event.begin();
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            metric.histogram.record(System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.category = metric.category;
+                event.name = metric.name;
+                event.commit();
+            }
+        }
+    }
+
+    private static final class Metric implements LatencyMXBean {
+        final String category;
+        final String name;
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        Metric(String category, String name) {
+            this.category = category;
+            this.name = name;
+        }
+
+        @Override
+        public String getCategory() {
+            return category;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getCount() {
+            return histogram.snapshot().count();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            return histogram.snapshot().meanMillis();
+        }
+
+        @Override
+        public double getP50Millis() {
+            return histogram.snapshot().percentileMillis(0.50);
+        }
+
+        @Override
+        public double getP95Millis() {
+            return histogram.snapshot().percentileMillis(0.95);
+        }
+
+        @Override
+        public double getP99Millis() {
+            return histogram.snapshot().percentileMillis(0.99);
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return histogram.snapshot().maxMillis();
+        }
+
+        @Override
+        public void reset() {
+            histogram.reset();
+        }
+    }
+}
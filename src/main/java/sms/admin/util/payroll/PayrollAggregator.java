@@ -0,0 +1,197 @@
+package sms.admin.util.payroll;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.finalproject.models.AttendanceLog;
+import dev.finalproject.models.AttendanceRecord;
+import dev.finalproject.models.Student;
+import sms.admin.util.attendance.AttendanceIndex;
+import sms.admin.util.attendance.AttendanceMatrix;
+
+/**
+ * Computes payroll day counts and amounts for every student in a month with a
+ * single pass over the attendance logs, counting from an
+ * {@link AttendanceMatrix} of the month's logs.
+ *
+ * <p>
+ * Results are cached per (month, settings window, half-day weight) and
+ * invalidated automatically when the {@link AttendanceIndex} over the same
+ * logs reports a new version. Day counts do not depend on the fare
+ * multiplier, so switching between one-way, two-way and four-way fares only
+ * changes the final multiplication in {@link MonthTotals#getAmount}.
+ * </p>
+ */
+public final class PayrollAggregator {
+
+    private static final int MAX_CACHED_MONTHS = 24;
+
+    private final List<AttendanceLog> logs;
+    private final AttendanceIndex index;
+    private final Map<Key, MonthTotals> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, MonthTotals> eldest) {
+            return size() > MAX_CACHED_MONTHS;
+        }
+    };
+
+    /**
+     * Creates an aggregator over a list of attendance logs. Keep the instance
+     * for as long as the list is in use so that its results stay cached.
+     *
+     * @param logs the attendance logs to aggregate
+     */
+    public PayrollAggregator(List<AttendanceLog> logs) {
+        this.logs = logs;
+        this.index = AttendanceIndex.forLogs(logs);
+    }
+
+    /**
+     * Returns the totals for a whole month, counting half days as zero — the
+     * same rules used by the detailed payroll export.
+     *
+     * @param month the payroll month
+     * @return the month totals
+     */
+    public MonthTotals getMonthTotals(YearMonth month) {
+        return getMonthTotals(month, 1, month.lengthOfMonth(), 0.0);
+    }
+
+    /**
+     * Returns the totals for the days {@code startDay..endDay} of a month.
+     *
+     * @param month         the payroll month
+     * @param startDay      first day of the settings window (inclusive)
+     * @param endDay        last day of the settings window (inclusive)
+     * @param halfDayWeight how much a half day counts towards the total
+     * @return the month totals
+     */
+    public synchronized MonthTotals getMonthTotals(YearMonth month, int startDay, int endDay, double halfDayWeight) {
+        Key key = new Key(month, Math.max(1, startDay), Math.min(endDay, month.lengthOfMonth()), halfDayWeight);
+        long version = index.version();
+        MonthTotals totals = cache.get(key);
+        if (totals == null || totals.version != version) {
+            totals = aggregate(key, version);
+            cache.put(key, totals);
+        }
+        return totals;
+    }
+
+    /**
+     * Drops all cached results.
+     */
+    public synchronized void invalidate() {
+        cache.clear();
+    }
+
+    /**
+     * Collects the window's logs in one pass, packs them into an
+     * {@link AttendanceMatrix} (so a student-day logged twice counts once) and
+     * counts each student's days from it.
+     */
+    private MonthTotals aggregate(Key key, long version) {
+        Map<Integer, Double> days = new HashMap<>();
+        if (key.startDay > key.endDay) {
+            return new MonthTotals(version, days);
+        }
+        Map<Integer, Student> students = new HashMap<>();
+        List<AttendanceLog> windowLogs = new ArrayList<>();
+        for (AttendanceLog log : new ArrayList<>(logs)) {
+            LocalDate date = dateOf(log);
+            if (date == null
+                    || date.getYear() != key.month.getYear()
+                    || date.getMonthValue() != key.month.getMonthValue()
+                    || date.getDayOfMonth() < key.startDay
+                    || date.getDayOfMonth() > key.endDay) {
+                continue;
+            }
+            windowLogs.add(log);
+            students.putIfAbsent(log.getStudentID().getStudentID(), log.getStudentID());
+        }
+
+        LocalDate from = key.month.atDay(key.startDay);
+        LocalDate to = key.month.atDay(key.endDay);
+        // School days only, so weekend logs are not counted
+        AttendanceMatrix matrix = AttendanceMatrix.build(students.values(), AttendanceMatrix.schoolDays(from, to),
+                windowLogs);
+        for (Integer studentId : students.keySet()) {
+            double value = matrix.countDays(studentId, from, to, key.halfDayWeight);
+            if (value > 0) {
+                days.put(studentId, value);
+            }
+        }
+        return new MonthTotals(version, days);
+    }
+
+    private static LocalDate dateOf(AttendanceLog log) {
+        if (log == null || log.getStudentID() == null || log.getRecordID() == null) {
+            return null;
+        }
+        AttendanceRecord record = log.getRecordID();
+        try {
+            return LocalDate.of(record.getYear(), record.getMonth(), record.getDay());
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private record Key(YearMonth month, int startDay, int endDay, double halfDayWeight) {
+    }
+
+    /**
+     * Per-student day totals for one month and settings window.
+     */
+    public static final class MonthTotals {
+        private final long version;
+        private final Map<Integer, Double> days;
+
+        private MonthTotals(long version, Map<Integer, Double> days) {
+            this.version = version;
+            this.days = Collections.unmodifiableMap(days);
+        }
+
+        /**
+         * Returns the number of days counted for a student.
+         *
+         * @param studentId the student ID
+         * @return the day total, or 0 if the student has no counted days
+         */
+        public double getDays(int studentId) {
+            return days.getOrDefault(studentId, 0.0);
+        }
+
+        /**
+         * Returns the payroll amount for a student: days × fare × multiplier.
+         *
+         * @param student        the student
+         * @param fareMultiplier the fare multiplier (1, 2 or 4)
+         * @return the amount for the month
+         */
+        public double getAmount(Student student, double fareMultiplier) {
+            return getDays(student.getStudentID()) * student.getFare() * fareMultiplier;
+        }
+
+        /**
+         * Returns the sum of {@link #getAmount} over a set of students.
+         *
+         * @param students       the students to include
+         * @param fareMultiplier the fare multiplier
+         * @return the total amount
+         */
+        public double getTotalAmount(Collection<? extends Student> students, double fareMultiplier) {
+            double total = 0;
+            for (Student student : students) {
+                total += getAmount(student, fareMultiplier);
+            }
+            return total;
+        }
+    }
+}
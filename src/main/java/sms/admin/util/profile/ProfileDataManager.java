@@ -13,6 +13,7 @@ import dev.finalproject.models.*;
 import javafx.collections.ObservableList;
 import javafx.scene.control.TextField;
 import java.util.Optional;
+import sms.admin.util.metrics.PerfMetrics;
 
 public class ProfileDataManager {
 
@@ -69,22 +70,19 @@ public class ProfileDataManager {
             TextField contactField,
             Guardian existingGuardian,
             ObservableList<Guardian> guardianList) {
-        Guardian guardian = existingGuardian != null
-                ? existingGuardian
-                : createNewGuardian(guardianList);
-        updateGuardianFields(guardian,
+        Guardian guardian = applyGuardianFields(
                 firstNameField,
                 middleNameField,
                 lastNameField,
                 relationshipField,
-                contactField);
+                contactField,
+                existingGuardian,
+                guardianList);
 
         try {
+            saveGuardian(guardian, existingGuardian == null);
             if (existingGuardian == null) {
-                GuardianDAO.insert(guardian);
                 guardianList.add(guardian);
-            } else {
-                GuardianDAO.update(guardian);
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -94,6 +92,60 @@ public class ProfileDataManager {
         return guardian;
     }
 
+    /**
+     * Copies the guardian input fields into an existing guardian, or into a new
+     * one with the next free ID. Does not persist changes or add the new
+     * guardian to the list.
+     *
+     * @param firstNameField    TextField with first name input
+     * @param middleNameField   TextField with middle name input
+     * @param lastNameField     TextField with last name input
+     * @param relationshipField TextField with relationship input
+     * @param contactField      TextField with contact input
+     * @param existingGuardian  the Guardian to update, or null to create new
+     * @param guardianList      the ObservableList of all Guardians
+     * @return the updated or new Guardian instance
+     */
+    public static Guardian applyGuardianFields(
+            TextField firstNameField,
+            TextField middleNameField,
+            TextField lastNameField,
+            TextField relationshipField,
+            TextField contactField,
+            Guardian existingGuardian,
+            ObservableList<Guardian> guardianList) {
+        Guardian guardian = existingGuardian != null
+                ? existingGuardian
+                : createNewGuardian(guardianList);
+        updateGuardianFields(guardian,
+                firstNameField,
+                middleNameField,
+                lastNameField,
+                relationshipField,
+                contactField);
+        return guardian;
+    }
+
+    /**
+     * Inserts or updates a guardian in the database. Safe to call off the
+     * JavaFX thread.
+     *
+     * @param guardian the Guardian to persist
+     * @param insert   true to insert a new row, false to update an existing one
+     * @throws Exception if the DAO insert/update operation fails
+     */
+    public static void saveGuardian(Guardian guardian, boolean insert) throws Exception {
+        if (insert) {
+            try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "GuardianDAO.insert")) {
+                GuardianDAO.insert(guardian);
+            }
+        } else {
+            try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.DAO, "GuardianDAO.update")) {
+                GuardianDAO.update(guardian);
+            }
+        }
+    }
+
     /**
      * Creates a new Guardian instance with a unique ID based on the max ID in the
      * list.
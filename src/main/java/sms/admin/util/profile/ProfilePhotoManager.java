@@ -2,22 +2,85 @@
  * Utility class for managing student profile photos, including saving uploaded images
  * and loading them into JavaFX ImageView components. Falls back to a default image or
  * a styled placeholder if no photo is available.
+ * <p>
+ * Saved photos are not kept at camera resolution: the upload is decoded once on a
+ * background thread and written as a JPEG for each {@link PhotoSize}. Loaded images
+ * are kept in an LRU cache bounded by their decoded size, and students without a
+ * photo are remembered so their profiles do not probe the disk again. Photos saved
+ * before sizes existed are still shown, decoded at the requested size, and their
+ * sizes are written in the background the first time they are loaded.
+ * </p>
  */
 package sms.admin.util.profile;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 
 public class ProfilePhotoManager {
 
+    /**
+     * The sizes photos are stored and cached at. Images are scaled to fit a
+     * square of the given edge, keeping their aspect ratio.
+     */
+    public enum PhotoSize {
+        /** For table cells and lists. */
+        THUMBNAIL(64, "thumb"),
+        /** For the profile dialog; twice its 150 px view for high-DPI screens. */
+        PROFILE(300, "profile");
+
+        private final int edge;
+        private final String suffix;
+
+        PhotoSize(int edge, String suffix) {
+            this.edge = edge;
+            this.suffix = suffix;
+        }
+
+        /**
+         * Returns the longest edge of an image of this size, in pixels.
+         *
+         * @return the edge length
+         */
+        public int edge() {
+            return edge;
+        }
+    }
+
     /**
      * Directory where student profile photos are stored.
      */
     private static final String STUDENT_PHOTOS_DIR = "src/main/resources/sms/admin/assets/img/profile";
 
+    /**
+     * Extensions of photos saved as uploaded, before sizes were stored.
+     */
+    private static final String[] ORIGINAL_EXTENSIONS = { ".jpg", ".jpeg", ".png" };
+
     /**
      * Possible classpath locations for the default profile image.
      */
@@ -28,34 +91,59 @@ public class ProfilePhotoManager {
             "/default-profile.png"
     };
 
+    private static final float JPEG_QUALITY = 0.85f;
+
+    /**
+     * Decoded bytes the image cache may hold: 1/32 of the heap, at most 32 MB.
+     */
+    private static final long CACHE_BUDGET_BYTES = Math.min(32L << 20, Runtime.getRuntime().maxMemory() / 32);
+
+    private record CacheKey(int studentId, PhotoSize size) {
+    }
+
+    /** Loaded images by student and size, least recently used first. */
+    private static final LinkedHashMap<CacheKey, Image> CACHE = new LinkedHashMap<>(64, 0.75f, true);
+    /** Students known to have no photo. */
+    private static final Set<Integer> NO_PHOTO = new HashSet<>();
+    private static long cachedBytes;
+    private static Image defaultImage;
+
+    private static final ExecutorService PIPELINE = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "photo-pipeline");
+        t.setDaemon(true);
+        return t;
+    });
+
     /**
-     * Saves a photo file for a given student, naming it by student ID and
-     * preserving extension.
+     * Saves a photo file for a given student, writing one downscaled JPEG per
+     * {@link PhotoSize}, and waits for it.
      * Creates the target directory if it does not exist.
      *
      * @param sourceFile the uploaded image file
      * @param studentId  the unique ID of the student
-     * @return the absolute path of the saved file, or null on failure
+     * @return the absolute path of the saved profile-size file, or null on failure
      */
     public static String savePhoto(File sourceFile, int studentId) {
         try {
-            String extension = sourceFile.getName()
-                    .substring(sourceFile.getName().lastIndexOf('.'));
-            String fileName = "student_" + studentId + extension;
-            File profileDir = new File(STUDENT_PHOTOS_DIR);
-            if (!profileDir.exists()) {
-                profileDir.mkdirs();
-            }
-            File destinationFile = new File(profileDir, fileName);
-            Files.copy(sourceFile.toPath(), destinationFile.toPath(),
-                    StandardCopyOption.REPLACE_EXISTING);
-            return destinationFile.getAbsolutePath();
+            return writeSizes(sourceFile, studentId);
         } catch (Exception e) {
             e.printStackTrace();
             return null;
         }
     }
 
+    /**
+     * Saves a photo file for a given student on the photo pipeline thread.
+     *
+     * @param sourceFile the uploaded image file
+     * @param studentId  the unique ID of the student
+     * @return a future completed with the absolute path of the saved
+     *         profile-size file, or with null on failure
+     */
+    public static CompletableFuture<String> savePhotoAsync(File sourceFile, int studentId) {
+        return CompletableFuture.supplyAsync(() -> savePhoto(sourceFile, studentId), PIPELINE);
+    }
+
     /**
      * Loads a student's photo into the provided ImageView. If no student-specific
      * photo
@@ -65,14 +153,31 @@ public class ProfilePhotoManager {
      * @param studentId the unique ID of the student
      */
     public static void loadPhoto(ImageView imageView, int studentId) {
+        loadPhoto(imageView, studentId, PhotoSize.PROFILE);
+    }
+
+    /**
+     * Loads a student's photo at the given size into the provided ImageView,
+     * falling back to the default image.
+     *
+     * @param imageView the ImageView to set the photo on
+     * @param studentId the unique ID of the student
+     * @param size      the size to load
+     */
+    public static void loadPhoto(ImageView imageView, int studentId, PhotoSize size) {
         try {
-            String photoPath = findStudentPhoto(studentId);
-            if (photoPath != null) {
-                Image image = new Image(new File(photoPath).toURI().toString(), true);
-                if (!image.isError()) {
-                    imageView.setImage(image);
-                    return;
+            Image image = getPhoto(studentId, size);
+            if (image != null) {
+                imageView.setImage(image);
+                if (image.getProgress() < 1) {
+                    // Decoding runs in the background; fall back if it turns out to fail
+                    image.errorProperty().addListener((obs, wasError, isError) -> {
+                        if (isError && imageView.getImage() == image) {
+                            loadDefaultPhoto(imageView);
+                        }
+                    });
                 }
+                return;
             }
             loadDefaultPhoto(imageView);
         } catch (Exception e) {
@@ -81,23 +186,191 @@ public class ProfilePhotoManager {
     }
 
     /**
-     * Searches for an existing photo file for the student in supported extensions.
+     * Returns a student's photo at the given size from the cache, starting to
+     * load it if it is not cached. The image may still be loading.
      *
      * @param studentId the unique ID of the student
-     * @return the absolute path if found, or null otherwise
+     * @param size      the size to load
+     * @return the image, or null if the student has no photo
      */
-    private static String findStudentPhoto(int studentId) {
-        String[] extensions = { ".jpg", ".jpeg", ".png" };
+    public static synchronized Image getPhoto(int studentId, PhotoSize size) {
+        CacheKey key = new CacheKey(studentId, size);
+        Image cached = CACHE.get(key);
+        if (cached != null && !cached.isError()) {
+            return cached;
+        }
+        if (cached != null) {
+            evict(key);
+        }
+        if (NO_PHOTO.contains(studentId)) {
+            return null;
+        }
+
+        File file = sizedFile(studentId, size);
+        if (!file.exists()) {
+            File original = findOriginalPhoto(studentId);
+            if (original == null) {
+                NO_PHOTO.add(studentId);
+                return null;
+            }
+            file = original;
+            PIPELINE.execute(() -> convertOriginal(original, studentId));
+        }
+
+        // Decoded straight to the requested size, on JavaFX's loader thread
+        Image image = new Image(file.toURI().toString(), size.edge, size.edge, true, true, true);
+        CACHE.put(key, image);
+        cachedBytes += weight(size);
+        trimCache();
+        return image;
+    }
+
+    /**
+     * Forgets the cached photos of a student, for example after a photo was
+     * added outside this class.
+     *
+     * @param studentId the unique ID of the student
+     */
+    public static synchronized void invalidate(int studentId) {
+        NO_PHOTO.remove(studentId);
+        for (PhotoSize size : PhotoSize.values()) {
+            evict(new CacheKey(studentId, size));
+        }
+    }
+
+    /**
+     * Decodes the source once and writes each size, replacing the student's
+     * earlier photo.
+     */
+    private static String writeSizes(File sourceFile, int studentId) throws IOException {
+        BufferedImage source = ImageIO.read(sourceFile);
+        if (source == null) {
+            throw new IOException("Unsupported image format: " + sourceFile.getName());
+        }
+        File profileDir = new File(STUDENT_PHOTOS_DIR);
+        if (!profileDir.exists()) {
+            profileDir.mkdirs();
+        }
+        for (PhotoSize size : PhotoSize.values()) {
+            writeJpeg(scaleToFit(source, size.edge), sizedFile(studentId, size).toPath());
+        }
+        invalidate(studentId);
+        return sizedFile(studentId, PhotoSize.PROFILE).getAbsolutePath();
+    }
+
+    /**
+     * Writes the sizes of a photo stored as uploaded.
+     */
+    private static void convertOriginal(File original, int studentId) {
+        try {
+            if (!sizedFile(studentId, PhotoSize.PROFILE).exists()) {
+                writeSizes(original, studentId);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to convert photo " + original.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Scales an image down to fit a square, halving in steps so the bilinear
+     * filter keeps its quality, and flattens transparency onto white.
+     */
+    private static BufferedImage scaleToFit(BufferedImage source, int edge) {
+        double scale = Math.min(1.0, (double) edge / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, width, height);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    /**
+     * Writes a JPEG to a temporary file and moves it into place, so a reader
+     * never sees a partly written photo.
+     */
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static File sizedFile(int studentId, PhotoSize size) {
+        return new File(STUDENT_PHOTOS_DIR, "student_" + studentId + "_" + size.suffix + ".jpg");
+    }
+
+    /**
+     * Searches for a photo saved as uploaded in supported extensions.
+     *
+     * @param studentId the unique ID of the student
+     * @return the file if found, or null otherwise
+     */
+    private static File findOriginalPhoto(int studentId) {
         String baseFileName = "student_" + studentId;
-        for (String ext : extensions) {
+        for (String ext : ORIGINAL_EXTENSIONS) {
             File photoFile = new File(STUDENT_PHOTOS_DIR, baseFileName + ext);
             if (photoFile.exists()) {
-                return photoFile.getAbsolutePath();
+                return photoFile;
             }
         }
         return null;
     }
 
+    /** Bytes of a decoded image of the given size, at four bytes per pixel. */
+    private static long weight(PhotoSize size) {
+        return 4L * size.edge * size.edge;
+    }
+
+    private static void evict(CacheKey key) {
+        if (CACHE.remove(key) != null) {
+            cachedBytes -= weight(key.size());
+        }
+    }
+
+    /** Drops least recently used images until the cache fits its budget. */
+    private static void trimCache() {
+        Iterator<Map.Entry<CacheKey, Image>> eldest = CACHE.entrySet().iterator();
+        while (cachedBytes > CACHE_BUDGET_BYTES && eldest.hasNext()) {
+            CacheKey key = eldest.next().getKey();
+            eldest.remove();
+            cachedBytes -= weight(key.size());
+        }
+    }
+
     /**
      * Attempts to load a default profile image from classpath locations.
      * Falls back to a styled placeholder if no resource is found.
@@ -105,13 +378,18 @@ public class ProfilePhotoManager {
      * @param imageView the ImageView to set the default image on
      */
     private static void loadDefaultPhoto(ImageView imageView) {
+        if (defaultImage != null) {
+            imageView.setImage(defaultImage);
+            return;
+        }
         for (String path : DEFAULT_PHOTO_PATHS) {
             try {
                 var resourceUrl = ProfilePhotoManager.class.getResource(path);
                 if (resourceUrl != null) {
-                    Image defaultImage = new Image(resourceUrl.toExternalForm());
-                    if (!defaultImage.isError()) {
-                        imageView.setImage(defaultImage);
+                    Image image = new Image(resourceUrl.toExternalForm());
+                    if (!image.isError()) {
+                        defaultImage = image;
+                        imageView.setImage(image);
                         return;
                     }
                 }
@@ -0,0 +1,374 @@
+package sms.admin.util.qr;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.imageio.ImageIO;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.borders.Border;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Image;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.UnitValue;
+
+import dev.finalproject.models.Student;
+import javafx.concurrent.Task;
+
+/**
+ * Background task that generates the QR key of every student in a school year.
+ *
+ * <p>
+ * Keys are encrypted, encoded and rendered to PNG in parallel on a bounded
+ * pool. Each code is drawn straight from the zxing {@link BitMatrix} into the
+ * image's pixel array, one module row at a time, and only the student's name
+ * goes through {@link Graphics2D}. Finished images are written by the task
+ * thread in student order, with at most a few images per worker in flight, as
+ * separate PNG files, one ZIP archive or a printable PDF sheet.
+ * </p>
+ *
+ * <p>
+ * The task reports progress and can be cancelled; archive and PDF output is
+ * written to a temporary file and only moved into place when complete.
+ * </p>
+ */
+public class QrBatchGenerator extends Task<File> {
+
+    /**
+     * Where the generated codes are written.
+     */
+    public enum Output {
+        /** One PNG file per student in a {@code qr_codes} folder. */
+        PNG_FILES,
+        /** One {@code qr_codes_<year>.zip} archive of PNG files. */
+        ZIP,
+        /** One {@code qr_codes_<year>.pdf} with twelve codes per A4 page. */
+        PDF_SHEET
+    }
+
+    private static final int QR_SIZE = 300;
+    private static final int TEXT_HEIGHT = 40;
+    private static final int PDF_COLUMNS = 3;
+    private static final int PDF_FLUSH_ROWS = 4;
+    private static final int IN_FLIGHT_PER_WORKER = 4;
+    private static final Font NAME_FONT = new Font("Arial", Font.BOLD, 14);
+    private static final Map<EncodeHintType, Object> HINTS = Map.of(
+            EncodeHintType.CHARACTER_SET, "UTF-8",
+            EncodeHintType.MARGIN, 4);
+
+    private final List<Student> students;
+    private final List<String> fileNames;
+    private final String schoolYear;
+    private final File outputDir;
+    private final Output output;
+
+    /**
+     * Creates the generator and snapshots the students.
+     *
+     * @param students   the students to generate keys for
+     * @param schoolYear the school year encoded in the keys (e.g. "2024-2025")
+     * @param outputDir  the directory to write to
+     * @param output     the output format
+     */
+    public QrBatchGenerator(List<Student> students, String schoolYear, File outputDir, Output output) {
+        this.students = List.copyOf(students);
+        this.schoolYear = schoolYear;
+        this.outputDir = outputDir;
+        this.output = output;
+        this.fileNames = uniqueFileNames(this.students);
+        updateMessage("Preparing " + this.students.size() + " QR code(s)...");
+    }
+
+    @Override
+    protected File call() throws Exception {
+        int total = students.size();
+        updateProgress(0, total);
+
+        File target = switch (output) {
+            case PNG_FILES -> new File(outputDir, "qr_codes");
+            case ZIP -> new File(outputDir, "qr_codes_" + schoolYear + ".zip");
+            case PDF_SHEET -> new File(outputDir, "qr_codes_" + schoolYear + ".pdf");
+        };
+        if (output == Output.PNG_FILES) {
+            target.mkdirs();
+        }
+
+        File partial = new File(outputDir, target.getName() + ".part");
+        try (Sink sink = openSink(target, partial)) {
+            render(sink, total);
+        } catch (Exception e) {
+            Files.deleteIfExists(partial.toPath());
+            throw e;
+        }
+        if (isCancelled()) {
+            Files.deleteIfExists(partial.toPath());
+            return null;
+        }
+        if (output != Output.PNG_FILES) {
+            Files.move(partial.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        updateMessage("Generated " + total + " QR code(s)");
+        return target;
+    }
+
+    @Override
+    protected void cancelled() {
+        updateMessage("QR code generation cancelled");
+    }
+
+    /**
+     * Renders every student on the worker pool and hands the images to the
+     * sink in student order.
+     */
+    private void render(Sink sink, int total) throws Exception {
+        int threads = Math.max(1, Math.min(total, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "qr-render-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        CompletionService<Rendered> completion = new ExecutorCompletionService<>(executor);
+        Map<Integer, byte[]> finished = new HashMap<>();
+        int maxInFlight = threads * IN_FLIGHT_PER_WORKER;
+
+        try {
+            int submitted = 0;
+            int written = 0;
+            while (written < total && !isCancelled()) {
+                // Keep a bounded number of images rendered but not yet written
+                while (submitted < total && submitted - written < maxInFlight) {
+                    int position = submitted++;
+                    completion.submit(() -> new Rendered(position, renderPng(students.get(position))));
+                }
+                Rendered rendered;
+                try {
+                    rendered = completion.take().get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+                finished.put(rendered.position(), rendered.png());
+                for (byte[] png = finished.remove(written); png != null; png = finished.remove(written)) {
+                    sink.write(students.get(written), fileNames.get(written), png);
+                    written++;
+                    updateProgress(written, total);
+                    updateMessage(String.format("Generated %d of %d QR code(s)", written, total));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private record Rendered(int position, byte[] png) {
+    }
+
+    /**
+     * Encrypts, encodes and renders one student's key as a PNG.
+     */
+    private byte[] renderPng(Student student) throws Exception {
+        String key = StudentKeyCipher.encrypt(student.getStudentID(), schoolYear);
+        BufferedImage image = renderImage(key, student.getFullName());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 * 1024);
+        ImageIO.write(image, "PNG", bytes);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Draws a QR code with the caption below it. The code is written directly
+     * into the image's pixel array.
+     *
+     * @param data    the text to encode
+     * @param caption the caption drawn under the code
+     * @return the image
+     * @throws WriterException if the data cannot be encoded
+     */
+    public static BufferedImage renderImage(String data, String caption) throws WriterException {
+        // Encode at one pixel per module and scale while copying rows
+        BitMatrix matrix = new QRCodeWriter().encode(data, BarcodeFormat.QR_CODE, 0, 0, HINTS);
+        int modules = matrix.getWidth();
+        int scale = Math.max(1, QR_SIZE / modules);
+        int offset = (QR_SIZE - modules * scale) / 2;
+
+        int width = QR_SIZE;
+        int height = QR_SIZE + TEXT_HEIGHT;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        Arrays.fill(pixels, 0xFFFFFF);
+
+        int[] row = new int[width];
+        for (int my = 0; my < modules; my++) {
+            Arrays.fill(row, 0xFFFFFF);
+            for (int mx = 0; mx < modules; mx++) {
+                if (matrix.get(mx, my)) {
+                    int start = offset + mx * scale;
+                    Arrays.fill(row, start, start + scale, 0x000000);
+                }
+            }
+            int y = offset + my * scale;
+            for (int dy = 0; dy < scale; dy++) {
+                System.arraycopy(row, 0, pixels, (y + dy) * width, width);
+            }
+        }
+
+        if (caption != null && !caption.isEmpty()) {
+            Graphics2D graphics = image.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                        RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                graphics.setColor(Color.BLACK);
+                graphics.setFont(NAME_FONT);
+                FontMetrics metrics = graphics.getFontMetrics();
+                int x = (width - metrics.stringWidth(caption)) / 2;
+                int y = QR_SIZE + (TEXT_HEIGHT - metrics.getHeight()) / 2 + metrics.getAscent();
+                graphics.drawString(caption, x, y);
+            } finally {
+                graphics.dispose();
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Returns a file name per student based on the student's name, adding the
+     * student ID when two students share a name.
+     */
+    private static List<String> uniqueFileNames(List<Student> students) {
+        List<String> names = new ArrayList<>(students.size());
+        Set<String> used = new HashSet<>();
+        for (Student student : students) {
+            String name = student.getFullName()
+                    .replaceAll("[^a-zA-Z0-9]", "_")
+                    .replaceAll("\\s+", "_");
+            if (!used.add(name)) {
+                name = name + "_" + student.getStudentID();
+                used.add(name);
+            }
+            names.add(name + ".png");
+        }
+        return names;
+    }
+
+    /**
+     * Destination of the rendered images.
+     */
+    private interface Sink extends AutoCloseable {
+        void write(Student student, String fileName, byte[] png) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private Sink openSink(File target, File partial) throws IOException {
+        return switch (output) {
+            case PNG_FILES -> new Sink() {
+                @Override
+                public void write(Student student, String fileName, byte[] png) throws IOException {
+                    Files.write(new File(target, fileName).toPath(), png);
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            case ZIP -> new Sink() {
+                private final ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(partial));
+
+                {
+                    // PNG data is already compressed; don't spend time deflating it again
+                    zip.setLevel(Deflater.BEST_SPEED);
+                }
+
+                @Override
+                public void write(Student student, String fileName, byte[] png) throws IOException {
+                    zip.putNextEntry(new ZipEntry(fileName));
+                    zip.write(png);
+                    zip.closeEntry();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    zip.close();
+                }
+            };
+            case PDF_SHEET -> new PdfSheetSink(new FileOutputStream(partial));
+        };
+    }
+
+    /**
+     * Lays the codes out three across on A4 pages, flushing the table every few
+     * rows so the document never holds more than a page of images.
+     */
+    private static final class PdfSheetSink implements Sink {
+        private final Document document;
+        private final Table table;
+        private int cells;
+
+        PdfSheetSink(OutputStream out) {
+            PdfDocument pdf = new PdfDocument(new PdfWriter(out));
+            document = new Document(pdf, PageSize.A4);
+            document.setMargins(24, 24, 24, 24);
+            table = new Table(UnitValue.createPercentArray(PDF_COLUMNS), true).useAllAvailableWidth();
+            document.add(table);
+        }
+
+        @Override
+        public void write(Student student, String fileName, byte[] png) {
+            Image image = new Image(ImageDataFactory.create(png)).setAutoScale(true);
+            table.addCell(new Cell().add(image).setPadding(6));
+            cells++;
+            if (cells % (PDF_COLUMNS * PDF_FLUSH_ROWS) == 0) {
+                table.flush();
+            }
+        }
+
+        @Override
+        public void close() {
+            int remainder = cells % PDF_COLUMNS;
+            if (remainder != 0) {
+                for (int i = remainder; i < PDF_COLUMNS; i++) {
+                    table.addCell(new Cell().setBorder(Border.NO_BORDER));
+                }
+            }
+            table.complete();
+            document.close();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package sms.admin.util.qr;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Encrypts and decrypts the student keys printed on QR codes.
+ *
+ * <p>
+ * A key is the Base64 form of {@code "<studentId>|<schoolYear>"} encrypted
+ * with the application's fixed AES key. {@link Cipher} instances are not
+ * thread-safe and are comparatively expensive to create, so each thread keeps
+ * one initialized cipher per direction and reuses it.
+ * </p>
+ */
+public final class StudentKeyCipher {
+
+    private static final SecretKey SECRET_KEY = new SecretKeySpec(
+            "MySuperSecretKey".getBytes(StandardCharsets.UTF_8), "AES");
+
+    private static final ThreadLocal<Cipher> ENCRYPT = ThreadLocal.withInitial(() -> create(Cipher.ENCRYPT_MODE));
+    private static final ThreadLocal<Cipher> DECRYPT = ThreadLocal.withInitial(() -> create(Cipher.DECRYPT_MODE));
+
+    private StudentKeyCipher() {
+    }
+
+    private static Cipher create(int mode) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES");
+            cipher.init(mode, SECRET_KEY);
+            return cipher;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES is not available", e);
+        }
+    }
+
+    /**
+     * Creates the key for a student and school year.
+     *
+     * @param studentId  the student ID
+     * @param schoolYear the school year (e.g. "2024-2025")
+     * @return the Base64 encoded key
+     * @throws GeneralSecurityException if encryption fails
+     */
+    public static String encrypt(int studentId, String schoolYear) throws GeneralSecurityException {
+        byte[] plain = (studentId + "|" + schoolYear).getBytes(StandardCharsets.UTF_8);
+        try {
+            return Base64.getEncoder().encodeToString(ENCRYPT.get().doFinal(plain));
+        } catch (GeneralSecurityException e) {
+            ENCRYPT.remove(); // A failed cipher must be re-initialized before reuse
+            throw e;
+        }
+    }
+
+    /**
+     * Decrypts a key back to its {@code "<studentId>|<schoolYear>"} form.
+     *
+     * @param encryptedKey the Base64 encoded key
+     * @return the decrypted text
+     * @throws GeneralSecurityException if the key is not a valid encrypted key
+     * @throws IllegalArgumentException if the key is not valid Base64
+     */
+    public static String decrypt(String encryptedKey) throws GeneralSecurityException {
+        byte[] encrypted = Base64.getDecoder().decode(encryptedKey.trim());
+        try {
+            return new String(DECRYPT.get().doFinal(encrypted), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            DECRYPT.remove(); // A failed cipher must be re-initialized before reuse
+            throw e;
+        }
+    }
+}
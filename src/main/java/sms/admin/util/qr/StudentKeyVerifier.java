@@ -0,0 +1,187 @@
+package sms.admin.util.qr;
+
+import java.security.GeneralSecurityException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import dev.finalproject.database.DataManager;
+import dev.finalproject.models.Student;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+/**
+ * Resolves scanned QR keys to students.
+ *
+ * <p>
+ * Decryption uses the per-thread ciphers of {@link StudentKeyCipher}, students
+ * are looked up in a hash index by ID, and recently verified keys are cached
+ * in their decrypted form, so a repeated scan is two hash lookups. The
+ * verifier is safe to use from any number of scanner threads: the index is
+ * rebuilt on the thread that changes the student list and published as an
+ * immutable map.
+ * </p>
+ */
+public final class StudentKeyVerifier {
+
+    private static final String STUDENT_KEY = "STUDENT";
+    private static final int MAX_CACHED_KEYS = 4096;
+
+    private static StudentKeyVerifier sharedVerifier;
+    private static ObservableList<Student> sharedSource;
+
+    /**
+     * Outcome of verifying a key.
+     */
+    public enum Status {
+        /** The key is valid and belongs to a known student. */
+        VALID,
+        /** The key is valid but no student with its ID is loaded. */
+        UNKNOWN_STUDENT,
+        /** The key could not be decrypted or parsed. */
+        INVALID
+    }
+
+    /**
+     * The result of verifying a key.
+     *
+     * @param status     the outcome
+     * @param studentId  the student ID in the key, or -1 if invalid
+     * @param schoolYear the school year in the key, or null if invalid
+     * @param student    the matching student, or null
+     */
+    public record Result(Status status, int studentId, String schoolYear, Student student) {
+
+        static final Result INVALID = new Result(Status.INVALID, -1, null, null);
+
+        public boolean isValid() {
+            return status == Status.VALID;
+        }
+    }
+
+    private record DecodedKey(int studentId, String schoolYear) {
+    }
+
+    private final Map<String, DecodedKey> keyCache = new ConcurrentHashMap<>();
+    private final ListChangeListener<Student> listener = change -> rebuild(change.getList());
+    private volatile Map<Integer, Student> studentsById;
+    private ObservableList<Student> boundList;
+
+    /**
+     * Creates a verifier over a snapshot of the given students.
+     *
+     * @param students the students to resolve keys against
+     */
+    public StudentKeyVerifier(Collection<Student> students) {
+        rebuild(students);
+    }
+
+    private StudentKeyVerifier(ObservableList<Student> students) {
+        this((Collection<Student>) students);
+        boundList = students;
+        students.addListener(listener);
+    }
+
+    /**
+     * Returns the verifier over the shared {@code STUDENT} collection, rebinding
+     * it if {@link DataManager} has replaced the list since the last call.
+     *
+     * @return the shared verifier
+     */
+    public static synchronized StudentKeyVerifier shared() {
+        ObservableList<Student> current = DataManager.getInstance()
+                .getCollectionsRegistry()
+                .getList(STUDENT_KEY);
+        if (sharedVerifier == null || current != sharedSource) {
+            if (sharedVerifier != null && sharedVerifier.boundList != null) {
+                sharedVerifier.boundList.removeListener(sharedVerifier.listener);
+            }
+            sharedSource = current;
+            sharedVerifier = current != null
+                    ? new StudentKeyVerifier(current)
+                    : new StudentKeyVerifier(List.<Student>of());
+        }
+        return sharedVerifier;
+    }
+
+    /**
+     * Verifies a scanned key.
+     *
+     * @param encryptedKey the Base64 encoded key
+     * @return the verification result
+     */
+    public Result verify(String encryptedKey) {
+        if (encryptedKey == null || encryptedKey.isBlank()) {
+            return Result.INVALID;
+        }
+        String key = encryptedKey.trim();
+        DecodedKey decoded = keyCache.get(key);
+        if (decoded == null) {
+            decoded = decode(key);
+            if (decoded == null) {
+                return Result.INVALID;
+            }
+            if (keyCache.size() >= MAX_CACHED_KEYS) {
+                // Scanned keys repeat within a day, not across days; start over
+                keyCache.clear();
+            }
+            keyCache.put(key, decoded);
+        }
+        Student student = studentsById.get(decoded.studentId());
+        return new Result(student != null ? Status.VALID : Status.UNKNOWN_STUDENT,
+                decoded.studentId(), decoded.schoolYear(), student);
+    }
+
+    /**
+     * Verifies a key and describes it for display.
+     *
+     * @param encryptedKey the Base64 encoded key
+     * @return the student and school year of the key, or "Invalid key"
+     */
+    public String describe(String encryptedKey) {
+        Result result = verify(encryptedKey);
+        if (result.status() == Status.INVALID) {
+            return "Invalid key";
+        }
+        String studentInfo = result.student() != null
+                ? String.format("Student: %s (Student ID: %d)", result.student().getFullName(), result.studentId())
+                : "Unknown Student (Student ID: " + result.studentId() + ")";
+        return studentInfo + ", School Year: " + result.schoolYear();
+    }
+
+    /**
+     * Returns the student with the given ID.
+     *
+     * @param studentId the student ID
+     * @return the student, or null if none is loaded
+     */
+    public Student findStudent(int studentId) {
+        return studentsById.get(studentId);
+    }
+
+    private static DecodedKey decode(String key) {
+        try {
+            String plain = StudentKeyCipher.decrypt(key);
+            int separator = plain.indexOf('|');
+            if (separator <= 0) {
+                return null;
+            }
+            return new DecodedKey(Integer.parseInt(plain.substring(0, separator)), plain.substring(separator + 1));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            // Not one of our keys (NumberFormatException is an IllegalArgumentException)
+            return null;
+        }
+    }
+
+    private void rebuild(Collection<? extends Student> students) {
+        Map<Integer, Student> index = new HashMap<>(Math.max(16, students.size() * 2));
+        for (Student student : students) {
+            if (student != null) {
+                index.put(student.getStudentID(), student);
+            }
+        }
+        studentsById = index; // Never modified after publication
+    }
+}
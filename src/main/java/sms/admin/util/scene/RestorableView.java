@@ -0,0 +1,25 @@
+package sms.admin.util.scene;
+
+import java.util.Map;
+
+/**
+ * Implemented by controllers whose views can be kept in the
+ * {@link SceneLoaderUtil} view cache and shown again without being rebuilt.
+ * <p>
+ * A cached view keeps the state it had when it was last hidden. When it is
+ * shown again, {@link #onViewRestored(Map)} lets the controller bring its data
+ * up to date with the shared collections, which may have changed in the
+ * meantime.
+ * </p>
+ */
+public interface RestorableView {
+
+    /**
+     * Called on the JavaFX Application Thread after a cached view has been put
+     * back into its container.
+     *
+     * @param parameters the parameters of the navigation that restored the view;
+     *                   never null, entries with null values are omitted
+     */
+    void onViewRestored(Map<String, Object> parameters);
+}
@@ -10,10 +10,16 @@ import javafx.scene.layout.Region;
 import javafx.scene.layout.StackPane;
 import javafx.util.Duration;
 import sms.admin.util.loader.BaseLoader;
+import sms.admin.util.metrics.PerfMetrics;
 
 import java.net.URL;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Utility class for loading JavaFX scenes with FXML controllers, caching
@@ -28,11 +34,18 @@ import java.util.Map;
  * Fade-in transitions improve the user experience when switching views.
  * </p>
  * <p>
- * <strong>Thread Safety:</strong> Controller cache operations clear and insert
- * entries
- * synchronously, and should be invoked on the JavaFX Application Thread to
- * avoid
- * concurrency issues.
+ * Views whose controllers implement {@link RestorableView} are also kept in a
+ * small least-recently-used cache keyed by FXML path and selected school year.
+ * Loading such a view again puts the cached scene graph back into the container
+ * and calls {@link RestorableView#onViewRestored(Map)} instead of parsing the
+ * FXML and building the controller from scratch. {@link #preload} fills the
+ * cache ahead of time: the FXML is parsed on a background thread and the
+ * controller is loaded on the JavaFX Application Thread without being shown.
+ * </p>
+ * <p>
+ * <strong>Thread Safety:</strong> Controller and view cache operations insert
+ * and evict entries synchronously, and should be invoked on the JavaFX
+ * Application Thread to avoid concurrency issues.
  * </p>
  *
  * @author YourName
@@ -49,13 +62,43 @@ public class SceneLoaderUtil {
     /** Default minimum height for loaded scenes in pixels. */
     private static final double MIN_HEIGHT = 500;
 
+    /** Number of loaded views kept for reuse. */
+    private static final int MAX_CACHED_VIEWS = 6;
+
     /**
-     * Cache of controllers keyed by FXML resource path.
-     * Cleared on each new load to ensure fresh instances, or can be manually
-     * cleared via {@link #clearCache()}.
+     * Cache of controllers keyed by FXML resource path, holding the controller
+     * of the most recent load of each view. Can be manually cleared via
+     * {@link #clearCache()}.
      */
     private static final Map<String, FXController> controllerCache = new HashMap<>();
 
+    /**
+     * Loaded views keyed by FXML path and school year, in access order so the
+     * least recently shown view is evicted first.
+     */
+    private static final Map<String, CachedView> viewCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedView> eldest) {
+            return size() > MAX_CACHED_VIEWS;
+        }
+    };
+
+    /** Keys of the views currently being preloaded. */
+    private static final Set<String> preloading = new HashSet<>();
+
+    /** Parses preloaded FXML one view at a time, away from the JavaFX thread. */
+    private static final ExecutorService PRELOAD_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "view-preloader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * A loaded scene graph and its controller.
+     */
+    private record CachedView(Parent root, FXController controller) {
+    }
+
     /**
      * Retrieves the typed controller from a given FXLoader instance.
      * <p>
@@ -82,10 +125,12 @@ public class SceneLoaderUtil {
      * Loads an FXML scene into the specified {@link StackPane} container, with
      * optional parameters.
      * <p>
-     * Clears the controller cache, injects non-null parameters into the loader,
-     * initializes and loads the FXML,
-     * binds the scene's sizing to match the container, applies a fade-in
-     * transition, and caches the controller.
+     * If the view is cached for the same school year, the cached scene is shown
+     * again and its controller notified through
+     * {@link RestorableView#onViewRestored(Map)}. Otherwise non-null parameters
+     * are injected into the loader, the FXML is initialized and loaded, the
+     * scene's sizing is bound to match the container, a fade-in transition is
+     * applied, and the controller is cached.
      * </p>
      *
      * @param fxmlPath     the path to the FXML resource (e.g.,
@@ -109,36 +154,188 @@ public class SceneLoaderUtil {
             Map<String, Object> parameters,
             StackPane contentPane) {
         try {
-            clearCache();
-            URL resource = resourceBase.getResource(fxmlPath);
-            if (resource == null) {
-                throw new IllegalArgumentException("FXML resource not found: " + fxmlPath);
+            String key = viewKey(fxmlPath, parameters);
+            long start = System.nanoTime();
+            C restored = restoreView(key, fxmlPath, parameters, contentPane);
+            if (restored != null) {
+                PerfMetrics.record(PerfMetrics.SCENE, fxmlPath + " (cached)", System.nanoTime() - start);
+                return restored;
+            }
+            try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.SCENE, fxmlPath)) {
+                FXLoader loader = createLoader(fxmlPath, resourceBase, loaderClass, parameters);
+                loader.initialize();
+                Parent rootNode = loader.getRoot();
+                if (rootNode instanceof Region) {
+                    Region region = (Region) rootNode;
+                    region.prefWidthProperty().unbind();
+                    region.prefHeightProperty().unbind();
+                    region.prefWidthProperty().bind(contentPane.widthProperty());
+                    region.prefHeightProperty().bind(contentPane.heightProperty());
+                }
+                setContentPane(rootNode, contentPane);
+                loader.load();
+                C controller = getControllerFromLoader(loader);
+                if (controller != null) {
+                    controllerCache.put(fxmlPath, controller);
+                    cacheView(key, rootNode, controller);
+                }
+                return controller;
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load scene: " + fxmlPath, e);
+        }
+    }
+
+    /**
+     * Loads a view into the view cache without showing it, so that a later
+     * {@link #loadScene} with the same FXML path and school year is a cache
+     * hit. The FXML is parsed on a background thread; the controller is loaded
+     * on the JavaFX Application Thread. Does nothing if the view is already
+     * cached or being preloaded, or if its controller does not implement
+     * {@link RestorableView}. Failures are logged and leave the cache unchanged.
+     * <p>
+     * Must be called on the JavaFX Application Thread.
+     * </p>
+     *
+     * @param fxmlPath     the path to the FXML resource
+     * @param resourceBase the class used to resolve the resource
+     * @param loaderClass  the FXLoader implementation class
+     * @param parameters   map of parameter names to values; entries with null
+     *                     values are ignored
+     */
+    public static void preload(
+            String fxmlPath,
+            Class<?> resourceBase,
+            Class<? extends FXLoader> loaderClass,
+            Map<String, Object> parameters) {
+        String key = viewKey(fxmlPath, parameters);
+        if (viewCache.containsKey(key) || !preloading.add(key)) {
+            return;
+        }
+        PRELOAD_EXECUTOR.execute(() -> {
+            FXLoader parsed;
+            try {
+                parsed = createLoader(fxmlPath, resourceBase, loaderClass, parameters);
+                parsed.initialize();
+            } catch (Exception e) {
+                // Some controls can only be built on the JavaFX thread; parse it there instead
+                parsed = null;
             }
-            FXLoader loader = FXLoaderFactory.createInstance(loaderClass, resource);
-            if (parameters != null) {
-                parameters.entrySet().stream()
-                        .filter(e -> e.getValue() != null)
-                        .forEach(e -> loader.addParameter(e.getKey(), e.getValue()));
+            FXLoader loader = parsed;
+            Platform.runLater(() -> finishPreload(key, fxmlPath, resourceBase, loaderClass, parameters, loader));
+        });
+    }
+
+    /**
+     * Loads the controller of a preloaded view and caches the view, unless the
+     * view was loaded for display in the meantime.
+     */
+    private static void finishPreload(
+            String key,
+            String fxmlPath,
+            Class<?> resourceBase,
+            Class<? extends FXLoader> loaderClass,
+            Map<String, Object> parameters,
+            FXLoader parsed) {
+        try (PerfMetrics.Timer timer = PerfMetrics.time(PerfMetrics.SCENE, fxmlPath + " (preload)")) {
+            if (viewCache.containsKey(key)) {
+                return;
             }
-            loader.initialize();
-            Parent rootNode = loader.getRoot();
-            if (rootNode instanceof Region) {
-                Region region = (Region) rootNode;
-                region.prefWidthProperty().unbind();
-                region.prefHeightProperty().unbind();
-                region.prefWidthProperty().bind(contentPane.widthProperty());
-                region.prefHeightProperty().bind(contentPane.heightProperty());
+            FXLoader loader = parsed;
+            if (loader == null) {
+                loader = createLoader(fxmlPath, resourceBase, loaderClass, parameters);
+                loader.initialize();
             }
-            setContentPane(rootNode, contentPane);
             loader.load();
-            C controller = getControllerFromLoader(loader);
+            FXController controller = getControllerFromLoader(loader);
             if (controller != null) {
-                controllerCache.put(fxmlPath, controller);
+                cacheView(key, loader.getRoot(), controller);
             }
-            return controller;
         } catch (Exception e) {
-            throw new RuntimeException("Failed to load scene: " + fxmlPath, e);
+            System.err.println("Failed to preload scene " + fxmlPath + ": " + e.getMessage());
+        } finally {
+            preloading.remove(key);
+        }
+    }
+
+    /**
+     * Shows a cached view and lets its controller refresh itself.
+     *
+     * @return the controller of the restored view, or {@code null} if the view
+     *         is not cached or could not be restored
+     */
+    @SuppressWarnings("unchecked")
+    private static <C extends FXController> C restoreView(
+            String key,
+            String fxmlPath,
+            Map<String, Object> parameters,
+            StackPane contentPane) {
+        CachedView cached = viewCache.get(key);
+        if (cached == null) {
+            return null;
+        }
+        setContentPane(cached.root(), contentPane);
+        try {
+            ((RestorableView) cached.controller()).onViewRestored(nonNullParameters(parameters));
+        } catch (RuntimeException e) {
+            System.err.println("Failed to restore scene " + fxmlPath + ", reloading: " + e.getMessage());
+            e.printStackTrace();
+            viewCache.remove(key);
+            return null;
+        }
+        controllerCache.put(fxmlPath, cached.controller());
+        return (C) cached.controller();
+    }
+
+    /**
+     * Adds a loaded view to the view cache if its controller can be restored.
+     */
+    private static void cacheView(String key, Parent rootNode, FXController controller) {
+        if (controller instanceof RestorableView) {
+            viewCache.put(key, new CachedView(rootNode, controller));
+        }
+    }
+
+    /**
+     * Creates a loader for the FXML resource with the non-null parameters.
+     */
+    private static FXLoader createLoader(
+            String fxmlPath,
+            Class<?> resourceBase,
+            Class<? extends FXLoader> loaderClass,
+            Map<String, Object> parameters) {
+        URL resource = resourceBase.getResource(fxmlPath);
+        if (resource == null) {
+            throw new IllegalArgumentException("FXML resource not found: " + fxmlPath);
+        }
+        FXLoader loader = FXLoaderFactory.createInstance(loaderClass, resource);
+        if (parameters != null) {
+            parameters.entrySet().stream()
+                    .filter(e -> e.getValue() != null)
+                    .forEach(e -> loader.addParameter(e.getKey(), e.getValue()));
+        }
+        return loader;
+    }
+
+    /**
+     * Builds the view cache key: views are reused per FXML path and school
+     * year.
+     */
+    private static String viewKey(String fxmlPath, Map<String, Object> parameters) {
+        Object year = parameters != null ? parameters.get("selectedYear") : null;
+        return fxmlPath + "|" + year;
+    }
+
+    private static Map<String, Object> nonNullParameters(Map<String, Object> parameters) {
+        Map<String, Object> result = new HashMap<>();
+        if (parameters != null) {
+            parameters.forEach((name, value) -> {
+                if (value != null) {
+                    result.put(name, value);
+                }
+            });
         }
+        return result;
     }
 
     /**
@@ -237,10 +434,12 @@ public class SceneLoaderUtil {
     }
 
     /**
-     * Clears all cached controllers, forcing fresh loads on subsequent invocations.
-     * Call this method if you need to release references and reload controllers.
+     * Clears all cached controllers and views, forcing fresh loads on subsequent
+     * invocations. Call this method if you need to release references and reload
+     * controllers.
      */
     public static void clearCache() {
         controllerCache.clear();
+        viewCache.clear();
     }
 }
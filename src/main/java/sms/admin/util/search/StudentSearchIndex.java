@@ -0,0 +1,303 @@
+package sms.admin.util.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import dev.finalproject.models.Student;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+/**
+ * A substring search index over the searchable fields of a set of students:
+ * first, middle and last name, email, contact number and student ID.
+ *
+ * <p>
+ * Each field is lowercased once, when the student is indexed, and every
+ * three-character sequence (trigram) of it is added to a posting set. A query
+ * of three or more characters intersects the postings of its trigrams, smallest
+ * first, and only checks the few remaining candidates; shorter queries scan the
+ * pre-normalized fields. Either way the result matches what a case-insensitive
+ * {@code contains} over the raw fields would return.
+ * </p>
+ *
+ * <p>
+ * The index can be bound to an observable list, in which case students added
+ * to or removed from the list are indexed incrementally. Students edited in
+ * place must be re-indexed with {@link #update(Student)}. Queries may run on
+ * any thread, including through {@link #queryAsync(String)}, while updates
+ * happen on the JavaFX thread.
+ * </p>
+ */
+public final class StudentSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private static final ExecutorService QUERY_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "student-search");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, String[]> fieldsById = new HashMap<>();
+    private final Map<Long, Set<Integer>> postings = new HashMap<>();
+    private final ListChangeListener<Student> listener = this::onChanged;
+    private ObservableList<Student> boundList;
+
+    /**
+     * Creates an empty index.
+     */
+    public StudentSearchIndex() {
+    }
+
+    /**
+     * Creates an index of the given students.
+     *
+     * @param students the students to index
+     */
+    public StudentSearchIndex(Collection<? extends Student> students) {
+        students.forEach(this::add);
+    }
+
+    /**
+     * Indexes the students of a list and keeps the index in step with
+     * additions and removals. Any previously bound list is released.
+     *
+     * @param students the list to follow
+     */
+    public void bind(ObservableList<Student> students) {
+        unbind();
+        rebuild(students);
+        boundList = students;
+        students.addListener(listener);
+    }
+
+    /**
+     * Stops following the bound list, if any.
+     */
+    public void unbind() {
+        if (boundList != null) {
+            boundList.removeListener(listener);
+            boundList = null;
+        }
+    }
+
+    /**
+     * Indexes a student, replacing any earlier entry with the same ID.
+     *
+     * @param student the student
+     */
+    public void add(Student student) {
+        if (student == null) {
+            return;
+        }
+        String[] fields = normalizedFields(student);
+        lock.writeLock().lock();
+        try {
+            removeLocked(student.getStudentID());
+            fieldsById.put(student.getStudentID(), fields);
+            for (String field : fields) {
+                for (int i = 0; i + GRAM <= field.length(); i++) {
+                    postings.computeIfAbsent(gram(field, i), key -> new HashSet<>()).add(student.getStudentID());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-indexes a student whose fields were edited.
+     *
+     * @param student the student
+     */
+    public void update(Student student) {
+        add(student);
+    }
+
+    /**
+     * Removes a student from the index.
+     *
+     * @param studentId the student ID
+     */
+    public void remove(int studentId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(studentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the contents of the index.
+     *
+     * @param students the students to index
+     */
+    public void rebuild(Collection<? extends Student> students) {
+        lock.writeLock().lock();
+        try {
+            fieldsById.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        students.forEach(this::add);
+    }
+
+    /**
+     * Returns whether a student is indexed.
+     *
+     * @param studentId the student ID
+     * @return true if the student is in the index
+     */
+    public boolean contains(int studentId) {
+        lock.readLock().lock();
+        try {
+            return fieldsById.containsKey(studentId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed students.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return fieldsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the students with a field containing the query, ignoring case.
+     *
+     * @param query the search text
+     * @return the IDs of the matching students, or null if the query is empty
+     *         (everything matches)
+     */
+    public Set<Integer> query(String query) {
+        String needle = normalize(query);
+        if (needle.isEmpty()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Collection<Integer> candidates = needle.length() < GRAM ? fieldsById.keySet() : candidates(needle);
+            Set<Integer> matches = new HashSet<>();
+            for (Integer id : candidates) {
+                for (String field : fieldsById.get(id)) {
+                    if (field.contains(needle)) {
+                        matches.add(id);
+                        break;
+                    }
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs {@link #query(String)} on the shared search thread.
+     *
+     * @param query the search text
+     * @return the future result
+     */
+    public CompletableFuture<Set<Integer>> queryAsync(String query) {
+        return CompletableFuture.supplyAsync(() -> query(query), QUERY_EXECUTOR);
+    }
+
+    /**
+     * Intersects the postings of the query's trigrams.
+     */
+    private Collection<Integer> candidates(String needle) {
+        List<Set<Integer>> sets = new ArrayList<>(needle.length() - GRAM + 1);
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            Set<Integer> posting = postings.get(gram(needle, i));
+            if (posting == null) {
+                return Set.of();
+            }
+            sets.add(posting);
+        }
+        sets.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        Set<Integer> result = new HashSet<>(sets.get(0));
+        for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+            result.retainAll(sets.get(i));
+        }
+        return result;
+    }
+
+    private void removeLocked(int studentId) {
+        String[] fields = fieldsById.remove(studentId);
+        if (fields == null) {
+            return;
+        }
+        for (String field : fields) {
+            for (int i = 0; i + GRAM <= field.length(); i++) {
+                long key = gram(field, i);
+                Set<Integer> posting = postings.get(key);
+                if (posting != null) {
+                    posting.remove(studentId);
+                    if (posting.isEmpty()) {
+                        postings.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private void onChanged(ListChangeListener.Change<? extends Student> change) {
+        while (change.next()) {
+            if (change.wasRemoved() && change.getList().size() == change.getAddedSize()) {
+                // setAll: cheaper to start over than to unindex every student
+                rebuild(change.getList());
+                return;
+            }
+            if (change.wasRemoved()) {
+                change.getRemoved().forEach(student -> {
+                    if (student != null) {
+                        remove(student.getStudentID());
+                    }
+                });
+            }
+            if (change.wasAdded()) {
+                change.getAddedSubList().forEach(this::add);
+            }
+        }
+    }
+
+    private static String[] normalizedFields(Student student) {
+        return new String[] {
+                normalize(student.getFirstName()),
+                normalize(student.getMiddleName()),
+                normalize(student.getLastName()),
+                normalize(student.getEmail()),
+                normalize(student.getContact()),
+                String.valueOf(student.getStudentID())
+        };
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static long gram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+}
@@ -0,0 +1,184 @@
+package sms.admin.util.attendance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sms.admin.util.attendance.AttendanceIngestQueue.Slot;
+
+class AttendanceJournalTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 9, 2);
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() {
+        file = directory.resolve("journal").resolve("attendance.journal");
+    }
+
+    @Test
+    void replaysUncommittedEventsInOrder() throws IOException {
+        try (AttendanceJournal journal = AttendanceJournal.open(file)) {
+            assertTrue(journal.pending().isEmpty());
+            journal.append(1, DAY, Slot.TIME_IN_AM, 730);
+            journal.append(2, DAY, Slot.TIME_IN_AM, 735);
+            journal.append(1, DAY, Slot.TIME_OUT_AM, 1200);
+            journal.sync();
+        }
+
+        try (AttendanceJournal journal = AttendanceJournal.open(file)) {
+            List<AttendanceJournal.Entry> pending = journal.pending();
+            assertEquals(List.of(
+                    new AttendanceJournal.Entry(1, 1, DAY, Slot.TIME_IN_AM, 730),
+                    new AttendanceJournal.Entry(2, 2, DAY, Slot.TIME_IN_AM, 735),
+                    new AttendanceJournal.Entry(3, 1, DAY, Slot.TIME_OUT_AM, 1200)), pending);
+        }
+    }
+
+    @Test
+    void keepsLastEventPerStudentDayAndSlot() throws IOException {
+        try (AttendanceJournal journal = AttendanceJournal.open(file)) {
+            journal.append(1, DAY, Slot.TIME_IN_AM, 730);
+            journal.append(2, DAY, Slot.TIME_IN_AM, 731);
+            journal.append(1, DAY, Slot.TIME_IN_AM, 745);
+            journal.append(1, DAY.plusDays(1), Slot.TIME_IN_AM, 700);
+        }
+
+        try (AttendanceJournal journal = AttendanceJournal.open(file)) {
+            assertEquals(List.of(
+                    new AttendanceJournal.Entry(2, 2, DAY, Slot.TIME_IN_AM, 731),
+                    new AttendanceJournal.Entry(3, 1, DAY, Slot.TIME_IN_AM, 745),
+                    new AttendanceJournal.Entry(4, 1, DAY.plusDays(1), Slot.TIME_IN_AM, 700)),
+                    journal.pending());
+        }
+    }
+
+    @Test
+    void skipsEventsCoveredByCommitRecord() throws IOException {
+        try (AttendanceJournal journal = AttendanceJournal.open(file)) {
+            journal.append(1, DAY, Slot.TIME_IN_AM, 730);
+            long committed = journal.append(2, DAY, Slot.TIME_IN_AM, 735);
+            journal.append(3, DAY, Slot.TIME_IN_AM, 740);
+            journal.commit(committed);
+        }
+
+        try (AttendanceJournal journal = AttendanceJournal.open(file)) {
+            assertEquals(List.of(new AttendanceJournal.Entry(3, 3, DAY, Slot.TIME_IN_AM, 740)),
+                    journal.pending());
+        }
+    }
+
+    @Test
+    void truncatesWhenEverythingIsCommitted() throws IOException {
+        try (AttendanceJournal journal = AttendanceJournal.open(file)) {
+            journal.append(1, DAY, Slot.TIME_IN_AM, 730);
+            long last = journal.append(2, DAY, Slot.TIME_IN_AM, 735);
+            journal.commit(last);
+            assertEquals(0, Files.size(file));
+
+            // Appending after the truncation still works
+            journal.append(3, DAY, Slot.TIME_IN_PM, 1300);
+        }
+
+        try (AttendanceJournal journal = AttendanceJournal.open(file)) {
+            List<AttendanceJournal.Entry> pending = journal.pending();
+            assertEquals(1, pending.size());
+            assertEquals(3, pending.get(0).studentId());
+        }
+    }
+
+    @Test
+    void continuesSequenceAfterReopen() throws IOException {
+        try (AttendanceJournal journal = AttendanceJournal.open(file)) {
+            journal.append(1, DAY, Slot.TIME_IN_AM, 730);
+            journal.append(2, DAY, Slot.TIME_IN_AM, 735);
+        }
+
+        try (AttendanceJournal journal = AttendanceJournal.open(file)) {
+            assertEquals(3, journal.append(3, DAY, Slot.TIME_IN_AM, 740));
+        }
+    }
+
+    @Test
+    void dropsTornTail() throws IOException {
+        long recordBytes = writeTwoEvents();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(2 * recordBytes - 5);
+        }
+
+        try (AttendanceJournal journal = AttendanceJournal.open(file)) {
+            assertEquals(List.of(new AttendanceJournal.Entry(1, 1, DAY, Slot.TIME_IN_AM, 730)),
+                    journal.pending());
+            assertEquals(recordBytes, Files.size(file));
+
+            // New events go after the last good record
+            assertEquals(2, journal.append(3, DAY, Slot.TIME_IN_AM, 740));
+        }
+
+        try (AttendanceJournal journal = AttendanceJournal.open(file)) {
+            assertEquals(2, journal.pending().size());
+            assertEquals(3, journal.pending().get(1).studentId());
+        }
+    }
+
+    @Test
+    void dropsCorruptRecordAndEverythingAfterIt() throws IOException {
+        long recordBytes = writeTwoEvents();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer oneByte = ByteBuffer.allocate(1);
+            long offset = recordBytes + 10; // Inside the second record's body
+            channel.read(oneByte, offset);
+            oneByte.put(0, (byte) (oneByte.get(0) ^ 0xFF)).rewind();
+            channel.write(oneByte, offset);
+        }
+
+        try (AttendanceJournal journal = AttendanceJournal.open(file)) {
+            assertEquals(List.of(new AttendanceJournal.Entry(1, 1, DAY, Slot.TIME_IN_AM, 730)),
+                    journal.pending());
+            assertEquals(recordBytes, Files.size(file));
+        }
+    }
+
+    @Test
+    void refusesSecondOpenOfSameFile() throws IOException {
+        try (AttendanceJournal journal = AttendanceJournal.open(file)) {
+            assertThrows(IOException.class, () -> AttendanceJournal.open(file));
+        }
+
+        // The lock is released on close
+        AttendanceJournal.open(file).close();
+    }
+
+    /**
+     * Writes two events for different students and returns the size of one
+     * record.
+     */
+    private long writeTwoEvents() throws IOException {
+        long recordBytes;
+        try (AttendanceJournal journal = AttendanceJournal.open(file)) {
+            journal.append(1, DAY, Slot.TIME_IN_AM, 730);
+            journal.sync();
+            recordBytes = Files.size(file);
+            journal.append(2, DAY, Slot.TIME_IN_AM, 735);
+        }
+        assertEquals(2 * recordBytes, Files.size(file));
+        return recordBytes;
+    }
+}
@@ -0,0 +1,183 @@
+package sms.admin.util.enrollment;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CsvReaderTest {
+
+    @Test
+    void readsPlainRecords() throws IOException {
+        List<CsvReader.Row> rows = readAll("a,b,c\n1,,3\n");
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[] { "a", "b", "c" }, rows.get(0).fields());
+        assertArrayEquals(new String[] { "1", "", "3" }, rows.get(1).fields());
+        assertEquals(1, rows.get(0).line());
+        assertEquals(2, rows.get(1).line());
+    }
+
+    @Test
+    void readsLastRecordWithoutLineBreak() throws IOException {
+        List<CsvReader.Row> rows = readAll("a,b\nc,d");
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[] { "c", "d" }, rows.get(1).fields());
+    }
+
+    @Test
+    void unquotesCommasAndDoubledQuotes() throws IOException {
+        List<CsvReader.Row> rows = readAll("\"Cruz, Juan\",\"say \"\"hi\"\"\",\"\"\n");
+
+        assertArrayEquals(new String[] { "Cruz, Juan", "say \"hi\"", "" }, rows.get(0).fields());
+        assertFalse(rows.get(0).isMalformed());
+    }
+
+    @Test
+    void keepsLineBreaksInsideQuotedFields() throws IOException {
+        List<CsvReader.Row> rows = readAll("a,\"line 1\nline 2\",c\nd,e\n");
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[] { "a", "line 1\nline 2", "c" }, rows.get(0).fields());
+        assertEquals(1, rows.get(0).line());
+        assertArrayEquals(new String[] { "d", "e" }, rows.get(1).fields());
+        assertEquals(3, rows.get(1).line());
+    }
+
+    @Test
+    void acceptsCrlfLineEndings() throws IOException {
+        List<CsvReader.Row> rows = readAll("a,b\r\n\"x\r\ny\",z\r\nlast\r\n");
+
+        assertEquals(3, rows.size());
+        assertArrayEquals(new String[] { "a", "b" }, rows.get(0).fields());
+        assertArrayEquals(new String[] { "x\r\ny", "z" }, rows.get(1).fields());
+        assertArrayEquals(new String[] { "last" }, rows.get(2).fields());
+        assertEquals(2, rows.get(1).line());
+        assertEquals(4, rows.get(2).line());
+    }
+
+    @Test
+    void acceptsCrLineEndings() throws IOException {
+        List<CsvReader.Row> rows = readAll("a,b\r\"x\ry\",z\rlast\r");
+
+        assertEquals(3, rows.size());
+        assertArrayEquals(new String[] { "a", "b" }, rows.get(0).fields());
+        assertArrayEquals(new String[] { "x\ry", "z" }, rows.get(1).fields());
+        assertArrayEquals(new String[] { "last" }, rows.get(2).fields());
+        assertEquals(4, rows.get(2).line());
+    }
+
+    @Test
+    void skipsByteOrderMark() throws IOException {
+        List<CsvReader.Row> rows = readAll("\uFEFFfirst,second\n");
+
+        assertArrayEquals(new String[] { "first", "second" }, rows.get(0).fields());
+    }
+
+    @Test
+    void readsNothingFromByteOrderMarkAlone() throws IOException {
+        assertTrue(readAll("\uFEFF").isEmpty());
+    }
+
+    @Test
+    void reportsBlankLines() throws IOException {
+        List<CsvReader.Row> rows = readAll("a\n\nb\n");
+
+        assertEquals(3, rows.size());
+        assertTrue(rows.get(1).isBlank());
+        assertFalse(rows.get(0).isBlank());
+    }
+
+    @Test
+    void rejectsOverLengthRecordAndContinues() throws IOException {
+        String longField = "x".repeat(CsvReader.MAX_RECORD_LENGTH + 10);
+        List<CsvReader.Row> rows = readAll(longField + ",tail\nnext,row\n");
+
+        assertEquals(2, rows.size());
+        assertTrue(rows.get(0).isMalformed());
+        assertArrayEquals(new String[] { "next", "row" }, rows.get(1).fields());
+        assertFalse(rows.get(1).isMalformed());
+        assertEquals(2, rows.get(1).line());
+    }
+
+    @Test
+    void acceptsRecordOfMaximumLength() throws IOException {
+        // The line break counts towards the length
+        String field = "x".repeat(CsvReader.MAX_RECORD_LENGTH - 1);
+        List<CsvReader.Row> rows = readAll(field + "\n");
+
+        assertFalse(rows.get(0).isMalformed());
+        assertEquals(field, rows.get(0).fields()[0]);
+    }
+
+    @Test
+    void rejectsTextAfterClosingQuoteAndContinues() throws IOException {
+        List<CsvReader.Row> rows = readAll("\"ab\"c,d\ne,f\n");
+
+        assertEquals(2, rows.size());
+        assertTrue(rows.get(0).isMalformed());
+        assertArrayEquals(new String[] { "e", "f" }, rows.get(1).fields());
+    }
+
+    @Test
+    void rejectsUnterminatedQuoteAndResumesOnNextLine() throws IOException {
+        List<CsvReader.Row> rows = readAll("a,\"open\nb,c\r\nd,e\n");
+
+        assertEquals(3, rows.size());
+        assertTrue(rows.get(0).isMalformed());
+        assertArrayEquals(new String[] { "b", "c" }, rows.get(1).fields());
+        assertEquals(2, rows.get(1).line());
+        assertArrayEquals(new String[] { "d", "e" }, rows.get(2).fields());
+        assertEquals(3, rows.get(2).line());
+    }
+
+    @Test
+    void rejectsOverLengthQuotedFieldAndResumesOnNextLine() throws IOException {
+        StringBuilder csv = new StringBuilder("a,\"open\r\n");
+        int count = CsvReader.MAX_RECORD_LENGTH / 4 + 100;
+        for (int i = 0; i < count; i++) {
+            csv.append("b,c\n");
+        }
+        List<CsvReader.Row> rows = readAll(csv.toString());
+
+        assertEquals(count + 1, rows.size());
+        assertTrue(rows.get(0).isMalformed());
+        assertArrayEquals(new String[] { "b", "c" }, rows.get(count).fields());
+        assertFalse(rows.get(count).isMalformed());
+        assertEquals(count + 1, rows.get(count).line());
+    }
+
+    @Test
+    void readsRecordsAcrossBufferBoundaries() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            csv.append(i).append(",\"name ").append(i).append("\"\r\n");
+        }
+        List<CsvReader.Row> rows = readAll(csv.toString());
+
+        assertEquals(5_000, rows.size());
+        assertArrayEquals(new String[] { "4999", "name 4999" }, rows.get(4_999).fields());
+        assertEquals(5_000, rows.get(4_999).line());
+    }
+
+    private static List<CsvReader.Row> readAll(String csv) throws IOException {
+        List<CsvReader.Row> rows = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            CsvReader.Row row;
+            while ((row = reader.readRow()) != null) {
+                rows.add(row);
+            }
+            assertNull(reader.readRow());
+        }
+        return rows;
+    }
+}